@@ -0,0 +1,80 @@
+package com.silverbars.orderbook.benchmark;
+
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.TradeListener;
+import com.silverbars.orderbook.impl.FixedPointOrderBookSide;
+import com.silverbars.orderbook.impl.LevelIndex;
+import com.silverbars.orderbook.impl.LiveOrderBook;
+import com.silverbars.orderbook.impl.OrderBookSide;
+import com.silverbars.orderbook.impl.OrderBookSideImpl;
+import com.silverbars.orderbook.impl.OrderStorage;
+import com.silverbars.orderbook.impl.SingleWriterOrderBookSide;
+import com.silverbars.orderbook.impl.SummaryMode;
+import com.silverbars.orderbook.impl.SummaryStrategy;
+
+/**
+ * OrderBookSide configurations compared by the benchmarks. REBUILD is the original OrderBookSideImpl behaviour and
+ * serves as the baseline.
+ */
+public enum BookType {
+    REBUILD {
+        @Override
+        OrderBookSide createSide(final Side side) {
+            return new OrderBookSideImpl(side, SummaryMode.REBUILD, LevelIndex.HASHED);
+        }
+    },
+    INCREMENTAL {
+        @Override
+        OrderBookSide createSide(final Side side) {
+            return new OrderBookSideImpl(side, SummaryMode.INCREMENTAL, LevelIndex.HASHED);
+        }
+    },
+    SORTED {
+        @Override
+        OrderBookSide createSide(final Side side) {
+            return new OrderBookSideImpl(side, SummaryMode.REBUILD, LevelIndex.SORTED);
+        }
+    },
+    FIXED_POINT {
+        @Override
+        OrderBookSide createSide(final Side side) {
+            return new FixedPointOrderBookSide(side, OrderStorage.BOXED);
+        }
+    },
+    FIXED_POINT_PRIMITIVE {
+        @Override
+        OrderBookSide createSide(final Side side) {
+            return new FixedPointOrderBookSide(side, OrderStorage.PRIMITIVE);
+        }
+    },
+    FIXED_POINT_LAZY {
+        @Override
+        OrderBookSide createSide(final Side side) {
+            return new FixedPointOrderBookSide(side, OrderStorage.PRIMITIVE, 1024, SummaryStrategy.LAZY);
+        }
+    },
+    FIXED_POINT_OFF_HEAP {
+        @Override
+        OrderBookSide createSide(final Side side) {
+            return new FixedPointOrderBookSide(side, OrderStorage.OFF_HEAP);
+        }
+    },
+    SINGLE_WRITER {
+        @Override
+        OrderBookSide createSide(final Side side) {
+            return new SingleWriterOrderBookSide(new OrderBookSideImpl(side, SummaryMode.INCREMENTAL, LevelIndex.HASHED));
+        }
+    };
+
+    abstract OrderBookSide createSide(Side side);
+
+    OrderBook createOrderBook(){
+        return new LiveOrderBook(createSide(Side.SELL), createSide(Side.BUY));
+    }
+
+    // only types whose sides support OrderBookSide.match
+    OrderBook createMatchingOrderBook(final TradeListener tradeListener){
+        return new LiveOrderBook(createSide(Side.SELL), createSide(Side.BUY), tradeListener);
+    }
+}
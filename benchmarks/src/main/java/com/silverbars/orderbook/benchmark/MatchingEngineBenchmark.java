@@ -0,0 +1,64 @@
+package com.silverbars.orderbook.benchmark;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.Side;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency distribution of a matching OrderBook. Each operation adds one order: alternately a sell that
+ * rests inside the spread and a buy that crosses it and fills it completely, so every second order trades and the book
+ * does not grow. The book holds levels of resting orders either side of the spread that are never touched.
+ *
+ * SampleTime reports the latency histogram - the p99.99 and max percentiles as well as the mean. Throughput is in
+ * orders per microsecond, so 1.0 is a million orders a second.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchingEngineBenchmark {
+    // power of two so the next order can be found with a mask
+    private final static int ORDERS = 1 << 16;
+    private final static long BUY_PRICE_TICKS = 1_000;
+    private final static long SPREAD_TICKS = 50;
+    private final static long QUANTITY_TICKS = 15;
+
+    @Param({"SORTED", "INCREMENTAL", "SINGLE_WRITER"})
+    private BookType bookType;
+
+    @Param({"10", "1000"})
+    private int levels;
+
+    private OrderBook orderBook;
+    private Order[] orders;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(final Blackhole blackhole) throws OrderBookException {
+        orderBook = bookType.createMatchingOrderBook(blackhole::consume);
+        for( int i = 0; i < levels; i++){
+            orderBook.addOrder(Order.fromTicks("bid-" + i, "user", QUANTITY_TICKS, BUY_PRICE_TICKS - i, Side.BUY));
+            orderBook.addOrder(Order.fromTicks("ask-" + i, "user", QUANTITY_TICKS, BUY_PRICE_TICKS + SPREAD_TICKS + i, Side.SELL));
+        }
+        orders = new Order[ORDERS];
+        for( int i = 0; i < ORDERS; i += 2){
+            // inside the spread, so the sell only rests and the buy only fills it
+            final long priceTicks = BUY_PRICE_TICKS + 1 + (i / 2) % (SPREAD_TICKS - 1);
+            orders[i] = Order.fromTicks("sell-" + i, "user" + (i % 100), QUANTITY_TICKS, priceTicks, Side.SELL);
+            orders[i + 1] = Order.fromTicks("buy-" + i, "user" + (i % 100), QUANTITY_TICKS, priceTicks, Side.BUY);
+        }
+    }
+
+    @Benchmark
+    public void addOrder() throws OrderBookException {
+        orderBook.addOrder(orders[next]);
+        next = (next + 1) & (ORDERS - 1);
+    }
+}
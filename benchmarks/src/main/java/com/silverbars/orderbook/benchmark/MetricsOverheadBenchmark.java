@@ -0,0 +1,54 @@
+package com.silverbars.orderbook.benchmark;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.impl.LiveOrderBook;
+import com.silverbars.orderbook.metrics.HistogramOrderBookMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording metrics. Each operation adds an order to a book of levels price levels and cancels it again, then
+ * reads the summary, with and without HistogramOrderBookMetrics set. Add -prof gc to confirm recording does not allocate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsOverheadBenchmark {
+    @Param({"SORTED", "FIXED_POINT_PRIMITIVE"})
+    BookType bookType;
+
+    @Param({"false", "true"})
+    boolean metrics;
+
+    @Param({"100"})
+    int levels;
+
+    private LiveOrderBook orderBook;
+    private Order[] orders;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws OrderBookException {
+        orderBook = (LiveOrderBook) bookType.createOrderBook();
+        Orders.fill(orderBook, Side.SELL, levels, 1);
+        orders = Orders.create("cycle-", 1024, Side.SELL, levels);
+        if( metrics){
+            orderBook.setMetrics(new HistogramOrderBookMetrics());
+        }
+    }
+
+    @Benchmark
+    public List<String> addCancelSummary() throws OrderBookException {
+        final Order order = orders[next++ & (orders.length - 1)];
+        orderBook.addOrder(order);
+        orderBook.cancelOrder(order);
+        return orderBook.getSummary(Side.SELL);
+    }
+}
@@ -0,0 +1,100 @@
+package com.silverbars.orderbook.benchmark;
+
+import com.silverbars.orderbook.DepthSnapshot;
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.Side;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Steady state throughput of the OrderBook hot paths against a book holding levels * ordersPerLevel resting orders.
+ * Each write adds an order at an existing level and cancels it again, so the book does not grow.
+ *
+ * The readWrite group runs one writer against three getSummary readers by default. Vary the ratio with -tg, e.g.
+ * -tg 1,7. Add -prof gc to report allocation rate per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderBookBenchmark {
+    // orders each writer thread cycles through
+    private final static int WRITER_ORDERS = 1024;
+
+    @Param
+    private BookType bookType;
+
+    @Param
+    private Side side;
+
+    @Param({"10", "1000"})
+    private int levels;
+
+    @Param({"1", "10"})
+    private int ordersPerLevel;
+
+    private OrderBook orderBook;
+
+    private final AtomicInteger writerIds = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws OrderBookException {
+        orderBook = bookType.createOrderBook();
+        Orders.fill(orderBook, side, levels, ordersPerLevel);
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        private Order[] orders;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(final OrderBookBenchmark benchmark) {
+            orders = Orders.create("writer" + benchmark.writerIds.incrementAndGet() + "-", WRITER_ORDERS, benchmark.side, benchmark.levels);
+        }
+
+        Order next(){
+            final Order order = orders[next];
+            next = (next + 1) % orders.length;
+            return order;
+        }
+    }
+
+    @Benchmark
+    public void addAndCancelOrder(final Writer writer) throws OrderBookException {
+        final Order order = writer.next();
+        orderBook.addOrder(order);
+        orderBook.cancelOrder(order);
+    }
+
+    @Benchmark
+    public List<String> getSummary() {
+        return orderBook.getSummary(side);
+    }
+
+    @Benchmark
+    public DepthSnapshot getDepth() {
+        return orderBook.getDepth(side);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void writer(final Writer writer) throws OrderBookException {
+        addAndCancelOrder(writer);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public List<String> reader() {
+        return getSummary();
+    }
+}
@@ -0,0 +1,82 @@
+package com.silverbars.orderbook.benchmark;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.Side;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of addOrder and cancelOrder measured separately. Each measured batch adds (or cancels) BATCH_SIZE orders spread
+ * over the existing levels of a book holding levels * ordersPerLevel resting orders. The book is rebuilt before every
+ * batch, so report figures are the time for the whole batch. Add -prof gc to report allocation per batch.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = OrderBookMutationBenchmark.BATCH_SIZE)
+@Measurement(iterations = 10, batchSize = OrderBookMutationBenchmark.BATCH_SIZE)
+@Fork(1)
+public class OrderBookMutationBenchmark {
+    static final int BATCH_SIZE = 10_000;
+
+    @State(Scope.Thread)
+    public static class BookState {
+        @Param
+        BookType bookType;
+
+        @Param
+        Side side;
+
+        @Param({"10", "1000"})
+        int levels;
+
+        @Param({"1", "10"})
+        int ordersPerLevel;
+
+        OrderBook orderBook;
+        Order[] orders;
+        int next;
+
+        @Setup(Level.Trial)
+        public void createOrders() {
+            orders = Orders.create("batch-", BATCH_SIZE, side, levels);
+        }
+
+        void reset() throws OrderBookException {
+            orderBook = bookType.createOrderBook();
+            Orders.fill(orderBook, side, levels, ordersPerLevel);
+            next = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class AddState extends BookState {
+        @Setup(Level.Iteration)
+        public void setUp() throws OrderBookException {
+            reset();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class CancelState extends BookState {
+        @Setup(Level.Iteration)
+        public void setUp() throws OrderBookException {
+            reset();
+            for( Order order : orders){
+                orderBook.addOrder(order);
+            }
+        }
+    }
+
+    @Benchmark
+    public void addOrder(final AddState state) throws OrderBookException {
+        state.orderBook.addOrder(state.orders[state.next++]);
+    }
+
+    @Benchmark
+    public void cancelOrder(final CancelState state) throws OrderBookException {
+        state.orderBook.cancelOrder(state.orders[state.next++]);
+    }
+}
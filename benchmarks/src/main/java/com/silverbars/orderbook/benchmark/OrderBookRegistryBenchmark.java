@@ -0,0 +1,80 @@
+package com.silverbars.orderbook.benchmark;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.registry.OrderBookRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write throughput of an OrderBookRegistry as shards are added. Each producer thread adds and cancels orders across all
+ * instruments, submitting a batch asynchronously and then waiting for it, so the shards rather than the producers are
+ * the bottleneck. Compare shards=1 with more shards on a machine with at least that many cores, and vary the producers
+ * with -t.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class OrderBookRegistryBenchmark {
+    private final static int INSTRUMENTS = 64;
+    private final static int LEVELS = 10;
+    static final int BATCH_SIZE = 256;
+
+    @Param({"INCREMENTAL"})
+    private BookType bookType;
+
+    @Param({"1", "4"})
+    private int shards;
+
+    private OrderBookRegistry registry;
+    private String[] instrumentIds;
+
+    private final AtomicInteger producerIds = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws OrderBookException {
+        registry = new OrderBookRegistry(instrumentId -> bookType.createOrderBook(), shards);
+        instrumentIds = new String[INSTRUMENTS];
+        for( int i = 0; i < INSTRUMENTS; i++){
+            instrumentIds[i] = "instrument-" + i;
+            for( Order order : Orders.create("resting-", LEVELS, Side.SELL, LEVELS)){
+                registry.addOrder(instrumentIds[i], order);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        registry.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Producer {
+        private Order[] orders;
+        private final CompletableFuture<?>[] pending = new CompletableFuture<?>[BATCH_SIZE * 2];
+
+        @Setup(Level.Trial)
+        public void setUp(final OrderBookRegistryBenchmark benchmark) {
+            orders = Orders.create("producer" + benchmark.producerIds.incrementAndGet() + "-", BATCH_SIZE, Side.SELL, LEVELS);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE * 2)
+    public void addAndCancelOrders(final Producer producer) {
+        for( int i = 0; i < BATCH_SIZE; i++){
+            final String instrumentId = instrumentIds[i % INSTRUMENTS];
+            producer.pending[2 * i] = registry.addOrderAsync(instrumentId, producer.orders[i]);
+            producer.pending[2 * i + 1] = registry.cancelOrderAsync(instrumentId, producer.orders[i]);
+        }
+        CompletableFuture.allOf(producer.pending).join();
+    }
+}
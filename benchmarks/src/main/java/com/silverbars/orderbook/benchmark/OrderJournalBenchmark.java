@@ -0,0 +1,89 @@
+package com.silverbars.orderbook.benchmark;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.journal.JournalEvent;
+import com.silverbars.orderbook.journal.JournalingOrderBook;
+import com.silverbars.orderbook.journal.OrderJournal;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of journalling OrderBook writes. journalledAddAndCancelOrder can be compared with
+ * OrderBookBenchmark.addAndCancelOrder for the same bookType to see the latency the journal adds to the write path.
+ * Journals are written to a temporary directory that is deleted after each trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderJournalBenchmark {
+    private final static int ORDERS = 1024;
+    private final static int LEVELS = 10;
+    private final static int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    @Param({"INCREMENTAL"})
+    private BookType bookType;
+
+    // 0 only forces events to disk when the journal is closed
+    @Param({"10", "0"})
+    private long syncIntervalMillis;
+
+    private Path directory;
+    private OrderJournal journal;
+    private JournalingOrderBook orderBook;
+    private Order[] orders;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, OrderBookException {
+        directory = Files.createTempDirectory("orderbook-journal");
+        journal = new OrderJournal(directory.resolve("append"), SEGMENT_SIZE, syncIntervalMillis);
+        final OrderBook book = bookType.createOrderBook();
+        // same resting orders as OrderBookBenchmark with 10 levels of 1 order
+        Orders.fill(book, Side.SELL, LEVELS, 1);
+        orderBook = new JournalingOrderBook(book, new OrderJournal(directory.resolve("book"), SEGMENT_SIZE, syncIntervalMillis));
+        orders = Orders.create("journal-", ORDERS, Side.SELL, LEVELS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        orderBook.close();
+        delete(directory);
+    }
+
+    @Benchmark
+    public void append() throws IOException {
+        journal.append(JournalEvent.ADD, nextOrder());
+    }
+
+    @Benchmark
+    public void journalledAddAndCancelOrder() throws OrderBookException {
+        final Order order = nextOrder();
+        orderBook.addOrder(order);
+        orderBook.cancelOrder(order);
+    }
+
+    private Order nextOrder(){
+        final Order order = orders[next];
+        next = (next + 1) % orders.length;
+        return order;
+    }
+
+    static void delete(final Path directory) throws IOException {
+        try( Stream<Path> paths = Files.walk(directory)){
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.silverbars.orderbook.benchmark;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.Side;
+
+/**
+ * Creates the orders used by the benchmarks. Orders are created up front so that Order construction is not measured.
+ */
+final class Orders {
+    // price of the first level in pence
+    private final static long FIRST_PRICE_TICKS = 1_000;
+    private final static long QUANTITY_TICKS = 15;
+    private final static int USERS = 100;
+
+    private Orders() {
+    }
+
+    /**
+     * @param idPrefix prefix making the orderIds unique across calls
+     * @param count number of orders
+     * @param side
+     * @param levels number of distinct prices the orders are spread across
+     * @return orders cycling through the prices of the first levels
+     */
+    static Order[] create(final String idPrefix, final int count, final Side side, final int levels){
+        final Order[] orders = new Order[count];
+        for( int i = 0; i < count; i++){
+            orders[i] = Order.fromTicks(idPrefix + i, "user" + (i % USERS), QUANTITY_TICKS, FIRST_PRICE_TICKS + (i % levels), side);
+        }
+        return orders;
+    }
+
+    /**
+     * Adds ordersPerLevel resting orders at each of levels prices.
+     */
+    static void fill(final OrderBook orderBook, final Side side, final int levels, final int ordersPerLevel) throws OrderBookException{
+        for( Order order : create("resting-", levels * ordersPerLevel, side, levels)){
+            orderBook.addOrder(order);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.silverbars.orderbook.benchmark;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.Side;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rejecting a duplicated feed. Every order is already resting, so each add is rejected as a duplicate - through
+ * addOrder and its OrderBookException, or through tryAddOrder and its OrderResult.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RejectionBenchmark {
+    @Param({"SORTED", "FIXED_POINT_PRIMITIVE"})
+    BookType bookType;
+
+    private OrderBook orderBook;
+    private Order[] orders;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws OrderBookException {
+        orderBook = bookType.createOrderBook();
+        orders = Orders.create("duplicate-", 1024, Side.SELL, 100);
+        for( Order order : orders){
+            orderBook.addOrder(order);
+        }
+    }
+
+    @Benchmark
+    public OrderResult duplicateAddOrder() {
+        try {
+            orderBook.addOrder(orders[next++ & (orders.length - 1)]);
+            return OrderResult.ADDED;
+        }
+        catch (OrderBookException e) {
+            return e.getResult();
+        }
+    }
+
+    @Benchmark
+    public OrderResult duplicateTryAddOrder() {
+        return orderBook.tryAddOrder(orders[next++ & (orders.length - 1)]);
+    }
+}
@@ -0,0 +1,50 @@
+package com.silverbars.orderbook.benchmark;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.Side;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a steady-state add and cancel of the same order on a book with resting orders, with the summary read every
+ * readInterval cycles. Add -prof gc to report allocation per cycle - none for FIXED_POINT_LAZY between summary reads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SteadyStateBenchmark {
+    @Param({"SORTED", "FIXED_POINT_PRIMITIVE", "FIXED_POINT_LAZY"})
+    BookType bookType;
+
+    @Param({"0", "100"})
+    int readInterval;
+
+    private OrderBook orderBook;
+    private Order[] orders;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws OrderBookException {
+        orderBook = bookType.createOrderBook();
+        Orders.fill(orderBook, Side.SELL, 100, 10);
+        // cycled orders open and close levels beyond the resting ones as well as changing them
+        orders = Orders.create("cycle-", 1024, Side.SELL, 150);
+    }
+
+    @Benchmark
+    public OrderResult addAndCancel() {
+        final Order order = orders[next++ & (orders.length - 1)];
+        orderBook.tryAddOrder(order);
+        if( readInterval > 0 && next % readInterval == 0){
+            orderBook.getSummary(Side.SELL);
+        }
+        return orderBook.tryCancelOrder(order);
+    }
+}
@@ -0,0 +1,145 @@
+package com.silverbars.orderbook.benchmark;
+
+import com.silverbars.orderbook.DepthSnapshot;
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.codec.DepthMessage;
+import com.silverbars.orderbook.codec.OrderMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of moving an Order and one side's depth between services - the binary OrderMessage and DepthMessage against
+ * the UTF-8 text of Order.toString and of the summary lines. Decoding text parses it back into an Order or into level
+ * ticks. Binary decoding either reads the fields in place or creates the Order.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WireCodecBenchmark {
+    private final static int ORDERS = 1024;
+
+    @Param({"10", "100"})
+    int levels;
+
+    private Order[] orders;
+    private ByteBuffer[] orderMessages;
+    private byte[][] orderTexts;
+    private DepthSnapshot depth;
+    private List<String> summary;
+    private ByteBuffer depthMessage;
+    private byte[] summaryText;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    private final OrderMessage orderMessage = new OrderMessage();
+    private final DepthMessage depthReader = new DepthMessage();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws OrderBookException {
+        orders = Orders.create("order-", ORDERS, Side.SELL, levels);
+        orderMessages = new ByteBuffer[ORDERS];
+        orderTexts = new byte[ORDERS][];
+        for( int i = 0; i < ORDERS; i++){
+            orderMessages[i] = ByteBuffer.allocateDirect(OrderMessage.ENCODED_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            OrderMessage.encode(orders[i], orderMessages[i], 0);
+            orderTexts[i] = orders[i].toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        final OrderBook orderBook = BookType.SORTED.createOrderBook();
+        Orders.fill(orderBook, Side.SELL, levels, 4);
+        depth = orderBook.getDepth(Side.SELL);
+        summary = orderBook.getSummary(Side.SELL);
+        depthMessage = ByteBuffer.allocateDirect(DepthMessage.encodedLength(levels)).order(ByteOrder.LITTLE_ENDIAN);
+        DepthMessage.encode(depth, depthMessage, 0);
+        summaryText = String.join("\n", summary).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int encodeOrderBinary() {
+        return OrderMessage.encode(orders[next++ & (ORDERS - 1)], buffer, 0);
+    }
+
+    @Benchmark
+    public int encodeOrderText() {
+        final byte[] text = orders[next++ & (ORDERS - 1)].toString().getBytes(StandardCharsets.UTF_8);
+        buffer.clear();
+        buffer.put(text);
+        return text.length;
+    }
+
+    @Benchmark
+    public long decodeOrderBinaryInPlace() {
+        orderMessage.wrap(orderMessages[next++ & (ORDERS - 1)], 0);
+        return orderMessage.getPriceTicks() + orderMessage.getQuantityTicks() + orderMessage.getSide().ordinal()
+                + orderMessage.getOrderIdLength();
+    }
+
+    @Benchmark
+    public Order decodeOrderBinary() {
+        return orderMessage.wrap(orderMessages[next++ & (ORDERS - 1)], 0).toOrder();
+    }
+
+    @Benchmark
+    public Order decodeOrderText() {
+        return parseOrder(new String(orderTexts[next++ & (ORDERS - 1)], StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public int encodeDepthBinary() {
+        return DepthMessage.encode(depth, buffer, 0);
+    }
+
+    @Benchmark
+    public int encodeSummaryText() {
+        final byte[] text = String.join("\n", summary).getBytes(StandardCharsets.UTF_8);
+        buffer.clear();
+        buffer.put(text);
+        return text.length;
+    }
+
+    @Benchmark
+    public long decodeDepthBinary() {
+        depthReader.wrap(depthMessage, 0);
+        long total = 0;
+        for( int i = 0; i < depthReader.getLevelCount(); i++){
+            total += depthReader.getPriceTicks(i) * depthReader.getQuantityTicks(i);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long decodeSummaryText() {
+        long total = 0;
+        for( String line : new String(summaryText, StandardCharsets.UTF_8).split("\n")){
+            // "1.5 kg for £10.00"
+            final int kg = line.indexOf(" kg for £");
+            final long quantityTicks = Math.round(Double.parseDouble(line.substring(0, kg)) * 10);
+            final long priceTicks = Math.round(Double.parseDouble(line.substring(kg + 9)) * 100);
+            total += priceTicks * quantityTicks;
+        }
+        return total;
+    }
+
+    // Parses Order{orderId='1', userId='user1', quantity=2.5, price=2.99, side=SELL}
+    private static Order parseOrder(final String text){
+        return new Order(field(text, "orderId='", '\''), field(text, "userId='", '\''),
+                Double.parseDouble(field(text, "quantity=", ',')), Double.parseDouble(field(text, "price=", ',')),
+                Side.valueOf(field(text, "side=", '}')));
+    }
+
+    private static String field(final String text, final String prefix, final char end){
+        final int start = text.indexOf(prefix) + prefix.length();
+        return text.substring(start, text.indexOf(end, start));
+    }
+}
@@ -0,0 +1,132 @@
+package com.silverbars.orderbook.server;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.PriceLevel;
+import com.silverbars.orderbook.Side;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Line based text protocol spoken by a session. Each request is a line of space separated fields and gets a single
+ * response line, except SUMMARY, whose response line is followed by the summary lines.
+ * <pre>
+ * ADD orderId userId quantity price BUY|SELL   ADDED, or the OrderResult the order was rejected with
+ * CANCEL orderId                               CANCELLED, or the OrderResult the cancel was rejected with
+ * CANCEL_ALL userId                            CANCELLED count
+ * SUMMARY BUY|SELL                             SUMMARY count, then count summary lines
+ * BEST BUY|SELL                                BEST price quantity, or BEST NONE
+ * SPREAD                                       SPREAD spread, or SPREAD NONE
+ * QUIT                                         BYE, then the session is closed
+ * </pre>
+ * A request that cannot be parsed gets ERROR and a description, and the session continues. Writes are applied by the
+ * OrderBookWorker; reads go straight to the OrderBook.
+ */
+final class OrderBookProtocol {
+    static final String BYE = "BYE";
+
+    private final OrderBook orderBook;
+    private final OrderBookWorker worker;
+
+    OrderBookProtocol(final OrderBook orderBook, final OrderBookWorker worker) {
+        Objects.requireNonNull(orderBook, "Missing orderBook");
+        Objects.requireNonNull(worker, "Missing worker");
+        this.orderBook = orderBook;
+        this.worker = worker;
+    }
+
+    /**
+     * @param request
+     * @return response, with a line separator between lines but not after the last line
+     * @throws InterruptedException if interrupted while waiting for a write
+     */
+    String handle(final String request) throws InterruptedException {
+        final String[] fields = request.trim().split(" +");
+        try {
+            switch (fields[0]) {
+                case "ADD":
+                    checkFieldCount(fields, 6);
+                    return add(new Order(fields[1], fields[2], Double.parseDouble(fields[3]), Double.parseDouble(fields[4]),
+                            Side.valueOf(fields[5])));
+                case "CANCEL":
+                    checkFieldCount(fields, 2);
+                    return cancel(fields[1]);
+                case "CANCEL_ALL":
+                    checkFieldCount(fields, 2);
+                    return cancelAll(fields[1]);
+                case "SUMMARY":
+                    checkFieldCount(fields, 2);
+                    return summary(orderBook.getSummary(Side.valueOf(fields[1])));
+                case "BEST":
+                    checkFieldCount(fields, 2);
+                    return best(orderBook.getBestLevel(Side.valueOf(fields[1])));
+                case "SPREAD":
+                    checkFieldCount(fields, 1);
+                    final Optional<BigDecimal> spread = orderBook.getSpread();
+                    return spread.isPresent() ? "SPREAD " + spread.get().toPlainString() : "SPREAD NONE";
+                case "QUIT":
+                    return BYE;
+                default:
+                    return "ERROR Unknown request " + fields[0];
+            }
+        }
+        catch (IllegalArgumentException e) {
+            return "ERROR " + e.getMessage();
+        }
+    }
+
+    private String add(final Order order) throws InterruptedException {
+        try {
+            final OrderResult result = worker.execute(book -> book.tryAddOrder(order));
+            return result.name();
+        }
+        catch (OrderBookException e) {
+            return e.getResult().name();
+        }
+    }
+
+    private String cancel(final String orderId) throws InterruptedException {
+        try {
+            worker.execute(book -> book.cancelOrder(orderId));
+            return OrderResult.CANCELLED.name();
+        }
+        catch (OrderBookException e) {
+            return e.getResult().name();
+        }
+    }
+
+    private String cancelAll(final String userId) throws InterruptedException {
+        try {
+            return "CANCELLED " + worker.execute(book -> book.cancelAllForUser(userId)).size();
+        }
+        catch (OrderBookException e) {
+            return e.getResult().name();
+        }
+    }
+
+    private static String summary(final List<String> summary){
+        final StringBuilder response = new StringBuilder("SUMMARY ").append(summary.size());
+        for( String line : summary){
+            response.append('\n').append(line);
+        }
+        return response.toString();
+    }
+
+    private static String best(final Optional<PriceLevel> best){
+        if( !best.isPresent()){
+            return "BEST NONE";
+        }
+        return "BEST " + best.get().getPrice().toPlainString() + " " + best.get().getQuantity().toPlainString();
+    }
+
+    private static void checkFieldCount(final String[] fields, final int count){
+        if( fields.length != count){
+            throw new IllegalArgumentException(fields[0] + " takes " + (count - 1) + " fields");
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.silverbars.orderbook.server;
+
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.impl.LiveOrderBook;
+import com.silverbars.orderbook.impl.OrderBookSideImpl;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves an OrderBook over TCP using the line protocol described by OrderBookProtocol. Each client connection is a
+ * session served on its own thread - a virtual thread on Java 21 and later, so thousands of mostly idle sessions cost
+ * no more than their stacks. Sessions read straight from the OrderBook and queue their writes for a single
+ * OrderBookWorker, so they never contend for the book's write locks.
+ */
+public class OrderBookServer implements AutoCloseable {
+    private final static Logger log = Logger.getLogger(OrderBookServer.class);
+    private final static int DEFAULT_QUEUE_CAPACITY = 1024;
+    private final static int BACKLOG = 1024;
+    private final static long CLOSE_TIMEOUT_SECONDS = 5;
+    // Pause after a failed accept, doubled on each consecutive failure, e.g. while the process is out of file descriptors
+    private final static long MIN_ACCEPT_RETRY_MILLIS = 10;
+    private final static long MAX_ACCEPT_RETRY_MILLIS = 1000;
+
+    private final OrderBook orderBook;
+    private final OrderBookWorker worker;
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessionExecutor;
+    private final Set<Socket> sessions = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+
+    private volatile boolean running = true;
+
+    public OrderBookServer(final OrderBook orderBook, final int port) throws IOException {
+        this(orderBook, port, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param orderBook book to serve - its writes must only be made through this server once started
+     * @param port port to listen on, or 0 for any free port
+     * @param queueCapacity number of writes that can wait for the worker before sessions block
+     * @throws IOException if the port could not be bound
+     */
+    public OrderBookServer(final OrderBook orderBook, final int port, final int queueCapacity) throws IOException {
+        this(orderBook, port, queueCapacity, SessionExecutors.newSessionExecutor("orderbook-session"));
+    }
+
+    OrderBookServer(final OrderBook orderBook, final int port, final int queueCapacity, final ExecutorService sessionExecutor) throws IOException {
+        Objects.requireNonNull(orderBook, "Missing orderBook");
+        Objects.requireNonNull(sessionExecutor, "Missing sessionExecutor");
+        this.orderBook = orderBook;
+        this.worker = new OrderBookWorker(orderBook, queueCapacity);
+        this.sessionExecutor = sessionExecutor;
+        try {
+            this.serverSocket = new ServerSocket(port, BACKLOG);
+        }
+        catch (IOException e) {
+            worker.close();
+            sessionExecutor.shutdown();
+            throw e;
+        }
+        this.acceptor = new Thread(this::acceptSessions, "orderbook-acceptor");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+        log.info("Serving OrderBook on port " + getPort() + " with sessions on "
+                + (SessionExecutors.isVirtualThreadAvailable() ? "virtual" : "platform") + " threads");
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return number of open sessions
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Stops accepting connections, closes every session and then stops the worker once it has applied the writes
+     * already queued.
+     */
+    @Override
+    public void close() {
+        if( !running){
+            return;
+        }
+        running = false;
+        try {
+            serverSocket.close();
+            acceptor.join();
+        }
+        catch (IOException e) {
+            log.warn("Failed to close server socket", e);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for( Socket session : sessions){
+            closeQuietly(session);
+        }
+        sessionExecutor.shutdown();
+        try {
+            if( !sessionExecutor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)){
+                log.warn("Sessions did not finish within " + CLOSE_TIMEOUT_SECONDS + "s of close");
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        worker.close();
+    }
+
+    // Acceptor thread loop
+    private void acceptSessions(){
+        long retryMillis = MIN_ACCEPT_RETRY_MILLIS;
+        while( running){
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            }
+            catch (IOException e) {
+                if( !running){
+                    return;
+                }
+                log.error("Failed to accept connection, retrying in " + retryMillis + "ms", e);
+                try {
+                    Thread.sleep(retryMillis);
+                }
+                catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                retryMillis = Math.min(retryMillis * 2, MAX_ACCEPT_RETRY_MILLIS);
+                continue;
+            }
+            retryMillis = MIN_ACCEPT_RETRY_MILLIS;
+            startSession(socket);
+        }
+    }
+
+    private void startSession(final Socket socket){
+        try {
+            socket.setTcpNoDelay(true);
+            sessions.add(socket);
+            sessionExecutor.execute(new OrderBookSession(socket, new OrderBookProtocol(orderBook, worker),
+                    () -> sessions.remove(socket)));
+        }
+        catch (IOException | RejectedExecutionException e) {
+            sessions.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    private static void closeQuietly(final Socket socket){
+        try {
+            socket.close();
+        }
+        catch (IOException e) {
+            // already closed
+        }
+    }
+
+    /**
+     * Serves an empty OrderBook until the process is stopped.
+     * @param args optional port, 7070 by default
+     * @throws IOException if the port could not be bound
+     * @throws InterruptedException
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        final OrderBookServer server = new OrderBookServer(
+                new LiveOrderBook(new OrderBookSideImpl(Side.SELL), new OrderBookSideImpl(Side.BUY)), port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "orderbook-server-shutdown"));
+        server.acceptor.join();
+    }
+}
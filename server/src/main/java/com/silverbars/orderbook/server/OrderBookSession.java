@@ -0,0 +1,67 @@
+package com.silverbars.orderbook.server;
+
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Serves one client connection, reading requests and writing responses until the client sends QUIT or disconnects.
+ * Each session runs on its own thread and blocks on its socket and on the OrderBookWorker.
+ */
+final class OrderBookSession implements Runnable {
+    private final static Logger log = Logger.getLogger(OrderBookSession.class);
+
+    private final Socket socket;
+    private final OrderBookProtocol protocol;
+    private final Runnable onClose;
+
+    /**
+     * @param socket
+     * @param protocol
+     * @param onClose called once the session's socket has been closed
+     */
+    OrderBookSession(final Socket socket, final OrderBookProtocol protocol, final Runnable onClose) {
+        Objects.requireNonNull(socket, "Missing socket");
+        Objects.requireNonNull(protocol, "Missing protocol");
+        Objects.requireNonNull(onClose, "Missing onClose");
+        this.socket = socket;
+        this.protocol = protocol;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public void run() {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))){
+            String request;
+            while( (request = in.readLine()) != null){
+                final String response = protocol.handle(request);
+                out.write(response);
+                out.write('\n');
+                out.flush();
+                if( OrderBookProtocol.BYE.equals(response)){
+                    return;
+                }
+            }
+        }
+        catch (IOException e) {
+            // the client disconnected, or the server closed the socket
+            log.debug("Session " + socket.getRemoteSocketAddress() + " closed: " + e.getMessage());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            onClose.run();
+        }
+    }
+}
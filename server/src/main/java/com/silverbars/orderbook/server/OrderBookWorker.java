@@ -0,0 +1,170 @@
+package com.silverbars.orderbook.server;
+
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import org.apache.log4j.Logger;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Owns every write to an OrderBook. Sessions queue their writes and a single worker thread applies them in the order they
+ * were queued, so only the worker ever takes the book's write locks and sessions never contend for them. The queue is
+ * bounded - a full queue blocks the submitting session, which only parks it when sessions run on virtual threads.
+ *
+ * Reads do not go through the worker. OrderBook queries are safe to call concurrently with the worker's writes.
+ */
+public class OrderBookWorker implements AutoCloseable {
+    private final static Logger log = Logger.getLogger(OrderBookWorker.class);
+
+    /**
+     * A write applied to the OrderBook on the worker thread.
+     * @param <T> result type
+     */
+    @FunctionalInterface
+    public interface Write<T> {
+        T apply(OrderBook orderBook) throws OrderBookException;
+    }
+
+    // Queued by close to stop the worker once the writes queued before it have been applied
+    private final static PendingWrite<Void> STOP = new PendingWrite<>(orderBook -> null);
+
+    private final OrderBook orderBook;
+    private final BlockingQueue<PendingWrite<?>> writes;
+    private final Thread worker;
+
+    private volatile boolean running = true;
+    // set once the worker thread has stopped, after which no queued write will be applied
+    private volatile boolean stopped;
+
+    public OrderBookWorker(final OrderBook orderBook, final int queueCapacity) {
+        Objects.requireNonNull(orderBook, "Missing orderBook");
+        if( queueCapacity <= 0){
+            throw new IllegalArgumentException("Invalid queueCapacity. Must be greater than 0");
+        }
+        this.orderBook = orderBook;
+        this.writes = new ArrayBlockingQueue<>(queueCapacity);
+        this.worker = new Thread(this::applyWrites, "orderbook-worker");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Queues write, waiting for space in the queue if it is full.
+     * @param write
+     * @return completed with the write's result once applied, or exceptionally with the OrderBookException it threw or
+     * an OrderBookException if the worker was closed before it was applied
+     * @throws InterruptedException if interrupted while waiting for space in the queue
+     */
+    public <T> CompletableFuture<T> submit(final Write<T> write) throws InterruptedException {
+        Objects.requireNonNull(write, "Missing write");
+        final PendingWrite<T> pending = new PendingWrite<>(write);
+        if( !running){
+            pending.result.completeExceptionally(new OrderBookException("OrderBookWorker has been closed"));
+            return pending.result;
+        }
+        writes.put(pending);
+        if( stopped){
+            // close may have drained the queue before our write was queued
+            failPending();
+        }
+        return pending.result;
+    }
+
+    /**
+     * Queues write and waits for it to be applied.
+     * @param write
+     * @return the write's result
+     * @throws OrderBookException if the write threw one, or the worker was closed before it was applied
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public <T> T execute(final Write<T> write) throws OrderBookException, InterruptedException {
+        try {
+            return submit(write).get();
+        }
+        catch (ExecutionException e) {
+            if( e.getCause() instanceof OrderBookException){
+                throw (OrderBookException) e.getCause();
+            }
+            throw new IllegalStateException("Write failed", e.getCause());
+        }
+    }
+
+    /**
+     * @return number of writes waiting to be applied
+     */
+    public int getQueuedCount() {
+        return writes.size();
+    }
+
+    /**
+     * Applies the writes already queued, then stops the worker thread. Writes queued after close fail with an
+     * OrderBookException.
+     */
+    @Override
+    public void close() {
+        if( !running){
+            return;
+        }
+        running = false;
+        try {
+            writes.put(STOP);
+            worker.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            worker.interrupt();
+        }
+        stopped = true;
+        failPending();
+    }
+
+    // Worker thread loop
+    private void applyWrites(){
+        while( true){
+            final PendingWrite<?> pending;
+            try {
+                pending = writes.take();
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+            if( pending == STOP){
+                return;
+            }
+            pending.apply(orderBook);
+        }
+    }
+
+    private void failPending(){
+        PendingWrite<?> pending;
+        while( (pending = writes.poll()) != null){
+            pending.result.completeExceptionally(new OrderBookException("OrderBookWorker has been closed"));
+        }
+    }
+
+    private static final class PendingWrite<T> {
+        private final Write<T> write;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private PendingWrite(final Write<T> write) {
+            this.write = write;
+        }
+
+        private void apply(final OrderBook orderBook){
+            try {
+                result.complete(write.apply(orderBook));
+            }
+            catch (OrderBookException e) {
+                result.completeExceptionally(e);
+            }
+            catch (RuntimeException e) {
+                log.error("Failed to apply write to OrderBook", e);
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.silverbars.orderbook.server;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executors sessions run on. On Java 21 and later each session gets its own virtual thread, so a session
+ * blocked reading its socket or waiting for the OrderBookWorker does not hold a platform thread, and the number of
+ * sessions is bounded by memory rather than by threads. The module is built for Java 17, so the virtual thread executor
+ * is looked up at runtime - on earlier runtimes each session gets a platform thread from a cached pool.
+ */
+final class SessionExecutors {
+    // Executors.newVirtualThreadPerTaskExecutor, or null if the runtime has no virtual threads
+    private final static MethodHandle VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+
+    private SessionExecutors() {
+    }
+
+    /**
+     * @return true if sessions run on virtual threads
+     */
+    static boolean isVirtualThreadAvailable(){
+        return VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * @param threadName name format of platform threads, used when virtual threads are not available
+     * @return executor that runs each task on a new virtual thread, or on a cached daemon platform thread
+     */
+    static ExecutorService newSessionExecutor(final String threadName){
+        if( VIRTUAL_THREAD_EXECUTOR != null){
+            try {
+                return (ExecutorService) VIRTUAL_THREAD_EXECUTOR.invokeExact();
+            }
+            catch (Throwable e) {
+                throw new IllegalStateException("Failed to create virtual thread executor", e);
+            }
+        }
+        return newPlatformExecutor(threadName);
+    }
+
+    static ExecutorService newPlatformExecutor(final String threadName){
+        return Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat(threadName + "-%d").setDaemon(true).build());
+    }
+
+    private static MethodHandle findVirtualThreadExecutor(){
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class));
+        }
+        catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.silverbars.orderbook.server;
+
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.impl.LiveOrderBook;
+import com.silverbars.orderbook.impl.OrderBookSideImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OrderBookProtocolTest {
+    private OrderBookWorker worker;
+    private OrderBookProtocol protocol;
+
+    @Before
+    public void setUp() {
+        final LiveOrderBook orderBook = new LiveOrderBook(new OrderBookSideImpl(Side.SELL), new OrderBookSideImpl(Side.BUY));
+        worker = new OrderBookWorker(orderBook, 16);
+        protocol = new OrderBookProtocol(orderBook, worker);
+    }
+
+    @After
+    public void tearDown() {
+        worker.close();
+    }
+
+    @Test
+    public void addAndCancel() throws Exception {
+        assertEquals("ADDED", protocol.handle("ADD 1 user1 2.5 2.99 SELL"));
+        assertEquals("DUPLICATE_ORDER", protocol.handle("ADD 1 user1 2.5 2.99 SELL"));
+        assertEquals("CANCELLED", protocol.handle("CANCEL 1"));
+        assertEquals("UNKNOWN_ORDER", protocol.handle("CANCEL 1"));
+    }
+
+    @Test
+    public void cancelAll() throws Exception {
+        protocol.handle("ADD 1 user1 2.5 2.99 SELL");
+        protocol.handle("ADD 2 user1 1.0 2.80 BUY");
+        protocol.handle("ADD 3 user2 1.0 2.81 BUY");
+        assertEquals("CANCELLED 2", protocol.handle("CANCEL_ALL user1"));
+        assertEquals("CANCELLED 0", protocol.handle("CANCEL_ALL user1"));
+    }
+
+    @Test
+    public void summary() throws Exception {
+        assertEquals("SUMMARY 0", protocol.handle("SUMMARY SELL"));
+        protocol.handle("ADD 1 user1 2.5 2.99 SELL");
+        protocol.handle("ADD 2 user2 1.5 2.99 SELL");
+        protocol.handle("ADD 3 user2 1.0 3.10 SELL");
+        assertEquals("SUMMARY 2\n4.0 kg for £2.99\n1.0 kg for £3.10", protocol.handle("SUMMARY SELL"));
+    }
+
+    @Test
+    public void bestAndSpread() throws Exception {
+        assertEquals("BEST NONE", protocol.handle("BEST SELL"));
+        assertEquals("SPREAD NONE", protocol.handle("SPREAD"));
+        protocol.handle("ADD 1 user1 2.5 2.99 SELL");
+        protocol.handle("ADD 2 user2 1.5 2.95 SELL");
+        protocol.handle("ADD 3 user2 1.0 2.90 BUY");
+        assertEquals("BEST 2.95 1.5", protocol.handle("BEST SELL"));
+        assertEquals("BEST 2.90 1.0", protocol.handle("BEST BUY"));
+        assertEquals("SPREAD 0.05", protocol.handle("SPREAD"));
+    }
+
+    @Test
+    public void quit() throws Exception {
+        assertEquals(OrderBookProtocol.BYE, protocol.handle("QUIT"));
+    }
+
+    @Test
+    public void invalidRequests() throws Exception {
+        assertEquals("ERROR Unknown request AMEND", protocol.handle("AMEND 1"));
+        assertEquals("ERROR ADD takes 5 fields", protocol.handle("ADD 1 user1 2.5 SELL"));
+        assertEquals("ERROR Invalid quantity. Must be greater than 0", protocol.handle("ADD 1 user1 0 2.99 SELL"));
+        assertTrue(protocol.handle("ADD 1 user1 lots 2.99 SELL").startsWith("ERROR"));
+        assertTrue(protocol.handle("BEST MIDDLE").startsWith("ERROR"));
+        assertTrue(protocol.handle("").startsWith("ERROR"));
+    }
+
+    @Test
+    public void writesRejectedOnceWorkerClosed() throws Exception {
+        worker.close();
+        assertEquals("REJECTED", protocol.handle("ADD 1 user1 2.5 2.99 SELL"));
+        assertEquals("BEST NONE", protocol.handle("BEST SELL"));
+    }
+}
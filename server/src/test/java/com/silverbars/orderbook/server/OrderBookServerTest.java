@@ -0,0 +1,134 @@
+package com.silverbars.orderbook.server;
+
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.impl.LiveOrderBook;
+import com.silverbars.orderbook.impl.OrderBookSideImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OrderBookServerTest {
+    private LiveOrderBook orderBook;
+    private OrderBookServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        orderBook = new LiveOrderBook(new OrderBookSideImpl(Side.SELL), new OrderBookSideImpl(Side.BUY));
+        server = new OrderBookServer(orderBook, 0);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void requestsServedOverSession() throws Exception {
+        try (Client client = new Client(server.getPort())){
+            assertEquals("ADDED", client.request("ADD 1 user1 2.5 2.99 SELL"));
+            assertEquals("BEST 2.99 2.5", client.request("BEST SELL"));
+            assertEquals("SUMMARY 1", client.request("SUMMARY SELL"));
+            assertEquals("2.5 kg for £2.99", client.readLine());
+            assertEquals("BYE", client.request("QUIT"));
+            // the server closes the session
+            assertNull(client.readLine());
+        }
+        assertEquals(1, orderBook.getOrders(Side.SELL).size());
+    }
+
+    @Test
+    public void concurrentSessions() throws Exception {
+        final int sessions = 50;
+        final ExecutorService clients = Executors.newFixedThreadPool(sessions);
+        try {
+            final List<Future<?>> results = new ArrayList<>();
+            for( int i = 0; i < sessions; i++){
+                final int session = i;
+                results.add(clients.submit(() -> {
+                    try (Client client = new Client(server.getPort())){
+                        for( int order = 0; order < 20; order++){
+                            assertEquals("ADDED", client.request("ADD " + session + "-" + order + " user" + session + " 1.0 2.99 SELL"));
+                        }
+                        for( int order = 0; order < 10; order++){
+                            assertEquals("CANCELLED", client.request("CANCEL " + session + "-" + order));
+                        }
+                        assertEquals("CANCELLED 10", client.request("CANCEL_ALL user" + session));
+                    }
+                    return null;
+                }));
+            }
+            for( Future<?> result : results){
+                result.get();
+            }
+            assertTrue(orderBook.getOrders(Side.SELL).isEmpty());
+        }
+        finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    public void closeEndsOpenSessions() throws Exception {
+        try (Client client = new Client(server.getPort())){
+            assertEquals("ADDED", client.request("ADD 1 user1 2.5 2.99 SELL"));
+            assertEquals(1, server.getSessionCount());
+            server.close();
+            assertNull(client.readLine());
+        }
+        assertEquals(0, server.getSessionCount());
+    }
+
+    @Test
+    public void sessionsServedOnPlatformExecutor() throws Exception {
+        server.close();
+        server = new OrderBookServer(orderBook, 0, 16, SessionExecutors.newPlatformExecutor("test-session"));
+        try (Client client = new Client(server.getPort())){
+            assertEquals("SPREAD NONE", client.request("SPREAD"));
+        }
+    }
+
+    private static final class Client implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final Writer out;
+
+        private Client(final int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+        }
+
+        private String request(final String request) throws IOException {
+            out.write(request + "\n");
+            out.flush();
+            return readLine();
+        }
+
+        private String readLine() throws IOException {
+            return in.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.silverbars.orderbook.server;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.impl.LiveOrderBook;
+import com.silverbars.orderbook.impl.OrderBookSideImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OrderBookWorkerTest {
+    private OrderBook orderBook;
+    private OrderBookWorker worker;
+
+    @Before
+    public void setUp() {
+        orderBook = new LiveOrderBook(new OrderBookSideImpl(Side.SELL), new OrderBookSideImpl(Side.BUY));
+        worker = new OrderBookWorker(orderBook, 16);
+    }
+
+    @After
+    public void tearDown() {
+        worker.close();
+    }
+
+    @Test
+    public void writesAppliedOnWorkerThread() throws Exception {
+        final Order order = new Order("1", "user1", 2.5, 2.99, Side.SELL);
+        assertEquals("orderbook-worker", worker.execute(book -> Thread.currentThread().getName()));
+        assertEquals(OrderResult.ADDED, worker.execute(book -> book.tryAddOrder(order)));
+        assertEquals(Collections.singletonList(order), orderBook.getOrders(Side.SELL));
+    }
+
+    @Test
+    public void writesAppliedInSubmissionOrder() throws Exception {
+        final List<Integer> applied = new ArrayList<>();
+        final List<CompletableFuture<Void>> results = new ArrayList<>();
+        for( int i = 0; i < 100; i++){
+            final int index = i;
+            results.add(worker.submit(book -> {
+                applied.add(index);
+                return null;
+            }));
+        }
+        for( CompletableFuture<Void> result : results){
+            result.get();
+        }
+        for( int i = 0; i < 100; i++){
+            assertEquals(Integer.valueOf(i), applied.get(i));
+        }
+    }
+
+    @Test
+    public void exceptionFromWritePassedToCaller() throws Exception {
+        try {
+            worker.execute(book -> book.cancelOrder("unknown"));
+            fail("Expected OrderBookException");
+        }
+        catch (OrderBookException e) {
+            assertEquals(OrderResult.UNKNOWN_ORDER, e.getResult());
+        }
+        // the worker carries on
+        assertEquals(OrderResult.ADDED, worker.execute(book -> book.tryAddOrder(new Order("1", "user1", 2.5, 2.99, Side.SELL))));
+    }
+
+    @Test
+    public void closeAppliesQueuedWrites() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        worker.submit(book -> {
+            blocked.countDown();
+            Uninterruptibles.awaitUninterruptibly(release);
+            return null;
+        });
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        final CompletableFuture<OrderResult> queued = worker.submit(book -> book.tryAddOrder(new Order("1", "user1", 2.5, 2.99, Side.SELL)));
+        assertEquals(1, worker.getQueuedCount());
+
+        final Thread closer = new Thread(worker::close);
+        closer.start();
+        release.countDown();
+        closer.join(5000);
+
+        assertEquals(OrderResult.ADDED, queued.get());
+        assertEquals(1, orderBook.getOrders(Side.SELL).size());
+    }
+
+    @Test
+    public void writesAfterCloseFail() throws Exception {
+        worker.close();
+        try {
+            worker.submit(book -> book.tryAddOrder(new Order("1", "user1", 2.5, 2.99, Side.SELL))).get();
+            fail("Expected ExecutionException");
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof OrderBookException);
+        }
+        assertEquals(0, orderBook.getOrders(Side.SELL).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorRequiresQueueCapacity() {
+        new OrderBookWorker(orderBook, 0);
+    }
+}
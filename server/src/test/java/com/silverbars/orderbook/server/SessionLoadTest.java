@@ -0,0 +1,140 @@
+package com.silverbars.orderbook.server;
+
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.impl.LiveOrderBook;
+import com.silverbars.orderbook.impl.OrderBookSideImpl;
+import com.silverbars.orderbook.metrics.LatencyHistogram;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test harness showing how an OrderBookServer scales with the number of concurrent sessions. For each session
+ * count a fresh server is started and every session connects, then repeatedly adds an order, reads the best price and
+ * cancels the order, pausing for the think time between requests. Prints the request throughput and latency
+ * percentiles for each session count. Client sessions run on the same kind of threads as the server's sessions.
+ *
+ * Arguments, all optional: comma separated session counts (1,10,100,1000), rounds per session (100) and think time in
+ * milliseconds (0). A think time models mostly idle clients, where throughput should grow with the session count until
+ * the worker is saturated.
+ */
+public final class SessionLoadTest {
+    private final static int REQUESTS_PER_ROUND = 3;
+
+    private SessionLoadTest() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final String[] sessionCounts = (args.length > 0 ? args[0] : "1,10,100,1000").split(",");
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        final long thinkMillis = args.length > 2 ? Long.parseLong(args[2]) : 0;
+
+        System.out.println("Sessions on " + (SessionExecutors.isVirtualThreadAvailable() ? "virtual" : "platform")
+                + " threads, " + rounds + " rounds per session, " + thinkMillis + "ms think time");
+        System.out.printf("%10s %12s %14s %10s %10s %10s%n", "sessions", "requests", "requests/s", "p50 us", "p99 us", "max us");
+        for( String sessionCount : sessionCounts){
+            run(Integer.parseInt(sessionCount.trim()), rounds, thinkMillis);
+        }
+    }
+
+    private static void run(final int sessions, final int rounds, final long thinkMillis) throws Exception {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final ExecutorService clients = SessionExecutors.newSessionExecutor("load-client");
+        try (OrderBookServer server = new OrderBookServer(
+                new LiveOrderBook(new OrderBookSideImpl(Side.SELL), new OrderBookSideImpl(Side.BUY)), 0)){
+            final CountDownLatch connected = new CountDownLatch(sessions);
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> results = new ArrayList<>(sessions);
+            for( int i = 0; i < sessions; i++){
+                final int session = i;
+                results.add(clients.submit(() -> {
+                    runSession(server.getPort(), session, rounds, thinkMillis, latency, connected, start);
+                    return null;
+                }));
+            }
+            connected.await();
+            final long startNanos = System.nanoTime();
+            start.countDown();
+            for( Future<?> result : results){
+                try {
+                    result.get();
+                }
+                catch (ExecutionException e) {
+                    throw new IllegalStateException("Session failed", e.getCause());
+                }
+            }
+            final long elapsedNanos = System.nanoTime() - startNanos;
+            System.out.printf("%10d %12d %14.0f %10.1f %10.1f %10.1f%n", sessions, latency.getCount(),
+                    latency.getCount() * 1e9 / elapsedNanos, micros(latency.getValueAtPercentile(50)),
+                    micros(latency.getValueAtPercentile(99)), micros(latency.getMax()));
+        }
+        finally {
+            clients.shutdownNow();
+            clients.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void runSession(final int port, final int session, final int rounds, final long thinkMillis,
+                                   final LatencyHistogram latency, final CountDownLatch connected, final CountDownLatch start)
+            throws IOException, InterruptedException {
+        final Socket socket;
+        try {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        }
+        finally {
+            // counted even if the connection failed, so the run is not left waiting for it
+            connected.countDown();
+        }
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))){
+            socket.setTcpNoDelay(true);
+            start.await();
+            final Side side = session % 2 == 0 ? Side.BUY : Side.SELL;
+            // buys below 2.00 and sells from 3.00, so no order matches
+            final double basePrice = side == Side.BUY ? 1.0 : 3.0;
+            final String[] requests = new String[REQUESTS_PER_ROUND];
+            for( int round = 0; round < rounds; round++){
+                final String orderId = session + "-" + round;
+                requests[0] = "ADD " + orderId + " user" + session + " 1.0 " + (basePrice + (round % 100) / 100.0) + " " + side;
+                requests[1] = "BEST " + side;
+                requests[2] = "CANCEL " + orderId;
+                for( String request : requests){
+                    final long startNanos = System.nanoTime();
+                    out.write(request);
+                    out.write('\n');
+                    out.flush();
+                    final String response = in.readLine();
+                    latency.record(System.nanoTime() - startNanos);
+                    if( response == null || response.startsWith("ERROR")){
+                        throw new IOException("Request " + request + " failed: " + response);
+                    }
+                    if( thinkMillis > 0){
+                        Thread.sleep(thinkMillis);
+                    }
+                }
+            }
+            out.write("QUIT\n");
+            out.flush();
+            in.readLine();
+        }
+    }
+
+    private static double micros(final long nanos){
+        return nanos / 1000.0;
+    }
+}
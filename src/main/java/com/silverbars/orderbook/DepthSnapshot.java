@@ -0,0 +1,145 @@
+package com.silverbars.orderbook;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable snapshot of the price levels on one side of the OrderBook, held in summary order - ascending price for Sell
+ * side and descending price for Buy side. Prices and quantities are held as parallel arrays of fixed-point ticks, see
+ * Order.PRICE_SCALE and Order.QUANTITY_SCALE, so consumers can read the depth without parsing summary strings.
+ */
+public final class DepthSnapshot {
+    private final static long[] NO_TICKS = new long[0];
+
+    private final Side side;
+    private final long[] priceTicks;
+    private final long[] quantityTicks;
+
+    /**
+     * @param side
+     * @param priceTicks price of each level in ticks, in summary order
+     * @param quantityTicks summed quantity of each level in ticks
+     * @param levelCount number of levels to copy from the start of priceTicks and quantityTicks
+     */
+    public DepthSnapshot(final Side side, final long[] priceTicks, final long[] quantityTicks, final int levelCount) {
+        Objects.requireNonNull(side, "Missing side");
+        Objects.requireNonNull(priceTicks, "Missing priceTicks");
+        Objects.requireNonNull(quantityTicks, "Missing quantityTicks");
+        if( levelCount < 0 || levelCount > priceTicks.length || levelCount > quantityTicks.length){
+            throw new IllegalArgumentException("Invalid levelCount: " + levelCount);
+        }
+        this.side = side;
+        this.priceTicks = levelCount == 0 ? NO_TICKS : Arrays.copyOf(priceTicks, levelCount);
+        this.quantityTicks = levelCount == 0 ? NO_TICKS : Arrays.copyOf(quantityTicks, levelCount);
+    }
+
+    /**
+     * @param side
+     * @return snapshot with no levels
+     */
+    public static DepthSnapshot empty(final Side side){
+        return new DepthSnapshot(side, NO_TICKS, NO_TICKS, 0);
+    }
+
+    public Side getSide() {
+        return side;
+    }
+
+    /**
+     * @return number of price levels
+     */
+    public int size() {
+        return priceTicks.length;
+    }
+
+    public boolean isEmpty() {
+        return priceTicks.length == 0;
+    }
+
+    /**
+     * @param index level index, 0 being the best price
+     * @return price of the level in ticks
+     */
+    public long getPriceTicks(final int index) {
+        return priceTicks[index];
+    }
+
+    /**
+     * @param index level index, 0 being the best price
+     * @return summed quantity of the level in ticks
+     */
+    public long getQuantityTicks(final int index) {
+        return quantityTicks[index];
+    }
+
+    /**
+     * @param index level index, 0 being the best price
+     * @return price per kilogram in pounds
+     */
+    public BigDecimal getPrice(final int index) {
+        return BigDecimal.valueOf(priceTicks[index], Order.PRICE_SCALE);
+    }
+
+    /**
+     * @param index level index, 0 being the best price
+     * @return summed quantity in kilograms
+     */
+    public BigDecimal getQuantity(final int index) {
+        return BigDecimal.valueOf(quantityTicks[index], Order.QUANTITY_SCALE);
+    }
+
+    /**
+     * @param index level index, 0 being the best price
+     * @return the level as a PriceLevel
+     */
+    public PriceLevel getLevel(final int index) {
+        return new PriceLevel(getPrice(index), getQuantity(index));
+    }
+
+    /**
+     * @return view of the levels as PriceLevels - each level is created as it is accessed
+     */
+    public List<PriceLevel> getLevels() {
+        return new AbstractList<PriceLevel>() {
+            @Override
+            public PriceLevel get(final int index) {
+                return getLevel(index);
+            }
+
+            @Override
+            public int size() {
+                return DepthSnapshot.this.size();
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DepthSnapshot that = (DepthSnapshot) o;
+        return side == that.side &&
+                Arrays.equals(priceTicks, that.priceTicks) &&
+                Arrays.equals(quantityTicks, that.quantityTicks);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(side);
+        result = 31 * result + Arrays.hashCode(priceTicks);
+        result = 31 * result + Arrays.hashCode(quantityTicks);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "DepthSnapshot{" +
+                "side=" + side +
+                ", priceTicks=" + Arrays.toString(priceTicks) +
+                ", quantityTicks=" + Arrays.toString(quantityTicks) +
+                '}';
+    }
+}
@@ -0,0 +1,86 @@
+package com.silverbars.orderbook;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Immutable market data event giving the new aggregate quantity of a single price level. A quantity of zero means the
+ * level has been removed. Quantities are absolute, so applying a change more than once has no further effect.
+ */
+public final class LevelChange {
+    private final Side side;
+    private final long priceTicks;
+    private final long quantityTicks;
+
+    /**
+     * @param side
+     * @param priceTicks price of the level in ticks, see Order.PRICE_SCALE
+     * @param quantityTicks new aggregate quantity of the level in ticks, see Order.QUANTITY_SCALE, or 0 if it was removed
+     */
+    public LevelChange(final Side side, final long priceTicks, final long quantityTicks) {
+        Objects.requireNonNull(side, "Missing side");
+        if( quantityTicks < 0){
+            throw new IllegalArgumentException("Invalid quantityTicks. Must not be negative");
+        }
+        this.side = side;
+        this.priceTicks = priceTicks;
+        this.quantityTicks = quantityTicks;
+    }
+
+    public Side getSide() {
+        return side;
+    }
+
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
+    public long getQuantityTicks() {
+        return quantityTicks;
+    }
+
+    /**
+     * @return price per kilogram in pounds
+     */
+    public BigDecimal getPrice() {
+        return BigDecimal.valueOf(priceTicks, Order.PRICE_SCALE);
+    }
+
+    /**
+     * @return new aggregate quantity in kilograms
+     */
+    public BigDecimal getQuantity() {
+        return BigDecimal.valueOf(quantityTicks, Order.QUANTITY_SCALE);
+    }
+
+    /**
+     * @return true if the last order at the price has been cancelled
+     */
+    public boolean isRemoved() {
+        return quantityTicks == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LevelChange that = (LevelChange) o;
+        return priceTicks == that.priceTicks &&
+                quantityTicks == that.quantityTicks &&
+                side == that.side;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(side, priceTicks, quantityTicks);
+    }
+
+    @Override
+    public String toString() {
+        return "LevelChange{" +
+                "side=" + side +
+                ", price=" + getPrice() +
+                ", quantity=" + getQuantity() +
+                '}';
+    }
+}
@@ -0,0 +1,21 @@
+package com.silverbars.orderbook;
+
+/**
+ * Receives the level changes of an OrderBook subscription. Callbacks are made on the subscription's delivery thread, one
+ * at a time.
+ */
+public interface LevelChangeListener {
+    /**
+     * Called with the latest state of a level that has changed. If a level changes several times before the listener
+     * has been called, only its latest state is delivered.
+     * @param change
+     */
+    void onLevelChange(LevelChange change);
+
+    /**
+     * Called when the listener fell so far behind that pending changes were discarded. The listener should clear any
+     * levels it holds - every current level is then delivered again through onLevelChange.
+     */
+    default void onOverflow() {
+    }
+}
@@ -1,5 +1,7 @@
 package com.silverbars.orderbook;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.Objects;
 
 /**
@@ -7,6 +9,14 @@ import java.util.Objects;
  * To amend you would need to cancel and create a new one.
  */
 public class Order {
+    // Number of decimal places held for price - one price tick is a penny
+    public static final int PRICE_SCALE = 2;
+    // Number of decimal places held for quantity - one quantity tick is a tenth of a kilogram
+    public static final int QUANTITY_SCALE = 1;
+
+    private static final double PRICE_DIVISOR = 100.0;
+    private static final double QUANTITY_DIVISOR = 10.0;
+
     // Unique order identifier
     private final String orderId;
     // unique user identifier
@@ -14,6 +24,9 @@ public class Order {
     private final double quantity;
     private final double price;
     private final Side side;
+    // Fixed-point price in pence and quantity in tenths of a kilogram. Rounded once on construction so the order book never needs to round.
+    private final long priceTicks;
+    private final long quantityTicks;
 
 
     /**
@@ -24,6 +37,10 @@ public class Order {
      * @param orderType buy or sell order
      */
     public Order(String orderId, String userId, double quantity, double price, Side orderType) {
+        this(orderId, userId, quantity, price, orderType, toTicks(quantity, QUANTITY_SCALE), toTicks(price, PRICE_SCALE));
+    }
+
+    private Order(String orderId, String userId, double quantity, double price, Side orderType, long quantityTicks, long priceTicks) {
         Objects.requireNonNull(orderId, "Missing orderId");
         Objects.requireNonNull(userId, "Missing userId");
         Objects.requireNonNull(orderType, "Missing order type");
@@ -33,11 +50,34 @@ public class Order {
         if( price <= 0 ){
             throw new IllegalArgumentException("Invalid price. Must be greater than 0");
         }
+        // a quantity or price that rounds to zero ticks could never be filled, levelled or cancelled
+        if( quantityTicks <= 0){
+            throw new IllegalArgumentException("Invalid quantity. Must be at least 0.1 kg: " + quantity);
+        }
+        if( priceTicks <= 0){
+            throw new IllegalArgumentException("Invalid price. Must be at least £0.01: " + price);
+        }
         this.orderId = orderId;
         this.userId = userId;
         this.quantity = quantity;
         this.price = price;
         this.side = orderType;
+        this.quantityTicks = quantityTicks;
+        this.priceTicks = priceTicks;
+    }
+
+    /**
+     * Creates an Order from fixed-point values, avoiding any rounding.
+     * @param orderId unique Order identifier
+     * @param userId unique user identifier
+     * @param quantityTicks order quantity in tenths of a kilogram
+     * @param priceTicks price per kilogram in pence
+     * @param orderType buy or sell order
+     * @return the Order
+     */
+    public static Order fromTicks(String orderId, String userId, long quantityTicks, long priceTicks, Side orderType) {
+        // dividing the exact tick count gives the closest double, as BigDecimal.doubleValue would, with no rounding needed
+        return new Order(orderId, userId, quantityTicks / QUANTITY_DIVISOR, priceTicks / PRICE_DIVISOR, orderType, quantityTicks, priceTicks);
     }
 
     public String getOrderId() {
@@ -60,6 +100,24 @@ public class Order {
         return side;
     }
 
+    /**
+     * @return quantity in tenths of a kilogram, rounded half up
+     */
+    public long getQuantityTicks() {
+        return quantityTicks;
+    }
+
+    /**
+     * @return price per kilogram in pence, rounded half up
+     */
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
+    private static long toTicks(final double value, final int scale){
+        return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
 
     @Override
     public boolean equals(Object o) {
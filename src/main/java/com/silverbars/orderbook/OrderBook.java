@@ -1,6 +1,9 @@
 package com.silverbars.orderbook;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderBook {
     /**
@@ -17,10 +20,108 @@ public interface OrderBook {
      */
     void cancelOrder(Order order) throws OrderBookException;
 
+    /**
+     * Add order to OrderBook, returning the reason it was rejected rather than throwing. Preferred where rejections are
+     * expected, e.g. from a replayed or duplicated feed, as no exception is created.
+     * @param order
+     * @return ADDED, or the reason the order was not added
+     */
+    OrderResult tryAddOrder(Order order);
+
+    /**
+     * Cancel order from OrderBook, returning the reason it was not cancelled rather than throwing.
+     * @param order
+     * @return CANCELLED, or the reason the order was not cancelled
+     */
+    OrderResult tryCancelOrder(Order order);
+
+    /**
+     * Cancel an order from OrderBook knowing only its orderId. Side, price and quantity are looked up from the book.
+     * @param orderId
+     * @return the cancelled order with the quantity that was resting
+     * @throws OrderBookException if no order with the orderId is resting in OrderBook
+     */
+    Order cancelOrder(String orderId) throws OrderBookException;
+
+    /**
+     * Add a batch of orders to OrderBook. The orders for each side are applied as a single operation with a single summary
+     * update. A failed order does not prevent the remaining orders being added.
+     * @param orders
+     * @return result for each order, in the iteration order of orders
+     */
+    List<OrderResult> addOrders(Collection<Order> orders);
+
+    /**
+     * Cancel a batch of orders from OrderBook. The orders for each side are cancelled as a single operation with a single
+     * summary update. A failed cancellation does not prevent the remaining orders being cancelled.
+     * @param orders
+     * @return result for each order, in the iteration order of orders
+     */
+    List<OrderResult> cancelOrders(Collection<Order> orders);
+
     /**
      * Retrieve a summary for either Buy or Sell side of OrderBook
      * @param side
      * @return summary details sorted in ascending price for sell side book and descending price for buy side book
      */
     List<String> getSummary(Side side);
+
+    /**
+     * Retrieve the full depth for either Buy or Sell side of OrderBook
+     * @param side
+     * @return snapshot of every price level sorted in ascending price for sell side book and descending price for buy side book
+     */
+    DepthSnapshot getDepth(Side side);
+
+    /**
+     * Retrieve the best price levels for either Buy or Sell side of OrderBook
+     * @param side
+     * @param maxLevels maximum number of levels to include
+     * @return snapshot of at most maxLevels levels sorted in ascending price for sell side book and descending price for buy side book
+     */
+    DepthSnapshot getDepth(Side side, int maxLevels);
+
+    /**
+     * Retrieve the best price level for either Buy or Sell side of OrderBook - the lowest Sell or highest Buy price. Read
+     * from a snapshot maintained by the side without taking its lock, so quoting does not contend with the order path.
+     * @param side
+     * @return best price and its aggregate quantity, or empty if the side has no resting orders
+     */
+    Optional<PriceLevel> getBestLevel(Side side);
+
+    /**
+     * Retrieve the best price for either Buy or Sell side of OrderBook, as getBestLevel.
+     * @param side
+     * @return lowest Sell or highest Buy price, or empty if the side has no resting orders
+     */
+    Optional<BigDecimal> getBestPrice(Side side);
+
+    /**
+     * Retrieve the difference between the best Sell and best Buy prices.
+     * @return best Sell price less best Buy price - negative if the book is crossed - or empty unless both sides have
+     * resting orders
+     */
+    Optional<BigDecimal> getSpread();
+
+    /**
+     * Retrieve the resting orders for either Buy or Sell side of OrderBook
+     * @param side
+     * @return copy of the resting orders, best price first and each price in time priority
+     */
+    List<Order> getOrders(Side side);
+
+    /**
+     * Retrieve the resting orders of a user on both sides of OrderBook
+     * @param userId
+     * @return copy of the user's resting orders, sell orders first, each side in the order they were added
+     */
+    List<Order> getOrdersForUser(String userId);
+
+    /**
+     * Cancel every resting order of a user, e.g. when the user disconnects. The orders on each side are cancelled as a
+     * single operation with a single summary update.
+     * @param userId
+     * @return the cancelled orders with the quantity that was resting, sell orders first
+     */
+    List<Order> cancelAllForUser(String userId);
 }
@@ -1,22 +1,110 @@
 package com.silverbars.orderbook;
 
 public class OrderBookException extends Exception{
+    // Reason the order was not added or cancelled
+    private final OrderResult result;
+    // Order or orderId a rejection's message is built from when first asked for - null when the message was given.
+    // Order is not Serializable, so writeReplace serializes a rejection with its message already built
+    private final transient Order rejectedOrder;
+    private final String rejectedOrderId;
+
     public OrderBookException() {
+        this(OrderResult.REJECTED, (String) null);
     }
 
     public OrderBookException(String message) {
+        this(OrderResult.REJECTED, message);
+    }
+
+    public OrderBookException(OrderResult result, String message) {
         super(message);
+        this.result = result;
+        this.rejectedOrder = null;
+        this.rejectedOrderId = null;
     }
 
     public OrderBookException(String message, Throwable cause) {
         super(message, cause);
+        this.result = OrderResult.REJECTED;
+        this.rejectedOrder = null;
+        this.rejectedOrderId = null;
     }
 
     public OrderBookException(Throwable cause) {
         super(cause);
+        this.result = OrderResult.REJECTED;
+        this.rejectedOrder = null;
+        this.rejectedOrderId = null;
     }
 
     public OrderBookException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
         super(message, cause, enableSuppression, writableStackTrace);
+        this.result = OrderResult.REJECTED;
+        this.rejectedOrder = null;
+        this.rejectedOrderId = null;
+    }
+
+    // Stackless rejection
+    private OrderBookException(final OrderResult result, final Order rejectedOrder, final String rejectedOrderId) {
+        super(null, null, false, false);
+        this.result = result;
+        this.rejectedOrder = rejectedOrder;
+        this.rejectedOrderId = rejectedOrderId;
+    }
+
+    /**
+     * Creates the exception thrown when an order is rejected. Rejections are expected in normal operation, e.g. from a
+     * duplicated feed, so the exception has no stack trace and its message is only built if asked for.
+     * @param result reason the order was not added or cancelled
+     * @param order
+     * @return the exception
+     */
+    public static OrderBookException rejection(final OrderResult result, final Order order) {
+        return new OrderBookException(result, order, null);
+    }
+
+    /**
+     * Creates the exception thrown when no order with orderId could be found to cancel, with no stack trace.
+     * @param orderId
+     * @return the exception
+     */
+    public static OrderBookException unknownOrder(final String orderId) {
+        return new OrderBookException(OrderResult.UNKNOWN_ORDER, null, orderId);
+    }
+
+    @Override
+    public String getMessage() {
+        if( rejectedOrder != null){
+            switch (result){
+                case DUPLICATE_ORDER:
+                    return "Order has been previously submitted: " + rejectedOrder.getOrderId();
+                case UNKNOWN_ORDER:
+                    return "Order could not be found, or was previously cancelled: " + rejectedOrder;
+                case UNSUPPORTED_ORDER:
+                    return "Order cannot be held by the OrderBook: " + rejectedOrder;
+                default:
+                    return "OrderLevel could not be found for Order: " + rejectedOrder;
+            }
+        }
+        if( rejectedOrderId != null){
+            return "Order could not be found, or was previously cancelled: " + rejectedOrderId;
+        }
+        return super.getMessage();
+    }
+
+    private Object writeReplace() {
+        if( rejectedOrder == null){
+            return this;
+        }
+        final OrderBookException replacement = new OrderBookException(result, getMessage());
+        replacement.setStackTrace(getStackTrace());
+        return replacement;
+    }
+
+    /**
+     * @return the reason the order was not added or cancelled
+     */
+    public OrderResult getResult() {
+        return result;
     }
 }
@@ -0,0 +1,44 @@
+package com.silverbars.orderbook;
+
+/**
+ * Outcome of adding or cancelling a single order.
+ */
+public enum OrderResult {
+    /**
+     * Order was added to the OrderBook
+     */
+    ADDED(true),
+    /**
+     * Order was cancelled and removed from the OrderBook
+     */
+    CANCELLED(true),
+    /**
+     * Order was not added as an order with the same orderId has already been submitted
+     */
+    DUPLICATE_ORDER(false),
+    /**
+     * Order was not cancelled as it could not be found or was previously cancelled
+     */
+    UNKNOWN_ORDER(false),
+    /**
+     * Order was not added as the OrderBook cannot hold it, e.g. as its ids are too long for a fixed-width off-heap record
+     */
+    UNSUPPORTED_ORDER(false),
+    /**
+     * Order was rejected for any other reason
+     */
+    REJECTED(false);
+
+    private final boolean success;
+
+    OrderResult(final boolean success) {
+        this.success = success;
+    }
+
+    /**
+     * @return true if the order was added or cancelled
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+}
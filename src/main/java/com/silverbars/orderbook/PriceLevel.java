@@ -0,0 +1,52 @@
+package com.silverbars.orderbook;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Immutable view of the aggregated quantity of all orders resting at a single price.
+ */
+public final class PriceLevel {
+    private final BigDecimal price;
+    private final BigDecimal quantity;
+
+    /**
+     * @param price price per kilogram in pounds
+     * @param quantity summed quantity in kilograms of all orders at the price
+     */
+    public PriceLevel(final BigDecimal price, final BigDecimal quantity) {
+        Objects.requireNonNull(price, "Missing price");
+        Objects.requireNonNull(quantity, "Missing quantity");
+        this.price = price;
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PriceLevel that = (PriceLevel) o;
+        return price.equals(that.price) && quantity.equals(that.quantity);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(price, quantity);
+    }
+
+    @Override
+    public String toString() {
+        return "PriceLevel{" +
+                "price=" + price +
+                ", quantity=" + quantity +
+                '}';
+    }
+}
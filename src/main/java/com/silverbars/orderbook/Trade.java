@@ -0,0 +1,107 @@
+package com.silverbars.orderbook;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Immutable fill of an incoming order against a resting order. Trades are priced at the resting order's price.
+ */
+public final class Trade {
+    private final String restingOrderId;
+    private final String incomingOrderId;
+    private final Side incomingSide;
+    private final long priceTicks;
+    private final long quantityTicks;
+
+    /**
+     * @param restingOrderId order that was resting in the book
+     * @param incomingOrderId order that crossed the resting order
+     * @param incomingSide side of the incoming order
+     * @param priceTicks price per kilogram in pence
+     * @param quantityTicks filled quantity in tenths of a kilogram
+     */
+    public Trade(final String restingOrderId, final String incomingOrderId, final Side incomingSide, final long priceTicks,
+                 final long quantityTicks) {
+        Objects.requireNonNull(restingOrderId, "Missing restingOrderId");
+        Objects.requireNonNull(incomingOrderId, "Missing incomingOrderId");
+        Objects.requireNonNull(incomingSide, "Missing incomingSide");
+        if( quantityTicks <= 0){
+            throw new IllegalArgumentException("Invalid quantityTicks. Must be greater than 0");
+        }
+        this.restingOrderId = restingOrderId;
+        this.incomingOrderId = incomingOrderId;
+        this.incomingSide = incomingSide;
+        this.priceTicks = priceTicks;
+        this.quantityTicks = quantityTicks;
+    }
+
+    public String getRestingOrderId() {
+        return restingOrderId;
+    }
+
+    public String getIncomingOrderId() {
+        return incomingOrderId;
+    }
+
+    public Side getIncomingSide() {
+        return incomingSide;
+    }
+
+    public String getBuyOrderId() {
+        return incomingSide == Side.BUY ? incomingOrderId : restingOrderId;
+    }
+
+    public String getSellOrderId() {
+        return incomingSide == Side.SELL ? incomingOrderId : restingOrderId;
+    }
+
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
+    public long getQuantityTicks() {
+        return quantityTicks;
+    }
+
+    /**
+     * @return price per kilogram in pounds
+     */
+    public BigDecimal getPrice() {
+        return BigDecimal.valueOf(priceTicks, Order.PRICE_SCALE);
+    }
+
+    /**
+     * @return filled quantity in kilograms
+     */
+    public BigDecimal getQuantity() {
+        return BigDecimal.valueOf(quantityTicks, Order.QUANTITY_SCALE);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Trade trade = (Trade) o;
+        return priceTicks == trade.priceTicks &&
+                quantityTicks == trade.quantityTicks &&
+                restingOrderId.equals(trade.restingOrderId) &&
+                incomingOrderId.equals(trade.incomingOrderId) &&
+                incomingSide == trade.incomingSide;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(restingOrderId, incomingOrderId, incomingSide, priceTicks, quantityTicks);
+    }
+
+    @Override
+    public String toString() {
+        return "Trade{" +
+                "restingOrderId='" + restingOrderId + '\'' +
+                ", incomingOrderId='" + incomingOrderId + '\'' +
+                ", incomingSide=" + incomingSide +
+                ", price=" + getPrice() +
+                ", quantity=" + getQuantity() +
+                '}';
+    }
+}
@@ -0,0 +1,9 @@
+package com.silverbars.orderbook;
+
+/**
+ * Receives the trades made by a matching OrderBook. Called on the thread that added the crossing order, before addOrder
+ * returns and while further orders are held back, so implementations must be quick.
+ */
+public interface TradeListener {
+    void onTrade(Trade trade);
+}
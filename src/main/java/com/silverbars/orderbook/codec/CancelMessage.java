@@ -0,0 +1,95 @@
+package com.silverbars.orderbook.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Fixed-layout little-endian wire message cancelling an order by orderId, as OrderBook.cancelOrder(String). A
+ * CancelMessage wraps the encoded bytes to read the orderId in place, as OrderMessage. Each message holds:
+ * <pre>
+ *   0  messageType      byte  CANCEL
+ *   1  reserved         byte
+ *   2  orderIdLength    byte
+ *   3  reserved         byte
+ *   4  reserved         int
+ *   8  orderId          MAX_ID_LENGTH chars
+ * </pre>
+ * This class is not thread safe - use a CancelMessage per thread.
+ */
+public final class CancelMessage {
+    public static final int ENCODED_LENGTH = 72;
+
+    private final static int ORDER_ID_LENGTH_OFFSET = 2;
+    private final static int ORDER_ID_OFFSET = 8;
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    /**
+     * Writes a CANCEL message for orderId at offset in buffer, leaving buffer's position unchanged.
+     * @param orderId
+     * @param buffer little-endian buffer with at least ENCODED_LENGTH bytes from offset to its limit
+     * @param offset
+     * @return number of bytes written - ENCODED_LENGTH
+     * @throws IllegalArgumentException if orderId is longer than MAX_ID_LENGTH or buffer is not little-endian
+     * @throws IndexOutOfBoundsException if the message does not fit before buffer's limit
+     */
+    public static int encode(final String orderId, final ByteBuffer buffer, final int offset){
+        Objects.requireNonNull(orderId, "Missing orderId");
+        WireFormat.checkBuffer(buffer, offset, ENCODED_LENGTH);
+        WireFormat.checkId(orderId);
+        // type and length in the first word, with the reserved bytes cleared
+        buffer.putLong(offset, 0);
+        buffer.put(offset + WireFormat.TYPE_OFFSET, MessageType.CANCEL.getCode());
+        buffer.put(offset + ORDER_ID_LENGTH_OFFSET, (byte) orderId.length());
+        WireFormat.putId(buffer, offset + ORDER_ID_OFFSET, orderId);
+        return ENCODED_LENGTH;
+    }
+
+    /**
+     * Points this CancelMessage at the message at offset in buffer.
+     * @param buffer little-endian buffer
+     * @param offset
+     * @return this
+     * @throws IllegalArgumentException if the message is not a CANCEL, the orderId length is greater than MAX_ID_LENGTH
+     * or buffer is not little-endian
+     * @throws IndexOutOfBoundsException if the message does not fit before buffer's limit
+     */
+    public CancelMessage wrap(final ByteBuffer buffer, final int offset){
+        Objects.requireNonNull(buffer, "Missing buffer");
+        WireFormat.checkBuffer(buffer, offset, ENCODED_LENGTH);
+        WireFormat.checkType(buffer, offset, MessageType.CANCEL);
+        WireFormat.checkIdLength(buffer, offset + ORDER_ID_LENGTH_OFFSET);
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    public int getOrderIdLength() {
+        return WireFormat.getIdLength(buffer, offset + ORDER_ID_LENGTH_OFFSET);
+    }
+
+    /**
+     * Compares the orderId in place.
+     * @param orderId
+     * @return true if the message's orderId equals orderId
+     */
+    public boolean orderIdEquals(final CharSequence orderId) {
+        return WireFormat.idEquals(buffer, offset + ORDER_ID_OFFSET, getOrderIdLength(), orderId);
+    }
+
+    /**
+     * Appends the orderId to builder without creating a String.
+     * @param builder
+     */
+    public void appendOrderId(final StringBuilder builder) {
+        WireFormat.appendId(buffer, offset + ORDER_ID_OFFSET, getOrderIdLength(), builder);
+    }
+
+    /**
+     * @return the orderId - creates a String
+     */
+    public String getOrderId() {
+        return WireFormat.getId(buffer, offset + ORDER_ID_OFFSET, getOrderIdLength());
+    }
+}
@@ -0,0 +1,156 @@
+package com.silverbars.orderbook.codec;
+
+import com.silverbars.orderbook.DepthSnapshot;
+import com.silverbars.orderbook.Side;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Little-endian wire message for a DepthSnapshot - the price levels of one side of the OrderBook in summary order,
+ * replacing the summary lines. The header is followed by a fixed-width record per level, so a DepthMessage reads any
+ * level in place without decoding the others. Each message holds:
+ * <pre>
+ *   0  messageType      byte  DEPTH
+ *   1  side             byte
+ *   2  reserved         short
+ *   4  levelCount       int
+ *   8  levels           levelCount records of
+ *        0  priceTicks      long
+ *        8  quantityTicks   long
+ * </pre>
+ * This class is not thread safe - use a DepthMessage per thread.
+ */
+public final class DepthMessage {
+    public static final int HEADER_LENGTH = 8;
+    public static final int LEVEL_LENGTH = 16;
+    /** Most levels whose encodedLength fits in an int */
+    public static final int MAX_LEVEL_COUNT = (Integer.MAX_VALUE - HEADER_LENGTH) / LEVEL_LENGTH;
+
+    private final static int RESERVED_OFFSET = 2;
+    private final static int LEVEL_COUNT_OFFSET = 4;
+    private final static int PRICE_OFFSET = 0;
+    private final static int QUANTITY_OFFSET = 8;
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int levelCount;
+
+    /**
+     * @param levelCount
+     * @return length in bytes of a message of levelCount levels
+     * @throws IllegalArgumentException if levelCount is negative or greater than MAX_LEVEL_COUNT
+     */
+    public static int encodedLength(final int levelCount){
+        if( levelCount < 0 || levelCount > MAX_LEVEL_COUNT){
+            throw new IllegalArgumentException("Invalid levelCount: " + levelCount);
+        }
+        return HEADER_LENGTH + levelCount * LEVEL_LENGTH;
+    }
+
+    /**
+     * Writes depth as a DEPTH message at offset in buffer, leaving buffer's position unchanged.
+     * @param depth
+     * @param buffer little-endian buffer with at least encodedLength(depth.size()) bytes from offset to its limit
+     * @param offset
+     * @return number of bytes written
+     * @throws IllegalArgumentException if buffer is not little-endian
+     * @throws IndexOutOfBoundsException if the message does not fit before buffer's limit
+     */
+    public static int encode(final DepthSnapshot depth, final ByteBuffer buffer, final int offset){
+        Objects.requireNonNull(depth, "Missing depth");
+        final int length = encodedLength(depth.size());
+        WireFormat.checkBuffer(buffer, offset, length);
+        buffer.put(offset + WireFormat.TYPE_OFFSET, MessageType.DEPTH.getCode());
+        buffer.put(offset + WireFormat.SIDE_OFFSET, WireFormat.encodeSide(depth.getSide()));
+        buffer.putShort(offset + RESERVED_OFFSET, (short) 0);
+        buffer.putInt(offset + LEVEL_COUNT_OFFSET, depth.size());
+        int levelOffset = offset + HEADER_LENGTH;
+        for( int i = 0; i < depth.size(); i++){
+            buffer.putLong(levelOffset + PRICE_OFFSET, depth.getPriceTicks(i));
+            buffer.putLong(levelOffset + QUANTITY_OFFSET, depth.getQuantityTicks(i));
+            levelOffset += LEVEL_LENGTH;
+        }
+        return length;
+    }
+
+    /**
+     * Points this DepthMessage at the message at offset in buffer.
+     * @param buffer little-endian buffer
+     * @param offset
+     * @return this
+     * @throws IllegalArgumentException if the message is not a DEPTH or buffer is not little-endian
+     * @throws IndexOutOfBoundsException if the message does not fit before buffer's limit
+     */
+    public DepthMessage wrap(final ByteBuffer buffer, final int offset){
+        Objects.requireNonNull(buffer, "Missing buffer");
+        WireFormat.checkBuffer(buffer, offset, HEADER_LENGTH);
+        WireFormat.checkType(buffer, offset, MessageType.DEPTH);
+        final int levelCount = buffer.getInt(offset + LEVEL_COUNT_OFFSET);
+        if( levelCount < 0){
+            throw new IllegalArgumentException("Invalid levelCount: " + levelCount);
+        }
+        // compared by division so a corrupt levelCount cannot overflow the message length
+        if( levelCount > (buffer.limit() - offset - HEADER_LENGTH) / LEVEL_LENGTH){
+            throw new IndexOutOfBoundsException("Message of " + levelCount + " levels at offset " + offset + " exceeds limit " + buffer.limit());
+        }
+        this.buffer = buffer;
+        this.offset = offset;
+        this.levelCount = levelCount;
+        return this;
+    }
+
+    public Side getSide() {
+        return WireFormat.decodeSide(buffer, offset);
+    }
+
+    /**
+     * @return number of price levels
+     */
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    /**
+     * @return length in bytes of the message
+     */
+    public int getEncodedLength() {
+        return encodedLength(levelCount);
+    }
+
+    /**
+     * @param index level index, 0 being the best price
+     * @return price of the level in ticks
+     */
+    public long getPriceTicks(final int index) {
+        return buffer.getLong(levelOffset(index) + PRICE_OFFSET);
+    }
+
+    /**
+     * @param index level index, 0 being the best price
+     * @return summed quantity of the level in ticks
+     */
+    public long getQuantityTicks(final int index) {
+        return buffer.getLong(levelOffset(index) + QUANTITY_OFFSET);
+    }
+
+    /**
+     * @return the DepthSnapshot encoded in the message - copies every level
+     */
+    public DepthSnapshot toSnapshot() {
+        final long[] priceTicks = new long[levelCount];
+        final long[] quantityTicks = new long[levelCount];
+        for( int i = 0; i < levelCount; i++){
+            priceTicks[i] = getPriceTicks(i);
+            quantityTicks[i] = getQuantityTicks(i);
+        }
+        return new DepthSnapshot(getSide(), priceTicks, quantityTicks, levelCount);
+    }
+
+    private int levelOffset(final int index){
+        if( index < 0 || index >= levelCount){
+            throw new IndexOutOfBoundsException("Invalid level index " + index + " of " + levelCount + " levels");
+        }
+        return offset + HEADER_LENGTH + index * LEVEL_LENGTH;
+    }
+}
@@ -0,0 +1,52 @@
+package com.silverbars.orderbook.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Type of a binary wire message, held in the first byte of every message so a receiver can tell which flyweight to
+ * wrap it with.
+ */
+public enum MessageType {
+    /**
+     * An Order to add, read with OrderMessage
+     */
+    ORDER((byte) 1),
+    /**
+     * A cancel of an order by orderId, read with CancelMessage
+     */
+    CANCEL((byte) 2),
+    /**
+     * The price levels of one side of the OrderBook, read with DepthMessage
+     */
+    DEPTH((byte) 3);
+
+    private final byte code;
+
+    MessageType(final byte code) {
+        this.code = code;
+    }
+
+    byte getCode() {
+        return code;
+    }
+
+    /**
+     * @param buffer
+     * @param offset offset of the message in buffer
+     * @return type of the message at offset
+     * @throws IllegalArgumentException if the message type is not known
+     */
+    public static MessageType of(final ByteBuffer buffer, final int offset){
+        final byte code = buffer.get(offset);
+        switch (code) {
+            case 1:
+                return ORDER;
+            case 2:
+                return CANCEL;
+            case 3:
+                return DEPTH;
+            default:
+                throw new IllegalArgumentException("Invalid message type: " + code);
+        }
+    }
+}
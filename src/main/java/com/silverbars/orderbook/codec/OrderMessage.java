@@ -0,0 +1,170 @@
+package com.silverbars.orderbook.codec;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.Side;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Fixed-layout little-endian wire message for an Order to add. encode writes an Order into a ByteBuffer, and an
+ * OrderMessage wraps the encoded bytes to read the fields in place - a receiver can route, check and compare an order
+ * without creating it or its id Strings, and can reuse one OrderMessage for every message it reads. Each message holds:
+ * <pre>
+ *   0  messageType      byte  ORDER
+ *   1  side             byte
+ *   2  orderIdLength    byte
+ *   3  userIdLength     byte
+ *   4  reserved         int
+ *   8  priceTicks       long
+ *  16  quantityTicks    long
+ *  24  orderId          MAX_ID_LENGTH chars
+ *  88  userId           MAX_ID_LENGTH chars
+ * </pre>
+ * Ids longer than MAX_ID_LENGTH cannot be encoded. Buffers must be in little-endian order.
+ *
+ * This class is not thread safe - use an OrderMessage per thread.
+ */
+public final class OrderMessage {
+    public static final int ENCODED_LENGTH = 152;
+    public static final int MAX_ID_LENGTH = WireFormat.MAX_ID_LENGTH;
+
+    private final static int ORDER_ID_LENGTH_OFFSET = 2;
+    private final static int USER_ID_LENGTH_OFFSET = 3;
+    private final static int RESERVED_OFFSET = 4;
+    private final static int PRICE_OFFSET = 8;
+    private final static int QUANTITY_OFFSET = 16;
+    private final static int ORDER_ID_OFFSET = 24;
+    private final static int USER_ID_OFFSET = ORDER_ID_OFFSET + WireFormat.ID_SIZE;
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    /**
+     * Writes order as an ORDER message at offset in buffer, leaving buffer's position unchanged.
+     * @param order
+     * @param buffer little-endian buffer with at least ENCODED_LENGTH bytes from offset to its limit
+     * @param offset
+     * @return number of bytes written - ENCODED_LENGTH
+     * @throws IllegalArgumentException if an id of order is longer than MAX_ID_LENGTH or buffer is not little-endian
+     * @throws IndexOutOfBoundsException if the message does not fit before buffer's limit
+     */
+    public static int encode(final Order order, final ByteBuffer buffer, final int offset){
+        Objects.requireNonNull(order, "Missing order");
+        WireFormat.checkBuffer(buffer, offset, ENCODED_LENGTH);
+        WireFormat.checkId(order.getOrderId());
+        WireFormat.checkId(order.getUserId());
+        buffer.put(offset + WireFormat.TYPE_OFFSET, MessageType.ORDER.getCode());
+        buffer.put(offset + WireFormat.SIDE_OFFSET, WireFormat.encodeSide(order.getSide()));
+        buffer.put(offset + ORDER_ID_LENGTH_OFFSET, (byte) order.getOrderId().length());
+        buffer.put(offset + USER_ID_LENGTH_OFFSET, (byte) order.getUserId().length());
+        buffer.putInt(offset + RESERVED_OFFSET, 0);
+        buffer.putLong(offset + PRICE_OFFSET, order.getPriceTicks());
+        buffer.putLong(offset + QUANTITY_OFFSET, order.getQuantityTicks());
+        WireFormat.putId(buffer, offset + ORDER_ID_OFFSET, order.getOrderId());
+        WireFormat.putId(buffer, offset + USER_ID_OFFSET, order.getUserId());
+        return ENCODED_LENGTH;
+    }
+
+    /**
+     * Points this OrderMessage at the message at offset in buffer. The bytes are read as the getters are called, so
+     * must not change while the message is being read.
+     * @param buffer little-endian buffer
+     * @param offset
+     * @return this
+     * @throws IllegalArgumentException if the message is not an ORDER, an id length is greater than MAX_ID_LENGTH or
+     * buffer is not little-endian
+     * @throws IndexOutOfBoundsException if the message does not fit before buffer's limit
+     */
+    public OrderMessage wrap(final ByteBuffer buffer, final int offset){
+        Objects.requireNonNull(buffer, "Missing buffer");
+        WireFormat.checkBuffer(buffer, offset, ENCODED_LENGTH);
+        WireFormat.checkType(buffer, offset, MessageType.ORDER);
+        WireFormat.checkIdLength(buffer, offset + ORDER_ID_LENGTH_OFFSET);
+        WireFormat.checkIdLength(buffer, offset + USER_ID_LENGTH_OFFSET);
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    public Side getSide() {
+        return WireFormat.decodeSide(buffer, offset);
+    }
+
+    /**
+     * @return price per kilogram in pence
+     */
+    public long getPriceTicks() {
+        return buffer.getLong(offset + PRICE_OFFSET);
+    }
+
+    /**
+     * @return quantity in tenths of a kilogram
+     */
+    public long getQuantityTicks() {
+        return buffer.getLong(offset + QUANTITY_OFFSET);
+    }
+
+    public int getOrderIdLength() {
+        return WireFormat.getIdLength(buffer, offset + ORDER_ID_LENGTH_OFFSET);
+    }
+
+    public int getUserIdLength() {
+        return WireFormat.getIdLength(buffer, offset + USER_ID_LENGTH_OFFSET);
+    }
+
+    /**
+     * Compares the orderId in place.
+     * @param orderId
+     * @return true if the message's orderId equals orderId
+     */
+    public boolean orderIdEquals(final CharSequence orderId) {
+        return WireFormat.idEquals(buffer, offset + ORDER_ID_OFFSET, getOrderIdLength(), orderId);
+    }
+
+    /**
+     * Compares the userId in place.
+     * @param userId
+     * @return true if the message's userId equals userId
+     */
+    public boolean userIdEquals(final CharSequence userId) {
+        return WireFormat.idEquals(buffer, offset + USER_ID_OFFSET, getUserIdLength(), userId);
+    }
+
+    /**
+     * Appends the orderId to builder without creating a String.
+     * @param builder
+     */
+    public void appendOrderId(final StringBuilder builder) {
+        WireFormat.appendId(buffer, offset + ORDER_ID_OFFSET, getOrderIdLength(), builder);
+    }
+
+    /**
+     * Appends the userId to builder without creating a String.
+     * @param builder
+     */
+    public void appendUserId(final StringBuilder builder) {
+        WireFormat.appendId(buffer, offset + USER_ID_OFFSET, getUserIdLength(), builder);
+    }
+
+    /**
+     * @return the orderId - creates a String
+     */
+    public String getOrderId() {
+        return WireFormat.getId(buffer, offset + ORDER_ID_OFFSET, getOrderIdLength());
+    }
+
+    /**
+     * @return the userId - creates a String
+     */
+    public String getUserId() {
+        return WireFormat.getId(buffer, offset + USER_ID_OFFSET, getUserIdLength());
+    }
+
+    /**
+     * @return the Order encoded in the message - creates the Order and its ids
+     */
+    public Order toOrder() {
+        return Order.fromTicks(getOrderId(), getUserId(), getQuantityTicks(), getPriceTicks(), getSide());
+    }
+}
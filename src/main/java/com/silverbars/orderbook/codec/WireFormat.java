@@ -0,0 +1,118 @@
+package com.silverbars.orderbook.codec;
+
+import com.silverbars.orderbook.Side;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Layout shared by the wire messages. Every message starts with its MessageType byte and keeps its long fields 8 byte
+ * aligned relative to the start of the message. Ids are held as a length and up to MAX_ID_LENGTH UTF-16 chars, so
+ * they can be compared and copied in place without decoding. The chars after an id's length are not cleared when a
+ * buffer is reused, so only the length is ever read.
+ */
+final class WireFormat {
+    static final int MAX_ID_LENGTH = 32;
+    static final int ID_SIZE = MAX_ID_LENGTH * 2;
+
+    static final int TYPE_OFFSET = 0;
+    static final int SIDE_OFFSET = 1;
+
+    private final static byte BUY = 1;
+    private final static byte SELL = 2;
+
+    private WireFormat() {
+    }
+
+    /**
+     * Checks that a message of length bytes can be written or read at offset.
+     */
+    static void checkBuffer(final ByteBuffer buffer, final int offset, final int length){
+        if( buffer.order() != ByteOrder.LITTLE_ENDIAN){
+            throw new IllegalArgumentException("Invalid buffer. Must be little-endian");
+        }
+        if( offset < 0 || offset > buffer.limit() - length){
+            throw new IndexOutOfBoundsException("Message of " + length + " bytes at offset " + offset + " exceeds limit " + buffer.limit());
+        }
+    }
+
+    static void checkType(final ByteBuffer buffer, final int offset, final MessageType type){
+        if( buffer.get(offset + TYPE_OFFSET) != type.getCode()){
+            throw new IllegalArgumentException("Invalid message. Expected " + type + " but was " + MessageType.of(buffer, offset));
+        }
+    }
+
+    static void checkId(final String id){
+        if( id.length() > MAX_ID_LENGTH){
+            throw new IllegalArgumentException("Invalid id. Must be at most " + MAX_ID_LENGTH + " characters: " + id);
+        }
+    }
+
+    /**
+     * Checks the id length byte at lengthOffset of a message being wrapped.
+     */
+    static void checkIdLength(final ByteBuffer buffer, final int lengthOffset){
+        final int length = getIdLength(buffer, lengthOffset);
+        if( length > MAX_ID_LENGTH){
+            throw new IllegalArgumentException("Invalid id length. Must be at most " + MAX_ID_LENGTH + ": " + length);
+        }
+    }
+
+    /**
+     * @return the id length byte at lengthOffset, read as unsigned
+     */
+    static int getIdLength(final ByteBuffer buffer, final int lengthOffset){
+        return buffer.get(lengthOffset) & 0xFF;
+    }
+
+    static byte encodeSide(final Side side){
+        return side == Side.BUY ? BUY : SELL;
+    }
+
+    static Side decodeSide(final ByteBuffer buffer, final int offset){
+        final byte code = buffer.get(offset + SIDE_OFFSET);
+        switch (code) {
+            case BUY:
+                return Side.BUY;
+            case SELL:
+                return Side.SELL;
+            default:
+                throw new IllegalArgumentException("Invalid side: " + code);
+        }
+    }
+
+    /**
+     * Writes id's chars at idOffset, leaving the rest of the field as it was.
+     */
+    static void putId(final ByteBuffer buffer, final int idOffset, final String id){
+        for( int i = 0; i < id.length(); i++){
+            buffer.putChar(idOffset + i * 2, id.charAt(i));
+        }
+    }
+
+    static boolean idEquals(final ByteBuffer buffer, final int idOffset, final int length, final CharSequence id){
+        if( id.length() != length){
+            return false;
+        }
+        for( int i = 0; i < length; i++){
+            if( buffer.getChar(idOffset + i * 2) != id.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String getId(final ByteBuffer buffer, final int idOffset, final int length){
+        final char[] chars = new char[length];
+        for( int i = 0; i < length; i++){
+            chars[i] = buffer.getChar(idOffset + i * 2);
+        }
+        return new String(chars);
+    }
+
+    static void appendId(final ByteBuffer buffer, final int idOffset, final int length, final StringBuilder builder){
+        for( int i = 0; i < length; i++){
+            builder.append(buffer.getChar(idOffset + i * 2));
+        }
+    }
+}
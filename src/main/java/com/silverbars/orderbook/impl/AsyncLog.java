@@ -0,0 +1,266 @@
+package com.silverbars.orderbook.impl;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LocationInfo;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous, parameterised logging for the order path. Callers store the logger, a message pattern and up to two
+ * arguments in a preallocated ring, and a daemon thread formats and writes the message. No string is built and no I/O
+ * is done on the caller's thread, so logging while holding a side's write lock only costs a stack walk to the caller's
+ * frame and a few stores under a short monitor. A pattern marks each argument with {}. Arguments are formatted with
+ * toString on the logging thread, so they must be immutable.
+ *
+ * The caller's frame, thread name and time are taken when the event is logged, so layouts report where and when the
+ * event happened rather than where the logging thread wrote it.
+ *
+ * If the ring is full the event is dropped and counted rather than blocking the caller - the logging thread reports the
+ * number dropped.
+ */
+final class AsyncLog {
+    private final static Logger log = Logger.getLogger(AsyncLog.class);
+    private final static int DEFAULT_CAPACITY = 4096;
+    private final static AsyncLog ORDER_PATH = new AsyncLog(DEFAULT_CAPACITY, "orderbook-log");
+    private final static String FQCN = AsyncLog.class.getName();
+    private final static StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final int mask;
+    private final Logger[] loggers;
+    private final Level[] levels;
+    private final String[] patterns;
+    private final Object[] firstArgs;
+    private final Object[] secondArgs;
+    private final StackWalker.StackFrame[] callers;
+    private final String[] callerThreads;
+    private final long[] timeStamps;
+    private final String threadName;
+
+    // guarded by this - events between taken and tail are queued, and those before written have been written
+    private long written;
+    private long taken;
+    private long tail;
+    private long dropped;
+    private boolean consumerWaiting;
+    private Thread consumer;
+
+    @VisibleForTesting
+    AsyncLog(final int capacity, final String threadName) {
+        if( capacity <= 0 || Integer.bitCount(capacity) != 1){
+            throw new IllegalArgumentException("Invalid capacity. Must be a power of 2");
+        }
+        Objects.requireNonNull(threadName, "Missing threadName");
+        this.mask = capacity - 1;
+        this.loggers = new Logger[capacity];
+        this.levels = new Level[capacity];
+        this.patterns = new String[capacity];
+        this.firstArgs = new Object[capacity];
+        this.secondArgs = new Object[capacity];
+        this.callers = new StackWalker.StackFrame[capacity];
+        this.callerThreads = new String[capacity];
+        this.timeStamps = new long[capacity];
+        this.threadName = threadName;
+    }
+
+    /**
+     * Logs an error on the order path logging thread.
+     * @param logger
+     * @param pattern message with {} marking arg
+     * @param arg
+     */
+    static void error(final Logger logger, final String pattern, final Object arg){
+        ORDER_PATH.log(logger, Level.ERROR, pattern, arg, null);
+    }
+
+    /**
+     * Logs an error on the order path logging thread.
+     * @param logger
+     * @param pattern message with {} marking firstArg and then secondArg
+     * @param firstArg
+     * @param secondArg
+     */
+    static void error(final Logger logger, final String pattern, final Object firstArg, final Object secondArg){
+        ORDER_PATH.log(logger, Level.ERROR, pattern, firstArg, secondArg);
+    }
+
+    /**
+     * @param timeout
+     * @param unit
+     * @return true if every order path event logged so far has been written
+     * @throws InterruptedException
+     */
+    @VisibleForTesting
+    static boolean flush(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return ORDER_PATH.awaitWritten(timeout, unit);
+    }
+
+    /**
+     * Enqueues the event unless logger is not enabled for level or the ring is full.
+     * @return true if the event was enqueued
+     */
+    boolean log(final Logger logger, final Level level, final String pattern, final Object firstArg, final Object secondArg){
+        if( !logger.isEnabledFor(level)){
+            return false;
+        }
+        final StackWalker.StackFrame caller = STACK_WALKER.walk(frames ->
+                frames.filter(frame -> !FQCN.equals(frame.getClassName())).findFirst().orElse(null));
+        final long timeStamp = System.currentTimeMillis();
+        synchronized (this){
+            if( tail - taken > mask){
+                dropped++;
+                return false;
+            }
+            final int index = (int) tail & mask;
+            loggers[index] = logger;
+            levels[index] = level;
+            patterns[index] = pattern;
+            firstArgs[index] = firstArg;
+            secondArgs[index] = secondArg;
+            callers[index] = caller;
+            callerThreads[index] = Thread.currentThread().getName();
+            timeStamps[index] = timeStamp;
+            tail++;
+            if( consumer == null){
+                startConsumer();
+            }
+            else if( consumerWaiting){
+                notifyAll();
+            }
+            return true;
+        }
+    }
+
+    synchronized boolean awaitWritten(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while( written != tail){
+            final long remaining = deadline - System.nanoTime();
+            if( remaining <= 0){
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    // Called while synchronized. The consumer is only started by the first event so classes that never log start nothing
+    private void startConsumer(){
+        consumer = new Thread(this::writeEvents, threadName);
+        consumer.setDaemon(true);
+        consumer.start();
+        try {
+            // write whatever is still queued when the JVM exits
+            Runtime.getRuntime().addShutdownHook(new Thread(this::writeQueued, threadName + "-shutdown"));
+        }
+        catch (IllegalStateException e) {
+            // already shutting down
+        }
+    }
+
+    // Consumer thread loop
+    private void writeEvents(){
+        while( true){
+            try {
+                synchronized (this){
+                    while( taken == tail){
+                        consumerWaiting = true;
+                        wait();
+                    }
+                    consumerWaiting = false;
+                }
+                writeQueued();
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+            catch (RuntimeException e) {
+                log.error("Failed to write log event", e);
+            }
+        }
+    }
+
+    // Takes one event at a time, formatting and writing it outside the monitor so callers never wait on I/O. Also called
+    // by the shutdown hook, so each event is taken before it is written
+    private void writeQueued(){
+        while( true){
+            final Logger logger;
+            final Level level;
+            final String pattern;
+            final Object firstArg;
+            final Object secondArg;
+            final StackWalker.StackFrame caller;
+            final String callerThread;
+            final long timeStamp;
+            final long droppedCount;
+            synchronized (this){
+                if( taken == tail){
+                    return;
+                }
+                final int index = (int) taken & mask;
+                taken++;
+                logger = loggers[index];
+                level = levels[index];
+                pattern = patterns[index];
+                firstArg = firstArgs[index];
+                secondArg = secondArgs[index];
+                caller = callers[index];
+                callerThread = callerThreads[index];
+                timeStamp = timeStamps[index];
+                loggers[index] = null;
+                patterns[index] = null;
+                firstArgs[index] = null;
+                secondArgs[index] = null;
+                callers[index] = null;
+                callerThreads[index] = null;
+                droppedCount = dropped;
+                dropped = 0;
+            }
+            if( droppedCount > 0){
+                log.warn("Dropped " + droppedCount + " log events as the log queue was full");
+            }
+            try {
+                logger.callAppenders(new LoggingEvent(FQCN, logger, timeStamp, level, format(pattern, firstArg, secondArg),
+                        callerThread, null, null, toLocation(caller), null));
+            }
+            finally {
+                synchronized (this){
+                    // only advanced once written, so a flush waits for the last event's I/O
+                    written++;
+                    if( written == tail){
+                        notifyAll();
+                    }
+                }
+            }
+        }
+    }
+
+    private static LocationInfo toLocation(final StackWalker.StackFrame caller){
+        if( caller == null){
+            return LocationInfo.NA_LOCATION_INFO;
+        }
+        return new LocationInfo(caller.getFileName(), caller.getClassName(), caller.getMethodName(),
+                String.valueOf(caller.getLineNumber()));
+    }
+
+    @VisibleForTesting
+    static String format(final String pattern, final Object firstArg, final Object secondArg){
+        final StringBuilder builder = new StringBuilder(pattern.length() + 64);
+        int from = 0;
+        int argIndex = 0;
+        int marker;
+        while( argIndex < 2 && (marker = pattern.indexOf("{}", from)) >= 0){
+            builder.append(pattern, from, marker).append(argIndex == 0 ? firstArg : secondArg);
+            from = marker + 2;
+            argIndex++;
+        }
+        return builder.append(pattern, from, pattern.length()).toString();
+    }
+
+    @VisibleForTesting
+    synchronized long getQueued(){
+        return tail - written;
+    }
+}
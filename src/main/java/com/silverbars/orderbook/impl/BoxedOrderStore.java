@@ -0,0 +1,73 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Order;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * OrderStore holding Order objects in a Map keyed on orderId, with a UserOrderIndex of their orderIds keyed on userId.
+ *
+ * This class is not synchronized. If multiple threads access it, it should be synchronized externally.
+ */
+class BoxedOrderStore implements OrderStore {
+    private final Map<String, Order> orders;
+    private final UserOrderIndex userOrders = new UserOrderIndex();
+
+    BoxedOrderStore(final Map<String, Order> orders) {
+        Objects.requireNonNull(orders, "Missing orders");
+        this.orders = orders;
+    }
+
+    @Override
+    public boolean contains(final String orderId) {
+        return orders.containsKey(orderId);
+    }
+
+    @Override
+    public void add(final Order order) {
+        orders.put(order.getOrderId(), order);
+        userOrders.add(order.getUserId(), order.getOrderId());
+    }
+
+    @Override
+    public boolean get(final String orderId, final OrderRecord record) {
+        final Order order = orders.get(orderId);
+        if( order == null){
+            return false;
+        }
+        record.set(order.getOrderId(), order.getUserId(), order.getPriceTicks(), order.getQuantityTicks());
+        return true;
+    }
+
+    @Override
+    public boolean remove(final String orderId, final OrderRecord removed) {
+        final Order order = orders.remove(orderId);
+        if( order == null){
+            return false;
+        }
+        userOrders.remove(order.getUserId(), orderId);
+        removed.set(order.getOrderId(), order.getUserId(), order.getPriceTicks(), order.getQuantityTicks());
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return orders.size();
+    }
+
+    @Override
+    public List<String> getOrderIds(final String userId) {
+        return userOrders.getOrderIds(userId);
+    }
+
+    @Override
+    public void forEach(final OrderRecord record, final Consumer<OrderRecord> action) {
+        for( Order order : orders.values()){
+            record.set(order.getOrderId(), order.getUserId(), order.getPriceTicks(), order.getQuantityTicks());
+            action.accept(record);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Side;
+
+import java.util.Arrays;
+
+/**
+ * Bounded buffer of the level changes pending delivery to one subscriber. Changes are conflated on side and price, so a
+ * level that changes again before the subscriber drains the buffer only holds its latest quantity and a slow subscriber
+ * skips intermediate states rather than falling further behind. Pending changes keep the order in which their levels
+ * first changed and are located through an open addressing index, so offering a change does not allocate.
+ *
+ * If more distinct levels are pending than the buffer can hold, the pending changes are discarded and the buffer is
+ * marked as overflowed, telling the subscriber to rebuild from the current levels.
+ *
+ * Producers and the consumer synchronize on the buffer, holding it only for a few array writes.
+ */
+final class ConflatingLevelBuffer {
+    private final static int EMPTY = -1;
+
+    private final int capacity;
+    private final Side[] sides;
+    private final long[] priceTicks;
+    private final long[] quantityTicks;
+    // index bucket of each pending change, so the index can be cleared without rehashing
+    private final int[] bucketOf;
+    // pending change slot for each bucket, or EMPTY
+    private final int[] buckets;
+    private final int mask;
+    private int size;
+    private boolean overflowed;
+
+    /**
+     * @param capacity maximum number of distinct levels that can be pending
+     */
+    ConflatingLevelBuffer(final int capacity) {
+        if( capacity <= 0){
+            throw new IllegalArgumentException("Invalid capacity. Must be greater than 0");
+        }
+        this.capacity = capacity;
+        this.sides = new Side[capacity];
+        this.priceTicks = new long[capacity];
+        this.quantityTicks = new long[capacity];
+        this.bucketOf = new int[capacity];
+        // keep the index at most half full
+        this.buckets = new int[Integer.highestOneBit(capacity) << 2];
+        Arrays.fill(buckets, EMPTY);
+        this.mask = buckets.length - 1;
+    }
+
+    /**
+     * @param side
+     * @param priceTicks
+     * @param quantityTicks
+     * @return true if the buffer was empty, or has overflowed, so the consumer should be woken
+     */
+    synchronized boolean offer(final Side side, final long priceTicks, final long quantityTicks){
+        int bucket = hash(side, priceTicks) & mask;
+        int slot;
+        while( (slot = buckets[bucket]) != EMPTY){
+            if( this.priceTicks[slot] == priceTicks && sides[slot] == side){
+                // conflate with the pending change for the level
+                this.quantityTicks[slot] = quantityTicks;
+                return false;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+        if( size == capacity){
+            clear();
+            overflowed = true;
+            return true;
+        }
+        slot = size++;
+        sides[slot] = side;
+        this.priceTicks[slot] = priceTicks;
+        this.quantityTicks[slot] = quantityTicks;
+        bucketOf[slot] = bucket;
+        buckets[bucket] = slot;
+        return size == 1;
+    }
+
+    /**
+     * Moves every pending change into the target arrays, which must be at least capacity long.
+     * @return number of changes moved
+     */
+    synchronized int drainTo(final Side[] sides, final long[] priceTicks, final long[] quantityTicks){
+        final int drained = size;
+        System.arraycopy(this.sides, 0, sides, 0, drained);
+        System.arraycopy(this.priceTicks, 0, priceTicks, 0, drained);
+        System.arraycopy(this.quantityTicks, 0, quantityTicks, 0, drained);
+        clear();
+        return drained;
+    }
+
+    /**
+     * @return true if the buffer has overflowed since this was last called
+     */
+    synchronized boolean takeOverflow(){
+        final boolean result = overflowed;
+        overflowed = false;
+        return result;
+    }
+
+    synchronized int size(){
+        return size;
+    }
+
+    int capacity(){
+        return capacity;
+    }
+
+    // every pending change is removed, so only their buckets need clearing
+    private void clear(){
+        for( int slot = 0; slot < size; slot++){
+            buckets[bucketOf[slot]] = EMPTY;
+            sides[slot] = null;
+        }
+        size = 0;
+    }
+
+    private static int hash(final Side side, final long priceTicks){
+        final long h = (priceTicks * 2 + side.ordinal()) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,182 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.DepthSnapshot;
+import com.silverbars.orderbook.PriceLevel;
+import com.silverbars.orderbook.Side;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Price ordered array of FixedPointOrderLevels together with each level's cached summary line. Levels are kept in summary
+ * order (ascending for Sell side, descending for Buy side) and are located by binary search over primitive long keys, so
+ * lookups neither allocate nor sort. Removed levels are kept beyond the last level and reused by insert, and summary lines
+ * are only encoded when the summary is built, so levels coming and going allocate nothing.
+ *
+ * This class is not synchronized. If multiple threads access it, it should be synchronized externally.
+ */
+class FixedPointLevelLadder {
+    private final static int INITIAL_CAPACITY = 16;
+
+    private final Side side;
+    private final boolean ascending;
+
+    // price ticks, negated for Buy side so that keys are always ascending
+    private long[] keys = new long[INITIAL_CAPACITY];
+    // levels at and beyond size are removed levels waiting to be reused
+    private FixedPointOrderLevel[] levels = new FixedPointOrderLevel[INITIAL_CAPACITY];
+    // summary line of each level, null until encoded by toSummary
+    private String[] lines = new String[INITIAL_CAPACITY];
+    private int size;
+
+    FixedPointLevelLadder(final Side side) {
+        Objects.requireNonNull(side, "Missing side");
+        this.side = side;
+        this.ascending = side == Side.SELL;
+    }
+
+    /**
+     * @param priceTicks
+     * @return index of the level with the given price, otherwise (-(insertion point) - 1)
+     */
+    int indexOf(final long priceTicks){
+        return Arrays.binarySearch(keys, 0, size, toKey(priceTicks));
+    }
+
+    FixedPointOrderLevel get(final int index){
+        return levels[index];
+    }
+
+    int size(){
+        return size;
+    }
+
+    /**
+     * Inserts an empty level, reusing a removed level if there is one.
+     * @param index insertion point returned by indexOf
+     * @param priceTicks
+     * @return the inserted level
+     */
+    FixedPointOrderLevel insert(final int index, final long priceTicks){
+        if( size == keys.length){
+            keys = Arrays.copyOf(keys, size * 2);
+            levels = Arrays.copyOf(levels, size * 2);
+            lines = Arrays.copyOf(lines, size * 2);
+        }
+        FixedPointOrderLevel level = levels[size];
+        if( level == null){
+            level = new FixedPointOrderLevel(priceTicks);
+        }
+        else {
+            level.reset(priceTicks);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(levels, index, levels, index + 1, size - index);
+        System.arraycopy(lines, index, lines, index + 1, size - index);
+        keys[index] = toKey(priceTicks);
+        levels[index] = level;
+        lines[index] = null;
+        size++;
+        return level;
+    }
+
+    /**
+     * Removes a level, keeping it for reuse. The removed level is not modified until a later insert.
+     * @param index
+     */
+    void remove(final int index){
+        final FixedPointOrderLevel removed = levels[index];
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(levels, index + 1, levels, index, size - index - 1);
+        System.arraycopy(lines, index + 1, lines, index, size - index - 1);
+        size--;
+        levels[size] = removed;
+        lines[size] = null;
+    }
+
+    /**
+     * Discards the cached summary line of a level whose quantity has changed.
+     * @param index
+     */
+    void clearLine(final int index){
+        lines[index] = null;
+    }
+
+    /**
+     * @param encoder used to encode the lines of levels changed since the last call
+     * @return immutable copy of the summary lines in summary order
+     */
+    List<String> toSummary(final SummaryLineEncoder encoder){
+        if( size == 0){
+            return Collections.emptyList();
+        }
+        for( int i = 0; i < size; i++){
+            if( lines[i] == null){
+                lines[i] = encoder.encode(levels[i].getQuantityTicks(), levels[i].getPriceTicks());
+            }
+        }
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(lines, size)));
+    }
+
+    /**
+     * @param maxLevels
+     * @return at most maxLevels levels in summary order
+     */
+    List<PriceLevel> getLevels(final int maxLevels){
+        return toPriceLevels(0, Math.min(maxLevels, size));
+    }
+
+    /**
+     * @param maxLevels
+     * @return snapshot of at most maxLevels levels in summary order
+     */
+    DepthSnapshot getDepth(final int maxLevels){
+        final int levelCount = Math.min(maxLevels, size);
+        final long[] priceTicks = new long[levelCount];
+        final long[] quantityTicks = new long[levelCount];
+        for( int i = 0; i < levelCount; i++){
+            priceTicks[i] = levels[i].getPriceTicks();
+            quantityTicks[i] = levels[i].getQuantityTicks();
+        }
+        return new DepthSnapshot(side, priceTicks, quantityTicks, levelCount);
+    }
+
+    /**
+     * @param lowPriceTicks lowest price to include
+     * @param highPriceTicks highest price to include
+     * @return levels priced between lowPriceTicks and highPriceTicks inclusive in summary order
+     */
+    List<PriceLevel> getLevels(final long lowPriceTicks, final long highPriceTicks){
+        if( lowPriceTicks > highPriceTicks){
+            return Collections.emptyList();
+        }
+        final long firstKey = ascending ? lowPriceTicks : -highPriceTicks;
+        final long lastKey = ascending ? highPriceTicks : -lowPriceTicks;
+        final int from = lowerBound(firstKey);
+        int to = from;
+        while( to < size && keys[to] <= lastKey){
+            to++;
+        }
+        return toPriceLevels(from, to);
+    }
+
+    private int lowerBound(final long key){
+        final int index = Arrays.binarySearch(keys, 0, size, key);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    private List<PriceLevel> toPriceLevels(final int from, final int to){
+        final List<PriceLevel> priceLevels = new ArrayList<>(to - from);
+        for( int i = from; i < to; i++){
+            priceLevels.add(new PriceLevel(levels[i].getPrice(), levels[i].getQuantity()));
+        }
+        return Collections.unmodifiableList(priceLevels);
+    }
+
+    private long toKey(final long priceTicks){
+        return ascending ? priceTicks : -priceTicks;
+    }
+}
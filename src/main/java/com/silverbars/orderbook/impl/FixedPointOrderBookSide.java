@@ -0,0 +1,617 @@
+package com.silverbars.orderbook.impl;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.silverbars.orderbook.DepthSnapshot;
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.PriceLevel;
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.metrics.OrderBookMetrics;
+import com.silverbars.orderbook.metrics.OrderBookOperation;
+import org.apache.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * OrderBookSide holding prices in pence and quantities in tenths of a kilogram. Levels are FixedPointOrderLevels kept in a
+ * price ordered FixedPointLevelLadder, so adding or cancelling an order at an existing price needs no BigDecimal
+ * arithmetic, rounding or sorting. BigDecimals are only created at the API boundary - the summary line of the level that
+ * changed is written straight from its ticks by SummaryLineEncoder. Resting orders are held in the OrderStore selected by
+ * OrderStorage.
+ *
+ * With OrderStorage.PRIMITIVE and a LAZY or COALESCED SummaryStrategy, a steady-state add and cancel allocates nothing:
+ * orders live in reused slots of the PrimitiveOrderStore, emptied levels are reused by the ladder and no summary line is
+ * encoded until getSummary is called. Order remains the API - it is read into the store on add and only created again
+ * when an order is returned. OrderStorage.OFF_HEAP keeps the orders outside the heap altogether, for very large books.
+ */
+public class FixedPointOrderBookSide implements OrderBookSide {
+    private final Logger log = Logger.getLogger(FixedPointOrderBookSide.class);
+    private final static int DEFAULT_EXPECTED_ORDERS = 1024;
+
+    private final Side side;
+    private final SummaryStrategy summaryStrategy;
+
+    // price ordered levels with their cached summary lines
+    private final FixedPointLevelLadder orderLevels;
+
+    private final OrderStore orders;
+    // reused to read back the order removed by cancelOrder
+    private final OrderRecord cancelledOrder = new OrderRecord();
+    // encodes the summary lines of changed levels - used under the write lock, or by getSummary while synchronized on it
+    private final SummaryLineEncoder lineEncoder = new SummaryLineEncoder();
+
+    // Best level, built by getBestLevel and cleared under the write lock when it changes - null until built again
+    private volatile Optional<PriceLevel> bestLevel = Optional.empty();
+
+    // Told of each level change while the write lock is held - null when nothing is subscribed
+    private volatile LevelChangeSink levelChangeSink;
+
+    // Told of summary rebuilds and write lock waits - null when metrics are not recorded
+    private volatile OrderBookMetrics metrics;
+
+    // Sorted summary of orders - rebuilt from cached lines so only changed levels are formatted
+    // Volatile as LAZY and COALESCED strategies rebuild it from getSummary, where concurrent readers may hold the read lock
+    private volatile List<String> orderSummary = Collections.emptyList();
+    // true if orders have changed since orderSummary was last built - never set for EAGER
+    private volatile boolean summaryStale;
+    // nanoClock time of the last summary rebuild by getSummary, valid once summaryRebuilt - only used for COALESCED
+    private volatile long summaryRebuiltNanos;
+    private volatile boolean summaryRebuilt;
+    private LongSupplier nanoClock = System::nanoTime;
+
+    // Used for accessing orderSummary and orderLevels.
+    private Lock readLock;
+    // Used when adding or cancelling an order so that orders, orderLevels and orderSummary are updated atomically
+    private Lock writeLock;
+
+    public FixedPointOrderBookSide(final Side side) {
+        this(side, OrderStorage.BOXED);
+    }
+
+    public FixedPointOrderBookSide(final Side side, final OrderStorage orderStorage) {
+        this(side, orderStorage, DEFAULT_EXPECTED_ORDERS);
+    }
+
+    /**
+     * @param side
+     * @param orderStorage
+     * @param expectedOrders number of resting orders to presize the OrderStore for, avoiding growth copies for very large books
+     */
+    public FixedPointOrderBookSide(final Side side, final OrderStorage orderStorage, final int expectedOrders) {
+        this(side, orderStorage, expectedOrders, SummaryStrategy.EAGER);
+    }
+
+    /**
+     * @param side
+     * @param orderStorage
+     * @param expectedOrders number of resting orders to presize the OrderStore for, avoiding growth copies for very large books
+     * @param summaryStrategy when the order summary is built after an order is added or cancelled
+     */
+    public FixedPointOrderBookSide(final Side side, final OrderStorage orderStorage, final int expectedOrders, final SummaryStrategy summaryStrategy) {
+        this(side, createOrderStore(orderStorage, expectedOrders), summaryStrategy);
+    }
+
+    @VisibleForTesting
+    FixedPointOrderBookSide(final Side side, final OrderStore orders) {
+        this(side, orders, SummaryStrategy.EAGER);
+    }
+
+    @VisibleForTesting
+    FixedPointOrderBookSide(final Side side, final OrderStore orders, final SummaryStrategy summaryStrategy) {
+        Objects.requireNonNull(side, "Missing side");
+        Objects.requireNonNull(orders, "Missing orders");
+        Objects.requireNonNull(summaryStrategy, "Missing summaryStrategy");
+        this.side = side;
+        this.summaryStrategy = summaryStrategy;
+        this.orderLevels = new FixedPointLevelLadder(side);
+        this.orders = orders;
+        final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock(true);
+        this.readLock = rwLock.readLock();
+        this.writeLock = rwLock.writeLock();
+    }
+
+    @Override
+    public Side getSide() {
+        return side;
+    }
+
+    /**
+     * Adds an order to the OrderBookSide. This implementation is not idempotent, so if an order is added that has already
+     * been submitted, a OrderBookException is thrown.
+     * @param order
+     * @throws OrderBookException
+     */
+    @Override
+    public void addOrder(final Order order) throws OrderBookException {
+        final OrderResult result = tryAddOrder(order);
+        if( !result.isSuccess()){
+            throw OrderBookException.rejection(result, order);
+        }
+    }
+
+    @Override
+    public OrderResult tryAddOrder(final Order order) {
+        lockWrite();
+        try {
+            final OrderResult result = applyAdd(order);
+            if( result.isSuccess()){
+                orderSummaryChanged();
+            }
+            return result;
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Performs cancellation of Orders. This implementation is not idempotent so if the order is cancelled more than once a
+     * OrderBookException is thrown. The quantity and price of the originally submitted order are used.
+     * @param order
+     * @throws OrderBookException if an order is cancelled that was not previously submitted or if an order in cancelled more than once.
+     */
+    @Override
+    public void cancelOrder(final Order order) throws OrderBookException {
+        final OrderResult result = tryCancelOrder(order);
+        if( !result.isSuccess()){
+            throw OrderBookException.rejection(result, order);
+        }
+    }
+
+    @Override
+    public OrderResult tryCancelOrder(final Order order) {
+        lockWrite();
+        try {
+            final OrderResult result = applyCancel(order);
+            if( result.isSuccess()){
+                orderSummaryChanged();
+            }
+            return result;
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the order in the OrderStore and its level in the ladder from its price ticks, so no BigDecimal is created.
+     * @param orderId
+     * @return the cancelled order
+     * @throws OrderBookException if the order is not resting on this side
+     */
+    @Override
+    public Order cancelOrder(final String orderId) throws OrderBookException {
+        Objects.requireNonNull(orderId, "Missing orderId");
+        Order resting = null;
+        final OrderResult result;
+        lockWrite();
+        try {
+            if( orders.get(orderId, cancelledOrder)){
+                resting = Order.fromTicks(cancelledOrder.orderId, cancelledOrder.userId, cancelledOrder.quantityTicks,
+                        cancelledOrder.priceTicks, side);
+                result = applyCancel(resting);
+            }
+            else {
+                result = OrderResult.UNKNOWN_ORDER;
+            }
+            if( result.isSuccess()){
+                orderSummaryChanged();
+            }
+        }
+        finally {
+            writeLock.unlock();
+        }
+        if( resting == null){
+            AsyncLog.error(log, "Order could not be found, or was previously cancelled: {}", orderId);
+            throw OrderBookException.unknownOrder(orderId);
+        }
+        if( !result.isSuccess()){
+            throw OrderBookException.rejection(result, resting);
+        }
+        return resting;
+    }
+
+    /**
+     * Adds all orders under a single acquisition of the write lock and publishes the order summary once.
+     * @param orders
+     * @return result for each order in the same order
+     */
+    @Override
+    public List<OrderResult> addOrders(final List<Order> orders) {
+        final List<OrderResult> results = new ArrayList<>(orders.size());
+        lockWrite();
+        try {
+            for( Order order : orders){
+                results.add(applyAdd(order));
+            }
+            orderSummaryChanged();
+        }
+        finally {
+            writeLock.unlock();
+        }
+        return results;
+    }
+
+    /**
+     * Cancels all orders under a single acquisition of the write lock and publishes the order summary once.
+     * @param orders
+     * @return result for each order in the same order
+     */
+    @Override
+    public List<OrderResult> cancelOrders(final List<Order> orders) {
+        final List<OrderResult> results = new ArrayList<>(orders.size());
+        lockWrite();
+        try {
+            for( Order order : orders){
+                results.add(applyCancel(order));
+            }
+            orderSummaryChanged();
+        }
+        finally {
+            writeLock.unlock();
+        }
+        return results;
+    }
+
+    @Override
+    public List<Order> getOrdersForUser(final String userId) {
+        Objects.requireNonNull(userId, "Missing userId");
+        readLock.lock();
+        try {
+            return readOrders(orders.getOrderIds(userId), new OrderRecord());
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Cancels the user's orders under a single acquisition of the write lock and publishes the order summary once.
+     * @param userId
+     * @return the cancelled orders with the quantity that was resting, in the order they were added
+     */
+    @Override
+    public List<Order> cancelAllForUser(final String userId) {
+        Objects.requireNonNull(userId, "Missing userId");
+        lockWrite();
+        try {
+            final List<Order> cancelled = readOrders(orders.getOrderIds(userId), cancelledOrder);
+            for( Order order : cancelled){
+                applyCancel(order);
+            }
+            if( !cancelled.isEmpty()){
+                orderSummaryChanged();
+            }
+            return cancelled;
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Caller must hold the read or write lock
+    private List<Order> readOrders(final List<String> orderIds, final OrderRecord record){
+        final List<Order> read = new ArrayList<>(orderIds.size());
+        for( String orderId : orderIds){
+            if( orders.get(orderId, record)){
+                read.add(Order.fromTicks(record.orderId, record.userId, record.quantityTicks, record.priceTicks, side));
+            }
+        }
+        record.clear();
+        return read;
+    }
+
+    // Adds order to orders and its level, discarding the level's summary line. Caller must hold the write lock and publish the summary.
+    private OrderResult applyAdd(final Order order){
+        // if Order has been previously submitted, reject
+        if( orders.contains(order.getOrderId())){
+            AsyncLog.error(log, "Invalid call to addOrder: Order has been previously submitted: {}", order);
+            return OrderResult.DUPLICATE_ORDER;
+        }
+        if( !orders.canStore(order)){
+            AsyncLog.error(log, "Invalid call to addOrder: Order cannot be stored with {}: {}", orders.getClass().getSimpleName(), order);
+            return OrderResult.UNSUPPORTED_ORDER;
+        }
+        // find or insert the level before the store changes, so an order is never stored without its level
+        final int index = orderLevels.indexOf(order.getPriceTicks());
+        final FixedPointOrderLevel orderLevel = index < 0
+                ? orderLevels.insert(-(index + 1), order.getPriceTicks())
+                : orderLevels.get(index);
+        orders.add(order);
+        orderLevel.addQuantity(order.getQuantityTicks());
+        if( index >= 0){
+            orderLevels.clearLine(index);
+        }
+        levelChanged(orderLevel);
+        return OrderResult.ADDED;
+    }
+
+    // Removes order from orders and its level, discarding the level's summary line. Caller must hold the write lock and publish the summary.
+    private OrderResult applyCancel(final Order order){
+        if( !orders.get(order.getOrderId(), cancelledOrder)){
+            AsyncLog.error(log, "Order could not be found, or was previously cancelled: {}", order);
+            return OrderResult.UNKNOWN_ORDER;
+        }
+
+        // the level is found before the order leaves the store, so a failed cancel leaves both as they were
+        final int index = orderLevels.indexOf(cancelledOrder.priceTicks);
+        final long quantityTicks = cancelledOrder.quantityTicks;
+        if( index < 0){
+            cancelledOrder.clear();
+            AsyncLog.error(log, "OrderLevel could not be found for Order: {}", order);
+            return OrderResult.REJECTED;
+        }
+        orders.remove(order.getOrderId(), cancelledOrder);
+        cancelledOrder.clear();
+        final FixedPointOrderLevel orderLevel = orderLevels.get(index);
+        orderLevel.removeQuantity(quantityTicks);
+
+        // If OrderLevel quantity is zero, we remove it from the ladder
+        if( orderLevel.getQuantityTicks() == 0){
+            orderLevels.remove(index);
+        }
+        else {
+            orderLevels.clearLine(index);
+        }
+        levelChanged(orderLevel);
+        return OrderResult.CANCELLED;
+    }
+
+    /**
+     * Returns the order summary. For LAZY and COALESCED strategies a stale summary is rebuilt here, under the read lock.
+     * Concurrent readers synchronize on the line encoder so that only one of them rebuilds it.
+     */
+    @Override
+    public List<String> getSummary() {
+        readLock.lock();
+        try {
+            if( summaryStale && isRebuildDue()){
+                synchronized (lineEncoder){
+                    if( summaryStale){
+                        rebuildOrderSummary();
+                        summaryRebuiltNanos = nanoClock.getAsLong();
+                        summaryRebuilt = true;
+                        summaryStale = false;
+                    }
+                }
+            }
+            return orderSummary;
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the best level snapshot without taking the read lock. A change to the best level only clears the snapshot,
+     * so that adds and cancels allocate nothing - the first call after it rebuilds the snapshot under the read lock.
+     */
+    @Override
+    public Optional<PriceLevel> getBestLevel() {
+        final Optional<PriceLevel> snapshot = bestLevel;
+        if( snapshot != null){
+            return snapshot;
+        }
+        readLock.lock();
+        try {
+            final Optional<PriceLevel> best = orderLevels.size() == 0 ? Optional.empty() : Optional.of(orderLevels.getLevels(1).get(0));
+            // writers are excluded while the read lock is held, so best cannot be stale when stored
+            bestLevel = best;
+            return best;
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<PriceLevel> getLevels(final int maxLevels) {
+        if( maxLevels < 0){
+            throw new IllegalArgumentException("Invalid maxLevels. Must not be negative");
+        }
+        readLock.lock();
+        try {
+            return orderLevels.getLevels(maxLevels);
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public DepthSnapshot getDepth() {
+        return getDepth(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public DepthSnapshot getDepth(final int maxLevels) {
+        if( maxLevels < 0){
+            throw new IllegalArgumentException("Invalid maxLevels. Must not be negative");
+        }
+        readLock.lock();
+        try {
+            return orderLevels.getDepth(maxLevels);
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * The store keeps no time priority, so orders at the same price come back in the order the store holds them.
+     */
+    @Override
+    public List<Order> getOrders() {
+        readLock.lock();
+        try {
+            final List<Order> resting = new ArrayList<>(orders.size());
+            orders.forEach(new OrderRecord(), record -> resting.add(Order.fromTicks(record.orderId, record.userId,
+                    record.quantityTicks, record.priceTicks, side)));
+            final Comparator<Order> byPrice = Comparator.comparingLong(Order::getPriceTicks);
+            resting.sort(side == Side.BUY ? byPrice.reversed() : byPrice);
+            return resting;
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int getLevelCount() {
+        readLock.lock();
+        try {
+            return orderLevels.size();
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int getOrderCount() {
+        readLock.lock();
+        try {
+            return orders.size();
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<PriceLevel> getLevels(final BigDecimal lowPrice, final BigDecimal highPrice) {
+        Objects.requireNonNull(lowPrice, "Missing lowPrice");
+        Objects.requireNonNull(highPrice, "Missing highPrice");
+        // only whole pence can be resting in the book, so round the range inwards
+        final long lowPriceTicks = lowPrice.setScale(Order.PRICE_SCALE, RoundingMode.CEILING).unscaledValue().longValueExact();
+        final long highPriceTicks = highPrice.setScale(Order.PRICE_SCALE, RoundingMode.FLOOR).unscaledValue().longValueExact();
+        readLock.lock();
+        try {
+            return orderLevels.getLevels(lowPriceTicks, highPriceTicks);
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Cancellation always removes the resting quantity, so the remainder is added like any other order.
+     */
+    @Override
+    public void addRemainder(final Order remainder) throws OrderBookException {
+        addOrder(remainder);
+    }
+
+    @Override
+    public boolean containsOrder(final String orderId) {
+        readLock.lock();
+        try {
+            return orders.contains(orderId);
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public void setLevelChangeSink(final LevelChangeSink sink) {
+        this.levelChangeSink = sink;
+    }
+
+    @Override
+    public void setMetrics(final OrderBookMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public SummaryStrategy getSummaryStrategy() {
+        return summaryStrategy;
+    }
+
+    // Acquires the write lock, recording the time spent waiting for it when metrics are set. The clock is only read when
+    // the lock is contended - the timed tryLock respects the lock's fairness, unlike tryLock()
+    private void lockWrite(){
+        final OrderBookMetrics metrics = this.metrics;
+        if( metrics == null){
+            writeLock.lock();
+            return;
+        }
+        try {
+            if( writeLock.tryLock(0, TimeUnit.NANOSECONDS)){
+                metrics.recordWriteLockWait(0);
+                return;
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        final long start = System.nanoTime();
+        writeLock.lock();
+        metrics.recordWriteLockWait(System.nanoTime() - start);
+    }
+
+    // Called with the write lock held once orders have changed
+    private void orderSummaryChanged(){
+        if( summaryStrategy.getType() == SummaryStrategy.Type.EAGER){
+            rebuildOrderSummary();
+        }
+        else {
+            summaryStale = true;
+        }
+    }
+
+    private boolean isRebuildDue(){
+        return summaryStrategy.getType() != SummaryStrategy.Type.COALESCED
+                || !summaryRebuilt
+                || nanoClock.getAsLong() - summaryRebuiltNanos >= summaryStrategy.getIntervalNanos();
+    }
+
+    // Caller must hold the write lock, or the read lock while synchronized on lineEncoder
+    private void rebuildOrderSummary(){
+        final OrderBookMetrics metrics = this.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        orderSummary = orderLevels.toSummary(lineEncoder);
+        if( metrics != null){
+            metrics.recordLatency(OrderBookOperation.REBUILD_SUMMARY, System.nanoTime() - start);
+        }
+    }
+
+    // Called with the write lock held once changedLevel has changed, and been removed from the ladder if emptied
+    private void levelChanged(final FixedPointOrderLevel changedLevel){
+        // the best level changed if changedLevel is first, or was until it was removed
+        final int index = orderLevels.indexOf(changedLevel.getPriceTicks());
+        if( (index == 0 || index == -1) && bestLevel != null){
+            bestLevel = null;
+        }
+        final LevelChangeSink sink = levelChangeSink;
+        if( sink != null){
+            sink.onLevelChange(side, changedLevel.getPriceTicks(), changedLevel.getQuantityTicks());
+        }
+    }
+
+    @VisibleForTesting
+    void setNanoClock(final LongSupplier nanoClock){
+        this.nanoClock = nanoClock;
+    }
+
+    private static OrderStore createOrderStore(final OrderStorage orderStorage, final int expectedOrders){
+        Objects.requireNonNull(orderStorage, "Missing orderStorage");
+        if( expectedOrders <= 0){
+            throw new IllegalArgumentException("Invalid expectedOrders. Must be greater than 0");
+        }
+        switch (orderStorage){
+            case PRIMITIVE:
+                return new PrimitiveOrderStore(expectedOrders);
+            case OFF_HEAP:
+                return new OffHeapOrderStore(expectedOrders);
+            default:
+                return new BoxedOrderStore(new HashMap<>(expectedOrders * 4 / 3 + 1));
+        }
+    }
+}
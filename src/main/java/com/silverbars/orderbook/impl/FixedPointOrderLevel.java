@@ -0,0 +1,108 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Order;
+import org.apache.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * OrderLevel holding its price in pence and quantity in tenths of a kilogram. Adding and removing orders is plain long
+ * arithmetic with no allocation or rounding. BigDecimals are only created when getPrice or getQuantity are called.
+ *
+ * This class is not synchronized. If multiple threads access it, it should be synchronized externally.
+ */
+public class FixedPointOrderLevel implements OrderLevel {
+    private final Logger log = Logger.getLogger(FixedPointOrderLevel.class);
+
+    private long priceTicks;
+    private long quantityTicks;
+
+    public FixedPointOrderLevel(final long priceTicks) {
+        reset(priceTicks);
+    }
+
+    /**
+     * Reuses an emptied level for another price, so a FixedPointLevelLadder need not allocate a level for each new price.
+     * @param priceTicks
+     */
+    void reset(final long priceTicks){
+        if( priceTicks <= 0){
+            throw new IllegalArgumentException("Invalid price. Must be greater than 0");
+        }
+        this.priceTicks = priceTicks;
+        this.quantityTicks = 0;
+    }
+
+    @Override
+    public BigDecimal getPrice() {
+        return OrderLevel.getPriceFromTicks(priceTicks);
+    }
+
+    @Override
+    public BigDecimal getQuantity() {
+        return OrderLevel.getQuantityFromTicks(quantityTicks);
+    }
+
+    @Override
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
+    @Override
+    public long getQuantityTicks() {
+        return quantityTicks;
+    }
+
+    @Override
+    public void addOrder(final Order order){
+        validateOrder(order);
+        addQuantity(order.getQuantityTicks());
+    }
+
+    @Override
+    public void removeOrder(final Order order){
+        validateOrder(order);
+
+        // the order quantity should not be greater than the OrderLevel's quantity, otherwise will end up with negative quantity
+        if( order.getQuantityTicks() > quantityTicks ){
+            throw new IllegalArgumentException("Invalid Order supplied to FixedPointOrderLevel::removeOrder - quantity is too high: " + order);
+        }
+        removeQuantity(order.getQuantityTicks());
+    }
+
+    /**
+     * Adds quantity of an order already known to be at this level's price.
+     * @param orderQuantityTicks
+     */
+    void addQuantity(final long orderQuantityTicks){
+        quantityTicks += orderQuantityTicks;
+    }
+
+    /**
+     * Removes quantity of an order already known to be at this level's price.
+     * @param orderQuantityTicks
+     */
+    void removeQuantity(final long orderQuantityTicks){
+        if( orderQuantityTicks > quantityTicks ){
+            throw new IllegalArgumentException("Invalid quantity supplied to FixedPointOrderLevel::removeQuantity - quantity is too high: " + orderQuantityTicks);
+        }
+        quantityTicks -= orderQuantityTicks;
+    }
+
+    private void validateOrder(final Order order){
+        Objects.requireNonNull(order, "Cannot supply a null Order");
+        if( order.getPriceTicks() != priceTicks){
+            AsyncLog.error(log, "Invalid order supplied to FixedPointOrderLevel: {} - {}", priceTicks, order);
+            throw new IllegalArgumentException("Invalid Order supplied to FixedPointOrderLevel: " + priceTicks + " - " + order);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FixedPointOrderLevel{" +
+                "priceTicks=" + priceTicks +
+                ", quantityTicks=" + quantityTicks +
+                '}';
+    }
+}
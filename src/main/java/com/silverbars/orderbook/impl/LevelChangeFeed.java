@@ -0,0 +1,44 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Side;
+
+import java.util.Arrays;
+
+/**
+ * LevelChangeSink that fans changes out to every open LevelChangeSubscription. The subscriptions are held in a copy on
+ * write array so that passing on a change neither locks nor allocates.
+ */
+class LevelChangeFeed implements LevelChangeSink {
+    private volatile LevelChangeSubscription[] subscriptions = new LevelChangeSubscription[0];
+
+    @Override
+    public void onLevelChange(final Side side, final long priceTicks, final long quantityTicks) {
+        for( LevelChangeSubscription subscription : subscriptions){
+            subscription.onLevelChange(side, priceTicks, quantityTicks);
+        }
+    }
+
+    synchronized void add(final LevelChangeSubscription subscription){
+        final LevelChangeSubscription[] current = subscriptions;
+        final LevelChangeSubscription[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = subscription;
+        subscriptions = updated;
+    }
+
+    synchronized void remove(final LevelChangeSubscription subscription){
+        final LevelChangeSubscription[] current = subscriptions;
+        for( int i = 0; i < current.length; i++){
+            if( current[i] == subscription){
+                final LevelChangeSubscription[] updated = new LevelChangeSubscription[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                subscriptions = updated;
+                return;
+            }
+        }
+    }
+
+    int size(){
+        return subscriptions.length;
+    }
+}
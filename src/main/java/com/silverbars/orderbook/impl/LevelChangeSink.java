@@ -0,0 +1,16 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Side;
+
+/**
+ * Receives level changes from an OrderBookSide synchronously, while the side is locked. Implementations must be quick and
+ * must not call back into the OrderBookSide.
+ */
+public interface LevelChangeSink {
+    /**
+     * @param side
+     * @param priceTicks price of the level that changed
+     * @param quantityTicks new aggregate quantity of the level, or 0 if it was removed
+     */
+    void onLevelChange(Side side, long priceTicks, long quantityTicks);
+}
@@ -0,0 +1,137 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.DepthSnapshot;
+import com.silverbars.orderbook.LevelChange;
+import com.silverbars.orderbook.LevelChangeListener;
+import com.silverbars.orderbook.Side;
+import org.apache.log4j.Logger;
+
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Delivers the level changes of a LiveOrderBook to one LevelChangeListener. Changes are offered to a
+ * ConflatingLevelBuffer while the OrderBookSide is locked and handed to the listener on the subscription's own daemon
+ * thread, so a slow listener never holds up order entry - it sees the latest quantity of each level that changed instead
+ * of every intermediate one.
+ *
+ * Delivery starts with every current level, read from a DepthSnapshot of each side once the subscription is receiving
+ * changes. Buffered changes are never older than the snapshot, as the buffer only holds the latest quantity of each
+ * level, so they can safely be delivered after it. If the buffer overflows the listener is told to clear its levels and
+ * is resent every current level the same way.
+ *
+ * Call close to stop delivery.
+ */
+public class LevelChangeSubscription implements LevelChangeSink, AutoCloseable {
+    private final Logger log = Logger.getLogger(LevelChangeSubscription.class);
+
+    private final LevelChangeListener listener;
+    private final ConflatingLevelBuffer buffer;
+    // reads every current level of a side
+    private final Function<Side, DepthSnapshot> depth;
+    private final Consumer<LevelChangeSubscription> unsubscribe;
+
+    // changes drained from the buffer - only used by the delivery thread
+    private final Side[] sides;
+    private final long[] priceTicks;
+    private final long[] quantityTicks;
+
+    private final Thread delivery;
+
+    private volatile boolean running = true;
+
+    LevelChangeSubscription(final LevelChangeListener listener, final int capacity, final Function<Side, DepthSnapshot> depth,
+                            final Consumer<LevelChangeSubscription> unsubscribe) {
+        Objects.requireNonNull(listener, "Missing listener");
+        Objects.requireNonNull(depth, "Missing depth");
+        Objects.requireNonNull(unsubscribe, "Missing unsubscribe");
+        this.listener = listener;
+        this.buffer = new ConflatingLevelBuffer(capacity);
+        this.depth = depth;
+        this.unsubscribe = unsubscribe;
+        this.sides = new Side[capacity];
+        this.priceTicks = new long[capacity];
+        this.quantityTicks = new long[capacity];
+        this.delivery = new Thread(this::deliverChanges, "orderbook-level-changes");
+        this.delivery.setDaemon(true);
+    }
+
+    // Must be called once the subscription receives changes
+    void start(){
+        delivery.start();
+    }
+
+    /**
+     * Buffers a change for delivery. Called by the OrderBookSide while it is locked, so only wakes the delivery thread.
+     */
+    @Override
+    public void onLevelChange(final Side side, final long priceTicks, final long quantityTicks) {
+        if( buffer.offer(side, priceTicks, quantityTicks)){
+            LockSupport.unpark(delivery);
+        }
+    }
+
+    /**
+     * Stops delivery. The listener may receive one more batch of changes if it is being delivered when this is called.
+     */
+    @Override
+    public void close() {
+        running = false;
+        unsubscribe.accept(this);
+        LockSupport.unpark(delivery);
+    }
+
+    public boolean isClosed() {
+        return !running;
+    }
+
+    private void deliverChanges(){
+        deliverLevels();
+        while( running){
+            if( buffer.takeOverflow()){
+                log.warn("Level change subscription overflowed, resending all levels");
+                notifyOverflow();
+                deliverLevels();
+                continue;
+            }
+            final int count = buffer.drainTo(sides, priceTicks, quantityTicks);
+            if( count == 0){
+                LockSupport.park(this);
+                continue;
+            }
+            for( int i = 0; i < count; i++){
+                notifyChange(new LevelChange(sides[i], priceTicks[i], quantityTicks[i]));
+                sides[i] = null;
+            }
+        }
+    }
+
+    private void deliverLevels(){
+        for( Side side : Side.values()){
+            final DepthSnapshot levels = depth.apply(side);
+            for( int i = 0; i < levels.size() && running; i++){
+                notifyChange(new LevelChange(side, levels.getPriceTicks(i), levels.getQuantityTicks(i)));
+            }
+        }
+    }
+
+    private void notifyChange(final LevelChange change){
+        try {
+            listener.onLevelChange(change);
+        }
+        catch (RuntimeException e) {
+            log.error("LevelChangeListener failed on " + change, e);
+        }
+    }
+
+    private void notifyOverflow(){
+        try {
+            listener.onOverflow();
+        }
+        catch (RuntimeException e) {
+            log.error("LevelChangeListener failed on overflow", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.silverbars.orderbook.impl;
+
+/**
+ * Determines how an OrderBookSideImpl indexes its OrderLevels by price.
+ */
+public enum LevelIndex {
+    /**
+     * OrderLevels held in a HashMap. Price order is only obtained by sorting when it is required.
+     */
+    HASHED,
+    /**
+     * OrderLevels held in a NavigableMap ordered by the side's summary order (ascending for Sell, descending for Buy),
+     * so best price, top-N depth and price range queries require no sorting.
+     */
+    SORTED;
+}
@@ -0,0 +1,436 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Order;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * OrderStore holding each order as a fixed-width binary record in direct ByteBuffers, outside the Java heap. The
+ * open-addressing tables of orderId and userId to slot are off-heap too, so the heap used does not grow with the number
+ * of resting orders and the garbage collector has nothing per order to trace or copy.
+ *
+ * Records and tables are split into fixed-size segments. Records grow a segment at a time without copying, so the store
+ * is not limited by the 2GB size of a single ByteBuffer. Each record holds:
+ * <pre>
+ *   0  priceTicks       long
+ *   8  quantityTicks    long
+ *  16  nextOfUser       int   next slot of the user's circular list, or next free slot once removed
+ *  20  previousOfUser   int
+ *  24  orderIdHash      int
+ *  28  userIdHash       int
+ *  32  orderIdLength    short FREE once removed
+ *  34  userIdLength     short
+ *  36  orderId          MAX_ID_LENGTH chars
+ * 100  userId           MAX_ID_LENGTH chars
+ * </pre>
+ * Ids are stored as chars and compared in place, so a lookup neither encodes nor allocates. Orders with an id longer than
+ * MAX_ID_LENGTH cannot be stored. Reading an order back creates its id Strings.
+ *
+ * This class is not synchronized. If multiple threads access it, it should be synchronized externally.
+ */
+class OffHeapOrderStore implements OrderStore {
+    static final int MAX_ID_LENGTH = 32;
+    static final int RECORD_SIZE = 168;
+
+    private final static int PRICE_OFFSET = 0;
+    private final static int QUANTITY_OFFSET = 8;
+    private final static int NEXT_OFFSET = 16;
+    private final static int PREVIOUS_OFFSET = 20;
+    private final static int ORDER_ID_HASH_OFFSET = 24;
+    private final static int USER_ID_HASH_OFFSET = 28;
+    private final static int ORDER_ID_LENGTH_OFFSET = 32;
+    private final static int USER_ID_LENGTH_OFFSET = 34;
+    private final static int ORDER_ID_OFFSET = 36;
+    private final static int USER_ID_OFFSET = ORDER_ID_OFFSET + MAX_ID_LENGTH * 2;
+
+    private final static int EMPTY = -1;
+    private final static short FREE = -1;
+    private final static int DEFAULT_RECORD_SEGMENT_SHIFT = 16;
+    private final static int BUCKET_SEGMENT_SHIFT = 20;
+
+    private final int recordSegmentShift;
+    private final int recordSegmentMask;
+    private ByteBuffer[] recordSegments = new ByteBuffer[0];
+    private int nextSlot;
+    // head of the list of removed slots, linked through nextOfUser
+    private int firstFree = EMPTY;
+
+    // open-addressing tables of slots keyed on orderId and on the userId of the first slot of each user's list, the
+    // same size and kept at most half full. EMPTY marks an unused bucket
+    private ByteBuffer[] buckets;
+    private ByteBuffer[] userBuckets;
+    private long bucketCount;
+    private int mask;
+
+    private int size;
+
+    /**
+     * @param expectedOrders number of resting orders to size the tables for
+     */
+    OffHeapOrderStore(final int expectedOrders) {
+        this(expectedOrders, DEFAULT_RECORD_SEGMENT_SHIFT);
+    }
+
+    /**
+     * @param expectedOrders number of resting orders to size the tables for
+     * @param recordSegmentShift log2 of the number of records per segment
+     */
+    OffHeapOrderStore(final int expectedOrders, final int recordSegmentShift) {
+        if( expectedOrders <= 0){
+            throw new IllegalArgumentException("Invalid expectedOrders. Must be greater than 0");
+        }
+        if( recordSegmentShift < 0 || (1L << recordSegmentShift) * RECORD_SIZE > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Invalid recordSegmentShift. Segment must fit in a ByteBuffer");
+        }
+        this.recordSegmentShift = recordSegmentShift;
+        this.recordSegmentMask = (1 << recordSegmentShift) - 1;
+        bucketCount = tableSizeFor(expectedOrders * 2L);
+        mask = (int) (bucketCount - 1);
+        buckets = allocateBuckets(bucketCount);
+        userBuckets = allocateBuckets(bucketCount);
+    }
+
+    /**
+     * @return false if either id is longer than MAX_ID_LENGTH
+     */
+    @Override
+    public boolean canStore(final Order order) {
+        return order.getOrderId().length() <= MAX_ID_LENGTH && order.getUserId().length() <= MAX_ID_LENGTH;
+    }
+
+    @Override
+    public boolean contains(final String orderId) {
+        return getBucket(buckets, findBucket(orderId, hash(orderId))) != EMPTY;
+    }
+
+    @Override
+    public void add(final Order order) {
+        if( !canStore(order)){
+            throw new IllegalArgumentException("Invalid Order. Ids must be at most " + MAX_ID_LENGTH + " characters: " + order);
+        }
+        if( (size + 1L) * 2 > bucketCount){
+            resize();
+        }
+        final int slot = allocateSlot();
+        final ByteBuffer segment = recordSegments[slot >>> recordSegmentShift];
+        final int offset = offset(slot);
+        final int orderIdHash = hash(order.getOrderId());
+        segment.putLong(offset + PRICE_OFFSET, order.getPriceTicks());
+        segment.putLong(offset + QUANTITY_OFFSET, order.getQuantityTicks());
+        segment.putInt(offset + ORDER_ID_HASH_OFFSET, orderIdHash);
+        segment.putInt(offset + USER_ID_HASH_OFFSET, hash(order.getUserId()));
+        putId(segment, offset + ORDER_ID_LENGTH_OFFSET, offset + ORDER_ID_OFFSET, order.getOrderId());
+        putId(segment, offset + USER_ID_LENGTH_OFFSET, offset + USER_ID_OFFSET, order.getUserId());
+        setBucket(buckets, findBucket(order.getOrderId(), orderIdHash), slot);
+        linkUser(slot);
+        size++;
+    }
+
+    @Override
+    public boolean get(final String orderId, final OrderRecord record) {
+        final int slot = getBucket(buckets, findBucket(orderId, hash(orderId)));
+        if( slot == EMPTY){
+            return false;
+        }
+        read(slot, record);
+        return true;
+    }
+
+    @Override
+    public boolean remove(final String orderId, final OrderRecord removed) {
+        final long bucket = findBucket(orderId, hash(orderId));
+        final int slot = getBucket(buckets, bucket);
+        if( slot == EMPTY){
+            return false;
+        }
+        read(slot, removed);
+        unlinkUser(slot);
+        deleteBucket(buckets, bucket, ORDER_ID_HASH_OFFSET);
+        final ByteBuffer segment = recordSegments[slot >>> recordSegmentShift];
+        segment.putShort(offset(slot) + ORDER_ID_LENGTH_OFFSET, FREE);
+        segment.putInt(offset(slot) + NEXT_OFFSET, firstFree);
+        firstFree = slot;
+        size--;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public List<String> getOrderIds(final String userId) {
+        final int first = getBucket(userBuckets, findUserBucket(userId, hash(userId)));
+        if( first == EMPTY){
+            return Collections.emptyList();
+        }
+        final List<String> userOrderIds = new ArrayList<>();
+        int slot = first;
+        do {
+            final ByteBuffer segment = recordSegments[slot >>> recordSegmentShift];
+            final int offset = offset(slot);
+            userOrderIds.add(getId(segment, offset + ORDER_ID_LENGTH_OFFSET, offset + ORDER_ID_OFFSET));
+            slot = segment.getInt(offset + NEXT_OFFSET);
+        } while( slot != first);
+        return userOrderIds;
+    }
+
+    @Override
+    public void forEach(final OrderRecord record, final Consumer<OrderRecord> action) {
+        for( int slot = 0; slot < nextSlot; slot++){
+            if( recordSegments[slot >>> recordSegmentShift].getShort(offset(slot) + ORDER_ID_LENGTH_OFFSET) != FREE){
+                read(slot, record);
+                action.accept(record);
+            }
+        }
+    }
+
+    /**
+     * @return bytes of direct memory held for records and tables
+     */
+    long getOffHeapBytes(){
+        long bytes = 0;
+        for( ByteBuffer segment : recordSegments){
+            bytes += segment.capacity();
+        }
+        for( ByteBuffer segment : buckets){
+            bytes += segment.capacity() * 2L;
+        }
+        return bytes;
+    }
+
+    private void read(final int slot, final OrderRecord record){
+        final ByteBuffer segment = recordSegments[slot >>> recordSegmentShift];
+        final int offset = offset(slot);
+        record.set(getId(segment, offset + ORDER_ID_LENGTH_OFFSET, offset + ORDER_ID_OFFSET),
+                getId(segment, offset + USER_ID_LENGTH_OFFSET, offset + USER_ID_OFFSET),
+                segment.getLong(offset + PRICE_OFFSET), segment.getLong(offset + QUANTITY_OFFSET));
+    }
+
+    // appends slot to the end of its user's list
+    private void linkUser(final int slot){
+        final long bucket = findUserBucket(slot);
+        final int first = getBucket(userBuckets, bucket);
+        if( first == EMPTY){
+            setBucket(userBuckets, bucket, slot);
+            setLink(slot, NEXT_OFFSET, slot);
+            setLink(slot, PREVIOUS_OFFSET, slot);
+            return;
+        }
+        final int last = getLink(first, PREVIOUS_OFFSET);
+        setLink(last, NEXT_OFFSET, slot);
+        setLink(slot, PREVIOUS_OFFSET, last);
+        setLink(slot, NEXT_OFFSET, first);
+        setLink(first, PREVIOUS_OFFSET, slot);
+    }
+
+    // removes slot from its user's list, dropping the user when it was their last order. Called before the slot is freed
+    private void unlinkUser(final int slot){
+        final long bucket = findUserBucket(slot);
+        final int next = getLink(slot, NEXT_OFFSET);
+        if( next == slot){
+            deleteBucket(userBuckets, bucket, USER_ID_HASH_OFFSET);
+            return;
+        }
+        final int previous = getLink(slot, PREVIOUS_OFFSET);
+        setLink(previous, NEXT_OFFSET, next);
+        setLink(next, PREVIOUS_OFFSET, previous);
+        if( getBucket(userBuckets, bucket) == slot){
+            setBucket(userBuckets, bucket, next);
+        }
+    }
+
+    // returns the bucket holding orderId, or the empty bucket where it would be inserted
+    private long findBucket(final String orderId, final int hash){
+        long bucket = hash & mask;
+        while( true){
+            final int slot = getBucket(buckets, bucket);
+            if( slot == EMPTY || idEquals(slot, hash, ORDER_ID_HASH_OFFSET, ORDER_ID_LENGTH_OFFSET, ORDER_ID_OFFSET, orderId)){
+                return bucket;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+    }
+
+    // returns the user bucket holding userId, or the empty bucket where it would be inserted
+    private long findUserBucket(final String userId, final int hash){
+        long bucket = hash & mask;
+        while( true){
+            final int slot = getBucket(userBuckets, bucket);
+            if( slot == EMPTY || idEquals(slot, hash, USER_ID_HASH_OFFSET, USER_ID_LENGTH_OFFSET, USER_ID_OFFSET, userId)){
+                return bucket;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+    }
+
+    // as findUserBucket for the userId stored in slot, without reading it back as a String
+    private long findUserBucket(final int slot){
+        final ByteBuffer segment = recordSegments[slot >>> recordSegmentShift];
+        final int offset = offset(slot);
+        final int hash = segment.getInt(offset + USER_ID_HASH_OFFSET);
+        long bucket = hash & mask;
+        while( true){
+            final int other = getBucket(userBuckets, bucket);
+            if( other == EMPTY || sameUser(other, segment, offset, hash)){
+                return bucket;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+    }
+
+    private boolean idEquals(final int slot, final int hash, final int hashOffset, final int lengthOffset, final int idOffset, final String id){
+        final ByteBuffer segment = recordSegments[slot >>> recordSegmentShift];
+        final int offset = offset(slot);
+        if( segment.getInt(offset + hashOffset) != hash || segment.getShort(offset + lengthOffset) != id.length()){
+            return false;
+        }
+        for( int i = 0; i < id.length(); i++){
+            if( segment.getChar(offset + idOffset + i * 2) != id.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean sameUser(final int slot, final ByteBuffer userSegment, final int userOffset, final int hash){
+        final ByteBuffer segment = recordSegments[slot >>> recordSegmentShift];
+        final int offset = offset(slot);
+        final int length = userSegment.getShort(userOffset + USER_ID_LENGTH_OFFSET);
+        if( segment.getInt(offset + USER_ID_HASH_OFFSET) != hash || segment.getShort(offset + USER_ID_LENGTH_OFFSET) != length){
+            return false;
+        }
+        for( int i = 0; i < length; i++){
+            if( segment.getChar(offset + USER_ID_OFFSET + i * 2) != userSegment.getChar(userOffset + USER_ID_OFFSET + i * 2)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // backward shift deletion keeps probe sequences unbroken without tombstones
+    private void deleteBucket(final ByteBuffer[] table, long bucket, final int hashOffset){
+        long next = (bucket + 1) & mask;
+        int slot;
+        while( (slot = getBucket(table, next)) != EMPTY){
+            final long ideal = recordSegments[slot >>> recordSegmentShift].getInt(offset(slot) + hashOffset) & mask;
+            // move the entry back if its ideal bucket is not cyclically within (bucket, next]
+            if( ((next - ideal) & mask) >= ((next - bucket) & mask)){
+                setBucket(table, bucket, slot);
+                bucket = next;
+            }
+            next = (next + 1) & mask;
+        }
+        setBucket(table, bucket, EMPTY);
+    }
+
+    private int allocateSlot(){
+        if( firstFree != EMPTY){
+            final int slot = firstFree;
+            firstFree = getLink(slot, NEXT_OFFSET);
+            return slot;
+        }
+        if( nextSlot == Integer.MAX_VALUE){
+            throw new IllegalStateException("OffHeapOrderStore is full");
+        }
+        if( (nextSlot >>> recordSegmentShift) == recordSegments.length){
+            recordSegments = Arrays.copyOf(recordSegments, recordSegments.length + 1);
+            recordSegments[recordSegments.length - 1] = ByteBuffer.allocateDirect((recordSegmentMask + 1) * RECORD_SIZE)
+                    .order(ByteOrder.nativeOrder());
+        }
+        return nextSlot++;
+    }
+
+    // there are never more users than orders, so the user table grows with the order table
+    private void resize(){
+        if( bucketCount * 2 > 1L << 31){
+            throw new IllegalStateException("OffHeapOrderStore is full");
+        }
+        final ByteBuffer[] oldBuckets = buckets;
+        final ByteBuffer[] oldUserBuckets = userBuckets;
+        final long oldBucketCount = bucketCount;
+        bucketCount *= 2;
+        mask = (int) (bucketCount - 1);
+        buckets = rehash(oldBuckets, oldBucketCount, ORDER_ID_HASH_OFFSET);
+        userBuckets = rehash(oldUserBuckets, oldBucketCount, USER_ID_HASH_OFFSET);
+    }
+
+    private ByteBuffer[] rehash(final ByteBuffer[] oldTable, final long oldBucketCount, final int hashOffset){
+        final ByteBuffer[] table = allocateBuckets(bucketCount);
+        for( long oldBucket = 0; oldBucket < oldBucketCount; oldBucket++){
+            final int slot = getBucket(oldTable, oldBucket);
+            if( slot != EMPTY){
+                long bucket = recordSegments[slot >>> recordSegmentShift].getInt(offset(slot) + hashOffset) & mask;
+                while( getBucket(table, bucket) != EMPTY){
+                    bucket = (bucket + 1) & mask;
+                }
+                setBucket(table, bucket, slot);
+            }
+        }
+        return table;
+    }
+
+    private int getLink(final int slot, final int linkOffset){
+        return recordSegments[slot >>> recordSegmentShift].getInt(offset(slot) + linkOffset);
+    }
+
+    private void setLink(final int slot, final int linkOffset, final int value){
+        recordSegments[slot >>> recordSegmentShift].putInt(offset(slot) + linkOffset, value);
+    }
+
+    private int offset(final int slot){
+        return (slot & recordSegmentMask) * RECORD_SIZE;
+    }
+
+    private static void putId(final ByteBuffer segment, final int lengthOffset, final int idOffset, final String id){
+        segment.putShort(lengthOffset, (short) id.length());
+        for( int i = 0; i < id.length(); i++){
+            segment.putChar(idOffset + i * 2, id.charAt(i));
+        }
+    }
+
+    private static String getId(final ByteBuffer segment, final int lengthOffset, final int idOffset){
+        final char[] chars = new char[segment.getShort(lengthOffset)];
+        for( int i = 0; i < chars.length; i++){
+            chars[i] = segment.getChar(idOffset + i * 2);
+        }
+        return new String(chars);
+    }
+
+    private static int getBucket(final ByteBuffer[] table, final long bucket){
+        return table[(int) (bucket >>> BUCKET_SEGMENT_SHIFT)].getInt((int) (bucket & ((1 << BUCKET_SEGMENT_SHIFT) - 1)) * 4);
+    }
+
+    private static void setBucket(final ByteBuffer[] table, final long bucket, final int slot){
+        table[(int) (bucket >>> BUCKET_SEGMENT_SHIFT)].putInt((int) (bucket & ((1 << BUCKET_SEGMENT_SHIFT) - 1)) * 4, slot);
+    }
+
+    private static ByteBuffer[] allocateBuckets(final long bucketCount){
+        final int bucketsPerSegment = (int) Math.min(bucketCount, 1 << BUCKET_SEGMENT_SHIFT);
+        final ByteBuffer[] table = new ByteBuffer[(int) (bucketCount / bucketsPerSegment)];
+        for( int i = 0; i < table.length; i++){
+            table[i] = ByteBuffer.allocateDirect(bucketsPerSegment * 4).order(ByteOrder.nativeOrder());
+            for( int bucket = 0; bucket < bucketsPerSegment; bucket++){
+                table[i].putInt(bucket * 4, EMPTY);
+            }
+        }
+        return table;
+    }
+
+    private static int hash(final String id){
+        // spread the String hash so that ids differing only in their last characters do not cluster
+        final int h = id.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static long tableSizeFor(final long capacity){
+        return Math.max(2, Long.highestOneBit(Math.max(1, capacity - 1)) << 1);
+    }
+}
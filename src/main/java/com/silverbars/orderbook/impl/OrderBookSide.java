@@ -1,10 +1,18 @@
 package com.silverbars.orderbook.impl;
 
+import com.silverbars.orderbook.DepthSnapshot;
 import com.silverbars.orderbook.Order;
 import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.PriceLevel;
 import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.Trade;
+import com.silverbars.orderbook.metrics.OrderBookMetrics;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderBookSide {
     /**
@@ -26,9 +34,186 @@ public interface OrderBookSide {
      */
     void cancelOrder(Order order) throws OrderBookException;
 
+    /**
+     * Adds order, returning the reason it was rejected rather than throwing. Cheaper than addOrder when rejections are
+     * expected, e.g. from a replayed or duplicated feed.
+     * @param order
+     * @return ADDED, or the reason the order was not added
+     */
+    OrderResult tryAddOrder(Order order);
+
+    /**
+     * Cancels order, returning the reason it was not cancelled rather than throwing.
+     * @param order
+     * @return CANCELLED, or the reason the order was not cancelled
+     */
+    OrderResult tryCancelOrder(Order order);
+
+    /**
+     * Cancels the order with orderId, using the price and quantity it is resting with
+     * @param orderId
+     * @return the cancelled order with the quantity that was resting
+     * @throws OrderBookException if no order with the orderId is resting on this side
+     */
+    Order cancelOrder(String orderId) throws OrderBookException;
+
+    /**
+     * Adds a batch of orders. Implementations should apply the batch atomically with a single summary update - this default
+     * adds the orders one at a time.
+     * @param orders
+     * @return result for each order in the same order
+     */
+    default List<OrderResult> addOrders(final List<Order> orders){
+        final List<OrderResult> results = new ArrayList<>(orders.size());
+        for( Order order : orders){
+            try {
+                addOrder(order);
+                results.add(OrderResult.ADDED);
+            }
+            catch (OrderBookException e) {
+                results.add(e.getResult());
+            }
+            catch (IllegalArgumentException e) {
+                results.add(OrderResult.REJECTED);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Cancels a batch of orders. Implementations should apply the batch atomically with a single summary update - this
+     * default cancels the orders one at a time.
+     * @param orders
+     * @return result for each order in the same order
+     */
+    default List<OrderResult> cancelOrders(final List<Order> orders){
+        final List<OrderResult> results = new ArrayList<>(orders.size());
+        for( Order order : orders){
+            try {
+                cancelOrder(order);
+                results.add(OrderResult.CANCELLED);
+            }
+            catch (OrderBookException e) {
+                results.add(e.getResult());
+            }
+            catch (IllegalArgumentException e) {
+                results.add(OrderResult.REJECTED);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @param userId
+     * @return copy of the user's resting orders, in the order they were added
+     */
+    List<Order> getOrdersForUser(String userId);
+
+    /**
+     * Cancels every resting order of a user as a single operation with a single summary update.
+     * @param userId
+     * @return the cancelled orders with the quantity that was resting, in the order they were added
+     */
+    List<Order> cancelAllForUser(String userId);
+
+    /**
+     * Fills incoming against the resting orders whose price it crosses, best price first and in time priority at each
+     * price. Filled orders are removed and partly filled orders keep their place with their remaining quantity.
+     * Implementations that do not hold orders in time priority do not support matching - this default throws
+     * UnsupportedOperationException, and supportsMatching returns false.
+     * @param incoming order for the opposite side
+     * @param trades receives a Trade for each fill, at the resting order's price
+     * @return quantity of incoming left unfilled, in tenths of a kilogram
+     */
+    default long match(final Order incoming, final List<Trade> trades){
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support matching");
+    }
+
+    /**
+     * @return true if this side implements match, so it can be used in a matching OrderBook
+     */
+    default boolean supportsMatching(){
+        return false;
+    }
+
+    /**
+     * Rests the unfilled remainder of an order that match partly filled on the opposite side. Like a resting order that
+     * has been partly filled, it can then be cancelled with the originally submitted order.
+     * @param remainder order for the unfilled quantity
+     * @throws OrderBookException if the remainder could not be added
+     */
+    void addRemainder(Order remainder) throws OrderBookException;
+
+    /**
+     * @param orderId
+     * @return true if an order with orderId is resting on this side
+     */
+    boolean containsOrder(String orderId);
+
     /**
      * Returns order summary. Will be sorted on the price.
      * @return Order summaries sorted in ascending price for Sell side and descending price for Buy side.
      */
     List<String> getSummary();
+
+    /**
+     * Read from a snapshot rather than the levels, so that it does not contend with adds and cancels. The same instance is
+     * returned until the best level changes.
+     * @return the level with the best price - lowest price for Sell side and highest price for Buy side - or empty if there are no orders
+     */
+    Optional<PriceLevel> getBestLevel();
+
+    /**
+     * Returns the top price levels in summary order.
+     * @param maxLevels maximum number of levels to return
+     * @return at most maxLevels levels sorted in ascending price for Sell side and descending price for Buy side
+     */
+    List<PriceLevel> getLevels(int maxLevels);
+
+    /**
+     * @return snapshot of every price level in summary order
+     */
+    DepthSnapshot getDepth();
+
+    /**
+     * @param maxLevels maximum number of levels to include
+     * @return snapshot of at most maxLevels of the best price levels in summary order
+     */
+    DepthSnapshot getDepth(int maxLevels);
+
+    /**
+     * @return copy of the resting orders, best price first and each price in time priority
+     */
+    List<Order> getOrders();
+
+    /**
+     * @return number of price levels with resting orders
+     */
+    int getLevelCount();
+
+    /**
+     * @return number of resting orders
+     */
+    int getOrderCount();
+
+    /**
+     * Returns the price levels within a price range in summary order.
+     * @param lowPrice lowest price to include
+     * @param highPrice highest price to include
+     * @return levels priced between lowPrice and highPrice inclusive, sorted in ascending price for Sell side and descending price for Buy side
+     */
+    List<PriceLevel> getLevels(BigDecimal lowPrice, BigDecimal highPrice);
+
+    /**
+     * Sets the sink told of the new aggregate quantity of each level changed by an add or cancel. The sink is called while
+     * the change is applied, so it sees the changes of this side in the order they were made.
+     * @param sink sink, or null for no notifications
+     */
+    void setLevelChangeSink(LevelChangeSink sink);
+
+    /**
+     * Sets the metrics told of summary rebuilds and of the time spent waiting for the write lock.
+     * @param metrics metrics, or null to record nothing
+     */
+    void setMetrics(OrderBookMetrics metrics);
 }
@@ -1,30 +1,68 @@
 package com.silverbars.orderbook.impl;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.silverbars.orderbook.DepthSnapshot;
 import com.silverbars.orderbook.Order;
 import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.PriceLevel;
 import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.Trade;
+import com.silverbars.orderbook.metrics.OrderBookMetrics;
+import com.silverbars.orderbook.metrics.OrderBookOperation;
 import org.apache.log4j.Logger;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class OrderBookSideImpl implements OrderBookSide{
     private final Logger log = Logger.getLogger(OrderBookSideImpl.class);
     private final static Comparator<OrderLevel> SELL_SIDE_COMPARATOR = (ol1, ol2) -> ol1.getPrice().compareTo(ol2.getPrice());
-    private final static String SUMMARY_FORMAT = "%.1f kg for £%.2f";
 
     private final Side side;
+    private final SummaryMode summaryMode;
+    private final SummaryStrategy summaryStrategy;
 
     private final Map<BigDecimal, OrderLevelImpl> orderLevels; // keyed on price  - use map for fast access
+    // Same map as orderLevels when it is already held in summary order, otherwise null and levels are sorted when required
+    private final NavigableMap<BigDecimal, OrderLevelImpl> sortedOrderLevels;
 
     // Sorted summary of orders - assume that this will be accessed very frequently so do not produce on the fly
-    private List<String> orderSummary = Collections.EMPTY_LIST;
+    // Volatile as LAZY and COALESCED strategies rebuild it from getSummary, where concurrent readers may hold the read lock
+    private volatile List<String> orderSummary = Collections.EMPTY_LIST;
+    // true if orders have changed since orderSummary was last built - never set for EAGER
+    private volatile boolean summaryStale;
+    // nanoClock time of the last summary rebuild by getSummary, valid once summaryRebuilt - only used for COALESCED
+    private volatile long summaryRebuiltNanos;
+    private volatile boolean summaryRebuilt;
+    private LongSupplier nanoClock = System::nanoTime;
+
+    // Encodes level summary lines - used under the write lock, or by getSummary while synchronized on it
+    private final SummaryLineEncoder lineEncoder = new SummaryLineEncoder();
+
+    // Cached summary lines in price order - only used for SummaryMode.INCREMENTAL
+    private final OrderSummaryLadder summaryLadder;
 
     private Map<String, Order> orders;
+    // orderIds of the resting orders keyed on userId - maintained alongside orders
+    private final UserOrderIndex userOrders = new UserOrderIndex();
+
+    // Best level, replaced under the write lock whenever it changes so getBestLevel needs no lock
+    private volatile Optional<PriceLevel> bestLevel = Optional.empty();
+    // price of bestLevel when present - only used under the write lock
+    private long bestPriceTicks;
+
+    // Told of each level change while the write lock is held - null when nothing is subscribed
+    private volatile LevelChangeSink levelChangeSink;
+
+    // Told of summary rebuilds and write lock waits - null when metrics are not recorded
+    private volatile OrderBookMetrics metrics;
 
     // Used for accessing orderSummary List.
     private Lock readLock;
@@ -33,14 +71,43 @@ public class OrderBookSideImpl implements OrderBookSide{
     private Lock writeLock;
 
     public OrderBookSideImpl(Side side) {
-        this(side, new HashMap<>(), new HashMap<>());
+        this(side, SummaryMode.REBUILD);
+    }
+
+    public OrderBookSideImpl(final Side side, final SummaryMode summaryMode) {
+        this(side, summaryMode, LevelIndex.HASHED);
+    }
+
+    public OrderBookSideImpl(final Side side, final SummaryMode summaryMode, final LevelIndex levelIndex) {
+        this(side, summaryMode, levelIndex, SummaryStrategy.EAGER);
+    }
+
+    public OrderBookSideImpl(final Side side, final SummaryMode summaryMode, final LevelIndex levelIndex, final SummaryStrategy summaryStrategy) {
+        this(side, summaryMode, summaryStrategy, createOrderLevels(side, levelIndex), new HashMap<>());
     }
 
     @VisibleForTesting
     OrderBookSideImpl(final Side side, final Map<BigDecimal, OrderLevelImpl> orderLevels, final Map<String, Order> orders) {
+        this(side, SummaryMode.REBUILD, orderLevels, orders);
+    }
+
+    @VisibleForTesting
+    OrderBookSideImpl(final Side side, final SummaryMode summaryMode, final Map<BigDecimal, OrderLevelImpl> orderLevels, final Map<String, Order> orders) {
+        this(side, summaryMode, SummaryStrategy.EAGER, orderLevels, orders);
+    }
+
+    @VisibleForTesting
+    OrderBookSideImpl(final Side side, final SummaryMode summaryMode, final SummaryStrategy summaryStrategy,
+                      final Map<BigDecimal, OrderLevelImpl> orderLevels, final Map<String, Order> orders) {
+        Objects.requireNonNull(summaryMode, "Missing summaryMode");
+        Objects.requireNonNull(summaryStrategy, "Missing summaryStrategy");
         this.side = side;
+        this.summaryMode = summaryMode;
+        this.summaryStrategy = summaryStrategy;
+        this.summaryLadder = summaryMode == SummaryMode.INCREMENTAL ? new OrderSummaryLadder(side) : null;
         this.orders = orders;
         this.orderLevels = orderLevels;
+        this.sortedOrderLevels = isSummaryOrdered(side, orderLevels) ? (NavigableMap<BigDecimal, OrderLevelImpl>) orderLevels : null;
         final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock(true);
         this.readLock = rwLock.readLock();
         this.writeLock = rwLock.writeLock();
@@ -60,26 +127,26 @@ public class OrderBookSideImpl implements OrderBookSide{
      */
     @Override
     public void addOrder(final Order order) throws OrderBookException{
-        writeLock.lock();
+        final OrderResult result = tryAddOrder(order);
+        if( !result.isSuccess()){
+            throw OrderBookException.rejection(result, order);
+        }
+    }
+
+    @Override
+    public OrderResult tryAddOrder(final Order order) {
+        lockWrite();
         try{
-            // if Order has been previously submitted, throw exception
-            if( orders.containsKey(order.getOrderId())){
-                log.error("Invalid call to addOrder: Order has been previously submitted: " + order);
-                throw new OrderBookException("Order has been previously submitted: " + order.getOrderId());
+            final OrderResult result = applyAdd(order);
+            if( result.isSuccess()){
+                // Now update order summary
+                orderSummaryChanged();
             }
-            orders.put(order.getOrderId(), order);
-            final BigDecimal orderPrice = OrderLevel.getPriceAsBigDecimal(order.getPrice());
-
-            final OrderLevel orderLevel = orderLevels.computeIfAbsent( orderPrice, a -> new OrderLevelImpl(order.getPrice()));
-            orderLevel.addOrder(order);
-
-            // Now rebuild order summary
-            rebuildOrderSummary();
+            return result;
         }
         finally {
             writeLock.unlock();
         }
-
     }
 
     /**
@@ -90,40 +157,324 @@ public class OrderBookSideImpl implements OrderBookSide{
      */
     @Override
     public void cancelOrder(final Order order) throws OrderBookException {
-        writeLock.lock();
+        final OrderResult result = tryCancelOrder(order);
+        if( !result.isSuccess()){
+            throw OrderBookException.rejection(result, order);
+        }
+    }
+
+    @Override
+    public OrderResult tryCancelOrder(final Order order) {
+        lockWrite();
         try {
-            if( !orders.containsKey(order.getOrderId())){
-                log.error("Order could not be found, or was previously cancelled: " + order);
-                throw new OrderBookException("Order could not be found, or was previously cancelled: " + order);
+            final OrderResult result = applyCancel(order);
+            if( result.isSuccess()){
+                // now update order summary
+                orderSummaryChanged();
             }
-            orders.remove(order.getOrderId());
+            return result;
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
 
-            final BigDecimal price = OrderLevel.getPriceAsBigDecimal(order.getPrice());
-            final OrderLevel orderLevel = orderLevels.get(price);
-            if( orderLevel == null){
-                log.error("OrderLevel could not be found for Order: " + order);
-                throw new OrderBookException("OrderLevel could not be found for Order: " + order);
+    @Override
+    public Order cancelOrder(final String orderId) throws OrderBookException {
+        Objects.requireNonNull(orderId, "Missing orderId");
+        final Order resting;
+        final OrderResult result;
+        lockWrite();
+        try {
+            resting = orders.get(orderId);
+            result = resting == null ? OrderResult.UNKNOWN_ORDER : applyCancel(resting);
+            if( result.isSuccess()){
+                orderSummaryChanged();
             }
-            orderLevel.removeOrder(order);
+        }
+        finally {
+            writeLock.unlock();
+        }
+        if( resting == null){
+            AsyncLog.error(log, "Order could not be found, or was previously cancelled: {}", orderId);
+            throw OrderBookException.unknownOrder(orderId);
+        }
+        if( !result.isSuccess()){
+            throw OrderBookException.rejection(result, resting);
+        }
+        return resting;
+    }
 
-            // If OrderLevel quantity is zero, we remove it from map
-            if( orderLevel.getQuantity().equals( OrderLevel.getQuantityAsBigDecimal(0))){
-                orderLevels.remove(price);
+    /**
+     * Adds all orders under a single acquisition of the write lock and publishes the order summary once.
+     * @param orders
+     * @return result for each order in the same order
+     */
+    @Override
+    public List<OrderResult> addOrders(final List<Order> orders) {
+        final List<OrderResult> results = new ArrayList<>(orders.size());
+        lockWrite();
+        try {
+            for( Order order : orders){
+                results.add(applyAdd(order));
             }
+            orderSummaryChanged();
+        }
+        finally {
+            writeLock.unlock();
+        }
+        return results;
+    }
 
-            // now rebuild order summary
-            rebuildOrderSummary();
+    /**
+     * Cancels all orders under a single acquisition of the write lock and publishes the order summary once.
+     * @param orders
+     * @return result for each order in the same order
+     */
+    @Override
+    public List<OrderResult> cancelOrders(final List<Order> orders) {
+        final List<OrderResult> results = new ArrayList<>(orders.size());
+        lockWrite();
+        try {
+            for( Order order : orders){
+                try {
+                    results.add(applyCancel(order));
+                }
+                catch (IllegalArgumentException e) {
+                    AsyncLog.error(log, "Invalid call to cancelOrders: {}", e.getMessage());
+                    results.add(OrderResult.REJECTED);
+                }
+            }
+            orderSummaryChanged();
         }
         finally {
             writeLock.unlock();
         }
+        return results;
+    }
 
+    @Override
+    public List<Order> getOrdersForUser(final String userId) {
+        Objects.requireNonNull(userId, "Missing userId");
+        readLock.lock();
+        try {
+            final List<String> orderIds = userOrders.getOrderIds(userId);
+            final List<Order> userOrderList = new ArrayList<>(orderIds.size());
+            for( String orderId : orderIds){
+                userOrderList.add(orders.get(orderId));
+            }
+            return userOrderList;
+        }
+        finally {
+            readLock.unlock();
+        }
     }
 
+    /**
+     * Cancels the user's orders under a single acquisition of the write lock and publishes the order summary once.
+     * @param userId
+     * @return the cancelled orders with the quantity that was resting, in the order they were added
+     */
+    @Override
+    public List<Order> cancelAllForUser(final String userId) {
+        Objects.requireNonNull(userId, "Missing userId");
+        lockWrite();
+        try {
+            final List<String> orderIds = userOrders.getOrderIds(userId);
+            final List<Order> cancelled = new ArrayList<>(orderIds.size());
+            for( String orderId : orderIds){
+                final Order resting = orders.get(orderId);
+                if( applyCancel(resting).isSuccess()){
+                    cancelled.add(resting);
+                }
+            }
+            if( !cancelled.isEmpty()){
+                orderSummaryChanged();
+            }
+            return cancelled;
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Adds order to orders and its OrderLevel, patching the summary line if required. Caller must hold the write lock and publish the summary.
+    private OrderResult applyAdd(final Order order){
+        // if Order has been previously submitted, reject
+        if( orders.containsKey(order.getOrderId())){
+            AsyncLog.error(log, "Invalid call to addOrder: Order has been previously submitted: {}", order);
+            return OrderResult.DUPLICATE_ORDER;
+        }
+        final BigDecimal orderPrice = OrderLevel.getPriceFromTicks(order.getPriceTicks());
+
+        // the level validates the order, so add it there before the order is indexed
+        final OrderLevelImpl orderLevel = orderLevels.computeIfAbsent( orderPrice, a -> new OrderLevelImpl(order.getPrice()));
+        orderLevel.addOrder(order);
+        orders.put(order.getOrderId(), order);
+        userOrders.add(order.getUserId(), order.getOrderId());
+
+        updateSummaryLine(orderLevel);
+        levelChanged(orderLevel);
+        return OrderResult.ADDED;
+    }
+
+    // Removes order from orders and its OrderLevel, patching the summary line if required. Caller must hold the write lock and publish the summary.
+    private OrderResult applyCancel(final Order order){
+        final Order resting = orders.get(order.getOrderId());
+        if( resting == null){
+            AsyncLog.error(log, "Order could not be found, or was previously cancelled: {}", order);
+            return OrderResult.UNKNOWN_ORDER;
+        }
+
+        // the resting order's price and quantity are removed, whatever the caller's order holds
+        final BigDecimal price = OrderLevel.getPriceFromTicks(resting.getPriceTicks());
+        final OrderLevelImpl orderLevel = orderLevels.get(price);
+        if( orderLevel == null){
+            AsyncLog.error(log, "OrderLevel could not be found for Order: {}", resting);
+            return OrderResult.REJECTED;
+        }
+        orderLevel.removeOrder(resting);
+        orders.remove(resting.getOrderId());
+        userOrders.remove(resting.getUserId(), resting.getOrderId());
+
+        // If OrderLevel quantity is zero, we remove it from map
+        if( isEmpty(orderLevel)){
+            orderLevels.remove(price);
+        }
+
+        updateSummaryLine(orderLevel);
+        levelChanged(orderLevel);
+        return OrderResult.CANCELLED;
+    }
+
+    /**
+     * Matches under the write lock, publishing the order summary once if any level was filled.
+     * @param incoming order for the opposite side
+     * @param trades receives a Trade for each fill
+     * @return quantity of incoming left unfilled, in tenths of a kilogram
+     */
+    @Override
+    public long match(final Order incoming, final List<Trade> trades) {
+        Objects.requireNonNull(incoming, "Missing incoming");
+        Objects.requireNonNull(trades, "Missing trades");
+        if( incoming.getSide() == side){
+            throw new IllegalArgumentException("Cannot match an order for the same side: " + incoming);
+        }
+        long remaining = incoming.getQuantityTicks();
+        lockWrite();
+        boolean filled = false;
+        try {
+            OrderLevelImpl level;
+            while( remaining > 0 && (level = getBestOrderLevel()) != null && crosses(level.getPriceTicks(), incoming.getPriceTicks())){
+                filled = true;
+                remaining = fillLevel(level, incoming, remaining, trades);
+            }
+        }
+        finally {
+            // publish fills already made even if a later fill failed, as they cannot be undone
+            if( filled){
+                orderSummaryChanged();
+            }
+            writeLock.unlock();
+        }
+        return remaining;
+    }
+
+    // Fills the orders of level in time priority until it or incoming is exhausted. Caller must hold the write lock and publish the summary.
+    private long fillLevel(final OrderLevelImpl level, final Order incoming, long remaining, final List<Trade> trades){
+        try {
+            Order first;
+            while( remaining > 0 && (first = level.getFirstOrder()) != null){
+                if( first.getQuantityTicks() <= 0){
+                    // nothing to fill - evict it rather than stop every later match at this level
+                    AsyncLog.error(log, "Evicting resting Order with no quantity: {}", first);
+                    level.removeOrder(first);
+                    orders.remove(first.getOrderId());
+                    userOrders.remove(first.getUserId(), first.getOrderId());
+                    continue;
+                }
+                final long fill = Math.min(remaining, first.getQuantityTicks());
+                final Order rest = level.fillFirstOrder(fill);
+                if( rest == null){
+                    orders.remove(first.getOrderId());
+                    userOrders.remove(first.getUserId(), first.getOrderId());
+                }
+                else {
+                    orders.put(first.getOrderId(), rest);
+                }
+                trades.add(new Trade(first.getOrderId(), incoming.getOrderId(), incoming.getSide(), level.getPriceTicks(), fill));
+                remaining -= fill;
+            }
+            if( !isEmpty(level) && level.getFirstOrder() == null){
+                // quantity with no orders to fill - drop the level so match does not find it again forever
+                AsyncLog.error(log, "Dropping OrderLevel with no orders: {}", level);
+                level.clear();
+            }
+        }
+        finally {
+            // the level is tidied and its summary line kept in step with the fills made, even if a fill failed
+            if( isEmpty(level)){
+                orderLevels.remove(level.getPrice());
+            }
+            updateSummaryLine(level);
+            levelChanged(level);
+        }
+        return remaining;
+    }
+
+    @Override
+    public boolean supportsMatching() {
+        return true;
+    }
+
+    // true if an incoming order at incomingPriceTicks can fill a resting order on this side at priceTicks
+    private boolean crosses(final long priceTicks, final long incomingPriceTicks){
+        return side == Side.SELL ? priceTicks <= incomingPriceTicks : priceTicks >= incomingPriceTicks;
+    }
+
+    // Caller must hold the read or write lock
+    private OrderLevelImpl getBestOrderLevel(){
+        if( sortedOrderLevels != null){
+            final Map.Entry<BigDecimal, OrderLevelImpl> best = sortedOrderLevels.firstEntry();
+            return best == null ? null : best.getValue();
+        }
+        return orderLevels.values().stream().min(getLevelComparator()).orElse(null);
+    }
+
+    @Override
+    public void addRemainder(final Order remainder) throws OrderBookException {
+        addOrder(remainder);
+    }
+
+    @Override
+    public boolean containsOrder(final String orderId) {
+        readLock.lock();
+        try {
+            return orders.containsKey(orderId);
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the order summary. For LAZY and COALESCED strategies a stale summary is rebuilt here, under the read lock.
+     * Concurrent readers synchronize on the line encoder so that only one of them rebuilds it.
+     */
     @Override
     public List<String> getSummary() {
         readLock.lock();
         try {
+            if( summaryStale && isRebuildDue()){
+                synchronized (lineEncoder){
+                    if( summaryStale){
+                        publishOrderSummary();
+                        summaryRebuiltNanos = nanoClock.getAsLong();
+                        summaryRebuilt = true;
+                        summaryStale = false;
+                    }
+                }
+            }
             return orderSummary;
         }
         finally {
@@ -132,15 +483,292 @@ public class OrderBookSideImpl implements OrderBookSide{
     }
 
 
+    /**
+     * Returns the best level snapshot maintained by each add, cancel and fill, without taking the read lock.
+     */
+    @Override
+    public Optional<PriceLevel> getBestLevel() {
+        return bestLevel;
+    }
+
+    @Override
+    public List<PriceLevel> getLevels(final int maxLevels) {
+        if( maxLevels < 0){
+            throw new IllegalArgumentException("Invalid maxLevels. Must not be negative");
+        }
+        readLock.lock();
+        try {
+            return toPriceLevels(sortedLevels().limit(maxLevels));
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public DepthSnapshot getDepth() {
+        return getDepth(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public DepthSnapshot getDepth(final int maxLevels) {
+        if( maxLevels < 0){
+            throw new IllegalArgumentException("Invalid maxLevels. Must not be negative");
+        }
+        readLock.lock();
+        try {
+            return snapshotLevels(maxLevels);
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Order> getOrders() {
+        readLock.lock();
+        try {
+            final List<Order> resting = new ArrayList<>(orders.size());
+            sortedLevels().forEach(level -> level.copyOrdersTo(resting));
+            return resting;
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int getLevelCount() {
+        readLock.lock();
+        try {
+            return orderLevels.size();
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int getOrderCount() {
+        readLock.lock();
+        try {
+            return orders.size();
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<PriceLevel> getLevels(final BigDecimal lowPrice, final BigDecimal highPrice) {
+        Objects.requireNonNull(lowPrice, "Missing lowPrice");
+        Objects.requireNonNull(highPrice, "Missing highPrice");
+        if( lowPrice.compareTo(highPrice) > 0){
+            return Collections.emptyList();
+        }
+        readLock.lock();
+        try {
+            if( sortedOrderLevels != null){
+                final NavigableMap<BigDecimal, OrderLevelImpl> range = side == Side.SELL
+                        ? sortedOrderLevels.subMap(lowPrice, true, highPrice, true)
+                        : sortedOrderLevels.subMap(highPrice, true, lowPrice, true);
+                return toPriceLevels(range.values().stream());
+            }
+            return toPriceLevels(sortedLevels()
+                    .filter(level -> level.getPrice().compareTo(lowPrice) >= 0 && level.getPrice().compareTo(highPrice) <= 0));
+        }
+        finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public void setLevelChangeSink(final LevelChangeSink sink) {
+        this.levelChangeSink = sink;
+    }
+
+    @Override
+    public void setMetrics(final OrderBookMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public SummaryMode getSummaryMode() {
+        return summaryMode;
+    }
+
+    public SummaryStrategy getSummaryStrategy() {
+        return summaryStrategy;
+    }
+
+    public LevelIndex getLevelIndex() {
+        return sortedOrderLevels != null ? LevelIndex.SORTED : LevelIndex.HASHED;
+    }
+
+    // Acquires the write lock, recording the time spent waiting for it when metrics are set. The clock is only read when
+    // the lock is contended - the timed tryLock respects the lock's fairness, unlike tryLock()
+    private void lockWrite(){
+        final OrderBookMetrics metrics = this.metrics;
+        if( metrics == null){
+            writeLock.lock();
+            return;
+        }
+        try {
+            if( writeLock.tryLock(0, TimeUnit.NANOSECONDS)){
+                metrics.recordWriteLockWait(0);
+                return;
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        final long start = System.nanoTime();
+        writeLock.lock();
+        metrics.recordWriteLockWait(System.nanoTime() - start);
+    }
+
+    private void updateSummaryLine(final OrderLevelImpl changedLevel){
+        if( summaryMode == SummaryMode.INCREMENTAL){
+            // only the changed level needs formatting, all other lines are already cached in price order
+            summaryLadder.update(changedLevel.getPrice(), isEmpty(changedLevel) ? null : changedLevel.getSummaryLine(lineEncoder));
+        }
+    }
+
+    private void levelChanged(final OrderLevelImpl changedLevel){
+        updateBestLevel(changedLevel);
+        final LevelChangeSink sink = levelChangeSink;
+        if( sink != null){
+            sink.onLevelChange(side, changedLevel.getPriceTicks(), changedLevel.getQuantityTicks());
+        }
+    }
+
+    // Called with the write lock held once changedLevel has changed, and been removed from orderLevels if emptied. Only
+    // removing the best level needs a search for the next best, which is O(log n) for LevelIndex.SORTED and O(n) for HASHED
+    private void updateBestLevel(final OrderLevelImpl changedLevel){
+        final boolean hasBest = bestLevel.isPresent();
+        if( !isEmpty(changedLevel)){
+            if( !hasBest || isAtLeastAsGood(changedLevel.getPriceTicks(), bestPriceTicks)){
+                publishBestLevel(changedLevel);
+            }
+        }
+        else if( hasBest && changedLevel.getPriceTicks() == bestPriceTicks){
+            publishBestLevel(getBestOrderLevel());
+        }
+    }
+
+    // true if priceTicks is the same as or better than otherPriceTicks for this side
+    private boolean isAtLeastAsGood(final long priceTicks, final long otherPriceTicks){
+        return side == Side.SELL ? priceTicks <= otherPriceTicks : priceTicks >= otherPriceTicks;
+    }
+
+    private void publishBestLevel(final OrderLevelImpl level){
+        if( level == null){
+            bestLevel = Optional.empty();
+        }
+        else {
+            bestPriceTicks = level.getPriceTicks();
+            bestLevel = Optional.of(toPriceLevel(level));
+        }
+    }
+
+    // Called with the write lock held once orders have changed
+    private void orderSummaryChanged(){
+        if( summaryStrategy.getType() == SummaryStrategy.Type.EAGER){
+            publishOrderSummary();
+        }
+        else {
+            summaryStale = true;
+        }
+    }
+
+    private boolean isRebuildDue(){
+        return summaryStrategy.getType() != SummaryStrategy.Type.COALESCED
+                || !summaryRebuilt
+                || nanoClock.getAsLong() - summaryRebuiltNanos >= summaryStrategy.getIntervalNanos();
+    }
+
+    private void publishOrderSummary(){
+        final OrderBookMetrics metrics = this.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        if( summaryMode == SummaryMode.INCREMENTAL){
+            orderSummary = summaryLadder.toList();
+        }
+        else {
+            rebuildOrderSummary();
+        }
+        if( metrics != null){
+            metrics.recordLatency(OrderBookOperation.REBUILD_SUMMARY, System.nanoTime() - start);
+        }
+    }
+
+    private static boolean isEmpty(final OrderLevel orderLevel){
+        return orderLevel.getQuantity().signum() == 0;
+    }
+
+    // Formatted from the lines cached on each level rather than from a DepthSnapshot - only levels whose quantity has
+    // changed since the last rebuild are encoded
     private void rebuildOrderSummary(){
-        orderSummary=  Collections.unmodifiableList( orderLevels.values().stream()
-                .sorted( side == Side.SELL ? SELL_SIDE_COMPARATOR : SELL_SIDE_COMPARATOR.reversed())
-                .map(this::mapToString)
-                .collect(Collectors.toList()) );
+        if( orderLevels.isEmpty()){
+            orderSummary = Collections.emptyList();
+            return;
+        }
+        final String[] lines = new String[orderLevels.size()];
+        final Iterator<OrderLevelImpl> levels = sortedLevels().iterator();
+        for( int i = 0; i < lines.length; i++){
+            lines[i] = levels.next().getSummaryLine(lineEncoder);
+        }
+        orderSummary = Collections.unmodifiableList(Arrays.asList(lines));
+    }
+
+    // Caller must hold the read or write lock
+    private DepthSnapshot snapshotLevels(final int maxLevels){
+        final int levelCount = Math.min(maxLevels, orderLevels.size());
+        final long[] priceTicks = new long[levelCount];
+        final long[] quantityTicks = new long[levelCount];
+        final Iterator<OrderLevelImpl> levels = sortedLevels().limit(levelCount).iterator();
+        for( int i = 0; i < levelCount; i++){
+            final OrderLevelImpl level = levels.next();
+            priceTicks[i] = level.getPriceTicks();
+            quantityTicks[i] = level.getQuantityTicks();
+        }
+        return new DepthSnapshot(side, priceTicks, quantityTicks, levelCount);
     }
 
-    private String mapToString(final OrderLevel orderLevel){
-        return String.format(SUMMARY_FORMAT, orderLevel.getQuantity(), orderLevel.getPrice());
+
+    // OrderLevels in summary order - only sorts if the levels are not already held in summary order
+    private Stream<OrderLevelImpl> sortedLevels(){
+        if( sortedOrderLevels != null){
+            return sortedOrderLevels.values().stream();
+        }
+        return orderLevels.values().stream().sorted(getLevelComparator());
+    }
+
+    private Comparator<OrderLevel> getLevelComparator(){
+        return side == Side.SELL ? SELL_SIDE_COMPARATOR : SELL_SIDE_COMPARATOR.reversed();
+    }
+
+    private static PriceLevel toPriceLevel(final OrderLevel orderLevel){
+        return new PriceLevel(orderLevel.getPrice(), orderLevel.getQuantity());
+    }
+
+    private static List<PriceLevel> toPriceLevels(final Stream<OrderLevelImpl> levels){
+        return Collections.unmodifiableList(levels.map(OrderBookSideImpl::toPriceLevel).collect(Collectors.toList()));
+    }
+
+    private static Map<BigDecimal, OrderLevelImpl> createOrderLevels(final Side side, final LevelIndex levelIndex){
+        Objects.requireNonNull(levelIndex, "Missing levelIndex");
+        return levelIndex == LevelIndex.SORTED ? new TreeMap<>(OrderLevel.getPriceComparator(side)) : new HashMap<>();
+    }
+
+    // true if orderLevels iterates in summary order for the side
+    private static boolean isSummaryOrdered(final Side side, final Map<BigDecimal, OrderLevelImpl> orderLevels){
+        if( !(orderLevels instanceof NavigableMap)){
+            return false;
+        }
+        final Comparator<? super BigDecimal> comparator = ((NavigableMap<BigDecimal, OrderLevelImpl>) orderLevels).comparator();
+        if( side == Side.SELL){
+            return comparator == null || comparator.equals(Comparator.naturalOrder());
+        }
+        return comparator != null && comparator.equals(Comparator.reverseOrder());
     }
 
     @VisibleForTesting
@@ -152,4 +780,9 @@ public class OrderBookSideImpl implements OrderBookSide{
     void setWriteLock(final Lock lock){
         this.writeLock = lock;
     }
+
+    @VisibleForTesting
+    void setNanoClock(final LongSupplier nanoClock){
+        this.nanoClock = nanoClock;
+    }
 }
@@ -1,9 +1,11 @@
 package com.silverbars.orderbook.impl;
 
 import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.Side;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Comparator;
 
 /**
  * An OrderLevel represents the summary of all orders of the same price.
@@ -19,6 +21,16 @@ public interface OrderLevel {
      */
     BigDecimal getQuantity();
 
+    /**
+     * @return price of the OrderLevel in pence
+     */
+    long getPriceTicks();
+
+    /**
+     * @return summed quantity of all orders for the OrderLevel's price in tenths of a kilogram
+     */
+    long getQuantityTicks();
+
     /**
      * Add order to this OrderLevel. Will result in the Order's quantity being added to the OrderLevel's quantity
      * @param order
@@ -37,7 +49,7 @@ public interface OrderLevel {
      * @return
      */
     static BigDecimal getQuantityAsBigDecimal(final double quantity){
-        return BigDecimal.valueOf(quantity).setScale(1, RoundingMode.HALF_UP); // quantity precision assumed to be to 1dp
+        return BigDecimal.valueOf(quantity).setScale(Order.QUANTITY_SCALE, RoundingMode.HALF_UP); // quantity precision assumed to be to 1dp
     }
 
     /**
@@ -46,7 +58,34 @@ public interface OrderLevel {
      * @return
      */
     static BigDecimal getPriceAsBigDecimal(final double price){
-        return BigDecimal.valueOf(price).setScale(2, RoundingMode.HALF_UP); // price in GBP so precision to 2dp
+        return BigDecimal.valueOf(price).setScale(Order.PRICE_SCALE, RoundingMode.HALF_UP); // price in GBP so precision to 2dp
+    }
+
+    /**
+     * Helper method to get a BigDecimal representation of a quantity in tenths of a kilogram. No rounding is required.
+     * @param quantityTicks
+     * @return
+     */
+    static BigDecimal getQuantityFromTicks(final long quantityTicks){
+        return BigDecimal.valueOf(quantityTicks, Order.QUANTITY_SCALE);
+    }
+
+    /**
+     * Helper method to get a BigDecimal representation of a price in pence. No rounding is required.
+     * @param priceTicks
+     * @return
+     */
+    static BigDecimal getPriceFromTicks(final long priceTicks){
+        return BigDecimal.valueOf(priceTicks, Order.PRICE_SCALE);
+    }
+
+    /**
+     * Helper method to get the price ordering used for a side's summary.
+     * @param side
+     * @return comparator giving ascending prices for Sell side and descending prices for Buy side
+     */
+    static Comparator<BigDecimal> getPriceComparator(final Side side){
+        return side == Side.SELL ? Comparator.naturalOrder() : Comparator.reverseOrder();
     }
 
 
@@ -4,19 +4,31 @@ import com.silverbars.orderbook.Order;
 import org.apache.log4j.Logger;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 
 /**
+ * Price level holding its orders in a FIFO queue, earliest first, so that they can be filled in time priority.
+ *
  * This class is not synchronized. If multiple threads access it, it should be synchronized externally.
  */
 public class OrderLevelImpl implements OrderLevel {
     private final Logger log = Logger.getLogger(OrderLevelImpl.class);
 
     private final BigDecimal price;
+    private final long priceTicks;
     private BigDecimal quantity;
+    // orders in time priority, keyed on orderId so a cancelled order is unlinked without searching the queue
+    private final Map<String, Order> queue = new LinkedHashMap<>();
+    // summary line for the current quantity - null until first requested and again whenever the quantity changes
+    private String summaryLine;
 
     public OrderLevelImpl(final double price) {
         this.price = OrderLevel.getPriceAsBigDecimal(price);
+        this.priceTicks = this.price.unscaledValue().longValueExact();
         this.quantity = OrderLevel.getQuantityAsBigDecimal(0);
     }
 
@@ -30,34 +42,108 @@ public class OrderLevelImpl implements OrderLevel {
         return quantity;
     }
 
+    @Override
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
+    @Override
+    public long getQuantityTicks() {
+        return quantity.unscaledValue().longValueExact();
+    }
+
     @Override
     public void addOrder(final Order order){
         validateOrder(order);
-        quantity = quantity.add( OrderLevel.getQuantityAsBigDecimal(order.getQuantity()) );
+        quantity = quantity.add( OrderLevel.getQuantityFromTicks(order.getQuantityTicks()) );
+        queue.put(order.getOrderId(), order);
+        summaryLine = null;
     }
 
     @Override
     public void removeOrder(final Order order){
         validateOrder(order);
 
-        final BigDecimal orderQuantity = OrderLevel.getQuantityAsBigDecimal(order.getQuantity() );
+        final BigDecimal orderQuantity = OrderLevel.getQuantityFromTicks(order.getQuantityTicks() );
         // the order quantity should not be greater than the OrderLevelImpl's quantity, otherwise will end up with negative quantity
         if( orderQuantity.compareTo(quantity) > 0 ){
             throw new IllegalArgumentException("Invalid Order supplied to OrderLevelImpl::removeOrder - quantity is too high: " + order);
         }
         quantity = quantity.subtract( orderQuantity );
+        queue.remove(order.getOrderId());
+        summaryLine = null;
+    }
+
+    /**
+     * Removes every order and zeroes the quantity.
+     */
+    void clear(){
+        queue.clear();
+        quantity = OrderLevel.getQuantityAsBigDecimal(0);
+        summaryLine = null;
+    }
+
+    /**
+     * @return the order with time priority, or null if the level holds no orders
+     */
+    Order getFirstOrder(){
+        final Iterator<Order> orders = queue.values().iterator();
+        return orders.hasNext() ? orders.next() : null;
+    }
+
+    /**
+     * Adds this level's orders to target in time priority.
+     */
+    void copyOrdersTo(final Collection<Order> target){
+        target.addAll(queue.values());
+    }
+
+    /**
+     * Fills part or all of the order with time priority. A partly filled order is replaced by an order for its remaining
+     * quantity, keeping its place in the queue.
+     * @param quantityTicks quantity to fill, at most the quantity of the first order
+     * @return the remaining order, or null if the first order was completely filled
+     */
+    Order fillFirstOrder(final long quantityTicks){
+        final Order first = getFirstOrder();
+        if( first == null || quantityTicks <= 0 || quantityTicks > first.getQuantityTicks()){
+            throw new IllegalArgumentException("Invalid fill of " + quantityTicks + " for first order " + first);
+        }
+        quantity = quantity.subtract( OrderLevel.getQuantityFromTicks(quantityTicks) );
+        summaryLine = null;
+        if( quantityTicks == first.getQuantityTicks()){
+            queue.remove(first.getOrderId());
+            return null;
+        }
+        final Order remaining = Order.fromTicks(first.getOrderId(), first.getUserId(), first.getQuantityTicks() - quantityTicks,
+                first.getPriceTicks(), first.getSide());
+        // replacing the value of an existing key keeps its insertion position
+        queue.put(first.getOrderId(), remaining);
+        return remaining;
+    }
+
+    /**
+     * Returns the summary line for this level, only encoding it if the quantity has changed since it was last requested.
+     * @param encoder
+     * @return summary line for the current quantity
+     */
+    String getSummaryLine(final SummaryLineEncoder encoder){
+        if( summaryLine == null){
+            summaryLine = encoder.encode(getQuantityTicks(), priceTicks);
+        }
+        return summaryLine;
     }
 
     private void validateOrder(final Order order){
         Objects.requireNonNull(order, "Cannot supply a null Order");
-        if( !checkPrice(order.getPrice())){
-            log.error("Invalid order supplied to OrderLevelImpl: " + price.doubleValue() + " - " + order);
+        if( !checkPrice(order.getPriceTicks())){
+            AsyncLog.error(log, "Invalid order supplied to OrderLevelImpl: {} - {}", price, order);
             throw new IllegalArgumentException("Invalid Order supplied to OrderLevelImpl: " + price.doubleValue() + " - " + order);
         }
     }
 
-    private boolean checkPrice(double otherPrice){
-        return price.compareTo( OrderLevel.getPriceAsBigDecimal(otherPrice)) == 0 ? true : false;
+    private boolean checkPrice(long otherPriceTicks){
+        return priceTicks == otherPriceTicks;
     }
 
     @Override
@@ -0,0 +1,35 @@
+package com.silverbars.orderbook.impl;
+
+/**
+ * Mutable flyweight holding the fields of a resting order as read back from an OrderStore. A single instance is reused by
+ * its owner so that reading an order back does not allocate.
+ *
+ * This class is not synchronized. If multiple threads access it, it should be synchronized externally.
+ */
+final class OrderRecord {
+    String orderId;
+    String userId;
+    long priceTicks;
+    long quantityTicks;
+
+    void set(final String orderId, final String userId, final long priceTicks, final long quantityTicks){
+        this.orderId = orderId;
+        this.userId = userId;
+        this.priceTicks = priceTicks;
+        this.quantityTicks = quantityTicks;
+    }
+
+    void clear(){
+        set(null, null, 0, 0);
+    }
+
+    @Override
+    public String toString() {
+        return "OrderRecord{" +
+                "orderId='" + orderId + '\'' +
+                ", userId='" + userId + '\'' +
+                ", priceTicks=" + priceTicks +
+                ", quantityTicks=" + quantityTicks +
+                '}';
+    }
+}
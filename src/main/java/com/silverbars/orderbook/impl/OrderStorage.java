@@ -0,0 +1,22 @@
+package com.silverbars.orderbook.impl;
+
+/**
+ * Determines how a FixedPointOrderBookSide stores its resting orders.
+ */
+public enum OrderStorage {
+    /**
+     * Orders held as Order objects in a HashMap keyed on orderId.
+     */
+    BOXED,
+    /**
+     * Order fields held in primitive arrays, indexed by an open-addressing hash table of orderId to array slot. No
+     * per-order map entry or Order object is retained.
+     */
+    PRIMITIVE,
+    /**
+     * Orders held as fixed-width binary records in direct ByteBuffers, indexed by off-heap hash tables. Heap usage does
+     * not grow with the number of resting orders. Order and user ids are limited to OffHeapOrderStore.MAX_ID_LENGTH
+     * characters - longer orders are rejected.
+     */
+    OFF_HEAP;
+}
@@ -0,0 +1,67 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Order;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Storage for the resting orders of a FixedPointOrderBookSide, keyed on orderId and indexed by userId. Implementations are
+ * not synchronized.
+ */
+interface OrderStore {
+    /**
+     * @param orderId
+     * @return true if an order with the orderId is resting in the store
+     */
+    boolean contains(String orderId);
+
+    /**
+     * @param order
+     * @return false if the order cannot be held by this store, e.g. as its ids are too long for a fixed-width record
+     */
+    default boolean canStore(Order order){
+        return true;
+    }
+
+    /**
+     * Adds an order. The caller must ensure the orderId is not already present and that canStore accepts it.
+     * @param order
+     */
+    void add(Order order);
+
+    /**
+     * Reads an order.
+     * @param orderId
+     * @param record populated with the order's fields if found
+     * @return false if no order with the orderId was found
+     */
+    boolean get(String orderId, OrderRecord record);
+
+    /**
+     * Removes an order.
+     * @param orderId
+     * @param removed populated with the removed order's fields if found
+     * @return false if no order with the orderId was found
+     */
+    boolean remove(String orderId, OrderRecord removed);
+
+    /**
+     * @return number of resting orders
+     */
+    int size();
+
+    /**
+     * @param userId
+     * @return copy of the orderIds of the user's resting orders in the order they were added, so the orders can be removed
+     * while iterating it
+     */
+    List<String> getOrderIds(String userId);
+
+    /**
+     * Visits every resting order, in no particular order.
+     * @param record populated with each order's fields in turn before it is passed to action
+     * @param action
+     */
+    void forEach(OrderRecord record, Consumer<OrderRecord> action);
+}
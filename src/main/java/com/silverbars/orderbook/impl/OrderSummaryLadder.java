@@ -0,0 +1,86 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Side;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Price ordered ladder of cached summary lines, one per OrderLevel. Prices are kept sorted in summary order (ascending for
+ * Sell side, descending for Buy side) so a changed level is located by binary search and only its line is replaced.
+ *
+ * This class is not synchronized. If multiple threads access it, it should be synchronized externally.
+ */
+class OrderSummaryLadder {
+    private final static int INITIAL_CAPACITY = 16;
+
+    private final Comparator<BigDecimal> priceComparator;
+
+    private BigDecimal[] prices = new BigDecimal[INITIAL_CAPACITY];
+    private String[] lines = new String[INITIAL_CAPACITY];
+    private int size;
+
+    OrderSummaryLadder(final Side side) {
+        Objects.requireNonNull(side, "Missing side");
+        this.priceComparator = OrderLevel.getPriceComparator(side);
+    }
+
+    /**
+     * Sets the summary line for the given price, inserting a new rung if the price is not present.
+     * @param price price of the OrderLevel that changed
+     * @param line new summary line for the level, or null if the level no longer exists
+     */
+    void update(final BigDecimal price, final String line){
+        Objects.requireNonNull(price, "Missing price");
+        final int index = Arrays.binarySearch(prices, 0, size, price, priceComparator);
+        if( index >= 0){
+            if( line != null){
+                lines[index] = line;
+            }
+            else {
+                remove(index);
+            }
+        }
+        else if( line != null){
+            insert(-(index + 1), price, line);
+        }
+    }
+
+    /**
+     * @return immutable copy of the summary lines in summary order
+     */
+    List<String> toList(){
+        if( size == 0){
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(lines, size)));
+    }
+
+    int size(){
+        return size;
+    }
+
+    private void insert(final int index, final BigDecimal price, final String line){
+        if( size == prices.length){
+            prices = Arrays.copyOf(prices, size * 2);
+            lines = Arrays.copyOf(lines, size * 2);
+        }
+        System.arraycopy(prices, index, prices, index + 1, size - index);
+        System.arraycopy(lines, index, lines, index + 1, size - index);
+        prices[index] = price;
+        lines[index] = line;
+        size++;
+    }
+
+    private void remove(final int index){
+        System.arraycopy(prices, index + 1, prices, index, size - index - 1);
+        System.arraycopy(lines, index + 1, lines, index, size - index - 1);
+        size--;
+        prices[size] = null;
+        lines[size] = null;
+    }
+}
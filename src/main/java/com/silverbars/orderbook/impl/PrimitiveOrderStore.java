@@ -0,0 +1,280 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Order;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * OrderStore holding each order's fields in parallel primitive arrays. The orderId is interned to an int slot through an
+ * open-addressing, linear probing hash table, so no per-order map entry or Order object is retained. Freed slots are reused.
+ *
+ * Each user's slots are linked into a circular list in the order they were added, and a second open-addressing table maps
+ * the userId to the first slot of its list. Once the arrays have grown to the size of the book, adding and removing an
+ * order allocates nothing.
+ *
+ * This class is not synchronized. If multiple threads access it, it should be synchronized externally.
+ */
+class PrimitiveOrderStore implements OrderStore {
+    private final static int EMPTY = -1;
+
+    // open-addressing table of slots, kept at most half full. EMPTY marks an unused bucket
+    private int[] buckets;
+    private int mask;
+
+    // order fields indexed by slot
+    private String[] orderIds;
+    private String[] userIds;
+    private long[] priceTicks;
+    private long[] quantityTicks;
+
+    // circular list of each user's slots in the order they were added, indexed by slot
+    private int[] nextOfUser;
+    private int[] previousOfUser;
+    // open-addressing table of the first slot of each user's list, the same size as buckets. EMPTY marks an unused bucket
+    private int[] userBuckets;
+
+    // stack of slots freed by remove, reused before new slots are taken
+    private int[] freeSlots;
+    private int freeCount;
+    private int nextSlot;
+
+    private int size;
+
+    /**
+     * @param expectedOrders number of resting orders to size the arrays for
+     */
+    PrimitiveOrderStore(final int expectedOrders) {
+        if( expectedOrders <= 0){
+            throw new IllegalArgumentException("Invalid expectedOrders. Must be greater than 0");
+        }
+        final int bucketCount = tableSizeFor(expectedOrders * 2);
+        buckets = new int[bucketCount];
+        Arrays.fill(buckets, EMPTY);
+        userBuckets = new int[bucketCount];
+        Arrays.fill(userBuckets, EMPTY);
+        mask = bucketCount - 1;
+        orderIds = new String[expectedOrders];
+        userIds = new String[expectedOrders];
+        priceTicks = new long[expectedOrders];
+        quantityTicks = new long[expectedOrders];
+        nextOfUser = new int[expectedOrders];
+        previousOfUser = new int[expectedOrders];
+        freeSlots = new int[expectedOrders];
+    }
+
+    @Override
+    public boolean contains(final String orderId) {
+        return buckets[findBucket(orderId)] != EMPTY;
+    }
+
+    @Override
+    public void add(final Order order) {
+        if( (size + 1) * 2 > buckets.length){
+            resize();
+        }
+        final int slot = allocateSlot();
+        orderIds[slot] = order.getOrderId();
+        userIds[slot] = order.getUserId();
+        priceTicks[slot] = order.getPriceTicks();
+        quantityTicks[slot] = order.getQuantityTicks();
+        buckets[findBucket(order.getOrderId())] = slot;
+        linkUser(slot);
+        size++;
+    }
+
+    @Override
+    public boolean get(final String orderId, final OrderRecord record) {
+        final int slot = buckets[findBucket(orderId)];
+        if( slot == EMPTY){
+            return false;
+        }
+        record.set(orderIds[slot], userIds[slot], priceTicks[slot], quantityTicks[slot]);
+        return true;
+    }
+
+    @Override
+    public boolean remove(final String orderId, final OrderRecord removed) {
+        final int bucket = findBucket(orderId);
+        final int slot = buckets[bucket];
+        if( slot == EMPTY){
+            return false;
+        }
+        removed.set(orderIds[slot], userIds[slot], priceTicks[slot], quantityTicks[slot]);
+        unlinkUser(slot);
+        orderIds[slot] = null;
+        userIds[slot] = null;
+        freeSlots[freeCount++] = slot;
+        deleteBucket(bucket);
+        size--;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(final OrderRecord record, final Consumer<OrderRecord> action) {
+        for( int slot = 0; slot < nextSlot; slot++){
+            // free slots have their ids cleared
+            if( orderIds[slot] != null){
+                record.set(orderIds[slot], userIds[slot], priceTicks[slot], quantityTicks[slot]);
+                action.accept(record);
+            }
+        }
+    }
+
+    @Override
+    public List<String> getOrderIds(final String userId) {
+        final int first = userBuckets[findUserBucket(userId)];
+        if( first == EMPTY){
+            return Collections.emptyList();
+        }
+        final List<String> userOrderIds = new ArrayList<>();
+        int slot = first;
+        do {
+            userOrderIds.add(orderIds[slot]);
+            slot = nextOfUser[slot];
+        } while( slot != first);
+        return userOrderIds;
+    }
+
+    // appends slot to the end of its user's list
+    private void linkUser(final int slot){
+        final int bucket = findUserBucket(userIds[slot]);
+        final int first = userBuckets[bucket];
+        if( first == EMPTY){
+            userBuckets[bucket] = slot;
+            nextOfUser[slot] = slot;
+            previousOfUser[slot] = slot;
+            return;
+        }
+        final int last = previousOfUser[first];
+        nextOfUser[last] = slot;
+        previousOfUser[slot] = last;
+        nextOfUser[slot] = first;
+        previousOfUser[first] = slot;
+    }
+
+    // removes slot from its user's list, dropping the user when it was their last order. Called before the slot's ids are cleared
+    private void unlinkUser(final int slot){
+        final int bucket = findUserBucket(userIds[slot]);
+        final int next = nextOfUser[slot];
+        if( next == slot){
+            deleteUserBucket(bucket);
+            return;
+        }
+        final int previous = previousOfUser[slot];
+        nextOfUser[previous] = next;
+        previousOfUser[next] = previous;
+        if( userBuckets[bucket] == slot){
+            userBuckets[bucket] = next;
+        }
+    }
+
+    // returns the bucket holding orderId, or the empty bucket where it would be inserted
+    private int findBucket(final String orderId){
+        int bucket = hash(orderId) & mask;
+        while( true){
+            final int slot = buckets[bucket];
+            if( slot == EMPTY || orderIds[slot].equals(orderId)){
+                return bucket;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+    }
+
+    // backward shift deletion keeps probe sequences unbroken without tombstones
+    private void deleteBucket(int bucket){
+        int next = (bucket + 1) & mask;
+        while( buckets[next] != EMPTY){
+            final int ideal = hash(orderIds[buckets[next]]) & mask;
+            // move the entry back if its ideal bucket is not cyclically within (bucket, next]
+            if( ((next - ideal) & mask) >= ((next - bucket) & mask)){
+                buckets[bucket] = buckets[next];
+                bucket = next;
+            }
+            next = (next + 1) & mask;
+        }
+        buckets[bucket] = EMPTY;
+    }
+
+    // returns the user bucket holding userId, or the empty bucket where it would be inserted
+    private int findUserBucket(final String userId){
+        int bucket = hash(userId) & mask;
+        while( true){
+            final int slot = userBuckets[bucket];
+            if( slot == EMPTY || userIds[slot].equals(userId)){
+                return bucket;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+    }
+
+    private void deleteUserBucket(int bucket){
+        int next = (bucket + 1) & mask;
+        while( userBuckets[next] != EMPTY){
+            final int ideal = hash(userIds[userBuckets[next]]) & mask;
+            if( ((next - ideal) & mask) >= ((next - bucket) & mask)){
+                userBuckets[bucket] = userBuckets[next];
+                bucket = next;
+            }
+            next = (next + 1) & mask;
+        }
+        userBuckets[bucket] = EMPTY;
+    }
+
+    private int allocateSlot(){
+        if( freeCount > 0){
+            return freeSlots[--freeCount];
+        }
+        if( nextSlot == orderIds.length){
+            final int capacity = orderIds.length * 2;
+            orderIds = Arrays.copyOf(orderIds, capacity);
+            userIds = Arrays.copyOf(userIds, capacity);
+            priceTicks = Arrays.copyOf(priceTicks, capacity);
+            quantityTicks = Arrays.copyOf(quantityTicks, capacity);
+            nextOfUser = Arrays.copyOf(nextOfUser, capacity);
+            previousOfUser = Arrays.copyOf(previousOfUser, capacity);
+            freeSlots = Arrays.copyOf(freeSlots, capacity);
+        }
+        return nextSlot++;
+    }
+
+    // there are never more users than orders, so the user table grows with the order table
+    private void resize(){
+        mask = buckets.length * 2 - 1;
+        buckets = rehash(buckets, orderIds);
+        userBuckets = rehash(userBuckets, userIds);
+    }
+
+    private int[] rehash(final int[] oldBuckets, final String[] keys){
+        final int[] newBuckets = new int[mask + 1];
+        Arrays.fill(newBuckets, EMPTY);
+        for( int slot : oldBuckets){
+            if( slot != EMPTY){
+                int bucket = hash(keys[slot]) & mask;
+                while( newBuckets[bucket] != EMPTY){
+                    bucket = (bucket + 1) & mask;
+                }
+                newBuckets[bucket] = slot;
+            }
+        }
+        return newBuckets;
+    }
+
+    private static int hash(final String id){
+        // spread the String hash so that ids differing only in their last characters do not cluster
+        final int h = id.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(final int capacity){
+        return Math.max(2, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+    }
+}
@@ -0,0 +1,419 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.DepthSnapshot;
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.PriceLevel;
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.Trade;
+import com.silverbars.orderbook.metrics.OrderBookMetrics;
+import org.apache.log4j.Logger;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * OrderBookSide in which a single writer thread owns all mutations. Callers of addOrder and cancelOrder enqueue the
+ * mutation on a lock-free multi-producer queue and wait for the writer to apply it. The writer drains every queued
+ * mutation, applies them to the delegate OrderBookSide and then publishes the delegate's summary through a volatile field,
+ * so getSummary never takes a lock and readers never contend with writers. A caller's mutation is published before its
+ * call returns.
+ *
+ * The delegate must not be used by anything other than this class once constructed. Call close to stop the writer thread.
+ * If the writer thread dies, e.g. on an Error thrown by the delegate, the mutation it was applying fails with that error.
+ * Mutations it had already applied in the same batch are published and return their own results, while every queued
+ * and later mutation fails with an OrderBookException rather than waiting for a writer that will never apply it.
+ */
+public class SingleWriterOrderBookSide implements OrderBookSide, AutoCloseable {
+    private final Logger log = Logger.getLogger(SingleWriterOrderBookSide.class);
+
+    private final OrderBookSide delegate;
+
+    private final Queue<Mutation<?>> mutations = new ConcurrentLinkedQueue<>();
+
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    // Set before running is cleared if the writer thread dies
+    private volatile Throwable writerFailure;
+
+    // Published by the writer after each drained batch of mutations
+    private volatile List<String> orderSummary;
+
+    public SingleWriterOrderBookSide(final OrderBookSide delegate) {
+        Objects.requireNonNull(delegate, "Missing delegate");
+        this.delegate = delegate;
+        this.orderSummary = delegate.getSummary();
+        this.writer = new Thread(this::applyMutations, "orderbook-" + delegate.getSide().name().toLowerCase() + "-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public Side getSide() {
+        return delegate.getSide();
+    }
+
+    @Override
+    public void addOrder(final Order order) throws OrderBookException {
+        Objects.requireNonNull(order);
+        submit(new Mutation<>("add of order " + order.getOrderId(), side -> {
+            side.addOrder(order);
+            return null;
+        }));
+    }
+
+    @Override
+    public void cancelOrder(final Order order) throws OrderBookException {
+        Objects.requireNonNull(order);
+        submit(new Mutation<>("cancel of order " + order.getOrderId(), side -> {
+            side.cancelOrder(order);
+            return null;
+        }));
+    }
+
+    /**
+     * @return the result of the delegate's tryAddOrder, or REJECTED if the mutation could not be applied
+     */
+    @Override
+    public OrderResult tryAddOrder(final Order order) {
+        Objects.requireNonNull(order);
+        return submitResult(new Mutation<>("add of order " + order.getOrderId(), side -> side.tryAddOrder(order)));
+    }
+
+    /**
+     * @return the result of the delegate's tryCancelOrder, or REJECTED if the mutation could not be applied
+     */
+    @Override
+    public OrderResult tryCancelOrder(final Order order) {
+        Objects.requireNonNull(order);
+        return submitResult(new Mutation<>("cancel of order " + order.getOrderId(), side -> side.tryCancelOrder(order)));
+    }
+
+    @Override
+    public Order cancelOrder(final String orderId) throws OrderBookException {
+        Objects.requireNonNull(orderId);
+        return submit(new Mutation<>("cancel of order " + orderId, side -> side.cancelOrder(orderId)));
+    }
+
+    /**
+     * Enqueues the whole batch as a single mutation, applied by the writer through the delegate's addOrders.
+     */
+    @Override
+    public List<OrderResult> addOrders(final List<Order> orders) {
+        Objects.requireNonNull(orders);
+        return submitBatch(new Mutation<>("add of " + orders.size() + " orders", side -> side.addOrders(orders)), orders.size());
+    }
+
+    /**
+     * Enqueues the whole batch as a single mutation, applied by the writer through the delegate's cancelOrders.
+     */
+    @Override
+    public List<OrderResult> cancelOrders(final List<Order> orders) {
+        Objects.requireNonNull(orders);
+        return submitBatch(new Mutation<>("cancel of " + orders.size() + " orders", side -> side.cancelOrders(orders)), orders.size());
+    }
+
+    /**
+     * Enqueues the match as a single mutation, applied by the writer through the delegate's match.
+     */
+    @Override
+    public long match(final Order incoming, final List<Trade> trades) {
+        Objects.requireNonNull(incoming);
+        try {
+            return submit(new Mutation<>("match of order " + incoming.getOrderId(), side -> side.match(incoming, trades)));
+        }
+        catch (OrderBookException e) {
+            throw new IllegalStateException("Match of order " + incoming.getOrderId() + " failed", e);
+        }
+    }
+
+    @Override
+    public boolean supportsMatching() {
+        return delegate.supportsMatching();
+    }
+
+    @Override
+    public void addRemainder(final Order remainder) throws OrderBookException {
+        Objects.requireNonNull(remainder);
+        submit(new Mutation<>("add of remainder of order " + remainder.getOrderId(), side -> {
+            side.addRemainder(remainder);
+            return null;
+        }));
+    }
+
+    @Override
+    public List<Order> getOrdersForUser(final String userId) {
+        return delegate.getOrdersForUser(userId);
+    }
+
+    /**
+     * Enqueues the mass cancel as a single mutation, applied by the writer through the delegate's cancelAllForUser.
+     */
+    @Override
+    public List<Order> cancelAllForUser(final String userId) {
+        Objects.requireNonNull(userId);
+        try {
+            return submit(new Mutation<>("cancel of all orders of user " + userId, side -> side.cancelAllForUser(userId)));
+        }
+        catch (OrderBookException e) {
+            throw new IllegalStateException("Cancel of all orders of user " + userId + " failed", e);
+        }
+    }
+
+    @Override
+    public boolean containsOrder(final String orderId) {
+        return delegate.containsOrder(orderId);
+    }
+
+    /**
+     * Lock free - returns the summary published by the writer thread.
+     * @return Order summaries sorted in ascending price for Sell side and descending price for Buy side.
+     */
+    @Override
+    public List<String> getSummary() {
+        return orderSummary;
+    }
+
+    @Override
+    public Optional<PriceLevel> getBestLevel() {
+        return delegate.getBestLevel();
+    }
+
+    @Override
+    public List<PriceLevel> getLevels(final int maxLevels) {
+        return delegate.getLevels(maxLevels);
+    }
+
+    @Override
+    public DepthSnapshot getDepth() {
+        return delegate.getDepth();
+    }
+
+    @Override
+    public DepthSnapshot getDepth(final int maxLevels) {
+        return delegate.getDepth(maxLevels);
+    }
+
+    @Override
+    public List<Order> getOrders() {
+        return delegate.getOrders();
+    }
+
+    @Override
+    public int getLevelCount() {
+        return delegate.getLevelCount();
+    }
+
+    @Override
+    public int getOrderCount() {
+        return delegate.getOrderCount();
+    }
+
+    @Override
+    public List<PriceLevel> getLevels(final BigDecimal lowPrice, final BigDecimal highPrice) {
+        return delegate.getLevels(lowPrice, highPrice);
+    }
+
+    /**
+     * The sink is called on the writer thread as mutations are applied to the delegate.
+     * @param sink sink, or null for no notifications
+     */
+    @Override
+    public void setLevelChangeSink(final LevelChangeSink sink) {
+        delegate.setLevelChangeSink(sink);
+    }
+
+    /**
+     * Only the writer thread takes the delegate's write lock, so its lock waits stay close to zero - time spent queued
+     * for the writer shows in the OrderBook's operation latencies instead.
+     * @param metrics metrics, or null to record nothing
+     */
+    @Override
+    public void setMetrics(final OrderBookMetrics metrics) {
+        delegate.setMetrics(metrics);
+    }
+
+    /**
+     * Stops the writer thread. Mutations not yet applied fail with an OrderBookException.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failPending();
+    }
+
+    private OrderResult submitResult(final Mutation<OrderResult> mutation){
+        try {
+            return submit(mutation);
+        }
+        catch (OrderBookException e) {
+            // never applied, e.g. as the side has been closed
+            return e.getResult();
+        }
+    }
+
+    private List<OrderResult> submitBatch(final Mutation<List<OrderResult>> mutation, final int size){
+        try {
+            return submit(mutation);
+        }
+        catch (OrderBookException e) {
+            // the batch was never applied so every order failed for the same reason
+            return Collections.nCopies(size, e.getResult());
+        }
+    }
+
+    private <T> T submit(final Mutation<T> mutation) throws OrderBookException {
+        if( !running){
+            throw stopped();
+        }
+        mutations.offer(mutation);
+        LockSupport.unpark(writer);
+        if( !running){
+            // close may have drained the queue before our mutation was offered
+            failPending();
+        }
+        try {
+            return mutation.result.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrderBookException("Interrupted waiting for " + mutation.description, e);
+        }
+        catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if( cause instanceof OrderBookException){
+                throw (OrderBookException) cause;
+            }
+            if( cause instanceof RuntimeException){
+                throw (RuntimeException) cause;
+            }
+            throw new OrderBookException(cause);
+        }
+    }
+
+    // Writer thread loop
+    private void applyMutations(){
+        final List<Mutation<?>> applied = new ArrayList<>();
+        Mutation<?> mutation = null;
+        try {
+            while( running){
+                mutation = mutations.poll();
+                if( mutation == null){
+                    LockSupport.park(this);
+                    continue;
+                }
+                while( mutation != null){
+                    mutation.apply(delegate);
+                    applied.add(mutation);
+                    mutation = mutations.poll();
+                }
+                // publish once for the whole batch, then release the callers so they observe their own mutation
+                orderSummary = delegate.getSummary();
+                for( Mutation<?> done : applied){
+                    done.complete();
+                }
+                applied.clear();
+            }
+        }
+        catch (Throwable t) {
+            writerFailed(t, mutation, applied);
+        }
+    }
+
+    // Called by the dying writer thread. Mutations of the batch already applied to the delegate are published and
+    // completed with their own results, only the failed mutation gets the failure, and every queued or later mutation
+    // fails as if the side had been closed
+    private void writerFailed(final Throwable failure, final Mutation<?> failed, final List<Mutation<?>> applied){
+        log.error("OrderBookSide writer failed, failing all pending mutations", failure);
+        writerFailure = failure;
+        running = false;
+        if( failed != null){
+            failed.fail(failure);
+        }
+        try {
+            orderSummary = delegate.getSummary();
+        }
+        catch (Throwable t) {
+            log.error("OrderBookSide summary could not be published after the writer failed", t);
+        }
+        for( Mutation<?> done : applied){
+            done.complete();
+        }
+        failPending();
+    }
+
+    private void failPending(){
+        Mutation<?> mutation;
+        while( (mutation = mutations.poll()) != null){
+            log.error("OrderBookSide stopped before " + mutation.description + " applied");
+            mutation.fail(stopped());
+        }
+    }
+
+    private OrderBookException stopped(){
+        final Throwable failure = writerFailure;
+        return failure == null ? new OrderBookException("OrderBookSide has been closed")
+                : new OrderBookException("OrderBookSide writer failed", failure);
+    }
+
+    @FunctionalInterface
+    private interface SideOperation<T> {
+        T apply(OrderBookSide side) throws OrderBookException;
+    }
+
+    private static final class Mutation<T> {
+        private final String description;
+        private final SideOperation<T> operation;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private T value;
+        private Throwable error;
+
+        private Mutation(final String description, final SideOperation<T> operation) {
+            this.description = description;
+            this.operation = operation;
+        }
+
+        // Called by the writer thread. The caller is only released by complete, once the summary is published
+        private void apply(final OrderBookSide side){
+            try {
+                value = operation.apply(side);
+            }
+            catch (OrderBookException | RuntimeException e) {
+                error = e;
+            }
+        }
+
+        private void fail(final Throwable failure){
+            error = failure;
+            complete();
+        }
+
+        private void complete(){
+            if( error == null){
+                result.complete(value);
+            }
+            else {
+                result.completeExceptionally(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Order;
+
+/**
+ * Writes order summary lines, "x.x kg for £y.yy", directly from quantity and price ticks. Produces the same output as
+ * String.format("%.1f kg for £%.2f") on the equivalent BigDecimals, without parsing a format, allocating a Formatter or
+ * looking up the locale. Digits are written right to left into a reusable buffer, so the only allocation is the String.
+ *
+ * This class is not synchronized. If multiple threads access it, it should be synchronized externally.
+ */
+final class SummaryLineEncoder {
+    private final static char[] SEPARATOR = " kg for £".toCharArray();
+    // two signed longs with decimal points plus the separator
+    private final static int BUFFER_SIZE = 2 * 21 + 16;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    /**
+     * @param quantityTicks quantity in tenths of a kilogram
+     * @param priceTicks price in pence
+     * @return summary line for the level
+     */
+    String encode(final long quantityTicks, final long priceTicks){
+        int start = writeDecimal(priceTicks, Order.PRICE_SCALE, BUFFER_SIZE);
+        start -= SEPARATOR.length;
+        System.arraycopy(SEPARATOR, 0, buffer, start, SEPARATOR.length);
+        start = writeDecimal(quantityTicks, Order.QUANTITY_SCALE, start);
+        return new String(buffer, start, BUFFER_SIZE - start);
+    }
+
+    // Writes ticks as a decimal with scale fractional digits so that it ends just before end, returning the start index
+    private int writeDecimal(final long ticks, final int scale, final int end){
+        // work with the negative value so that Long.MIN_VALUE needs no special case
+        long remaining = ticks < 0 ? ticks : -ticks;
+        int index = end;
+        for( int i = 0; i < scale; i++){
+            buffer[--index] = (char) ('0' - remaining % 10);
+            remaining /= 10;
+        }
+        buffer[--index] = '.';
+        do {
+            buffer[--index] = (char) ('0' - remaining % 10);
+            remaining /= 10;
+        } while( remaining != 0);
+        if( ticks < 0){
+            buffer[--index] = '-';
+        }
+        return index;
+    }
+}
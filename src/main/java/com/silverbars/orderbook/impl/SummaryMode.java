@@ -0,0 +1,16 @@
+package com.silverbars.orderbook.impl;
+
+/**
+ * Determines how an OrderBookSideImpl maintains its order summary when an order is added or cancelled.
+ */
+public enum SummaryMode {
+    /**
+     * Every add/cancel re-sorts and re-formats all OrderLevels. Cost of a mutation grows with L log L in the number of levels.
+     */
+    REBUILD,
+    /**
+     * Only the OrderLevel that changed is re-formatted and patched into a price ordered ladder of cached summary lines.
+     * No sorting or re-formatting of unchanged levels takes place.
+     */
+    INCREMENTAL;
+}
@@ -0,0 +1,67 @@
+package com.silverbars.orderbook.impl;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Determines when an OrderBookSideImpl materialises its order summary after an order is added or cancelled. LAZY and
+ * COALESCED are best combined with SummaryMode.REBUILD, so that no summary lines are formatted on the write path at all.
+ */
+public final class SummaryStrategy {
+    public enum Type {
+        /**
+         * Summary is rebuilt on every add/cancel. Suits books whose summary is read more often than it is written.
+         */
+        EAGER,
+        /**
+         * Add/cancel only mark the summary as stale. It is rebuilt once, by the next call to getSummary.
+         */
+        LAZY,
+        /**
+         * As LAZY, but getSummary only rebuilds a stale summary if the interval has elapsed since it was last rebuilt,
+         * otherwise the previous summary is returned. The summary is rebuilt at most once per interval however often it is
+         * written or read.
+         */
+        COALESCED;
+    }
+
+    public static final SummaryStrategy EAGER = new SummaryStrategy(Type.EAGER, 0);
+    public static final SummaryStrategy LAZY = new SummaryStrategy(Type.LAZY, 0);
+
+    private final Type type;
+    private final long intervalNanos;
+
+    private SummaryStrategy(final Type type, final long intervalNanos) {
+        this.type = type;
+        this.intervalNanos = intervalNanos;
+    }
+
+    /**
+     * @param interval minimum time between summary rebuilds
+     * @param unit
+     * @return a COALESCED strategy
+     */
+    public static SummaryStrategy coalesced(final long interval, final TimeUnit unit){
+        Objects.requireNonNull(unit, "Missing unit");
+        if( interval <= 0){
+            throw new IllegalArgumentException("Invalid interval. Must be greater than 0");
+        }
+        return new SummaryStrategy(Type.COALESCED, unit.toNanos(interval));
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return minimum nanoseconds between rebuilds for COALESCED, otherwise 0
+     */
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    @Override
+    public String toString() {
+        return type == Type.COALESCED ? type + "(" + intervalNanos + "ns)" : type.name();
+    }
+}
@@ -0,0 +1,46 @@
+package com.silverbars.orderbook.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Secondary index of resting orderIds keyed on userId, so a user's orders can be found without scanning every order.
+ * Each user's orderIds are held in the order they were added. Users with no resting orders are dropped.
+ *
+ * This class is not synchronized. If multiple threads access it, it should be synchronized externally.
+ */
+final class UserOrderIndex {
+    private final Map<String, Set<String>> orderIdsByUser = new HashMap<>();
+
+    void add(final String userId, final String orderId){
+        orderIdsByUser.computeIfAbsent(userId, id -> new LinkedHashSet<>()).add(orderId);
+    }
+
+    void remove(final String userId, final String orderId){
+        final Set<String> orderIds = orderIdsByUser.get(userId);
+        if( orderIds != null && orderIds.remove(orderId) && orderIds.isEmpty()){
+            orderIdsByUser.remove(userId);
+        }
+    }
+
+    /**
+     * @param userId
+     * @return copy of the user's orderIds in the order they were added, so the orders can be removed while iterating it
+     */
+    List<String> getOrderIds(final String userId){
+        final Set<String> orderIds = orderIdsByUser.get(userId);
+        return orderIds == null ? Collections.emptyList() : new ArrayList<>(orderIds);
+    }
+
+    /**
+     * @return number of users with resting orders
+     */
+    int size(){
+        return orderIdsByUser.size();
+    }
+}
@@ -0,0 +1,30 @@
+package com.silverbars.orderbook.journal;
+
+/**
+ * Type of the OrderBook operation recorded by an OrderJournal event.
+ */
+public enum JournalEvent {
+    ADD((byte) 1),
+    CANCEL((byte) 2);
+
+    private final byte code;
+
+    JournalEvent(final byte code) {
+        this.code = code;
+    }
+
+    byte getCode() {
+        return code;
+    }
+
+    static JournalEvent fromCode(final byte code){
+        switch (code){
+            case 1:
+                return ADD;
+            case 2:
+                return CANCEL;
+            default:
+                throw new IllegalArgumentException("Unknown journal event code: " + code);
+        }
+    }
+}
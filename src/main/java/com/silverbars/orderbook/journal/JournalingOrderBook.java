@@ -0,0 +1,323 @@
+package com.silverbars.orderbook.journal;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.silverbars.orderbook.DepthSnapshot;
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.PriceLevel;
+import com.silverbars.orderbook.Side;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderBook that records every successful add and cancel in an OrderJournal, so the book can be rebuilt after a restart
+ * with OrderJournal.replay. Rejected orders are not journalled, and orders whose ids are too long to journal are refused
+ * as UNSUPPORTED_ORDER before they reach the delegate.
+ *
+ * Each operation is applied and journalled while holding the journal's monitor, so the journal order always matches the
+ * order in which operations were applied to the delegate. Queries go straight to the delegate. Snapshots bound the time
+ * taken to reopen the book, as only the journal events after the latest snapshot are replayed.
+ */
+public class JournalingOrderBook implements OrderBook, AutoCloseable {
+    private final static Logger log = Logger.getLogger(JournalingOrderBook.class);
+    private final static int SNAPSHOTS_KEPT = 2;
+
+    private final OrderBook delegate;
+    private final OrderJournal journal;
+    private ScheduledExecutorService snapshotExecutor;
+
+    public JournalingOrderBook(final OrderBook delegate, final OrderJournal journal) {
+        Objects.requireNonNull(delegate, "Missing delegate");
+        Objects.requireNonNull(journal, "Missing journal");
+        this.delegate = delegate;
+        this.journal = journal;
+    }
+
+    /**
+     * Rebuilds orderBook from the latest snapshot in directory and the journal events appended after it, or from the
+     * whole journal if there is no snapshot, and returns an OrderBook that continues journalling to directory.
+     * @param orderBook empty OrderBook to rebuild
+     * @param directory journal directory
+     * @return journalling OrderBook over the rebuilt orderBook
+     * @throws IOException if the snapshot or journal cannot be read or opened
+     * @throws OrderBookException if the snapshot or journal could not be applied to orderBook
+     */
+    public static JournalingOrderBook open(final OrderBook orderBook, final Path directory) throws IOException, OrderBookException {
+        final Optional<OrderBookSnapshot> snapshot = OrderBookSnapshot.readLatest(directory);
+        long fromPosition = 0;
+        if( snapshot.isPresent()){
+            snapshot.get().restore(orderBook);
+            fromPosition = snapshot.get().getJournalPosition();
+        }
+        OrderJournal.replay(directory, fromPosition, orderBook);
+        return new JournalingOrderBook(orderBook, new OrderJournal(directory));
+    }
+
+    /**
+     * Writes a snapshot of the book to the journal directory, keeping the previous one. Operations are only blocked while
+     * the resting orders are copied - the file is written once they can continue.
+     * @return the snapshot file
+     * @throws IOException if the snapshot could not be written
+     */
+    public Path snapshot() throws IOException {
+        final OrderBookSnapshot snapshot;
+        synchronized (journal){
+            snapshot = OrderBookSnapshot.capture(delegate, journal.getPosition());
+        }
+        final Path file = snapshot.write(journal.getDirectory());
+        OrderBookSnapshot.prune(journal.getDirectory(), SNAPSHOTS_KEPT);
+        log.info("Wrote OrderBook snapshot " + file);
+        return file;
+    }
+
+    /**
+     * Writes a snapshot periodically on a background thread until the OrderBook is closed.
+     * @param interval
+     * @param unit
+     */
+    public synchronized void scheduleSnapshots(final long interval, final TimeUnit unit) {
+        if( interval <= 0){
+            throw new IllegalArgumentException("Invalid interval. Must be greater than 0");
+        }
+        if( snapshotExecutor != null){
+            throw new IllegalStateException("Snapshots have already been scheduled");
+        }
+        snapshotExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("orderbook-snapshot").setDaemon(true).build());
+        snapshotExecutor.scheduleWithFixedDelay(this::snapshotQuietly, interval, interval, unit);
+    }
+
+    /**
+     * @param order
+     * @throws OrderBookException if the order was not added, or cannot be journalled
+     * @throws UncheckedIOException if the order was added but could not be journalled
+     */
+    @Override
+    public void addOrder(final Order order) throws OrderBookException {
+        synchronized (journal){
+            if( !journal.canAppend(order)){
+                throw OrderBookException.rejection(OrderResult.UNSUPPORTED_ORDER, order);
+            }
+            delegate.addOrder(order);
+            append(JournalEvent.ADD, order);
+        }
+    }
+
+    /**
+     * @param order
+     * @throws OrderBookException if the order was not cancelled
+     * @throws UncheckedIOException if the order was cancelled but the cancellation could not be journalled
+     */
+    @Override
+    public void cancelOrder(final Order order) throws OrderBookException {
+        synchronized (journal){
+            delegate.cancelOrder(order);
+            append(JournalEvent.CANCEL, order);
+        }
+    }
+
+    /**
+     * @param order
+     * @return ADDED, or the reason the order was not added
+     * @throws UncheckedIOException if the order was added but could not be journalled
+     */
+    @Override
+    public OrderResult tryAddOrder(final Order order) {
+        synchronized (journal){
+            if( !journal.canAppend(order)){
+                log.warn("Order cannot be journalled: " + order);
+                return OrderResult.UNSUPPORTED_ORDER;
+            }
+            final OrderResult result = delegate.tryAddOrder(order);
+            if( result.isSuccess()){
+                append(JournalEvent.ADD, order);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * @param order
+     * @return CANCELLED, or the reason the order was not cancelled
+     * @throws UncheckedIOException if the order was cancelled but the cancellation could not be journalled
+     */
+    @Override
+    public OrderResult tryCancelOrder(final Order order) {
+        synchronized (journal){
+            final OrderResult result = delegate.tryCancelOrder(order);
+            if( result.isSuccess()){
+                append(JournalEvent.CANCEL, order);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * @param orderId
+     * @return the cancelled order
+     * @throws OrderBookException if the order was not cancelled
+     * @throws UncheckedIOException if the order was cancelled but the cancellation could not be journalled
+     */
+    @Override
+    public Order cancelOrder(final String orderId) throws OrderBookException {
+        synchronized (journal){
+            final Order cancelled = delegate.cancelOrder(orderId);
+            append(JournalEvent.CANCEL, cancelled);
+            return cancelled;
+        }
+    }
+
+    /**
+     * Orders that cannot be journalled are UNSUPPORTED_ORDER and are not passed to the delegate.
+     * @param orders
+     * @return the result for each order, in order
+     */
+    @Override
+    public List<OrderResult> addOrders(final Collection<Order> orders) {
+        Objects.requireNonNull(orders, "Missing orders");
+        synchronized (journal){
+            final List<Order> journalable = new ArrayList<>(orders.size());
+            for( Order order : orders){
+                if( journal.canAppend(order)){
+                    journalable.add(order);
+                }
+            }
+            if( journalable.size() == orders.size()){
+                final List<OrderResult> results = delegate.addOrders(orders);
+                appendSuccessful(JournalEvent.ADD, orders, results);
+                return results;
+            }
+            log.warn("Orders cannot be journalled: " + (orders.size() - journalable.size()));
+            final List<OrderResult> addedResults = delegate.addOrders(journalable);
+            appendSuccessful(JournalEvent.ADD, journalable, addedResults);
+            final Iterator<OrderResult> added = addedResults.iterator();
+            final List<OrderResult> results = new ArrayList<>(orders.size());
+            for( Order order : orders){
+                results.add(journal.canAppend(order) ? added.next() : OrderResult.UNSUPPORTED_ORDER);
+            }
+            return results;
+        }
+    }
+
+    @Override
+    public List<OrderResult> cancelOrders(final Collection<Order> orders) {
+        synchronized (journal){
+            final List<OrderResult> results = delegate.cancelOrders(orders);
+            appendSuccessful(JournalEvent.CANCEL, orders, results);
+            return results;
+        }
+    }
+
+    /**
+     * Journals a cancellation for each order cancelled.
+     * @param userId
+     * @return the cancelled orders with the quantity that was resting
+     * @throws UncheckedIOException if the orders were cancelled but the cancellations could not be journalled
+     */
+    @Override
+    public List<Order> cancelAllForUser(final String userId) {
+        synchronized (journal){
+            final List<Order> cancelled = delegate.cancelAllForUser(userId);
+            for( Order order : cancelled){
+                append(JournalEvent.CANCEL, order);
+            }
+            return cancelled;
+        }
+    }
+
+    @Override
+    public List<Order> getOrdersForUser(final String userId) {
+        return delegate.getOrdersForUser(userId);
+    }
+
+    @Override
+    public List<String> getSummary(final Side side) {
+        return delegate.getSummary(side);
+    }
+
+    @Override
+    public DepthSnapshot getDepth(final Side side) {
+        return delegate.getDepth(side);
+    }
+
+    @Override
+    public DepthSnapshot getDepth(final Side side, final int maxLevels) {
+        return delegate.getDepth(side, maxLevels);
+    }
+
+    @Override
+    public List<Order> getOrders(final Side side) {
+        return delegate.getOrders(side);
+    }
+
+    @Override
+    public Optional<PriceLevel> getBestLevel(final Side side) {
+        return delegate.getBestLevel(side);
+    }
+
+    @Override
+    public Optional<BigDecimal> getBestPrice(final Side side) {
+        return delegate.getBestPrice(side);
+    }
+
+    @Override
+    public Optional<BigDecimal> getSpread() {
+        return delegate.getSpread();
+    }
+
+    /**
+     * Stops any scheduled snapshots and closes the journal, forcing all events to disk.
+     */
+    @Override
+    public void close() {
+        synchronized (this){
+            if( snapshotExecutor != null){
+                snapshotExecutor.shutdownNow();
+            }
+        }
+        journal.close();
+    }
+
+    private void snapshotQuietly(){
+        try {
+            snapshot();
+        }
+        catch (IOException | RuntimeException e) {
+            log.error("Failed to write OrderBook snapshot", e);
+        }
+    }
+
+    private void appendSuccessful(final JournalEvent event, final Collection<Order> orders, final List<OrderResult> results){
+        final Iterator<Order> iterator = orders.iterator();
+        for( OrderResult result : results){
+            final Order order = iterator.next();
+            if( result.isSuccess()){
+                append(event, order);
+            }
+        }
+    }
+
+    private void append(final JournalEvent event, final Order order){
+        try {
+            journal.append(event, order);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to journal " + event + " of " + order, e);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.silverbars.orderbook.journal;
+
+import com.silverbars.orderbook.DepthSnapshot;
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.Side;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Point in time copy of both sides of an OrderBook - the resting orders and the level aggregates - together with the
+ * OrderJournal position it was taken at. Restoring the latest snapshot and replaying only the journal events after its
+ * position rebuilds a book in time bounded by the size of the book rather than the length of its history.
+ *
+ * Snapshots are written through a FileChannel to a temporary file that is forced and then atomically renamed, so a crash
+ * while writing never leaves a partial snapshot. The file holds a header (magic, version, journal position) and then for
+ * each side its level count and levels as price and quantity ticks followed by its order count and orders.
+ */
+public final class OrderBookSnapshot {
+    private final static int MAGIC = 0x53425331;
+    private final static int VERSION = 1;
+    private final static String SNAPSHOT_PREFIX = "snapshot-";
+    private final static String SNAPSHOT_SUFFIX = ".snap";
+    // holds the largest order record, with both ids of MAX_ID_BYTES
+    private final static int WRITE_BUFFER_SIZE = 128 * 1024;
+    private final static int MAX_ID_BYTES = Short.MAX_VALUE;
+    private final static int RESTORE_BATCH_SIZE = 4096;
+
+    private final long journalPosition;
+    private final Map<Side, DepthSnapshot> depths;
+    private final Map<Side, List<Order>> orders;
+
+    private OrderBookSnapshot(final long journalPosition, final Map<Side, DepthSnapshot> depths, final Map<Side, List<Order>> orders) {
+        this.journalPosition = journalPosition;
+        this.depths = depths;
+        this.orders = orders;
+    }
+
+    /**
+     * Copies the state of orderBook. The caller must ensure no orders are added or cancelled during the capture, e.g. by
+     * holding the lock JournalingOrderBook applies operations under.
+     * @param orderBook
+     * @param journalPosition position of the journal after the last operation applied to orderBook
+     * @return the snapshot
+     */
+    public static OrderBookSnapshot capture(final OrderBook orderBook, final long journalPosition) {
+        Objects.requireNonNull(orderBook, "Missing orderBook");
+        final Map<Side, DepthSnapshot> depths = new EnumMap<>(Side.class);
+        final Map<Side, List<Order>> orders = new EnumMap<>(Side.class);
+        for( Side side : Side.values()){
+            depths.put(side, orderBook.getDepth(side));
+            orders.put(side, Collections.unmodifiableList(orderBook.getOrders(side)));
+        }
+        return new OrderBookSnapshot(journalPosition, depths, orders);
+    }
+
+    public long getJournalPosition() {
+        return journalPosition;
+    }
+
+    public DepthSnapshot getDepth(final Side side) {
+        return depths.get(side);
+    }
+
+    public List<Order> getOrders(final Side side) {
+        return orders.get(side);
+    }
+
+    /**
+     * Adds the snapshot's orders to an empty OrderBook and checks that the resulting levels match the snapshot's.
+     * @param orderBook
+     * @throws OrderBookException if an order could not be added
+     * @throws IOException if the restored levels do not match the snapshot
+     */
+    public void restore(final OrderBook orderBook) throws OrderBookException, IOException {
+        Objects.requireNonNull(orderBook, "Missing orderBook");
+        for( Side side : Side.values()){
+            final List<Order> sideOrders = orders.get(side);
+            for( int from = 0; from < sideOrders.size(); from += RESTORE_BATCH_SIZE){
+                final List<Order> batch = sideOrders.subList(from, Math.min(from + RESTORE_BATCH_SIZE, sideOrders.size()));
+                final List<OrderResult> results = orderBook.addOrders(batch);
+                for( int i = 0; i < results.size(); i++){
+                    if( !results.get(i).isSuccess()){
+                        throw new OrderBookException(results.get(i), "Snapshot order could not be restored: " + batch.get(i));
+                    }
+                }
+            }
+            if( !orderBook.getDepth(side).equals(depths.get(side))){
+                throw new IOException("Restored " + side + " levels do not match the snapshot taken at journal position " + journalPosition);
+            }
+        }
+    }
+
+    /**
+     * Writes the snapshot into directory, named after its journal position.
+     * @param directory
+     * @return the snapshot file
+     * @throws IOException if the snapshot could not be written, including when an id is longer than its 2 byte length
+     */
+    public Path write(final Path directory) throws IOException {
+        Files.createDirectories(directory);
+        final Path temp = Files.createTempFile(directory, SNAPSHOT_PREFIX, ".tmp");
+        try( FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(journalPosition);
+            for( Side side : Side.values()){
+                final DepthSnapshot depth = depths.get(side);
+                ensureRemaining(channel, buffer, 5);
+                buffer.put((byte) side.ordinal());
+                buffer.putInt(depth.size());
+                for( int i = 0; i < depth.size(); i++){
+                    ensureRemaining(channel, buffer, 16);
+                    buffer.putLong(depth.getPriceTicks(i)).putLong(depth.getQuantityTicks(i));
+                }
+                final List<Order> sideOrders = orders.get(side);
+                ensureRemaining(channel, buffer, 4);
+                buffer.putInt(sideOrders.size());
+                for( Order order : sideOrders){
+                    final byte[] orderId = order.getOrderId().getBytes(StandardCharsets.UTF_8);
+                    final byte[] userId = order.getUserId().getBytes(StandardCharsets.UTF_8);
+                    if( orderId.length > MAX_ID_BYTES || userId.length > MAX_ID_BYTES){
+                        throw new IOException("Order ids are too long to snapshot: " + order);
+                    }
+                    ensureRemaining(channel, buffer, 20 + orderId.length + userId.length);
+                    buffer.putLong(order.getQuantityTicks()).putLong(order.getPriceTicks());
+                    buffer.putShort((short) orderId.length).put(orderId);
+                    buffer.putShort((short) userId.length).put(userId);
+                }
+            }
+            flush(channel, buffer);
+            channel.force(true);
+        }
+        catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        final Path file = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, journalPosition, SNAPSHOT_SUFFIX));
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    /**
+     * @param file
+     * @return the snapshot held in file
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static OrderBookSnapshot read(final Path file) throws IOException {
+        final MappedByteBuffer buffer;
+        try( FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if( buffer.getInt() != MAGIC || buffer.getInt() != VERSION){
+                throw new IOException("Not a version " + VERSION + " OrderBook snapshot: " + file);
+            }
+            final long journalPosition = buffer.getLong();
+            final Map<Side, DepthSnapshot> depths = new EnumMap<>(Side.class);
+            final Map<Side, List<Order>> orders = new EnumMap<>(Side.class);
+            for( int s = 0; s < Side.values().length; s++){
+                final Side side = Side.values()[buffer.get()];
+                final int levelCount = buffer.getInt();
+                final long[] priceTicks = new long[levelCount];
+                final long[] quantityTicks = new long[levelCount];
+                for( int i = 0; i < levelCount; i++){
+                    priceTicks[i] = buffer.getLong();
+                    quantityTicks[i] = buffer.getLong();
+                }
+                depths.put(side, new DepthSnapshot(side, priceTicks, quantityTicks, levelCount));
+
+                final int orderCount = buffer.getInt();
+                final List<Order> sideOrders = new ArrayList<>(orderCount);
+                for( int i = 0; i < orderCount; i++){
+                    final long quantityTicksValue = buffer.getLong();
+                    final long priceTicksValue = buffer.getLong();
+                    final String orderId = readString(buffer);
+                    final String userId = readString(buffer);
+                    sideOrders.add(Order.fromTicks(orderId, userId, quantityTicksValue, priceTicksValue, side));
+                }
+                orders.put(side, Collections.unmodifiableList(sideOrders));
+            }
+            return new OrderBookSnapshot(journalPosition, depths, orders);
+        }
+        catch (RuntimeException e) {
+            throw new IOException("Corrupt OrderBook snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * @param directory
+     * @return the snapshot with the highest journal position in directory, or empty if there is none
+     * @throws IOException if the snapshot cannot be read
+     */
+    public static Optional<OrderBookSnapshot> readLatest(final Path directory) throws IOException {
+        final List<Path> snapshots = listSnapshots(directory);
+        if( snapshots.isEmpty()){
+            return Optional.empty();
+        }
+        return Optional.of(read(snapshots.get(snapshots.size() - 1)));
+    }
+
+    /**
+     * Deletes all but the latest snapshots in directory.
+     * @param directory
+     * @param keep number of snapshots to keep
+     * @throws IOException if a snapshot could not be deleted
+     */
+    public static void prune(final Path directory, final int keep) throws IOException {
+        if( keep < 1){
+            throw new IllegalArgumentException("Invalid keep. Must be greater than 0");
+        }
+        final List<Path> snapshots = listSnapshots(directory);
+        for( int i = 0; i < snapshots.size() - keep; i++){
+            Files.deleteIfExists(snapshots.get(i));
+        }
+    }
+
+    // snapshot files in ascending journal position - positions are zero padded so name order is position order
+    private static List<Path> listSnapshots(final Path directory) throws IOException {
+        Objects.requireNonNull(directory, "Missing directory");
+        if( !Files.isDirectory(directory)){
+            return new ArrayList<>();
+        }
+        try( Stream<Path> paths = Files.list(directory)){
+            return paths.filter(path -> {
+                        final String name = path.getFileName().toString();
+                        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static void ensureRemaining(final FileChannel channel, final ByteBuffer buffer, final int bytes) throws IOException {
+        if( buffer.remaining() < bytes){
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while( buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static String readString(final ByteBuffer buffer){
+        final byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,393 @@
+package com.silverbars.orderbook.journal;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.Side;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of OrderBook events held in a directory of fixed size, memory-mapped segment files. Appending an
+ * event only copies it into the mapped segment, so no system call is made on the write path - a background thread forces
+ * dirty segments to disk every syncIntervalMillis, batching the fsync of every event appended in between.
+ *
+ * Each event is written as an int length followed by its body: event code, side, quantity and price ticks and the
+ * length-prefixed UTF-8 order and user ids. The length is written last, so a reader stops at the first zero length and
+ * never sees a partially written event. An event that does not fit in the rest of a segment starts the next one.
+ *
+ * Appends are synchronized. Events are read back in append order by read and replay.
+ */
+public class OrderJournal implements AutoCloseable {
+    private final static Logger log = Logger.getLogger(OrderJournal.class);
+    private final static String SEGMENT_SUFFIX = ".journal";
+    private final static int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private final static long DEFAULT_SYNC_INTERVAL_MILLIS = 10;
+    // event code, side, quantity and price ticks and the two id lengths
+    private final static int FIXED_BODY_SIZE = 1 + 1 + 8 + 8 + 2 + 2;
+    private final static int REPLAY_BATCH_SIZE = 4096;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ScheduledExecutorService syncExecutor;
+
+    private long segmentIndex;
+    // written by appending threads under the monitor, read by the sync thread
+    private volatile MappedByteBuffer segment;
+    private volatile boolean dirty;
+    // full segments not yet forced to disk - left to sync so that rolling to a new segment does not block the appending thread
+    private final Queue<MappedByteBuffer> unsyncedSegments = new ConcurrentLinkedQueue<>();
+    private boolean closed;
+
+    public OrderJournal(final Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_SYNC_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param directory directory holding the segment files, created if it does not exist
+     * @param segmentSize size in bytes of each segment file
+     * @param syncIntervalMillis interval at which appended events are forced to disk, or 0 to only force them on sync and close
+     * @throws IOException if the journal cannot be opened
+     */
+    public OrderJournal(final Path directory, final int segmentSize, final long syncIntervalMillis) throws IOException {
+        Objects.requireNonNull(directory, "Missing directory");
+        if( segmentSize <= FIXED_BODY_SIZE + 4){
+            throw new IllegalArgumentException("Invalid segmentSize. Must be greater than " + (FIXED_BODY_SIZE + 4));
+        }
+        if( syncIntervalMillis < 0){
+            throw new IllegalArgumentException("Invalid syncIntervalMillis. Must not be negative");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+
+        final List<Path> segments = listSegments(directory);
+        if( segments.isEmpty()){
+            openSegment(0);
+        }
+        else {
+            final Path last = segments.get(segments.size() - 1);
+            openSegment(parseSegmentIndex(last));
+            segment.position(findEnd(segment));
+        }
+
+        if( syncIntervalMillis > 0){
+            syncExecutor = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("orderbook-journal-sync").setDaemon(true).build());
+            syncExecutor.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        else {
+            syncExecutor = null;
+        }
+    }
+
+    /**
+     * Checks that an event for order fits in a journal record, so an order can be checked before it changes the OrderBook.
+     * @param order
+     * @return true if append will accept order
+     */
+    public boolean canAppend(final Order order) {
+        Objects.requireNonNull(order, "Missing order");
+        final String orderId = order.getOrderId();
+        final String userId = order.getUserId();
+        // a char never encodes to more than 3 UTF-8 bytes, so most ids fit without being encoded
+        return fits(orderId.length() * 3L, userId.length() * 3L)
+                || fits(orderId.getBytes(StandardCharsets.UTF_8).length, userId.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    /**
+     * Appends an event for an order that has been added to or cancelled from the OrderBook.
+     * @param event
+     * @param order
+     * @throws IOException if a new segment could not be created
+     * @throws IllegalArgumentException if canAppend would return false for order
+     */
+    public synchronized void append(final JournalEvent event, final Order order) throws IOException {
+        Objects.requireNonNull(event, "Missing event");
+        Objects.requireNonNull(order, "Missing order");
+        if( closed){
+            throw new IllegalStateException("OrderJournal has been closed");
+        }
+        final byte[] orderId = order.getOrderId().getBytes(StandardCharsets.UTF_8);
+        final byte[] userId = order.getUserId().getBytes(StandardCharsets.UTF_8);
+        if( !fits(orderId.length, userId.length)){
+            throw new IllegalArgumentException("Order is too large to journal: " + order);
+        }
+        final int bodySize = FIXED_BODY_SIZE + orderId.length + userId.length;
+        if( segment.remaining() < bodySize + 4){
+            rollSegment();
+        }
+
+        final MappedByteBuffer buffer = segment;
+        final int start = buffer.position();
+        buffer.position(start + 4);
+        buffer.put(event.getCode());
+        buffer.put((byte) order.getSide().ordinal());
+        buffer.putLong(order.getQuantityTicks());
+        buffer.putLong(order.getPriceTicks());
+        buffer.putShort((short) orderId.length);
+        buffer.put(orderId);
+        buffer.putShort((short) userId.length);
+        buffer.put(userId);
+        // publish the event by writing its length last
+        buffer.putInt(start, bodySize);
+        dirty = true;
+    }
+
+    /**
+     * Forces all appended events to disk.
+     */
+    public void sync() {
+        MappedByteBuffer full;
+        while( (full = unsyncedSegments.poll()) != null){
+            full.force();
+        }
+        final MappedByteBuffer buffer = segment;
+        if( dirty){
+            dirty = false;
+            buffer.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this){
+            if( closed){
+                return;
+            }
+            closed = true;
+        }
+        if( syncExecutor != null){
+            syncExecutor.shutdownNow();
+        }
+        sync();
+    }
+
+    /**
+     * @return position after the last appended event, to read or replay only the events appended after it
+     */
+    public synchronized long getPosition() {
+        return toPosition(segmentIndex, segment.position());
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Reads every event in the journal in append order.
+     * @param directory directory holding the segment files
+     * @param consumer called with each event and its order
+     * @return number of events read
+     * @throws IOException if the segment files cannot be read
+     */
+    public static long read(final Path directory, final BiConsumer<JournalEvent, Order> consumer) throws IOException {
+        return read(directory, 0, consumer);
+    }
+
+    /**
+     * Reads the events appended after a position in append order. Segments wholly before the position are not opened.
+     * @param directory directory holding the segment files
+     * @param fromPosition position returned by getPosition, or 0 for the start of the journal
+     * @param consumer called with each event and its order
+     * @return number of events read
+     * @throws IOException if the segment files cannot be read
+     */
+    public static long read(final Path directory, final long fromPosition, final BiConsumer<JournalEvent, Order> consumer) throws IOException {
+        Objects.requireNonNull(consumer, "Missing consumer");
+        if( fromPosition < 0){
+            throw new IllegalArgumentException("Invalid fromPosition. Must not be negative");
+        }
+        final long fromSegment = fromPosition >>> 32;
+        long events = 0;
+        for( Path path : listSegments(directory)){
+            final long index = parseSegmentIndex(path);
+            if( index < fromSegment){
+                continue;
+            }
+            final MappedByteBuffer buffer;
+            try( FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if( index == fromSegment){
+                buffer.position((int) fromPosition);
+            }
+            int length;
+            while( buffer.remaining() >= 4 && (length = buffer.getInt()) > 0){
+                if( length > buffer.remaining()){
+                    throw new IOException("Corrupt journal segment " + path + " at position " + (buffer.position() - 4));
+                }
+                final JournalEvent event = JournalEvent.fromCode(buffer.get());
+                final Side side = Side.values()[buffer.get()];
+                final long quantityTicks = buffer.getLong();
+                final long priceTicks = buffer.getLong();
+                final String orderId = readString(buffer);
+                final String userId = readString(buffer);
+                consumer.accept(event, Order.fromTicks(orderId, userId, quantityTicks, priceTicks, side));
+                events++;
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Rebuilds an OrderBook by replaying every event in the journal. Consecutive events of the same type are applied as a
+     * batch, so each side publishes its summary once per batch rather than once per event.
+     * @param directory directory holding the segment files
+     * @param orderBook OrderBook to apply the events to, normally empty
+     * @return number of events replayed
+     * @throws IOException if the segment files cannot be read
+     * @throws OrderBookException if an event could not be applied to orderBook
+     */
+    public static long replay(final Path directory, final OrderBook orderBook) throws IOException, OrderBookException {
+        return replay(directory, 0, orderBook);
+    }
+
+    /**
+     * Applies the events appended after a position to an OrderBook, normally one restored from a snapshot taken at that
+     * position. Consecutive events of the same type are applied as a batch.
+     * @param directory directory holding the segment files
+     * @param fromPosition position returned by getPosition, or 0 for the start of the journal
+     * @param orderBook OrderBook to apply the events to
+     * @return number of events replayed
+     * @throws IOException if the segment files cannot be read
+     * @throws OrderBookException if an event could not be applied to orderBook
+     */
+    public static long replay(final Path directory, final long fromPosition, final OrderBook orderBook) throws IOException, OrderBookException {
+        Objects.requireNonNull(orderBook, "Missing orderBook");
+        final Replayer replayer = new Replayer(orderBook);
+        final long events = read(directory, fromPosition, replayer::accept);
+        replayer.flush();
+        if( replayer.failure != null){
+            throw replayer.failure;
+        }
+        log.info("Replayed " + events + " events from journal " + directory);
+        return events;
+    }
+
+    @VisibleForTesting
+    long getSegmentIndex() {
+        return segmentIndex;
+    }
+
+    // true if a record with ids of these encoded lengths fits in a segment and their 2 byte lengths
+    private boolean fits(final long orderIdBytes, final long userIdBytes){
+        return orderIdBytes <= Short.MAX_VALUE && userIdBytes <= Short.MAX_VALUE
+                && FIXED_BODY_SIZE + orderIdBytes + userIdBytes + 4 <= segmentSize;
+    }
+
+    private void rollSegment() throws IOException {
+        unsyncedSegments.add(segment);
+        openSegment(segmentIndex + 1);
+    }
+
+    private void openSegment(final long index) throws IOException {
+        final Path path = directory.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+        try( FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, channel.size()));
+        }
+        segmentIndex = index;
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        }
+        catch (RuntimeException e) {
+            log.error("Failed to sync journal " + directory, e);
+        }
+    }
+
+    // segment index in the high int, offset within the segment in the low int
+    private static long toPosition(final long segmentIndex, final int offset){
+        return segmentIndex << 32 | offset;
+    }
+
+    // position after the last complete event in the segment
+    private static int findEnd(final MappedByteBuffer buffer){
+        int position = 0;
+        int length;
+        while( position + 4 <= buffer.limit() && (length = buffer.getInt(position)) > 0 && position + 4 + length <= buffer.limit()){
+            position += 4 + length;
+        }
+        return position;
+    }
+
+    private static String readString(final MappedByteBuffer buffer){
+        final byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<Path> listSegments(final Path directory) throws IOException {
+        Objects.requireNonNull(directory, "Missing directory");
+        if( !Files.isDirectory(directory)){
+            return new ArrayList<>();
+        }
+        try( Stream<Path> paths = Files.list(directory)){
+            // zero padded indexes so name order is append order
+            return paths.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long parseSegmentIndex(final Path path){
+        final String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    // Collects runs of events of the same type and applies each run as a batch
+    private static class Replayer {
+        private final OrderBook orderBook;
+        private final List<Order> batch = new ArrayList<>(REPLAY_BATCH_SIZE);
+        private JournalEvent batchEvent;
+        private OrderBookException failure;
+
+        Replayer(final OrderBook orderBook) {
+            this.orderBook = orderBook;
+        }
+
+        void accept(final JournalEvent event, final Order order){
+            if( event != batchEvent || batch.size() == REPLAY_BATCH_SIZE){
+                flush();
+                batchEvent = event;
+            }
+            batch.add(order);
+        }
+
+        void flush(){
+            if( batch.isEmpty()){
+                return;
+            }
+            final List<OrderResult> results = batchEvent == JournalEvent.ADD ? orderBook.addOrders(batch) : orderBook.cancelOrders(batch);
+            for( int i = 0; i < results.size() && failure == null; i++){
+                if( !results.get(i).isSuccess()){
+                    failure = new OrderBookException(results.get(i), "Journal event " + batchEvent + " could not be replayed: " + batch.get(i));
+                }
+            }
+            batch.clear();
+        }
+    }
+}
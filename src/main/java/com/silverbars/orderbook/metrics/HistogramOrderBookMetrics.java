@@ -0,0 +1,87 @@
+package com.silverbars.orderbook.metrics;
+
+import com.silverbars.orderbook.OrderResult;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * OrderBookMetrics that keeps a LatencyHistogram of each operation and of write lock waits, and a count of each reject
+ * reason. Nothing is allocated when recording.
+ */
+public class HistogramOrderBookMetrics implements OrderBookMetrics {
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OrderBookOperation.values().length];
+    private final LatencyHistogram writeLockWait = new LatencyHistogram();
+    // indexed on OrderResult ordinal
+    private final AtomicLongArray rejects = new AtomicLongArray(OrderResult.values().length);
+
+    public HistogramOrderBookMetrics() {
+        for( int i = 0; i < latencies.length; i++){
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public void recordLatency(final OrderBookOperation operation, final long nanos) {
+        latencies[operation.ordinal()].record(nanos);
+    }
+
+    @Override
+    public void recordReject(final OrderResult result) {
+        rejects.incrementAndGet(result.ordinal());
+    }
+
+    @Override
+    public void recordWriteLockWait(final long nanos) {
+        writeLockWait.record(nanos);
+    }
+
+    /**
+     * @param operation
+     * @return histogram of the operation's latency in nanoseconds
+     */
+    public LatencyHistogram getLatency(final OrderBookOperation operation) {
+        Objects.requireNonNull(operation, "Missing operation");
+        return latencies[operation.ordinal()];
+    }
+
+    /**
+     * @return histogram of the time spent waiting for a side's write lock in nanoseconds
+     */
+    public LatencyHistogram getWriteLockWait() {
+        return writeLockWait;
+    }
+
+    /**
+     * @param result
+     * @return number of orders not added or cancelled for result
+     */
+    public long getRejectCount(final OrderResult result) {
+        Objects.requireNonNull(result, "Missing result");
+        return rejects.get(result.ordinal());
+    }
+
+    /**
+     * @return number of orders not added or cancelled for any reason
+     */
+    public long getRejectCount() {
+        long total = 0;
+        for( int i = 0; i < rejects.length(); i++){
+            total += rejects.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Clears the histograms and reject counts.
+     */
+    public void reset() {
+        for( LatencyHistogram latency : latencies){
+            latency.reset();
+        }
+        writeLockWait.reset();
+        for( int i = 0; i < rejects.length(); i++){
+            rejects.set(i, 0);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.silverbars.orderbook.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe log-linear histogram of non-negative values, in the style of HdrHistogram. Values below 64 are counted
+ * exactly and larger values in 32 buckets per power of two, so any recorded value is reported to within about 3%.
+ *
+ * Recording only updates preallocated atomic counters, so it never allocates. Reads are not atomic with respect to
+ * concurrent recording - a percentile may miss values recorded while it is being calculated.
+ */
+public final class LatencyHistogram {
+    private final static int SUB_BUCKET_BITS = 5;
+    private final static int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private final static int LINEAR_LIMIT = SUB_BUCKET_COUNT * 2;
+    // linear buckets, then SUB_BUCKET_COUNT buckets for each power of two up to Long.MAX_VALUE
+    private final static int BUCKET_COUNT = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param value value to record - negative values are recorded as 0
+     */
+    public void record(final long value) {
+        final long recorded = Math.max(value, 0);
+        counts.incrementAndGet(bucketIndex(recorded));
+        count.incrementAndGet();
+        total.addAndGet(recorded);
+        long current = max.get();
+        while( recorded > current && !max.compareAndSet(current, recorded)){
+            current = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return mean of the recorded values, or 0 if nothing has been recorded
+     */
+    public double getMean() {
+        final long recordedCount = count.get();
+        return recordedCount == 0 ? 0 : (double) total.get() / recordedCount;
+    }
+
+    /**
+     * @param percentile percentage of recorded values, between 0 and 100
+     * @return the highest value equivalent to the value at percentile, or 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if( percentile < 0 || percentile > 100){
+            throw new IllegalArgumentException("Invalid percentile. Must be between 0 and 100");
+        }
+        final long recordedCount = count.get();
+        if( recordedCount == 0){
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recordedCount));
+        long seen = 0;
+        for( int i = 0; i < BUCKET_COUNT; i++){
+            seen += counts.get(i);
+            if( seen >= rank){
+                return Math.min(highestEquivalentValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Clears all recorded values. Values recorded concurrently with reset may be partly cleared.
+     */
+    public void reset() {
+        for( int i = 0; i < BUCKET_COUNT; i++){
+            counts.set(i, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    static int bucketIndex(final long value){
+        if( value < LINEAR_LIMIT){
+            return (int) value;
+        }
+        // shift so the top SUB_BUCKET_BITS + 1 bits remain, leaving a sub bucket between SUB_BUCKET_COUNT and LINEAR_LIMIT
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKET_COUNT + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+    }
+
+    static long highestEquivalentValue(final int bucketIndex){
+        if( bucketIndex < LINEAR_LIMIT){
+            return bucketIndex;
+        }
+        final int shift = (bucketIndex - LINEAR_LIMIT) / SUB_BUCKET_COUNT + 1;
+        final long subBucket = (bucketIndex - LINEAR_LIMIT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        final long highest = ((subBucket + 1) << shift) - 1;
+        // the top bucket's bound overflows
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+}
@@ -0,0 +1,70 @@
+package com.silverbars.orderbook.metrics;
+
+import java.util.Objects;
+
+/**
+ * Summary of a LatencyHistogram at a point in time, in nanoseconds. Exposed over JMX as composite data.
+ */
+public final class LatencySnapshot {
+    private final long count;
+    private final double mean;
+    private final long p50;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+    public LatencySnapshot(final long count, final double mean, final long p50, final long p99, final long p999, final long max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    /**
+     * @param histogram
+     * @return summary of the values currently recorded in histogram
+     */
+    public static LatencySnapshot of(final LatencyHistogram histogram) {
+        Objects.requireNonNull(histogram, "Missing histogram");
+        return new LatencySnapshot(histogram.getCount(), histogram.getMean(), histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9), histogram.getMax());
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySnapshot{" +
+                "count=" + count +
+                ", mean=" + mean +
+                ", p50=" + p50 +
+                ", p99=" + p99 +
+                ", p999=" + p999 +
+                ", max=" + max +
+                '}';
+    }
+}
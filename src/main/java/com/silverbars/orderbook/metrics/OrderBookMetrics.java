@@ -0,0 +1,25 @@
+package com.silverbars.orderbook.metrics;
+
+import com.silverbars.orderbook.OrderResult;
+
+/**
+ * Receives measurements from the OrderBook hot path. Methods are called on the threads using the OrderBook, some with a
+ * side's write lock held, so implementations must be thread safe, must not block and should not allocate.
+ */
+public interface OrderBookMetrics {
+    /**
+     * @param operation
+     * @param nanos time the operation took
+     */
+    void recordLatency(OrderBookOperation operation, long nanos);
+
+    /**
+     * @param result reason an order was not added or cancelled
+     */
+    void recordReject(OrderResult result);
+
+    /**
+     * @param nanos time spent waiting to acquire a side's write lock
+     */
+    void recordWriteLockWait(long nanos);
+}
@@ -0,0 +1,120 @@
+package com.silverbars.orderbook.metrics;
+
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.Side;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+/**
+ * Exposes HistogramOrderBookMetrics and an OrderBook's level and resting order counts as an MXBean. Histograms are only
+ * summarised when an attribute is read, so nothing is done on the OrderBook hot path.
+ */
+public class OrderBookMetricsJmx implements OrderBookMetricsMXBean {
+    private final static String DOMAIN = "com.silverbars.orderbook";
+
+    private final HistogramOrderBookMetrics metrics;
+    private final ToIntFunction<Side> levelCount;
+    private final ToIntFunction<Side> orderCount;
+
+    /**
+     * @param metrics
+     * @param levelCount number of price levels on a side, e.g. LiveOrderBook::getLevelCount
+     * @param orderCount number of resting orders on a side, e.g. LiveOrderBook::getOrderCount
+     */
+    public OrderBookMetricsJmx(final HistogramOrderBookMetrics metrics, final ToIntFunction<Side> levelCount, final ToIntFunction<Side> orderCount) {
+        Objects.requireNonNull(metrics, "Missing metrics");
+        Objects.requireNonNull(levelCount, "Missing levelCount");
+        Objects.requireNonNull(orderCount, "Missing orderCount");
+        this.metrics = metrics;
+        this.levelCount = levelCount;
+        this.orderCount = orderCount;
+    }
+
+    /**
+     * Registers this MXBean with the platform MBeanServer.
+     * @param name name of the OrderBook, e.g. its instrument
+     * @return the name registered under, needed to unregister
+     * @throws JMException if the MXBean could not be registered
+     */
+    public ObjectName register(final String name) throws JMException {
+        Objects.requireNonNull(name, "Missing name");
+        final ObjectName objectName = new ObjectName(DOMAIN + ":type=OrderBook,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * @param objectName name returned by register
+     * @throws JMException if the MXBean could not be unregistered
+     */
+    public static void unregister(final ObjectName objectName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    }
+
+    @Override
+    public LatencySnapshot getAddOrderLatency() {
+        return LatencySnapshot.of(metrics.getLatency(OrderBookOperation.ADD_ORDER));
+    }
+
+    @Override
+    public LatencySnapshot getCancelOrderLatency() {
+        return LatencySnapshot.of(metrics.getLatency(OrderBookOperation.CANCEL_ORDER));
+    }
+
+    @Override
+    public LatencySnapshot getSummaryLatency() {
+        return LatencySnapshot.of(metrics.getLatency(OrderBookOperation.GET_SUMMARY));
+    }
+
+    @Override
+    public LatencySnapshot getRebuildSummaryLatency() {
+        return LatencySnapshot.of(metrics.getLatency(OrderBookOperation.REBUILD_SUMMARY));
+    }
+
+    @Override
+    public LatencySnapshot getWriteLockWait() {
+        return LatencySnapshot.of(metrics.getWriteLockWait());
+    }
+
+    @Override
+    public Map<String, Long> getRejectCounts() {
+        final Map<String, Long> counts = new LinkedHashMap<>();
+        for( OrderResult result : OrderResult.values()){
+            if( !result.isSuccess()){
+                counts.put(result.name(), metrics.getRejectCount(result));
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public int getSellLevelCount() {
+        return levelCount.applyAsInt(Side.SELL);
+    }
+
+    @Override
+    public int getBuyLevelCount() {
+        return levelCount.applyAsInt(Side.BUY);
+    }
+
+    @Override
+    public int getSellOrderCount() {
+        return orderCount.applyAsInt(Side.SELL);
+    }
+
+    @Override
+    public int getBuyOrderCount() {
+        return orderCount.applyAsInt(Side.BUY);
+    }
+
+    @Override
+    public void reset() {
+        metrics.reset();
+    }
+}
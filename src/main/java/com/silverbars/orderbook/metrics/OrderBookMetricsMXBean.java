@@ -0,0 +1,36 @@
+package com.silverbars.orderbook.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of an OrderBook's metrics. Latencies are in nanoseconds.
+ */
+public interface OrderBookMetricsMXBean {
+    LatencySnapshot getAddOrderLatency();
+
+    LatencySnapshot getCancelOrderLatency();
+
+    LatencySnapshot getSummaryLatency();
+
+    LatencySnapshot getRebuildSummaryLatency();
+
+    LatencySnapshot getWriteLockWait();
+
+    /**
+     * @return number of rejected orders keyed on OrderResult name
+     */
+    Map<String, Long> getRejectCounts();
+
+    int getSellLevelCount();
+
+    int getBuyLevelCount();
+
+    int getSellOrderCount();
+
+    int getBuyOrderCount();
+
+    /**
+     * Clears the latency histograms and reject counts.
+     */
+    void reset();
+}
@@ -0,0 +1,23 @@
+package com.silverbars.orderbook.metrics;
+
+/**
+ * OrderBook operations whose latency is recorded by OrderBookMetrics.
+ */
+public enum OrderBookOperation {
+    /**
+     * OrderBook.addOrder, including any matching
+     */
+    ADD_ORDER,
+    /**
+     * OrderBook.cancelOrder, by order or by orderId
+     */
+    CANCEL_ORDER,
+    /**
+     * OrderBook.getSummary
+     */
+    GET_SUMMARY,
+    /**
+     * Rebuild of a side's summary, made while its write lock is held or, for lazy strategies, by getSummary
+     */
+    REBUILD_SUMMARY
+}
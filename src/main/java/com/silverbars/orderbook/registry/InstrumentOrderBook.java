@@ -0,0 +1,169 @@
+package com.silverbars.orderbook.registry;
+
+import com.silverbars.orderbook.DepthSnapshot;
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.PriceLevel;
+import com.silverbars.orderbook.Side;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * OrderBook of one instrument in an OrderBookRegistry. Adds and cancels are applied on the instrument's shard, queries
+ * go straight to the delegate.
+ */
+class InstrumentOrderBook implements OrderBook {
+    private final OrderBookRegistry registry;
+    private final String instrumentId;
+    private final OrderBook delegate;
+
+    InstrumentOrderBook(final OrderBookRegistry registry, final String instrumentId, final OrderBook delegate) {
+        this.registry = registry;
+        this.instrumentId = instrumentId;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void addOrder(final Order order) throws OrderBookException {
+        Objects.requireNonNull(order);
+        registry.apply(instrumentId, () -> {
+            delegate.addOrder(order);
+            return null;
+        });
+    }
+
+    @Override
+    public void cancelOrder(final Order order) throws OrderBookException {
+        Objects.requireNonNull(order);
+        registry.apply(instrumentId, () -> {
+            delegate.cancelOrder(order);
+            return null;
+        });
+    }
+
+    /**
+     * @return the delegate's result, or REJECTED if the registry has been closed
+     */
+    @Override
+    public OrderResult tryAddOrder(final Order order) {
+        Objects.requireNonNull(order);
+        return applyResult(() -> delegate.tryAddOrder(order));
+    }
+
+    /**
+     * @return the delegate's result, or REJECTED if the registry has been closed
+     */
+    @Override
+    public OrderResult tryCancelOrder(final Order order) {
+        Objects.requireNonNull(order);
+        return applyResult(() -> delegate.tryCancelOrder(order));
+    }
+
+    @Override
+    public Order cancelOrder(final String orderId) throws OrderBookException {
+        Objects.requireNonNull(orderId);
+        return registry.apply(instrumentId, () -> delegate.cancelOrder(orderId));
+    }
+
+    @Override
+    public List<OrderResult> addOrders(final Collection<Order> orders) {
+        Objects.requireNonNull(orders);
+        return applyBatch(() -> delegate.addOrders(orders), orders.size());
+    }
+
+    @Override
+    public List<OrderResult> cancelOrders(final Collection<Order> orders) {
+        Objects.requireNonNull(orders);
+        return applyBatch(() -> delegate.cancelOrders(orders), orders.size());
+    }
+
+    @Override
+    public List<Order> getOrdersForUser(final String userId) {
+        return delegate.getOrdersForUser(userId);
+    }
+
+    /**
+     * @throws IllegalStateException if the registry has been closed
+     */
+    @Override
+    public List<Order> cancelAllForUser(final String userId) {
+        Objects.requireNonNull(userId);
+        try {
+            return registry.apply(instrumentId, () -> delegate.cancelAllForUser(userId));
+        }
+        catch (OrderBookException e) {
+            throw new IllegalStateException("Cancel of all orders of user " + userId + " on instrument " + instrumentId + " failed", e);
+        }
+    }
+
+    @Override
+    public List<String> getSummary(final Side side) {
+        return delegate.getSummary(side);
+    }
+
+    @Override
+    public DepthSnapshot getDepth(final Side side) {
+        return delegate.getDepth(side);
+    }
+
+    @Override
+    public DepthSnapshot getDepth(final Side side, final int maxLevels) {
+        return delegate.getDepth(side, maxLevels);
+    }
+
+    @Override
+    public List<Order> getOrders(final Side side) {
+        return delegate.getOrders(side);
+    }
+
+    @Override
+    public Optional<PriceLevel> getBestLevel(final Side side) {
+        return delegate.getBestLevel(side);
+    }
+
+    @Override
+    public Optional<BigDecimal> getBestPrice(final Side side) {
+        return delegate.getBestPrice(side);
+    }
+
+    @Override
+    public Optional<BigDecimal> getSpread() {
+        return delegate.getSpread();
+    }
+
+    String getInstrumentId() {
+        return instrumentId;
+    }
+
+    OrderBook getDelegate() {
+        return delegate;
+    }
+
+    private OrderResult applyResult(final Callable<OrderResult> operation){
+        try {
+            return registry.apply(instrumentId, operation);
+        }
+        catch (OrderBookException e) {
+            // never applied, e.g. as the registry has been closed
+            return e.getResult();
+        }
+    }
+
+    private List<OrderResult> applyBatch(final Callable<List<OrderResult>> batch, final int size){
+        try {
+            return registry.apply(instrumentId, batch);
+        }
+        catch (OrderBookException e) {
+            // the batch was never applied so every order failed for the same reason
+            return Collections.nCopies(size, e.getResult());
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.silverbars.orderbook.registry;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.Side;
+import org.apache.log4j.Logger;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * OrderBooks for many instruments, keyed on instrument id. Each instrument is pinned to one of a fixed number of shards,
+ * each a single threaded executor, and every add and cancel for the instrument is applied on its shard's thread. Writes
+ * to one instrument are therefore never contended, while instruments on different shards are written in parallel, so
+ * write throughput scales with the number of shards up to the number of cores. Queries read the instrument's OrderBook
+ * directly on the calling thread.
+ *
+ * Books are created by the factory the first time an instrument is used. Call close to stop the shards.
+ */
+public class OrderBookRegistry implements AutoCloseable {
+    private final Logger log = Logger.getLogger(OrderBookRegistry.class);
+
+    private final Function<String, OrderBook> orderBookFactory;
+    private final ExecutorService[] shards;
+    private final ConcurrentMap<String, InstrumentOrderBook> orderBooks = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a registry with a shard for each available processor.
+     * @param orderBookFactory creates the OrderBook for an instrument id
+     */
+    public OrderBookRegistry(final Function<String, OrderBook> orderBookFactory) {
+        this(orderBookFactory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param orderBookFactory creates the OrderBook for an instrument id
+     * @param shardCount number of single threaded executors the instruments are spread across
+     */
+    public OrderBookRegistry(final Function<String, OrderBook> orderBookFactory, final int shardCount) {
+        Objects.requireNonNull(orderBookFactory, "Missing orderBookFactory");
+        if( shardCount <= 0){
+            throw new IllegalArgumentException("Invalid shardCount. Must be greater than 0");
+        }
+        this.orderBookFactory = orderBookFactory;
+        this.shards = new ExecutorService[shardCount];
+        for( int i = 0; i < shardCount; i++){
+            shards[i] = Executors.newSingleThreadExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("orderbook-shard-" + i).setDaemon(true).build());
+        }
+    }
+
+    /**
+     * Returns the OrderBook for an instrument, creating it if required. Adds and cancels made through the returned
+     * OrderBook are applied on the instrument's shard.
+     * @param instrumentId
+     * @return the instrument's OrderBook
+     */
+    public OrderBook getOrderBook(final String instrumentId) {
+        Objects.requireNonNull(instrumentId, "Missing instrumentId");
+        return orderBooks.computeIfAbsent(instrumentId, id -> {
+            final OrderBook orderBook = orderBookFactory.apply(id);
+            Objects.requireNonNull(orderBook, "orderBookFactory returned no OrderBook for instrument " + id);
+            log.info("Created OrderBook for instrument " + id + " on shard " + getShard(id));
+            return new InstrumentOrderBook(this, id, orderBook);
+        });
+    }
+
+    /**
+     * @return ids of the instruments that have an OrderBook
+     */
+    public Set<String> getInstruments() {
+        return Collections.unmodifiableSet(orderBooks.keySet());
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @param instrumentId
+     * @return index of the shard the instrument is pinned to
+     */
+    public int getShard(final String instrumentId) {
+        return Math.floorMod(instrumentId.hashCode(), shards.length);
+    }
+
+    public void addOrder(final String instrumentId, final Order order) throws OrderBookException {
+        getOrderBook(instrumentId).addOrder(order);
+    }
+
+    public void cancelOrder(final String instrumentId, final Order order) throws OrderBookException {
+        getOrderBook(instrumentId).cancelOrder(order);
+    }
+
+    public Order cancelOrder(final String instrumentId, final String orderId) throws OrderBookException {
+        return getOrderBook(instrumentId).cancelOrder(orderId);
+    }
+
+    public List<OrderResult> addOrders(final String instrumentId, final Collection<Order> orders) {
+        return getOrderBook(instrumentId).addOrders(orders);
+    }
+
+    public List<OrderResult> cancelOrders(final String instrumentId, final Collection<Order> orders) {
+        return getOrderBook(instrumentId).cancelOrders(orders);
+    }
+
+    public List<String> getSummary(final String instrumentId, final Side side) {
+        return getOrderBook(instrumentId).getSummary(side);
+    }
+
+    /**
+     * Cancels every resting order of a user on every instrument, e.g. when the user disconnects. Each instrument's
+     * orders are cancelled on its shard, with the shards working in parallel.
+     * @param userId
+     * @return the cancelled orders keyed on instrument id, only for instruments where the user had orders
+     * @throws OrderBookException if the registry has been closed or the wait was interrupted
+     */
+    public Map<String, List<Order>> cancelAllForUser(final String userId) throws OrderBookException {
+        Objects.requireNonNull(userId, "Missing userId");
+        final Map<String, CompletableFuture<List<Order>>> pending = new HashMap<>();
+        for( InstrumentOrderBook orderBook : orderBooks.values()){
+            pending.put(orderBook.getInstrumentId(), submit(orderBook.getInstrumentId(), () -> orderBook.getDelegate().cancelAllForUser(userId)));
+        }
+        final Map<String, List<Order>> cancelled = new HashMap<>();
+        for( Map.Entry<String, CompletableFuture<List<Order>>> entry : pending.entrySet()){
+            final List<Order> orders = await(entry.getKey(), entry.getValue());
+            if( !orders.isEmpty()){
+                cancelled.put(entry.getKey(), orders);
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Adds order on the instrument's shard without waiting for it to be applied.
+     * @param instrumentId
+     * @param order
+     * @return completes once the order has been added, or exceptionally with the OrderBookException if it was rejected
+     */
+    public CompletableFuture<Void> addOrderAsync(final String instrumentId, final Order order) {
+        Objects.requireNonNull(order);
+        final InstrumentOrderBook orderBook = (InstrumentOrderBook) getOrderBook(instrumentId);
+        return submit(instrumentId, () -> {
+            orderBook.getDelegate().addOrder(order);
+            return null;
+        });
+    }
+
+    /**
+     * Cancels order on the instrument's shard without waiting for it to be applied.
+     * @param instrumentId
+     * @param order
+     * @return completes once the order has been cancelled, or exceptionally with the OrderBookException if it was rejected
+     */
+    public CompletableFuture<Void> cancelOrderAsync(final String instrumentId, final Order order) {
+        Objects.requireNonNull(order);
+        final InstrumentOrderBook orderBook = (InstrumentOrderBook) getOrderBook(instrumentId);
+        return submit(instrumentId, () -> {
+            orderBook.getDelegate().cancelOrder(order);
+            return null;
+        });
+    }
+
+    /**
+     * Stops the shards once the operations already submitted have been applied.
+     */
+    @Override
+    public void close() {
+        for( ExecutorService shard : shards){
+            shard.shutdown();
+        }
+    }
+
+    // Runs operation on the instrument's shard
+    <T> CompletableFuture<T> submit(final String instrumentId, final Callable<T> operation){
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            shards[getShard(instrumentId)].execute(() -> {
+                try {
+                    result.complete(operation.call());
+                }
+                catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            result.completeExceptionally(new OrderBookException("OrderBookRegistry has been closed", e));
+        }
+        return result;
+    }
+
+    // Runs operation on the instrument's shard and waits for it to complete
+    <T> T apply(final String instrumentId, final Callable<T> operation) throws OrderBookException {
+        return await(instrumentId, submit(instrumentId, operation));
+    }
+
+    private static <T> T await(final String instrumentId, final CompletableFuture<T> result) throws OrderBookException {
+        try {
+            return result.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrderBookException("Interrupted waiting for instrument " + instrumentId, e);
+        }
+        catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if( cause instanceof OrderBookException){
+                throw (OrderBookException) cause;
+            }
+            if( cause instanceof RuntimeException){
+                throw (RuntimeException) cause;
+            }
+            throw new OrderBookException(cause);
+        }
+    }
+
+    @VisibleForTesting
+    boolean isTerminated(){
+        for( ExecutorService shard : shards){
+            if( !shard.isTerminated()){
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,69 @@
+package com.silverbars.orderbook;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class DepthSnapshotTest {
+    private final long[] priceTicks = {295, 299, 310};
+    private final long[] quantityTicks = {42, 37, 20};
+
+    @Test
+    public void accessors() {
+        final DepthSnapshot depth = new DepthSnapshot(Side.SELL, priceTicks, quantityTicks, 2);
+        assertEquals(Side.SELL, depth.getSide());
+        assertEquals(2, depth.size());
+        assertFalse(depth.isEmpty());
+        assertEquals(299, depth.getPriceTicks(1));
+        assertEquals(37, depth.getQuantityTicks(1));
+        assertEquals(new BigDecimal("2.99"), depth.getPrice(1));
+        assertEquals(new BigDecimal("3.7"), depth.getQuantity(1));
+        assertEquals(new PriceLevel(new BigDecimal("2.95"), new BigDecimal("4.2")), depth.getLevel(0));
+        assertEquals(Arrays.asList(new PriceLevel(new BigDecimal("2.95"), new BigDecimal("4.2")),
+                new PriceLevel(new BigDecimal("2.99"), new BigDecimal("3.7"))), depth.getLevels());
+    }
+
+    @Test
+    public void arraysAreCopied() {
+        final DepthSnapshot depth = new DepthSnapshot(Side.SELL, priceTicks, quantityTicks, 3);
+        priceTicks[0] = 1;
+        quantityTicks[0] = 1;
+        assertEquals(295, depth.getPriceTicks(0));
+        assertEquals(42, depth.getQuantityTicks(0));
+    }
+
+    @Test
+    public void empty() {
+        final DepthSnapshot depth = DepthSnapshot.empty(Side.BUY);
+        assertTrue(depth.isEmpty());
+        assertEquals(0, depth.getLevels().size());
+        assertEquals(depth, new DepthSnapshot(Side.BUY, priceTicks, quantityTicks, 0));
+    }
+
+    @Test
+    public void equality() {
+        final DepthSnapshot depth = new DepthSnapshot(Side.SELL, priceTicks, quantityTicks, 2);
+        final DepthSnapshot same = new DepthSnapshot(Side.SELL, new long[]{295, 299}, new long[]{42, 37}, 2);
+        assertEquals(depth, same);
+        assertEquals(depth.hashCode(), same.hashCode());
+        assertNotEquals(depth, new DepthSnapshot(Side.BUY, priceTicks, quantityTicks, 2));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void levelsAreImmutable() {
+        new DepthSnapshot(Side.SELL, priceTicks, quantityTicks, 2).getLevels().remove(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidLevelCount() {
+        new DepthSnapshot(Side.SELL, priceTicks, new long[2], 3);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void missingSide() {
+        new DepthSnapshot(null, priceTicks, quantityTicks, 2);
+    }
+}
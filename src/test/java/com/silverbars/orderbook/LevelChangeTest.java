@@ -0,0 +1,43 @@
+package com.silverbars.orderbook;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+public class LevelChangeTest {
+
+    @Test
+    public void convertsTicks() {
+        final LevelChange change = new LevelChange(Side.BUY, 299, 37);
+        assertEquals(Side.BUY, change.getSide());
+        assertEquals(new BigDecimal("2.99"), change.getPrice());
+        assertEquals(new BigDecimal("3.7"), change.getQuantity());
+        assertFalse(change.isRemoved());
+    }
+
+    @Test
+    public void zeroQuantityIsRemoved() {
+        assertTrue(new LevelChange(Side.SELL, 299, 0).isRemoved());
+    }
+
+    @Test
+    public void equality() {
+        assertEquals(new LevelChange(Side.SELL, 299, 37), new LevelChange(Side.SELL, 299, 37));
+        assertEquals(new LevelChange(Side.SELL, 299, 37).hashCode(), new LevelChange(Side.SELL, 299, 37).hashCode());
+        assertNotEquals(new LevelChange(Side.SELL, 299, 37), new LevelChange(Side.BUY, 299, 37));
+        assertNotEquals(new LevelChange(Side.SELL, 299, 37), new LevelChange(Side.SELL, 298, 37));
+        assertNotEquals(new LevelChange(Side.SELL, 299, 37), new LevelChange(Side.SELL, 299, 36));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructorRequiresSide() {
+        new LevelChange(null, 299, 37);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorRejectsNegativeQuantity() {
+        new LevelChange(Side.SELL, 299, -1);
+    }
+}
@@ -0,0 +1,42 @@
+package com.silverbars.orderbook;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class OrderBookExceptionTest {
+    private final static Order order = new Order("1", "userId1", 2.5, 2.99, Side.SELL);
+
+    @Test
+    public void rejectionMessage() {
+        assertEquals("Order has been previously submitted: 1", OrderBookException.rejection(OrderResult.DUPLICATE_ORDER, order).getMessage());
+        assertEquals("Order could not be found, or was previously cancelled: XXX", OrderBookException.unknownOrder("XXX").getMessage());
+    }
+
+    @Test
+    public void rejectionSerializedWithItsMessage() throws Exception {
+        final OrderBookException rejection = OrderBookException.rejection(OrderResult.UNKNOWN_ORDER, order);
+        final OrderBookException copy = roundTrip(rejection);
+        assertEquals(OrderResult.UNKNOWN_ORDER, copy.getResult());
+        assertEquals(rejection.getMessage(), copy.getMessage());
+
+        final OrderBookException unknown = roundTrip(OrderBookException.unknownOrder("XXX"));
+        assertEquals(OrderResult.UNKNOWN_ORDER, unknown.getResult());
+        assertEquals("Order could not be found, or was previously cancelled: XXX", unknown.getMessage());
+    }
+
+    private static OrderBookException roundTrip(final OrderBookException exception) throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(exception);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (OrderBookException) in.readObject();
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.silverbars.orderbook;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.math.BigDecimal;
+
 import javax.print.DocFlavor;
 
 import java.util.Queue;
@@ -42,6 +44,16 @@ public class OrderTest {
         new Order(ORDER_1, USER_1, QUANTITY1, 0, Side.BUY);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void quantityRoundingToZeroTicks() {
+        new Order(ORDER_1, USER_1, 0.04, PRICE_1, Side.BUY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void priceRoundingToZeroTicks() {
+        new Order(ORDER_1, USER_1, QUANTITY1, 0.004, Side.BUY);
+    }
+
     @Test(expected = NullPointerException.class)
     public void invalidOrderType() {
         new Order(ORDER_1, USER_1, QUANTITY1, PRICE_1, null);
@@ -71,4 +83,38 @@ public class OrderTest {
     public void getSide() {
         assertEquals(Side.BUY, order.getSide());
     }
+
+    @Test
+    public void getTicks() {
+        assertEquals(25, order.getQuantityTicks());
+        assertEquals(300, order.getPriceTicks());
+    }
+
+    @Test
+    public void ticksRoundHalfUp() {
+        final Order rounded = new Order(ORDER_1, USER_1, 2.25, 2.675, Side.BUY);
+        assertEquals(23, rounded.getQuantityTicks());
+        assertEquals(268, rounded.getPriceTicks());
+    }
+
+    @Test
+    public void fromTicks() {
+        final Order fromTicks = Order.fromTicks(ORDER_1, USER_1, 25, 295, Side.SELL);
+        assertEquals(2.5, fromTicks.getQuantity(), 0.01);
+        assertEquals(2.95, fromTicks.getPrice(), 0.001);
+        assertEquals(25, fromTicks.getQuantityTicks());
+        assertEquals(295, fromTicks.getPriceTicks());
+    }
+
+    @Test
+    public void fromTicksMatchesBigDecimalConversion() {
+        for( long ticks = 1; ticks < 100_000; ticks++){
+            final Order fromTicks = Order.fromTicks(ORDER_1, USER_1, ticks, ticks, Side.BUY);
+            assertEquals(BigDecimal.valueOf(ticks, Order.QUANTITY_SCALE).doubleValue(), fromTicks.getQuantity(), 0);
+            assertEquals(BigDecimal.valueOf(ticks, Order.PRICE_SCALE).doubleValue(), fromTicks.getPrice(), 0);
+            final Order fromDoubles = new Order(ORDER_1, USER_1, fromTicks.getQuantity(), fromTicks.getPrice(), Side.BUY);
+            assertEquals(ticks, fromDoubles.getQuantityTicks());
+            assertEquals(ticks, fromDoubles.getPriceTicks());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.silverbars.orderbook;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+public class PriceLevelTest {
+    private final static BigDecimal PRICE = new BigDecimal("2.99");
+    private final static BigDecimal QUANTITY = new BigDecimal("3.7");
+
+    @Test(expected = NullPointerException.class)
+    public void invalidPrice() {
+        new PriceLevel(null, QUANTITY);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void invalidQuantity() {
+        new PriceLevel(PRICE, null);
+    }
+
+    @Test
+    public void getters() {
+        final PriceLevel priceLevel = new PriceLevel(PRICE, QUANTITY);
+        assertEquals(PRICE, priceLevel.getPrice());
+        assertEquals(QUANTITY, priceLevel.getQuantity());
+    }
+
+    @Test
+    public void equalsAndHashCode() {
+        final PriceLevel priceLevel = new PriceLevel(PRICE, QUANTITY);
+        final PriceLevel same = new PriceLevel(new BigDecimal("2.99"), new BigDecimal("3.7"));
+        assertEquals(priceLevel, same);
+        assertEquals(priceLevel.hashCode(), same.hashCode());
+        assertNotEquals(priceLevel, new PriceLevel(PRICE, new BigDecimal("3.8")));
+    }
+}
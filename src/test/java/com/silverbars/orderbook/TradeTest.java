@@ -0,0 +1,46 @@
+package com.silverbars.orderbook;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+public class TradeTest {
+
+    @Test
+    public void buyAndSellOrderIds() {
+        final Trade buy = new Trade("resting", "incoming", Side.BUY, 299, 25);
+        assertEquals("incoming", buy.getBuyOrderId());
+        assertEquals("resting", buy.getSellOrderId());
+
+        final Trade sell = new Trade("resting", "incoming", Side.SELL, 299, 25);
+        assertEquals("resting", sell.getBuyOrderId());
+        assertEquals("incoming", sell.getSellOrderId());
+    }
+
+    @Test
+    public void convertsTicks() {
+        final Trade trade = new Trade("resting", "incoming", Side.BUY, 299, 25);
+        assertEquals(new BigDecimal("2.99"), trade.getPrice());
+        assertEquals(new BigDecimal("2.5"), trade.getQuantity());
+    }
+
+    @Test
+    public void equality() {
+        assertEquals(new Trade("1", "2", Side.BUY, 299, 25), new Trade("1", "2", Side.BUY, 299, 25));
+        assertEquals(new Trade("1", "2", Side.BUY, 299, 25).hashCode(), new Trade("1", "2", Side.BUY, 299, 25).hashCode());
+        assertNotEquals(new Trade("1", "2", Side.BUY, 299, 25), new Trade("1", "2", Side.SELL, 299, 25));
+        assertNotEquals(new Trade("1", "2", Side.BUY, 299, 25), new Trade("1", "2", Side.BUY, 299, 24));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorRejectsZeroQuantity() {
+        new Trade("1", "2", Side.BUY, 299, 0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructorRequiresRestingOrderId() {
+        new Trade(null, "2", Side.BUY, 299, 25);
+    }
+}
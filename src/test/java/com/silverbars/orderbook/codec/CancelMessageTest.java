@@ -0,0 +1,64 @@
+package com.silverbars.orderbook.codec;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CancelMessageTest {
+    private final ByteBuffer buffer = ByteBuffer.allocate(2 * CancelMessage.ENCODED_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    private final CancelMessage message = new CancelMessage();
+
+    @Test
+    public void roundTrip() {
+        assertEquals(CancelMessage.ENCODED_LENGTH, CancelMessage.encode("order-1", buffer, 0));
+        CancelMessage.encode("order-22", buffer, CancelMessage.ENCODED_LENGTH);
+        assertEquals(MessageType.CANCEL, MessageType.of(buffer, 0));
+
+        assertEquals("order-1", message.wrap(buffer, 0).getOrderId());
+        assertTrue(message.orderIdEquals("order-1"));
+        assertFalse(message.orderIdEquals("order-22"));
+        assertEquals("order-22", message.wrap(buffer, CancelMessage.ENCODED_LENGTH).getOrderId());
+
+        final StringBuilder builder = new StringBuilder();
+        message.appendOrderId(builder);
+        assertEquals("order-22", builder.toString());
+    }
+
+    @Test
+    public void emptyOrderId() {
+        CancelMessage.encode("", buffer, 0);
+        assertEquals(0, message.wrap(buffer, 0).getOrderIdLength());
+        assertEquals("", message.getOrderId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void orderIdTooLongRejected() {
+        CancelMessage.encode("0123456789abcdef0123456789abcdefX", buffer, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void orderIdLengthPastMaximumRejected() {
+        CancelMessage.encode("1", buffer, 0);
+        buffer.put(2, (byte) 33);
+        message.wrap(buffer, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void orderIdLengthWithSignBitRejected() {
+        CancelMessage.encode("1", buffer, 0);
+        // read as 200 rather than -56
+        buffer.put(2, (byte) 200);
+        message.wrap(buffer, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrapOfUnknownMessageTypeRejected() {
+        buffer.put(0, (byte) 9);
+        message.wrap(buffer, 0);
+    }
+}
@@ -0,0 +1,88 @@
+package com.silverbars.orderbook.codec;
+
+import com.silverbars.orderbook.DepthSnapshot;
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.impl.OrderBookSideImpl;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+
+public class DepthMessageTest {
+    private final ByteBuffer buffer = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+    private final DepthMessage message = new DepthMessage();
+
+    @Test
+    public void roundTrip() throws OrderBookException {
+        final OrderBookSideImpl buySide = new OrderBookSideImpl(Side.BUY);
+        buySide.addOrder(new Order("1", "user1", 2.5, 2.99, Side.BUY));
+        buySide.addOrder(new Order("2", "user2", 4.2, 2.95, Side.BUY));
+        buySide.addOrder(new Order("3", "user2", 1.0, 2.99, Side.BUY));
+        final DepthSnapshot depth = buySide.getDepth();
+
+        assertEquals(DepthMessage.encodedLength(2), DepthMessage.encode(depth, buffer, 0));
+        assertEquals(MessageType.DEPTH, MessageType.of(buffer, 0));
+
+        message.wrap(buffer, 0);
+        assertEquals(Side.BUY, message.getSide());
+        assertEquals(2, message.getLevelCount());
+        assertEquals(DepthMessage.HEADER_LENGTH + 2 * DepthMessage.LEVEL_LENGTH, message.getEncodedLength());
+        assertEquals(299, message.getPriceTicks(0));
+        assertEquals(35, message.getQuantityTicks(0));
+        assertEquals(295, message.getPriceTicks(1));
+        assertEquals(42, message.getQuantityTicks(1));
+        assertEquals(depth, message.toSnapshot());
+    }
+
+    @Test
+    public void emptyDepth() {
+        assertEquals(DepthMessage.HEADER_LENGTH, DepthMessage.encode(DepthSnapshot.empty(Side.SELL), buffer, 0));
+        message.wrap(buffer, 0);
+        assertEquals(0, message.getLevelCount());
+        assertEquals(DepthSnapshot.empty(Side.SELL), message.toSnapshot());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void levelIndexChecked() {
+        DepthMessage.encode(new DepthSnapshot(Side.SELL, new long[]{299}, new long[]{25}, 1), buffer, 0);
+        message.wrap(buffer, 0).getPriceTicks(1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void truncatedMessageRejected() {
+        DepthMessage.encode(new DepthSnapshot(Side.SELL, new long[]{299, 300}, new long[]{25, 10}, 2), buffer, 0);
+        final ByteBuffer truncated = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        truncated.limit(DepthMessage.encodedLength(2) - 1);
+        message.wrap(truncated, 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void levelCountOverflowingLengthRejected() {
+        DepthMessage.encode(DepthSnapshot.empty(Side.SELL), buffer, 0);
+        // HEADER_LENGTH + 0x10000000 * LEVEL_LENGTH wraps round to 8
+        buffer.putInt(4, 0x10000000);
+        message.wrap(buffer, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeLevelCountRejected() {
+        DepthMessage.encode(DepthSnapshot.empty(Side.SELL), buffer, 0);
+        buffer.putInt(4, -1);
+        message.wrap(buffer, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encodedLengthOverflowRejected() {
+        DepthMessage.encodedLength(DepthMessage.MAX_LEVEL_COUNT + 1);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void depthTooLargeForBufferRejected() {
+        final int levels = 100;
+        DepthMessage.encode(new DepthSnapshot(Side.SELL, new long[levels], new long[levels], levels), buffer, 0);
+    }
+}
@@ -0,0 +1,166 @@
+package com.silverbars.orderbook.codec;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.Side;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OrderMessageTest {
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(4 * OrderMessage.ENCODED_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    private final OrderMessage message = new OrderMessage();
+
+    @Test
+    public void roundTrip() {
+        final Order order = new Order("order-1", "user-1", 2.5, 2.99, Side.SELL);
+        assertEquals(OrderMessage.ENCODED_LENGTH, OrderMessage.encode(order, buffer, 0));
+        assertEquals(MessageType.ORDER, MessageType.of(buffer, 0));
+
+        message.wrap(buffer, 0);
+        assertEquals(Side.SELL, message.getSide());
+        assertEquals(299, message.getPriceTicks());
+        assertEquals(25, message.getQuantityTicks());
+        assertEquals("order-1", message.getOrderId());
+        assertEquals("user-1", message.getUserId());
+
+        final Order decoded = message.toOrder();
+        assertEquals(order, decoded);
+        assertEquals(order.getUserId(), decoded.getUserId());
+        assertEquals(order.getPriceTicks(), decoded.getPriceTicks());
+        assertEquals(order.getQuantityTicks(), decoded.getQuantityTicks());
+        assertEquals(order.getSide(), decoded.getSide());
+        assertEquals(order.getPrice(), decoded.getPrice(), 0);
+        assertEquals(order.getQuantity(), decoded.getQuantity(), 0);
+    }
+
+    @Test
+    public void messagesAtOffsets() {
+        final Order buy = Order.fromTicks("b", "user1", 10, 1234567, Side.BUY);
+        final Order sell = Order.fromTicks("s", "user2", Long.MAX_VALUE, 1, Side.SELL);
+        final int second = OrderMessage.encode(buy, buffer, 0);
+        // messages are not required to be aligned in the buffer
+        OrderMessage.encode(sell, buffer, second + 3);
+
+        assertEquals(Side.BUY, message.wrap(buffer, 0).getSide());
+        assertEquals(1234567, message.getPriceTicks());
+        message.wrap(buffer, second + 3);
+        assertEquals(Side.SELL, message.getSide());
+        assertEquals(Long.MAX_VALUE, message.getQuantityTicks());
+        assertEquals("s", message.getOrderId());
+    }
+
+    @Test
+    public void idsComparedInPlace() {
+        OrderMessage.encode(new Order("order-10", "user-1", 2.5, 2.99, Side.SELL), buffer, 0);
+        // a longer id left in the buffer by an earlier message
+        OrderMessage.encode(new Order("order-1", "u", 2.5, 2.99, Side.SELL), buffer, 0);
+        message.wrap(buffer, 0);
+        assertTrue(message.orderIdEquals("order-1"));
+        assertFalse(message.orderIdEquals("order-10"));
+        assertFalse(message.orderIdEquals("order-2"));
+        assertTrue(message.userIdEquals("u"));
+        assertFalse(message.userIdEquals("user-1"));
+
+        final StringBuilder builder = new StringBuilder();
+        message.appendOrderId(builder);
+        builder.append('/');
+        message.appendUserId(builder);
+        assertEquals("order-1/u", builder.toString());
+    }
+
+    @Test
+    public void nonAsciiIds() {
+        OrderMessage.encode(new Order("ordre-é", "用户", 1.0, 3.0, Side.BUY), buffer, 0);
+        assertEquals("ordre-é", message.wrap(buffer, 0).getOrderId());
+        assertEquals("用户", message.getUserId());
+    }
+
+    @Test
+    public void longestIds() {
+        final String id = "0123456789abcdef0123456789abcdef";
+        OrderMessage.encode(new Order(id, id, 1.0, 3.0, Side.BUY), buffer, 0);
+        assertEquals(id, message.wrap(buffer, 0).getOrderId());
+        assertEquals(id, message.getUserId());
+    }
+
+    @Test
+    public void readingFieldsDoesNotAllocate() {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled());
+
+        OrderMessage.encode(new Order("order-1", "user-1", 2.5, 2.99, Side.SELL), buffer, 0);
+        long total = 0;
+        for( int i = 0; i < 10_000; i++){
+            total += readFields();
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for( int i = 0; i < 10_000; i++){
+            total += readFields();
+        }
+        final long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+        // allow for getThreadAllocatedBytes itself
+        assertTrue("Allocated " + allocated + " bytes", allocated < 1024);
+        assertEquals(20_000 * (299 + 25 + 1), total);
+    }
+
+    private long readFields(){
+        message.wrap(buffer, 0);
+        return message.getPriceTicks() + message.getQuantityTicks() + (message.getSide() == Side.SELL ? 1 : 0)
+                + (message.orderIdEquals("order-1") ? 0 : 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void idTooLongRejected() {
+        OrderMessage.encode(new Order("0123456789abcdef0123456789abcdefX", "user1", 1.0, 3.0, Side.BUY), buffer, 0);
+    }
+
+    @Test
+    public void malformedIdLengthsRejected() {
+        OrderMessage.encode(new Order("1", "user1", 1.0, 3.0, Side.BUY), buffer, 0);
+        // orderIdLength, then userIdLength, past MAX_ID_LENGTH or with the sign bit set
+        for( int lengthOffset = 2; lengthOffset <= 3; lengthOffset++){
+            final byte valid = buffer.get(lengthOffset);
+            for( byte length : new byte[]{ OrderMessage.MAX_ID_LENGTH + 1, (byte) 0x80, (byte) 0xFF}){
+                buffer.put(lengthOffset, length);
+                try {
+                    message.wrap(buffer, 0);
+                    fail("Expected id length " + length + " at " + lengthOffset + " to be rejected");
+                }
+                catch (IllegalArgumentException e) {
+                    assertTrue(e.getMessage().startsWith("Invalid id length"));
+                }
+            }
+            buffer.put(lengthOffset, valid);
+        }
+        assertEquals("1", message.wrap(buffer, 0).getOrderId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bigEndianBufferRejected() {
+        OrderMessage.encode(new Order("1", "user1", 1.0, 3.0, Side.BUY), ByteBuffer.allocate(OrderMessage.ENCODED_LENGTH), 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void messagePastLimitRejected() {
+        OrderMessage.encode(new Order("1", "user1", 1.0, 3.0, Side.BUY), buffer, buffer.limit() - OrderMessage.ENCODED_LENGTH + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrapOfOtherMessageTypeRejected() {
+        CancelMessage.encode("1", buffer, 0);
+        message.wrap(buffer, 0);
+    }
+}
@@ -0,0 +1,136 @@
+package com.silverbars.orderbook.impl;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsyncLogTest {
+    private final static long TIMEOUT_MILLIS = 5000;
+
+    private final Logger logger = Logger.getLogger(AsyncLogTest.class.getName() + ".target");
+    private final CapturingAppender appender = new CapturingAppender();
+
+    @Before
+    public void setUp() {
+        logger.addAppender(appender);
+        logger.setAdditivity(false);
+        logger.setLevel(Level.INFO);
+    }
+
+    @After
+    public void tearDown() {
+        logger.removeAppender(appender);
+    }
+
+    @Test
+    public void formatsAndWritesOnLoggingThread() throws Exception {
+        final AsyncLog asyncLog = new AsyncLog(4, "test-log");
+        assertTrue(asyncLog.log(logger, Level.ERROR, "Rejected {} for {}", "order1", "user1"));
+        assertTrue(asyncLog.awaitWritten(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        assertEquals(Arrays.asList("Rejected order1 for user1"), appender.getMessages());
+        assertEquals(Arrays.asList("test-log"), appender.threads);
+        assertEquals(0, asyncLog.getQueued());
+    }
+
+    @Test
+    public void reportsCallerLocationAndThread() throws Exception {
+        final AsyncLog asyncLog = new AsyncLog(4, "test-log");
+        assertTrue(asyncLog.log(logger, Level.ERROR, "Rejected {}", "order1", null));
+        assertTrue(asyncLog.awaitWritten(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        final LoggingEvent event = appender.events.get(0);
+        assertEquals(AsyncLogTest.class.getName(), event.getLocationInformation().getClassName());
+        assertEquals("reportsCallerLocationAndThread", event.getLocationInformation().getMethodName());
+        assertEquals(Thread.currentThread().getName(), event.getThreadName());
+    }
+
+    @Test
+    public void disabledLevelNotQueued() throws Exception {
+        final AsyncLog asyncLog = new AsyncLog(4, "test-log");
+        assertFalse(asyncLog.log(logger, Level.DEBUG, "Ignored {}", "order1", null));
+        assertEquals(0, asyncLog.getQueued());
+    }
+
+    @Test
+    public void dropsWhenFullRatherThanBlocking() throws Exception {
+        final AsyncLog asyncLog = new AsyncLog(2, "test-log");
+        appender.block = new CountDownLatch(1);
+        assertTrue(asyncLog.log(logger, Level.ERROR, "event {}", 1, null));
+        assertTrue(appender.entered.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        assertTrue(asyncLog.log(logger, Level.ERROR, "event {}", 2, null));
+        assertTrue(asyncLog.log(logger, Level.ERROR, "event {}", 3, null));
+        assertFalse(asyncLog.log(logger, Level.ERROR, "event {}", 4, null));
+
+        appender.block.countDown();
+        assertTrue(asyncLog.awaitWritten(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(Arrays.asList("event 1", "event 2", "event 3"), appender.getMessages());
+    }
+
+    @Test
+    public void format() {
+        assertEquals("a 1 b 2", AsyncLog.format("a {} b {}", 1, 2));
+        assertEquals("a 1", AsyncLog.format("a {}", 1, null));
+        assertEquals("no args", AsyncLog.format("no args", 1, 2));
+        // only two arguments are supported, further markers are left as they are
+        assertEquals("a null 2 {}", AsyncLog.format("a {} {} {}", null, 2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBePowerOfTwo() {
+        new AsyncLog(3, "test-log");
+    }
+
+    private static class CapturingAppender extends AppenderSkeleton {
+        final List<String> messages = new ArrayList<>();
+        final List<String> threads = new ArrayList<>();
+        final List<LoggingEvent> events = new ArrayList<>();
+        final CountDownLatch entered = new CountDownLatch(1);
+        volatile CountDownLatch block;
+
+        @Override
+        protected void append(final LoggingEvent event) {
+            entered.countDown();
+            final CountDownLatch latch = block;
+            if( latch != null){
+                try {
+                    latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (this){
+                messages.add(event.getRenderedMessage());
+                threads.add(Thread.currentThread().getName());
+                events.add(event);
+            }
+        }
+
+        synchronized List<String> getMessages() {
+            return new ArrayList<>(messages);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+}
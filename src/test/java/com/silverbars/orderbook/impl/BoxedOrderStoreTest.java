@@ -0,0 +1,79 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.Side;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BoxedOrderStoreTest {
+    private final static Order order1 = new Order("1", "user1", 2.5, 2.99, Side.SELL);
+
+    private Map<String, Order> orders;
+    private BoxedOrderStore orderStore;
+
+    @Before
+    public void setUp() throws Exception {
+        orders = new HashMap<>();
+        orderStore = new BoxedOrderStore(orders);
+        orderStore.add(order1);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructorRequiresOrders() {
+        new BoxedOrderStore(null);
+    }
+
+    @Test
+    public void add() {
+        assertTrue(orderStore.contains("1"));
+        assertEquals(order1, orders.get("1"));
+        assertEquals(1, orderStore.size());
+    }
+
+    @Test
+    public void remove() {
+        final OrderRecord record = new OrderRecord();
+        assertTrue(orderStore.remove("1", record));
+        assertEquals("user1", record.userId);
+        assertEquals(299, record.priceTicks);
+        assertEquals(25, record.quantityTicks);
+        assertTrue(orders.isEmpty());
+        assertFalse(orderStore.remove("1", record));
+    }
+
+    @Test
+    public void forEachVisitsRestingOrders() {
+        final List<String> visited = new ArrayList<>();
+        orderStore.forEach(new OrderRecord(), order -> visited.add(order.orderId + ":" + order.userId + ":" + order.priceTicks + ":" + order.quantityTicks));
+        assertEquals(Arrays.asList("1:user1:299:25"), visited);
+    }
+
+    @Test
+    public void get() {
+        final OrderRecord record = new OrderRecord();
+        assertTrue(orderStore.get("1", record));
+        assertEquals("user1", record.userId);
+        assertEquals(299, record.priceTicks);
+        assertEquals(25, record.quantityTicks);
+        assertTrue(orderStore.contains("1"));
+        assertFalse(orderStore.get("2", record));
+    }
+
+    @Test
+    public void getOrderIds() {
+        final Order order2 = new Order("2", "user1", 1.0, 3.10, Side.SELL);
+        orderStore.add(order2);
+        assertEquals(Arrays.asList("1", "2"), orderStore.getOrderIds("user1"));
+        orderStore.remove("1", new OrderRecord());
+        assertEquals(Arrays.asList("2"), orderStore.getOrderIds("user1"));
+        assertTrue(orderStore.getOrderIds("user2").isEmpty());
+    }
+}
@@ -0,0 +1,102 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Side;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ConflatingLevelBufferTest {
+    private final static int CAPACITY = 4;
+
+    private final Side[] sides = new Side[CAPACITY];
+    private final long[] priceTicks = new long[CAPACITY];
+    private final long[] quantityTicks = new long[CAPACITY];
+
+    private ConflatingLevelBuffer buffer;
+
+    @Before
+    public void setUp() {
+        buffer = new ConflatingLevelBuffer(CAPACITY);
+    }
+
+    @Test
+    public void drainsInOrderOfFirstChange() {
+        assertTrue(buffer.offer(Side.SELL, 299, 25));
+        assertFalse(buffer.offer(Side.SELL, 295, 42));
+        assertFalse(buffer.offer(Side.BUY, 299, 10));
+
+        assertEquals(3, buffer.drainTo(sides, priceTicks, quantityTicks));
+        assertDrained(0, Side.SELL, 299, 25);
+        assertDrained(1, Side.SELL, 295, 42);
+        assertDrained(2, Side.BUY, 299, 10);
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.drainTo(sides, priceTicks, quantityTicks));
+    }
+
+    @Test
+    public void conflatesChangesToTheSameLevel() {
+        buffer.offer(Side.SELL, 299, 25);
+        buffer.offer(Side.SELL, 295, 42);
+        assertFalse(buffer.offer(Side.SELL, 299, 37));
+        assertFalse(buffer.offer(Side.SELL, 299, 0));
+
+        assertEquals(2, buffer.drainTo(sides, priceTicks, quantityTicks));
+        assertDrained(0, Side.SELL, 299, 0);
+        assertDrained(1, Side.SELL, 295, 42);
+    }
+
+    @Test
+    public void wakesConsumerOnceEmptyAgain() {
+        assertTrue(buffer.offer(Side.SELL, 299, 25));
+        buffer.drainTo(sides, priceTicks, quantityTicks);
+        assertTrue(buffer.offer(Side.SELL, 299, 37));
+        assertEquals(1, buffer.drainTo(sides, priceTicks, quantityTicks));
+        assertDrained(0, Side.SELL, 299, 37);
+    }
+
+    @Test
+    public void overflowDiscardsPendingChanges() {
+        for( int i = 0; i < CAPACITY; i++){
+            buffer.offer(Side.SELL, 100 + i, 10);
+        }
+        assertFalse(buffer.takeOverflow());
+        // conflating a pending level does not overflow
+        assertFalse(buffer.offer(Side.SELL, 100, 20));
+        assertTrue(buffer.offer(Side.SELL, 200, 10));
+
+        assertTrue(buffer.takeOverflow());
+        assertFalse(buffer.takeOverflow());
+        assertEquals(0, buffer.drainTo(sides, priceTicks, quantityTicks));
+
+        // the buffer is usable again once the overflow is taken
+        buffer.offer(Side.SELL, 100, 30);
+        assertEquals(1, buffer.drainTo(sides, priceTicks, quantityTicks));
+        assertDrained(0, Side.SELL, 100, 30);
+    }
+
+    @Test
+    public void reusesIndexAfterDrain() {
+        for( int round = 0; round < 100; round++){
+            for( int i = 0; i < CAPACITY; i++){
+                buffer.offer(i % 2 == 0 ? Side.SELL : Side.BUY, round * 7 + i, round + i);
+            }
+            assertEquals(CAPACITY, buffer.drainTo(sides, priceTicks, quantityTicks));
+            for( int i = 0; i < CAPACITY; i++){
+                assertDrained(i, i % 2 == 0 ? Side.SELL : Side.BUY, round * 7 + i, round + i);
+            }
+        }
+        assertFalse(buffer.takeOverflow());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorRequiresPositiveCapacity() {
+        new ConflatingLevelBuffer(0);
+    }
+
+    private void assertDrained(final int index, final Side side, final long price, final long quantity){
+        assertEquals(side, sides[index]);
+        assertEquals(price, priceTicks[index]);
+        assertEquals(quantity, quantityTicks[index]);
+    }
+}
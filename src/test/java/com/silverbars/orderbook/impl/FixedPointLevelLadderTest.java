@@ -0,0 +1,124 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.DepthSnapshot;
+import com.silverbars.orderbook.PriceLevel;
+import com.silverbars.orderbook.Side;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FixedPointLevelLadderTest {
+    private final SummaryLineEncoder encoder = new SummaryLineEncoder();
+
+    @Test
+    public void sellSideAscending() {
+        final FixedPointLevelLadder ladder = createLadder(Side.SELL, 299, 310, 295);
+        assertEquals(Arrays.asList("1.0 kg for £2.95", "1.0 kg for £2.99", "1.0 kg for £3.10"), ladder.toSummary(encoder));
+        assertEquals(1, ladder.indexOf(299));
+        assertEquals(-1, ladder.indexOf(100));
+    }
+
+    @Test
+    public void buySideDescending() {
+        final FixedPointLevelLadder ladder = createLadder(Side.BUY, 299, 310, 295);
+        assertEquals(Arrays.asList("1.0 kg for £3.10", "1.0 kg for £2.99", "1.0 kg for £2.95"), ladder.toSummary(encoder));
+        assertEquals(1, ladder.indexOf(299));
+        assertEquals(-1, ladder.indexOf(400));
+    }
+
+    @Test
+    public void remove() {
+        final FixedPointLevelLadder ladder = createLadder(Side.SELL, 299, 310, 295);
+        ladder.remove(ladder.indexOf(299));
+        assertEquals(Arrays.asList("1.0 kg for £2.95", "1.0 kg for £3.10"), ladder.toSummary(encoder));
+        assertEquals(2, ladder.size());
+        assertTrue(ladder.indexOf(299) < 0);
+    }
+
+    @Test
+    public void removedLevelReused() {
+        final FixedPointLevelLadder ladder = createLadder(Side.SELL, 299, 310, 295);
+        final FixedPointOrderLevel removed = ladder.get(ladder.indexOf(299));
+        ladder.remove(ladder.indexOf(299));
+
+        final FixedPointOrderLevel inserted = ladder.insert(-(ladder.indexOf(305) + 1), 305);
+        assertSame(removed, inserted);
+        assertEquals(305, inserted.getPriceTicks());
+        assertEquals(0, inserted.getQuantityTicks());
+        assertEquals(1, ladder.indexOf(305));
+
+        // no removed level left to reuse
+        assertNotSame(removed, ladder.insert(-(ladder.indexOf(400) + 1), 400));
+    }
+
+    @Test
+    public void clearedLineReencoded() {
+        final FixedPointLevelLadder ladder = createLadder(Side.SELL, 299, 310);
+        final List<String> summary = ladder.toSummary(encoder);
+        assertSame(summary.get(1), ladder.toSummary(encoder).get(1));
+
+        ladder.get(0).addQuantity(15);
+        ladder.clearLine(0);
+        final List<String> changed = ladder.toSummary(encoder);
+        assertEquals(Arrays.asList("2.5 kg for £2.99", "1.0 kg for £3.10"), changed);
+        // only the cleared line is encoded again
+        assertSame(summary.get(1), changed.get(1));
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        final FixedPointLevelLadder ladder = new FixedPointLevelLadder(Side.SELL);
+        for( int price = 100; price > 0; price--){
+            insert(ladder, price);
+        }
+        assertEquals(100, ladder.size());
+        assertEquals(1, ladder.get(0).getPriceTicks());
+        assertEquals(100, ladder.get(99).getPriceTicks());
+    }
+
+    @Test
+    public void getTopLevels() {
+        final List<PriceLevel> levels = createLadder(Side.BUY, 299, 310, 295).getLevels(2);
+        assertEquals(2, levels.size());
+        assertEquals(OrderLevel.getPriceFromTicks(310), levels.get(0).getPrice());
+        assertEquals(OrderLevel.getPriceFromTicks(299), levels.get(1).getPrice());
+    }
+
+    @Test
+    public void getDepth() {
+        final DepthSnapshot depth = createLadder(Side.BUY, 299, 310, 295).getDepth(2);
+        assertEquals(Side.BUY, depth.getSide());
+        assertEquals(2, depth.size());
+        assertEquals(310, depth.getPriceTicks(0));
+        assertEquals(299, depth.getPriceTicks(1));
+        assertEquals(3, createLadder(Side.SELL, 299, 310, 295).getDepth(10).size());
+    }
+
+    @Test
+    public void getLevelsInPriceRange() {
+        List<PriceLevel> levels = createLadder(Side.SELL, 299, 310, 295).getLevels(296, 310);
+        assertEquals(2, levels.size());
+        assertEquals(OrderLevel.getPriceFromTicks(299), levels.get(0).getPrice());
+        assertEquals(OrderLevel.getPriceFromTicks(310), levels.get(1).getPrice());
+
+        levels = createLadder(Side.BUY, 299, 310, 295).getLevels(295, 309);
+        assertEquals(2, levels.size());
+        assertEquals(OrderLevel.getPriceFromTicks(299), levels.get(0).getPrice());
+        assertEquals(OrderLevel.getPriceFromTicks(295), levels.get(1).getPrice());
+    }
+
+    private static FixedPointLevelLadder createLadder(final Side side, final long... prices){
+        final FixedPointLevelLadder ladder = new FixedPointLevelLadder(side);
+        for( long price : prices){
+            insert(ladder, price);
+        }
+        return ladder;
+    }
+
+    private static void insert(final FixedPointLevelLadder ladder, final long price){
+        ladder.insert(-(ladder.indexOf(price) + 1), price).addQuantity(10);
+    }
+}
@@ -0,0 +1,468 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.DepthSnapshot;
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.PriceLevel;
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.metrics.OrderBookMetrics;
+import com.silverbars.orderbook.metrics.OrderBookOperation;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class FixedPointOrderBookSideTest {
+    private final static Order order1 = new Order("1", "userId1", 2.5, 2.99, Side.SELL);
+    private final static Order order2 = new Order("2", "userId2", 4.2, 2.95, Side.SELL);
+    private final static Order order3 = new Order("3", "userId2", 1.2, 2.99, Side.SELL);
+
+    private Map<String, Order> orders;
+
+    private FixedPointOrderBookSide orderBookSide;
+
+    @Before
+    public void setUp() throws Exception {
+        orders = new HashMap<>();
+        orderBookSide = new FixedPointOrderBookSide(Side.SELL, new BoxedOrderStore(orders));
+        orderBookSide.addOrder(order1);
+        orderBookSide.addOrder(order2);
+        orderBookSide.addOrder(order3);
+    }
+
+    @Test
+    public void getSide() {
+        assertEquals(Side.SELL, orderBookSide.getSide());
+        assertEquals(Side.BUY, new FixedPointOrderBookSide(Side.BUY).getSide());
+    }
+
+    @Test
+    public void addingMultipleOrders() {
+        assertEquals(3, orders.size());
+        final List<String> summary = orderBookSide.getSummary();
+        assertEquals(2, summary.size());
+        assertEquals("4.2 kg for £2.95", summary.get(0));
+        assertEquals("3.7 kg for £2.99", summary.get(1));
+    }
+
+    @Test(expected = OrderBookException.class)
+    public void addPreviouslySubmittedOrder() throws Exception {
+        orderBookSide.addOrder(order1);
+    }
+
+    @Test
+    public void cancelOrder() throws Exception {
+        orderBookSide.cancelOrder(order3);
+        assertEquals(2, orders.size());
+        final List<String> summary = orderBookSide.getSummary();
+        assertEquals(2, summary.size());
+        assertEquals("4.2 kg for £2.95", summary.get(0));
+        assertEquals("2.5 kg for £2.99", summary.get(1));
+    }
+
+    @Test(expected = OrderBookException.class)
+    public void cancelUnknownOrder() throws Exception {
+        orderBookSide.cancelOrder( new Order("XXX", "user", 1.2, 3.5, Side.SELL) );
+    }
+
+    @Test
+    public void cancelAllOrders() throws Exception{
+        orderBookSide.cancelOrder( order1 );
+        orderBookSide.cancelOrder( order2 );
+        orderBookSide.cancelOrder( order3 );
+
+        assertEquals(0, orders.size());
+        assertEquals(0, orderBookSide.getSummary().size());
+        assertFalse(orderBookSide.getBestLevel().isPresent());
+    }
+
+    @Test
+    public void priceDescendsForBuyOrderSummary() throws Exception{
+        final OrderBookSide orderBookSide = new FixedPointOrderBookSide(Side.BUY);
+        orderBookSide.addOrder( new Order("10", "user1", 4.5, 2.8, Side.BUY));
+        orderBookSide.addOrder( new Order("11", "user2", 7.1, 3.1, Side.BUY));
+        orderBookSide.addOrder( new Order("12", "user2", 5.1, 2.99, Side.BUY));
+
+        final List<String> summary = orderBookSide.getSummary();
+        assertEquals(3, summary.size());
+        assertEquals("7.1 kg for £3.10", summary.get(0));
+        assertEquals("5.1 kg for £2.99", summary.get(1));
+        assertEquals("4.5 kg for £2.80", summary.get(2));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void cannotModifySummary() {
+        orderBookSide.getSummary().add("Cannot do this");
+    }
+
+    @Test
+    public void getBestLevel() {
+        assertEquals(new PriceLevel(new BigDecimal("2.95"), new BigDecimal("4.2")), orderBookSide.getBestLevel().get());
+    }
+
+    @Test
+    public void getLevels() {
+        assertEquals(1, orderBookSide.getLevels(1).size());
+        assertEquals(2, orderBookSide.getLevels(5).size());
+        final List<PriceLevel> levels = orderBookSide.getLevels(new BigDecimal("2.955"), new BigDecimal("3"));
+        assertEquals(1, levels.size());
+        assertEquals(new PriceLevel(new BigDecimal("2.99"), new BigDecimal("3.7")), levels.get(0));
+    }
+
+    @Test
+    public void getDepth() {
+        final DepthSnapshot depth = orderBookSide.getDepth();
+        assertEquals(2, depth.size());
+        assertEquals(295, depth.getPriceTicks(0));
+        assertEquals(42, depth.getQuantityTicks(0));
+        assertEquals(299, depth.getPriceTicks(1));
+        assertEquals(37, depth.getQuantityTicks(1));
+        final SummaryLineEncoder encoder = new SummaryLineEncoder();
+        assertEquals(orderBookSide.getSummary(), IntStream.range(0, depth.size())
+                .mapToObj(i -> encoder.encode(depth.getQuantityTicks(i), depth.getPriceTicks(i))).collect(Collectors.toList()));
+        assertEquals(1, orderBookSide.getDepth(1).size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void matchUnsupported() {
+        orderBookSide.match(new Order("10", "user9", 5.0, 2.99, Side.BUY), new ArrayList<>());
+    }
+
+    @Test
+    public void tryAddAndCancelReturnResults() {
+        assertEquals(OrderResult.DUPLICATE_ORDER, orderBookSide.tryAddOrder(order1));
+        assertEquals(OrderResult.UNKNOWN_ORDER, orderBookSide.tryCancelOrder(new Order("XXX", "user", 1.2, 3.5, Side.SELL)));
+        assertEquals(3, orders.size());
+
+        assertEquals(OrderResult.CANCELLED, orderBookSide.tryCancelOrder(order1));
+        assertEquals(OrderResult.ADDED, orderBookSide.tryAddOrder(new Order("4", "userId4", 1.0, 2.99, Side.SELL)));
+        assertEquals(Arrays.asList("4.2 kg for £2.95", "2.2 kg for £2.99"), orderBookSide.getSummary());
+    }
+
+    @Test
+    public void unknownOrderIdHasNoStackTrace() {
+        try {
+            orderBookSide.cancelOrder("XXX");
+            fail("Expected unknown order to be rejected");
+        }
+        catch (OrderBookException e) {
+            assertEquals(0, e.getStackTrace().length);
+            assertEquals("Order could not be found, or was previously cancelled: XXX", e.getMessage());
+        }
+    }
+
+    @Test
+    public void levelAndOrderCounts() throws Exception{
+        assertEquals(2, orderBookSide.getLevelCount());
+        assertEquals(3, orderBookSide.getOrderCount());
+        orderBookSide.cancelOrder(order2);
+        assertEquals(1, orderBookSide.getLevelCount());
+        assertEquals(2, orderBookSide.getOrderCount());
+    }
+
+    @Test
+    public void metricsRecordWriteLockWaitAndSummaryRebuild() throws Exception{
+        final OrderBookMetrics metrics = mock(OrderBookMetrics.class);
+        orderBookSide.setMetrics(metrics);
+
+        orderBookSide.addOrders(Arrays.asList(new Order("4", "userId4", 1.0, 3.10, Side.SELL), new Order("5", "userId4", 1.0, 3.20, Side.SELL)));
+
+        verify(metrics).recordWriteLockWait(anyLong());
+        verify(metrics).recordLatency(eq(OrderBookOperation.REBUILD_SUMMARY), anyLong());
+        verifyNoMoreInteractions(metrics);
+    }
+
+    @Test
+    public void cancelOrderById() throws Exception{
+        for( OrderStorage orderStorage : OrderStorage.values()){
+            final FixedPointOrderBookSide side = new FixedPointOrderBookSide(Side.SELL, orderStorage);
+            side.addOrders(Arrays.asList(order1, order2, order3));
+
+            final Order cancelled = side.cancelOrder("3");
+
+            assertEquals(order3, cancelled);
+            assertEquals(order3.getUserId(), cancelled.getUserId());
+            assertEquals(order3.getQuantityTicks(), cancelled.getQuantityTicks());
+            assertEquals(order3.getPriceTicks(), cancelled.getPriceTicks());
+            assertEquals(Side.SELL, cancelled.getSide());
+            assertEquals(Arrays.asList("4.2 kg for £2.95", "2.5 kg for £2.99"), side.getSummary());
+            assertFalse(side.containsOrder("3"));
+        }
+    }
+
+    @Test
+    public void cancelUnknownOrderById() throws Exception{
+        try {
+            orderBookSide.cancelOrder("XXX");
+            fail("Expected unknown order to be rejected");
+        }
+        catch (OrderBookException e) {
+            assertEquals(OrderResult.UNKNOWN_ORDER, e.getResult());
+        }
+        assertEquals(3, orders.size());
+    }
+
+    @Test
+    public void cancelAllForUser() throws Exception{
+        for( OrderStorage orderStorage : OrderStorage.values()){
+            final FixedPointOrderBookSide side = new FixedPointOrderBookSide(Side.SELL, orderStorage);
+            side.addOrders(Arrays.asList(order1, order2, order3));
+            assertEquals(Arrays.asList(order2, order3), side.getOrdersForUser("userId2"));
+            assertEquals(order2.getQuantityTicks(), side.getOrdersForUser("userId2").get(0).getQuantityTicks());
+
+            final List<Order> cancelled = side.cancelAllForUser("userId2");
+
+            assertEquals(Arrays.asList(order2, order3), cancelled);
+            assertEquals(order3.getQuantityTicks(), cancelled.get(1).getQuantityTicks());
+            assertEquals(Arrays.asList("2.5 kg for £2.99"), side.getSummary());
+            assertTrue(side.getOrdersForUser("userId2").isEmpty());
+            assertTrue(side.cancelAllForUser("userId2").isEmpty());
+            side.cancelOrder(order1);
+            assertTrue(side.getOrdersForUser("userId1").isEmpty());
+        }
+    }
+
+    @Test
+    public void containsOrder() throws Exception{
+        assertTrue(orderBookSide.containsOrder("1"));
+        orderBookSide.cancelOrder(order1);
+        assertFalse(orderBookSide.containsOrder("1"));
+    }
+
+    @Test
+    public void levelChangesPassedToSink() throws Exception{
+        final LevelChangeSink sink = mock(LevelChangeSink.class);
+        orderBookSide.setLevelChangeSink(sink);
+        orderBookSide.addOrders(Arrays.asList(new Order("4", "user3", 1.0, 2.99, Side.SELL), new Order("5", "user3", 1.0, 3.10, Side.SELL)));
+        orderBookSide.cancelOrder(order2);
+        // rejected orders change no level
+        orderBookSide.addOrders(Arrays.asList(order1));
+
+        final InOrder inOrder = inOrder(sink);
+        inOrder.verify(sink).onLevelChange(Side.SELL, 299, 47);
+        inOrder.verify(sink).onLevelChange(Side.SELL, 310, 10);
+        inOrder.verify(sink).onLevelChange(Side.SELL, 295, 0);
+        verifyNoMoreInteractions(sink);
+
+        orderBookSide.setLevelChangeSink(null);
+        orderBookSide.cancelOrder(order1);
+        verifyNoMoreInteractions(sink);
+    }
+
+    @Test
+    public void getOrders() throws Exception{
+        for( OrderStorage orderStorage : OrderStorage.values()){
+            final FixedPointOrderBookSide side = new FixedPointOrderBookSide(Side.SELL, orderStorage);
+            side.addOrders(Arrays.asList(order1, order2, order3));
+            side.cancelOrder(order1);
+            final List<Order> resting = side.getOrders();
+            assertEquals(2, resting.size());
+            assertTrue(resting.containsAll(Arrays.asList(order2, order3)));
+            final Order restingOrder2 = resting.get(resting.indexOf(order2));
+            assertEquals(order2.getUserId(), restingOrder2.getUserId());
+            assertEquals(order2.getPriceTicks(), restingOrder2.getPriceTicks());
+            assertEquals(order2.getQuantityTicks(), restingOrder2.getQuantityTicks());
+            assertEquals(Side.SELL, restingOrder2.getSide());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getDepthInvalidMaxLevels() {
+        orderBookSide.getDepth(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getTopLevelsInvalidMaxLevels() {
+        orderBookSide.getLevels(-1);
+    }
+
+    @Test
+    public void primitiveOrderStorage() throws Exception{
+        final OrderBookSide orderBookSide = new FixedPointOrderBookSide(Side.SELL, OrderStorage.PRIMITIVE);
+        orderBookSide.addOrder(order1);
+        orderBookSide.addOrder(order2);
+        orderBookSide.addOrder(order3);
+        orderBookSide.cancelOrder(order3);
+
+        final List<String> summary = orderBookSide.getSummary();
+        assertEquals(2, summary.size());
+        assertEquals("4.2 kg for £2.95", summary.get(0));
+        assertEquals("2.5 kg for £2.99", summary.get(1));
+    }
+
+    @Test
+    public void lazySummaryBuiltOnRead() throws Exception{
+        for( OrderStorage orderStorage : OrderStorage.values()){
+            final FixedPointOrderBookSide side = new FixedPointOrderBookSide(Side.SELL, orderStorage, 16, SummaryStrategy.LAZY);
+            assertEquals(SummaryStrategy.LAZY, side.getSummaryStrategy());
+            side.addOrder(order1);
+            side.addOrder(order2);
+            final List<String> summary = side.getSummary();
+            assertEquals(Arrays.asList("4.2 kg for £2.95", "2.5 kg for £2.99"), summary);
+            // unchanged book returns the same summary without rebuilding
+            assertSame(summary, side.getSummary());
+
+            side.cancelOrder(order2);
+            side.addOrder(order3);
+            assertEquals(Arrays.asList("3.7 kg for £2.99"), side.getSummary());
+        }
+    }
+
+    @Test
+    public void coalescedSummaryRebuiltAtMostOncePerInterval() throws Exception{
+        final long[] now = {0};
+        final FixedPointOrderBookSide side = new FixedPointOrderBookSide(Side.SELL, new PrimitiveOrderStore(16),
+                SummaryStrategy.coalesced(10, TimeUnit.MILLISECONDS));
+        side.setNanoClock(() -> now[0]);
+
+        side.addOrder(order1);
+        assertEquals(Arrays.asList("2.5 kg for £2.99"), side.getSummary());
+
+        now[0] += TimeUnit.MILLISECONDS.toNanos(5);
+        side.addOrder(order2);
+        // within the interval the previous summary is returned
+        assertEquals(Arrays.asList("2.5 kg for £2.99"), side.getSummary());
+
+        now[0] += TimeUnit.MILLISECONDS.toNanos(5);
+        assertEquals(Arrays.asList("4.2 kg for £2.95", "2.5 kg for £2.99"), side.getSummary());
+    }
+
+    @Test
+    public void steadyStateAddAndCancelDoesNotAllocate() throws Exception{
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled());
+
+        final FixedPointOrderBookSide side = new FixedPointOrderBookSide(Side.SELL, OrderStorage.PRIMITIVE, 1024, SummaryStrategy.LAZY);
+        final Order[] cycle = new Order[256];
+        for( int i = 0; i < cycle.length; i++){
+            // a few users and levels, so levels and users come and go as the orders are added and cancelled
+            cycle[i] = Order.fromTicks("order" + i, "user" + (i % 7), 10 + i, 290 + (i % 13), Side.SELL);
+        }
+        // resting orders on other levels
+        side.addOrder(order1);
+        side.addOrder(order2);
+        // warm up, growing the arrays to their steady-state size
+        for( int i = 0; i < 20; i++){
+            addAndCancel(side, cycle);
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        final long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for( int i = 0; i < 100; i++){
+            addAndCancel(side, cycle);
+        }
+        final long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+        // allow for getThreadAllocatedBytes itself
+        assertTrue("Allocated " + allocated + " bytes", allocated < 1024);
+        assertEquals(Arrays.asList("4.2 kg for £2.95", "2.5 kg for £2.99"), side.getSummary());
+    }
+
+    private static void addAndCancel(final OrderBookSide side, final Order[] orders){
+        for( Order order : orders){
+            assertEquals(OrderResult.ADDED, side.tryAddOrder(order));
+        }
+        for( Order order : orders){
+            assertEquals(OrderResult.CANCELLED, side.tryCancelOrder(order));
+        }
+    }
+
+    @Test
+    public void cancelWithNoLevelLeavesOrderStored() {
+        // an order in the store with no level for its price
+        final Order orphan = new Order("X", "user", 1.0, 3.50, Side.SELL);
+        orders.put("X", orphan);
+        assertEquals(OrderResult.REJECTED, orderBookSide.tryCancelOrder(orphan));
+        assertSame(orphan, orders.get("X"));
+        assertTrue(orderBookSide.containsOrder("X"));
+        assertEquals(Arrays.asList("4.2 kg for £2.95", "3.7 kg for £2.99"), orderBookSide.getSummary());
+    }
+
+    @Test
+    public void offHeapRejectsIdsTooLongForRecord() throws Exception{
+        final FixedPointOrderBookSide side = new FixedPointOrderBookSide(Side.SELL, OrderStorage.OFF_HEAP);
+        final char[] longId = new char[OffHeapOrderStore.MAX_ID_LENGTH + 1];
+        Arrays.fill(longId, 'x');
+        final Order longOrder = new Order(new String(longId), "user1", 1.0, 2.99, Side.SELL);
+        assertEquals(OrderResult.UNSUPPORTED_ORDER, side.tryAddOrder(longOrder));
+        try {
+            side.addOrder(longOrder);
+            fail("Expected order with a long id to be rejected");
+        }
+        catch (OrderBookException e) {
+            assertEquals(OrderResult.UNSUPPORTED_ORDER, e.getResult());
+            assertEquals("Order cannot be held by the OrderBook: " + longOrder, e.getMessage());
+        }
+        assertEquals(OrderResult.ADDED, side.tryAddOrder(order1));
+        assertEquals(Arrays.asList("2.5 kg for £2.99"), side.getSummary());
+        assertEquals(1, side.getOrderCount());
+    }
+
+    @Test
+    public void bestLevelSnapshotRebuiltOnlyAfterBestLevelChanges() throws Exception{
+        final Optional<PriceLevel> best = orderBookSide.getBestLevel();
+        assertSame(best, orderBookSide.getBestLevel());
+        // a change to another level keeps the snapshot
+        orderBookSide.addOrder(new Order("4", "user3", 1.0, 3.10, Side.SELL));
+        orderBookSide.cancelOrder(order3);
+        assertSame(best, orderBookSide.getBestLevel());
+
+        orderBookSide.addOrder(new Order("5", "user3", 1.0, 2.95, Side.SELL));
+        assertEquals(new PriceLevel(new BigDecimal("2.95"), new BigDecimal("5.2")), orderBookSide.getBestLevel().get());
+        orderBookSide.addOrder(new Order("6", "user3", 1.0, 2.90, Side.SELL));
+        assertEquals(new PriceLevel(new BigDecimal("2.90"), new BigDecimal("1.0")), orderBookSide.getBestLevel().get());
+
+        // removing the best level finds the next best
+        orderBookSide.cancelOrder("6");
+        assertEquals(new PriceLevel(new BigDecimal("2.95"), new BigDecimal("5.2")), orderBookSide.getBestLevel().get());
+        orderBookSide.cancelAllForUser("userId2");
+        orderBookSide.cancelAllForUser("user3");
+        assertEquals(new PriceLevel(new BigDecimal("2.99"), new BigDecimal("2.5")), orderBookSide.getBestLevel().get());
+        orderBookSide.cancelOrder(order1);
+        assertFalse(orderBookSide.getBestLevel().isPresent());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructorRequiresSummaryStrategy() {
+        new FixedPointOrderBookSide(Side.SELL, OrderStorage.PRIMITIVE, 16, null);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructorRequiresOrderStorage() {
+        new FixedPointOrderBookSide(Side.SELL, (OrderStorage) null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorRequiresPositiveExpectedOrders() {
+        new FixedPointOrderBookSide(Side.SELL, OrderStorage.PRIMITIVE, 0);
+    }
+
+    @Test
+    public void batchAddAndCancel() {
+        final Order order4 = new Order("4", "user1", 5.5, 2.95, Side.SELL);
+        assertEquals(Arrays.asList(OrderResult.ADDED, OrderResult.DUPLICATE_ORDER), orderBookSide.addOrders(Arrays.asList(order4, order1)));
+        assertEquals("9.7 kg for £2.95", orderBookSide.getSummary().get(0));
+
+        assertEquals(Arrays.asList(OrderResult.CANCELLED, OrderResult.UNKNOWN_ORDER, OrderResult.CANCELLED),
+                orderBookSide.cancelOrders(Arrays.asList(order2, order2, order4)));
+        assertEquals(Arrays.asList("3.7 kg for £2.99"), orderBookSide.getSummary());
+    }
+}
@@ -0,0 +1,91 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.Side;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FixedPointOrderLevelTest {
+    private final static double QUANTITY = 3.2;
+    private final static double PRICE = 2.5;
+    private final static long PRICE_TICKS = 250;
+
+    final Order order0 = new Order("0", "user1", QUANTITY, PRICE, Side.SELL);
+
+    private FixedPointOrderLevel orderLevel;
+
+    @Before
+    public void setUp() throws Exception {
+        orderLevel = new FixedPointOrderLevel(PRICE_TICKS);
+        orderLevel.addOrder(order0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPrice() {
+        new FixedPointOrderLevel(0);
+    }
+
+    @Test
+    public void getQuantity() {
+        assertEquals(OrderLevel.getQuantityAsBigDecimal(QUANTITY), orderLevel.getQuantity());
+        assertEquals(32, orderLevel.getQuantityTicks());
+    }
+
+    @Test
+    public void getPrice() {
+        assertEquals(OrderLevel.getPriceAsBigDecimal(PRICE), orderLevel.getPrice());
+        assertEquals(PRICE_TICKS, orderLevel.getPriceTicks());
+    }
+
+    @Test( expected = NullPointerException.class)
+    public void addOrderWithNullOrder() {
+        orderLevel.addOrder(null);
+    }
+
+    @Test( expected = IllegalArgumentException.class)
+    public void addOrderWithInvalidPrice(){
+        orderLevel.addOrder( new Order( "1", "user1", 1, 2.505, Side.SELL));
+    }
+
+    @Test
+    public void addOrder() {
+        orderLevel.addOrder(new Order("1", "user1", 2.1, PRICE, Side.SELL));
+        assertEquals(53, orderLevel.getQuantityTicks());
+    }
+
+    @Test
+    public void removeOrder() {
+        orderLevel.removeOrder(new Order("1", "user1", 2.1, PRICE, Side.SELL));
+        assertEquals(11, orderLevel.getQuantityTicks());
+    }
+
+    @Test
+    public void removeOrderWithEqualQuantity(){
+        orderLevel.removeOrder(new Order("1", "user1", QUANTITY, PRICE, Side.SELL));
+        assertEquals(0, orderLevel.getQuantityTicks());
+    }
+
+    @Test(expected = IllegalArgumentException.class )
+    public void removeOrderWithInvalidPrice(){
+        orderLevel.removeOrder( new Order("1", "user1", 2, 2.49, Side.SELL));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void removeOrderWIthTooHighQuantity(){
+        orderLevel.removeOrder( new Order("1", "user1", 3.3, PRICE, Side.SELL));
+    }
+
+    @Test
+    public void reset() {
+        orderLevel.reset(310);
+        assertEquals(310, orderLevel.getPriceTicks());
+        assertEquals(0, orderLevel.getQuantityTicks());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void resetInvalidPrice() {
+        orderLevel.reset(0);
+    }
+}
@@ -0,0 +1,183 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.LevelChange;
+import com.silverbars.orderbook.LevelChangeListener;
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.Side;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LevelChangeSubscriptionTest {
+    private final static long TIMEOUT_MILLIS = 5000;
+
+    private LiveOrderBook orderBook;
+    private LevelChangeSubscription subscription;
+
+    @Before
+    public void setUp() throws Exception {
+        orderBook = new LiveOrderBook(new OrderBookSideImpl(Side.SELL), new FixedPointOrderBookSide(Side.BUY));
+        orderBook.addOrder(new Order("1", "user1", 2.5, 2.99, Side.SELL));
+        orderBook.addOrder(new Order("2", "user1", 1.0, 2.90, Side.BUY));
+    }
+
+    @After
+    public void tearDown() {
+        if( subscription != null){
+            subscription.close();
+        }
+    }
+
+    @Test
+    public void receivesCurrentLevelsThenChanges() throws Exception {
+        final LevelTracker tracker = new LevelTracker();
+        subscription = orderBook.subscribe(tracker);
+        tracker.awaitLevel(Side.SELL, 299, 25);
+        tracker.awaitLevel(Side.BUY, 290, 10);
+
+        final Order order3 = new Order("3", "user2", 1.2, 2.99, Side.SELL);
+        orderBook.addOrder(order3);
+        tracker.awaitLevel(Side.SELL, 299, 37);
+
+        orderBook.cancelOrder(new Order("2", "user1", 1.0, 2.90, Side.BUY));
+        tracker.awaitLevel(Side.BUY, 290, 0);
+        assertTrue(tracker.removed.get() > 0);
+    }
+
+    @Test
+    public void slowListenerSeesLatestQuantity() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final LevelTracker tracker = new LevelTracker(){
+            @Override
+            public void onLevelChange(final LevelChange change) {
+                awaitQuietly(release);
+                super.onLevelChange(change);
+            }
+        };
+        subscription = orderBook.subscribe(tracker);
+        for( int i = 0; i < 100; i++){
+            orderBook.addOrder(new Order("sell" + i, "user2", 0.1, 2.99, Side.SELL));
+        }
+        release.countDown();
+        tracker.awaitLevel(Side.SELL, 299, 125);
+        // the first change may be in delivery while the listener is blocked, the rest are conflated
+        assertTrue(tracker.deliveries.get() < 10);
+    }
+
+    @Test
+    public void overflowResendsLevels() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch overflowed = new CountDownLatch(1);
+        final LevelTracker tracker = new LevelTracker(){
+            @Override
+            public void onLevelChange(final LevelChange change) {
+                awaitQuietly(release);
+                super.onLevelChange(change);
+            }
+
+            @Override
+            public void onOverflow() {
+                synchronized (this){
+                    levels.clear();
+                }
+                overflowed.countDown();
+            }
+        };
+        subscription = orderBook.subscribe(tracker, 2);
+        for( int i = 0; i < 10; i++){
+            orderBook.addOrder(new Order("sell" + i, "user2", 0.1, 3.00 + i / 100.0, Side.SELL));
+        }
+        release.countDown();
+        // the initial levels may already include every add, so wait for the overflow before the levels resent after it
+        assertTrue(overflowed.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        tracker.awaitLevel(Side.SELL, 309, 1);
+    }
+
+    @Test
+    public void closeStopsDelivery() throws Exception {
+        final LevelTracker tracker = new LevelTracker();
+        subscription = orderBook.subscribe(tracker);
+        tracker.awaitLevel(Side.SELL, 299, 25);
+        subscription.close();
+        assertTrue(subscription.isClosed());
+
+        orderBook.addOrder(new Order("3", "user2", 1.2, 2.99, Side.SELL));
+        Thread.sleep(50);
+        assertEquals(Long.valueOf(25), tracker.levels.get(key(Side.SELL, 299)));
+    }
+
+    @Test
+    public void listenerFailureDoesNotStopDelivery() throws Exception {
+        final LevelTracker tracker = new LevelTracker(){
+            @Override
+            public void onLevelChange(final LevelChange change) {
+                super.onLevelChange(change);
+                throw new IllegalStateException("listener failure");
+            }
+        };
+        subscription = orderBook.subscribe(tracker);
+        orderBook.addOrder(new Order("3", "user2", 1.2, 2.99, Side.SELL));
+        tracker.awaitLevel(Side.SELL, 299, 37);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void subscribeRequiresListener() {
+        orderBook.subscribe(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void subscribeRequiresPositiveCapacity() {
+        orderBook.subscribe(new LevelTracker(), 0);
+    }
+
+    private static String key(final Side side, final long priceTicks){
+        return side + ":" + priceTicks;
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch){
+        try {
+            latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class LevelTracker implements LevelChangeListener {
+        final Map<String, Long> levels = new HashMap<>();
+        final AtomicInteger deliveries = new AtomicInteger();
+        final AtomicInteger removed = new AtomicInteger();
+
+        @Override
+        public void onLevelChange(final LevelChange change) {
+            deliveries.incrementAndGet();
+            if( change.isRemoved()){
+                removed.incrementAndGet();
+            }
+            synchronized (this){
+                levels.put(key(change.getSide(), change.getPriceTicks()), change.getQuantityTicks());
+                notifyAll();
+            }
+        }
+
+        synchronized void awaitLevel(final Side side, final long priceTicks, final long quantityTicks) throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            final Long expected = quantityTicks;
+            while( !expected.equals(levels.get(key(side, priceTicks)))){
+                final long remaining = deadline - System.currentTimeMillis();
+                if( remaining <= 0){
+                    fail("Level " + key(side, priceTicks) + " never reached " + quantityTicks + ", levels " + levels);
+                }
+                wait(remaining);
+            }
+        }
+    }
+}
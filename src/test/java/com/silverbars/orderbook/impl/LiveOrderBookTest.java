@@ -2,7 +2,14 @@ package com.silverbars.orderbook.impl;
 
 import com.silverbars.orderbook.Order;
 import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.PriceLevel;
 import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.Trade;
+import com.silverbars.orderbook.TradeListener;
+import com.silverbars.orderbook.metrics.HistogramOrderBookMetrics;
+import com.silverbars.orderbook.metrics.OrderBookMetrics;
+import com.silverbars.orderbook.metrics.OrderBookOperation;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -10,6 +17,13 @@ import org.mockito.Mock;
 import org.mockito.internal.matchers.Null;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
@@ -85,6 +99,88 @@ public class LiveOrderBookTest {
     }
 
 
+    @Test
+    public void setMetricsPassedToSides() {
+        final OrderBookMetrics metrics = mock(OrderBookMetrics.class);
+        orderBook.setMetrics(metrics);
+        verify(sellSideBook).setMetrics(metrics);
+        verify(buysSideBook).setMetrics(metrics);
+    }
+
+    @Test
+    public void metricsRecordLatencyAndRejects() throws Exception {
+        final HistogramOrderBookMetrics metrics = new HistogramOrderBookMetrics();
+        orderBook.setMetrics(metrics);
+        doThrow(new OrderBookException(OrderResult.DUPLICATE_ORDER, "duplicate")).when(sellSideBook).addOrder(sellOrder);
+        when(buysSideBook.cancelOrders(anyList())).thenReturn(Arrays.asList(OrderResult.UNKNOWN_ORDER, OrderResult.CANCELLED));
+
+        orderBook.addOrder(buyOrder);
+        try {
+            orderBook.addOrder(sellOrder);
+            fail("Expected duplicate to be rejected");
+        }
+        catch (OrderBookException e) {
+            assertEquals(OrderResult.DUPLICATE_ORDER, e.getResult());
+        }
+        orderBook.cancelOrder(buyOrder);
+        orderBook.cancelOrders(Arrays.asList(buyOrder, buyOrder));
+        orderBook.getSummary(Side.BUY);
+
+        assertEquals(2, metrics.getLatency(OrderBookOperation.ADD_ORDER).getCount());
+        assertEquals(1, metrics.getLatency(OrderBookOperation.CANCEL_ORDER).getCount());
+        assertEquals(1, metrics.getLatency(OrderBookOperation.GET_SUMMARY).getCount());
+        assertEquals(1, metrics.getRejectCount(OrderResult.DUPLICATE_ORDER));
+        assertEquals(1, metrics.getRejectCount(OrderResult.UNKNOWN_ORDER));
+    }
+
+    @Test
+    public void levelAndOrderCountsFromSide() {
+        when(sellSideBook.getLevelCount()).thenReturn(4);
+        when(buysSideBook.getOrderCount()).thenReturn(9);
+        assertEquals(4, orderBook.getLevelCount(Side.SELL));
+        assertEquals(9, orderBook.getOrderCount(Side.BUY));
+    }
+
+    @Test
+    public void tryAddAndCancelUseSide() {
+        when(buysSideBook.tryAddOrder(buyOrder)).thenReturn(OrderResult.DUPLICATE_ORDER);
+        when(sellSideBook.tryCancelOrder(sellOrder)).thenReturn(OrderResult.CANCELLED);
+        assertEquals(OrderResult.DUPLICATE_ORDER, orderBook.tryAddOrder(buyOrder));
+        assertEquals(OrderResult.CANCELLED, orderBook.tryCancelOrder(sellOrder));
+    }
+
+    @Test
+    public void matchingTryAddRejectsDuplicate() {
+        final LiveOrderBook matchingBook = new LiveOrderBook(new OrderBookSideImpl(Side.SELL), new OrderBookSideImpl(Side.BUY), trade -> {});
+        final Order order = new Order("1", "user1", 2.5, 2.99, Side.SELL);
+        assertEquals(OrderResult.ADDED, matchingBook.tryAddOrder(order));
+        assertEquals(OrderResult.DUPLICATE_ORDER, matchingBook.tryAddOrder(order));
+        try {
+            matchingBook.addOrder(order);
+            fail("Expected duplicate to be rejected");
+        }
+        catch (OrderBookException e) {
+            assertEquals(OrderResult.DUPLICATE_ORDER, e.getResult());
+            assertEquals(0, e.getStackTrace().length);
+        }
+    }
+
+    @Test
+    public void cancelOrderByIdFindsSide() throws Exception {
+        when(buysSideBook.cancelOrder("1")).thenReturn(buyOrder);
+        assertSame(buyOrder, orderBook.cancelOrder("1"));
+
+        when(sellSideBook.containsOrder("2")).thenReturn(true);
+        when(sellSideBook.cancelOrder("2")).thenReturn(sellOrder);
+        assertSame(sellOrder, orderBook.cancelOrder("2"));
+    }
+
+    @Test(expected = OrderBookException.class)
+    public void cancelUnknownOrderById() throws Exception {
+        when(buysSideBook.cancelOrder("XXX")).thenThrow(new OrderBookException(OrderResult.UNKNOWN_ORDER, "unknown"));
+        orderBook.cancelOrder("XXX");
+    }
+
     @Test
     public void getBuySummary() {
         orderBook.getSummary(Side.BUY);
@@ -96,4 +192,178 @@ public class LiveOrderBookTest {
         orderBook.getSummary(Side.SELL);
         verify(sellSideBook).getSummary();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getDepth() {
+        orderBook.getDepth(Side.BUY);
+        verify(buysSideBook).getDepth();
+        orderBook.getDepth(Side.SELL, 5);
+        verify(sellSideBook).getDepth(5);
+    }
+
+    @Test
+    public void getBestLevelAndPrice() {
+        final PriceLevel best = new PriceLevel(new BigDecimal("2.95"), new BigDecimal("4.2"));
+        when(sellSideBook.getBestLevel()).thenReturn(Optional.of(best));
+        when(buysSideBook.getBestLevel()).thenReturn(Optional.empty());
+
+        assertEquals(Optional.of(best), orderBook.getBestLevel(Side.SELL));
+        assertEquals(Optional.of(new BigDecimal("2.95")), orderBook.getBestPrice(Side.SELL));
+        assertEquals(Optional.empty(), orderBook.getBestPrice(Side.BUY));
+    }
+
+    @Test
+    public void getSpread() {
+        final Optional<PriceLevel> bestSell = Optional.of(new PriceLevel(new BigDecimal("2.95"), new BigDecimal("4.2")));
+        final Optional<PriceLevel> bestBuy = Optional.of(new PriceLevel(new BigDecimal("2.90"), new BigDecimal("1.0")));
+        when(sellSideBook.getBestLevel()).thenReturn(Optional.empty(), bestSell);
+        when(buysSideBook.getBestLevel()).thenReturn(bestBuy);
+
+        assertEquals(Optional.empty(), orderBook.getSpread());
+        final Optional<BigDecimal> spread = orderBook.getSpread();
+        assertEquals(Optional.of(new BigDecimal("0.05")), spread);
+        // unchanged best levels reuse the spread
+        assertSame(spread, orderBook.getSpread());
+
+        // crossed book
+        when(buysSideBook.getBestLevel()).thenReturn(Optional.of(new PriceLevel(new BigDecimal("3.00"), new BigDecimal("1.0"))));
+        assertEquals(Optional.of(new BigDecimal("-0.05")), orderBook.getSpread());
+    }
+
+    @Test
+    public void getOrders() {
+        orderBook.getOrders(Side.BUY);
+        verify(buysSideBook).getOrders();
+    }
+
+    @Test
+    public void cancelAllForUserOnBothSides() {
+        when(sellSideBook.cancelAllForUser("user1")).thenReturn(Arrays.asList(sellOrder));
+        when(buysSideBook.cancelAllForUser("user1")).thenReturn(Arrays.asList(buyOrder));
+        assertEquals(Arrays.asList(sellOrder, buyOrder), orderBook.cancelAllForUser("user1"));
+
+        when(sellSideBook.getOrdersForUser("user1")).thenReturn(Arrays.asList(sellOrder));
+        when(buysSideBook.getOrdersForUser("user1")).thenReturn(Collections.emptyList());
+        assertEquals(Arrays.asList(sellOrder), orderBook.getOrdersForUser("user1"));
+    }
+
+    @Test
+    public void addOrdersSplitBySide() {
+        final Order sellOrder2 = mock(Order.class);
+        when(sellOrder2.getSide()).thenReturn(Side.SELL);
+        when(sellSideBook.addOrders(Arrays.asList(sellOrder, sellOrder2))).thenReturn(Arrays.asList(OrderResult.ADDED, OrderResult.DUPLICATE_ORDER));
+        when(buysSideBook.addOrders(Arrays.asList(buyOrder))).thenReturn(Arrays.asList(OrderResult.ADDED));
+
+        final List<OrderResult> results = orderBook.addOrders(Arrays.asList(sellOrder, buyOrder, sellOrder2));
+
+        assertEquals(Arrays.asList(OrderResult.ADDED, OrderResult.ADDED, OrderResult.DUPLICATE_ORDER), results);
+    }
+
+    @Test
+    public void cancelOrdersSplitBySide() {
+        when(buysSideBook.cancelOrders(Arrays.asList(buyOrder))).thenReturn(Arrays.asList(OrderResult.UNKNOWN_ORDER));
+
+        final List<OrderResult> results = orderBook.cancelOrders(Arrays.asList(buyOrder));
+
+        assertEquals(Arrays.asList(OrderResult.UNKNOWN_ORDER), results);
+        verify(sellSideBook, never()).cancelOrders(any());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void addOrdersRejectsNullOrder() {
+        orderBook.addOrders(Arrays.asList(sellOrder, null));
+    }
+
+    @Test
+    public void matchingRestsUnfilledRemainder() throws Exception {
+        final List<Trade> trades = new ArrayList<>();
+        final LiveOrderBook matchingBook = new LiveOrderBook(new OrderBookSideImpl(Side.SELL), new OrderBookSideImpl(Side.BUY), trades::add);
+        assertTrue(matchingBook.isMatching());
+        assertFalse(orderBook.isMatching());
+        matchingBook.addOrder(new Order("1", "user1", 2.5, 2.99, Side.SELL));
+        matchingBook.addOrder(new Order("2", "user1", 1.0, 3.05, Side.SELL));
+        // does not cross
+        matchingBook.addOrder(new Order("3", "user2", 1.0, 2.90, Side.BUY));
+        assertTrue(trades.isEmpty());
+
+        matchingBook.addOrder(new Order("4", "user2", 4.0, 3.00, Side.BUY));
+
+        assertEquals(Arrays.asList(new Trade("1", "4", Side.BUY, 299, 25)), trades);
+        assertEquals(Arrays.asList("1.0 kg for £3.05"), matchingBook.getSummary(Side.SELL));
+        assertEquals(Arrays.asList("1.5 kg for £3.00", "1.0 kg for £2.90"), matchingBook.getSummary(Side.BUY));
+
+        // the resting remainder can be cancelled with the original order
+        matchingBook.cancelOrder(new Order("4", "user2", 4.0, 3.00, Side.BUY));
+        assertEquals(Arrays.asList("1.0 kg for £2.90"), matchingBook.getSummary(Side.BUY));
+    }
+
+    @Test
+    public void completelyFilledOrderDoesNotRest() throws Exception {
+        final List<Trade> trades = new ArrayList<>();
+        final LiveOrderBook matchingBook = new LiveOrderBook(new OrderBookSideImpl(Side.SELL), new OrderBookSideImpl(Side.BUY), trades::add);
+        matchingBook.addOrders(Arrays.asList(
+                new Order("1", "user1", 1.0, 3.00, Side.BUY),
+                new Order("2", "user1", 1.0, 3.01, Side.BUY),
+                new Order("3", "user2", 1.5, 2.95, Side.SELL)));
+
+        assertEquals(Arrays.asList(new Trade("2", "3", Side.SELL, 301, 10), new Trade("1", "3", Side.SELL, 300, 5)), trades);
+        assertTrue(matchingBook.getOrders(Side.SELL).isEmpty());
+        assertEquals(Arrays.asList("0.5 kg for £3.00"), matchingBook.getSummary(Side.BUY));
+    }
+
+    @Test
+    public void matchingRejectsDuplicateBeforeTrading() throws Exception {
+        final TradeListener tradeListener = mock(TradeListener.class);
+        when(sellSideBook.supportsMatching()).thenReturn(true);
+        when(buysSideBook.supportsMatching()).thenReturn(true);
+        final LiveOrderBook matchingBook = new LiveOrderBook(sellSideBook, buysSideBook, tradeListener);
+        when(buysSideBook.containsOrder("1")).thenReturn(true);
+        when(buyOrder.getOrderId()).thenReturn("1");
+
+        final List<OrderResult> results = matchingBook.addOrders(Arrays.asList(buyOrder));
+
+        assertEquals(Arrays.asList(OrderResult.DUPLICATE_ORDER), results);
+        verify(sellSideBook, never()).match(any(), any());
+        verifyZeroInteractions(tradeListener);
+    }
+
+    @Test
+    public void tradeListenerFailureDoesNotFailAdd() throws Exception {
+        final LiveOrderBook matchingBook = new LiveOrderBook(new OrderBookSideImpl(Side.SELL), new OrderBookSideImpl(Side.BUY), trade -> {
+            throw new IllegalStateException("listener failure");
+        });
+        matchingBook.addOrder(new Order("1", "user1", 2.5, 2.99, Side.SELL));
+        matchingBook.addOrder(new Order("2", "user2", 2.5, 2.99, Side.BUY));
+        assertTrue(matchingBook.getOrders(Side.SELL).isEmpty());
+        assertTrue(matchingBook.getOrders(Side.BUY).isEmpty());
+    }
+
+    @Test
+    public void tradesBeforeMatchFailureReported() throws Exception {
+        final IllegalStateException failure = new IllegalStateException("match failure");
+        final OrderBookSide failingSell = new OrderBookSideImpl(Side.SELL) {
+            @Override
+            public long match(final Order incoming, final List<Trade> trades) {
+                super.match(incoming, trades);
+                throw failure;
+            }
+        };
+        final List<Trade> reported = new ArrayList<>();
+        final LiveOrderBook matchingBook = new LiveOrderBook(failingSell, new OrderBookSideImpl(Side.BUY), reported::add);
+        matchingBook.addOrder(new Order("1", "user1", 2.5, 2.99, Side.SELL));
+        try {
+            matchingBook.addOrder(new Order("2", "user2", 1.0, 2.99, Side.BUY));
+            fail("Expected the match failure to be thrown");
+        }
+        catch (IllegalStateException e) {
+            assertSame(failure, e);
+        }
+        assertEquals(Arrays.asList(new Trade("1", "2", Side.BUY, 299, 10)), reported);
+        assertEquals(Arrays.asList("1.5 kg for £2.99"), matchingBook.getSummary(Side.SELL));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void matchingRequiresSidesThatSupportMatching() {
+        new LiveOrderBook(new FixedPointOrderBookSide(Side.SELL), new FixedPointOrderBookSide(Side.BUY), trade -> {});
+    }
+}
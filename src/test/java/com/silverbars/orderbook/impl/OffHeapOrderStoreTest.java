@@ -0,0 +1,186 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.Side;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class OffHeapOrderStoreTest {
+    private final static Order order1 = new Order("1", "user1", 2.5, 2.99, Side.SELL);
+    private final static Order order2 = new Order("2", "user2", 4.2, 2.95, Side.SELL);
+
+    private OffHeapOrderStore orderStore;
+    private OrderRecord record;
+
+    @Before
+    public void setUp() throws Exception {
+        // two records per segment, so segments are added as the store grows
+        orderStore = new OffHeapOrderStore(2, 1);
+        record = new OrderRecord();
+        orderStore.add(order1);
+        orderStore.add(order2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidExpectedOrders() {
+        new OffHeapOrderStore(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRecordSegmentShift() {
+        new OffHeapOrderStore(16, 24);
+    }
+
+    @Test
+    public void contains() {
+        assertTrue(orderStore.contains("1"));
+        assertTrue(orderStore.contains("2"));
+        assertFalse(orderStore.contains("3"));
+        assertEquals(2, orderStore.size());
+    }
+
+    @Test
+    public void get() {
+        assertTrue(orderStore.get("2", record));
+        assertEquals("2", record.orderId);
+        assertEquals("user2", record.userId);
+        assertEquals(295, record.priceTicks);
+        assertEquals(42, record.quantityTicks);
+        assertFalse(orderStore.get("3", record));
+    }
+
+    @Test
+    public void remove() {
+        assertTrue(orderStore.remove("1", record));
+        assertEquals("1", record.orderId);
+        assertEquals("user1", record.userId);
+        assertEquals(299, record.priceTicks);
+        assertEquals(25, record.quantityTicks);
+
+        assertFalse(orderStore.contains("1"));
+        assertFalse(orderStore.remove("1", record));
+        assertTrue(orderStore.contains("2"));
+        assertEquals(1, orderStore.size());
+    }
+
+    @Test
+    public void idsLongerThanRecordCannotBeStored() {
+        final char[] longId = new char[OffHeapOrderStore.MAX_ID_LENGTH + 1];
+        Arrays.fill(longId, 'x');
+        final Order longOrderId = new Order(new String(longId), "user1", 1, 1, Side.SELL);
+        final Order longUserId = new Order("3", new String(longId), 1, 1, Side.SELL);
+        assertFalse(orderStore.canStore(longOrderId));
+        assertFalse(orderStore.canStore(longUserId));
+
+        final Order maxLength = new Order(new String(longId, 1, OffHeapOrderStore.MAX_ID_LENGTH), "£user", 1, 1, Side.SELL);
+        assertTrue(orderStore.canStore(maxLength));
+        orderStore.add(maxLength);
+        assertTrue(orderStore.get(maxLength.getOrderId(), record));
+        assertEquals(maxLength.getOrderId(), record.orderId);
+        assertEquals("£user", record.userId);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addIdLongerThanRecord() {
+        final char[] longId = new char[OffHeapOrderStore.MAX_ID_LENGTH + 1];
+        Arrays.fill(longId, 'x');
+        orderStore.add(new Order(new String(longId), "user1", 1, 1, Side.SELL));
+    }
+
+    @Test
+    public void growsAndReusesSlots() {
+        for( int i = 3; i < 1000; i++){
+            orderStore.add(new Order(String.valueOf(i), "user", 1, 1, Side.BUY));
+        }
+        assertEquals(999, orderStore.size());
+        final long offHeapBytes = orderStore.getOffHeapBytes();
+        for( int i = 3; i < 1000; i += 2){
+            assertTrue(orderStore.remove(String.valueOf(i), record));
+        }
+        for( int i = 3; i < 1000; i += 2){
+            assertFalse(orderStore.contains(String.valueOf(i)));
+            orderStore.add(new Order(String.valueOf(i), "user", 1, 1, Side.BUY));
+        }
+        for( int i = 1; i < 1000; i++){
+            assertTrue(orderStore.contains(String.valueOf(i)));
+        }
+        assertEquals(999, orderStore.size());
+        // freed slots were reused rather than new records allocated
+        assertEquals(offHeapBytes, orderStore.getOffHeapBytes());
+    }
+
+    @Test
+    public void forEachVisitsRestingOrders() {
+        orderStore.remove("1", record);
+        final List<String> visited = new ArrayList<>();
+        orderStore.forEach(new OrderRecord(), order -> visited.add(order.orderId + ":" + order.userId + ":" + order.priceTicks + ":" + order.quantityTicks));
+        assertEquals(Arrays.asList("2:user2:295:42"), visited);
+    }
+
+    @Test
+    public void getOrderIdsInOrderAdded() {
+        orderStore.add(new Order("3", "user1", 1, 1, Side.SELL));
+        orderStore.add(new Order("4", "user1", 1, 1, Side.SELL));
+        assertEquals(Arrays.asList("1", "3", "4"), orderStore.getOrderIds("user1"));
+        assertEquals(Arrays.asList("2"), orderStore.getOrderIds("user2"));
+        assertTrue(orderStore.getOrderIds("user3").isEmpty());
+
+        // first, middle and last orders of a user
+        orderStore.remove("3", record);
+        assertEquals(Arrays.asList("1", "4"), orderStore.getOrderIds("user1"));
+        orderStore.remove("1", record);
+        assertEquals(Arrays.asList("4"), orderStore.getOrderIds("user1"));
+        orderStore.add(new Order("5", "user1", 1, 1, Side.SELL));
+        assertEquals(Arrays.asList("4", "5"), orderStore.getOrderIds("user1"));
+        orderStore.remove("5", record);
+        orderStore.remove("4", record);
+        assertTrue(orderStore.getOrderIds("user1").isEmpty());
+        assertEquals(Arrays.asList("2"), orderStore.getOrderIds("user2"));
+    }
+
+    @Test
+    public void matchesMapsUnderRandomAddAndRemove() {
+        final OffHeapOrderStore store = new OffHeapOrderStore(16, 4);
+        final Map<String, Set<String>> expected = new HashMap<>();
+        final Map<String, String> userOfOrder = new HashMap<>();
+        final Random random = new Random(11);
+        for( int i = 0; i < 50_000; i++){
+            final String orderId = "order" + random.nextInt(2_000);
+            final String userId = userOfOrder.get(orderId);
+            if( userId != null){
+                assertTrue(store.remove(orderId, record));
+                assertEquals(orderId, record.orderId);
+                assertEquals(userId, record.userId);
+                userOfOrder.remove(orderId);
+                expected.get(userId).remove(orderId);
+            }
+            else {
+                assertFalse(store.contains(orderId));
+                final String newUserId = "user" + random.nextInt(50);
+                store.add(new Order(orderId, newUserId, 1, 1, Side.BUY));
+                userOfOrder.put(orderId, newUserId);
+                expected.computeIfAbsent(newUserId, id -> new LinkedHashSet<>()).add(orderId);
+            }
+            assertEquals(userOfOrder.size(), store.size());
+        }
+        for( String orderId : userOfOrder.keySet()){
+            assertTrue(store.contains(orderId));
+        }
+        for( int user = 0; user < 50; user++){
+            final String userId = "user" + user;
+            assertEquals(new ArrayList<>(expected.getOrDefault(userId, Collections.emptySet())), store.getOrderIds(userId));
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.silverbars.orderbook.impl;
 
+import com.silverbars.orderbook.DepthSnapshot;
 import com.silverbars.orderbook.Order;
 import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.PriceLevel;
 import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.Trade;
+import com.silverbars.orderbook.metrics.OrderBookMetrics;
+import com.silverbars.orderbook.metrics.OrderBookOperation;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -11,10 +17,17 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -36,6 +49,8 @@ public class OrderBookSideImplTest {
     private Lock readLock;
     @Mock
     private Lock writeLock;
+    @Mock
+    private LevelChangeSink levelChangeSink;
 
     private Map<BigDecimal, OrderLevelImpl> orderLevels;
 
@@ -265,4 +280,600 @@ public class OrderBookSideImplTest {
         assertEquals(0, orderBookSide.getSummary().size());
     }
 
+    @Test
+    public void incrementalSummaryChangesAfterAddingAndRemovingOrders() throws Exception{
+        final OrderBookSide orderBookSide = new OrderBookSideImpl(Side.SELL, SummaryMode.INCREMENTAL);
+        orderBookSide.addOrder(order1);
+        orderBookSide.addOrder(order2);
+        orderBookSide.addOrder(order3);
+
+        List<String> summary = orderBookSide.getSummary();
+        assertEquals(2, summary.size());
+        assertEquals("4.2 kg for £2.95", summary.get(0));
+        assertEquals("3.7 kg for £2.99", summary.get(1));
+
+        final Order order10 = new Order("10", "user1", 4.5, 2.8, Side.SELL);
+        orderBookSide.addOrder( order10 );
+        orderBookSide.cancelOrder( order1 );
+        summary = orderBookSide.getSummary();
+        assertEquals(3, summary.size());
+        assertEquals("4.5 kg for £2.80", summary.get(0));
+        assertEquals("4.2 kg for £2.95", summary.get(1));
+        assertEquals("1.2 kg for £2.99", summary.get(2));
+
+        orderBookSide.cancelOrder( order3 );
+        orderBookSide.cancelOrder( order10 );
+        summary = orderBookSide.getSummary();
+        assertEquals(1, summary.size());
+        assertEquals("4.2 kg for £2.95", summary.get(0));
+    }
+
+    @Test
+    public void incrementalPriceDescendsForBuyOrderSummary() throws Exception{
+        final OrderBookSideImpl orderBookSide = new OrderBookSideImpl(Side.BUY, SummaryMode.INCREMENTAL);
+        assertEquals(SummaryMode.INCREMENTAL, orderBookSide.getSummaryMode());
+        orderBookSide.addOrder( new Order("10", "user1", 4.5, 2.8, Side.BUY));
+        orderBookSide.addOrder( new Order("11", "user2", 7.1, 3.1, Side.BUY));
+        orderBookSide.addOrder( new Order("12", "user2", 5.1, 2.99, Side.BUY));
+
+        final List<String> summary = orderBookSide.getSummary();
+        assertEquals(3, summary.size());
+        assertEquals("7.1 kg for £3.10", summary.get(0));
+        assertEquals("5.1 kg for £2.99", summary.get(1));
+        assertEquals("4.5 kg for £2.80", summary.get(2));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructorRequiresSummaryMode() {
+        new OrderBookSideImpl(Side.BUY, null);
+    }
+
+    @Test
+    public void sortedIndexSummary() throws Exception{
+        final OrderBookSideImpl orderBookSide = new OrderBookSideImpl(Side.BUY, SummaryMode.REBUILD, LevelIndex.SORTED);
+        assertEquals(LevelIndex.SORTED, orderBookSide.getLevelIndex());
+        orderBookSide.addOrder( new Order("10", "user1", 4.5, 2.8, Side.BUY));
+        orderBookSide.addOrder( new Order("11", "user2", 7.1, 3.1, Side.BUY));
+        orderBookSide.addOrder( new Order("12", "user2", 5.1, 2.99, Side.BUY));
+
+        final List<String> summary = orderBookSide.getSummary();
+        assertEquals(3, summary.size());
+        assertEquals("7.1 kg for £3.10", summary.get(0));
+        assertEquals("5.1 kg for £2.99", summary.get(1));
+        assertEquals("4.5 kg for £2.80", summary.get(2));
+    }
+
+    @Test
+    public void hashedIndexByDefault() {
+        assertEquals(LevelIndex.HASHED, orderBookSide.getLevelIndex());
+        assertEquals(LevelIndex.HASHED, new OrderBookSideImpl(Side.BUY).getLevelIndex());
+    }
+
+    @Test
+    public void getBestLevel() throws Exception{
+        for( LevelIndex levelIndex : LevelIndex.values()){
+            final OrderBookSideImpl sellSide = createSide(Side.SELL, levelIndex);
+            assertEquals(Optional.of(level("2.80", "1.0")), sellSide.getBestLevel());
+
+            final OrderBookSideImpl buySide = createSide(Side.BUY, levelIndex);
+            assertEquals(Optional.of(level("3.10", "2.0")), buySide.getBestLevel());
+        }
+    }
+
+    @Test
+    public void bestLevelMaintainedOnEachChange() throws Exception{
+        for( LevelIndex levelIndex : LevelIndex.values()){
+            final OrderBookSideImpl sellSide = createSide(Side.SELL, levelIndex);
+            final Optional<PriceLevel> best = sellSide.getBestLevel();
+            // a change to another level keeps the snapshot
+            sellSide.addOrder(new Order("6", "user4", 1.0, 3.5, Side.SELL));
+            assertSame(best, sellSide.getBestLevel());
+
+            sellSide.addOrder(new Order("7", "user4", 1.0, 2.8, Side.SELL));
+            assertEquals(Optional.of(level("2.80", "2.0")), sellSide.getBestLevel());
+            sellSide.addOrder(new Order("8", "user4", 1.0, 2.7, Side.SELL));
+            assertEquals(Optional.of(level("2.70", "1.0")), sellSide.getBestLevel());
+
+            // removing the best level finds the next best
+            sellSide.cancelOrder("8");
+            assertEquals(Optional.of(level("2.80", "2.0")), sellSide.getBestLevel());
+            sellSide.cancelOrder("7");
+            sellSide.cancelOrder("4");
+            assertEquals(Optional.of(level("2.95", "4.2")), sellSide.getBestLevel());
+
+            final OrderBookSideImpl buySide = createSide(Side.BUY, levelIndex);
+            buySide.cancelOrder("5");
+            assertEquals(Optional.of(level("2.99", "3.7")), buySide.getBestLevel());
+            for( String userId : Arrays.asList("user1", "user2", "user3")){
+                buySide.cancelAllForUser(userId);
+            }
+            assertEquals(Optional.empty(), buySide.getBestLevel());
+        }
+    }
+
+    @Test
+    public void bestLevelMaintainedOnMatch() throws Exception{
+        final OrderBookSideImpl sellSide = createSide(Side.SELL, LevelIndex.SORTED);
+        final List<Trade> trades = new ArrayList<>();
+        // fills 2.80 and part of 2.95
+        sellSide.match(new Order("buy", "user9", 2.0, 3.0, Side.BUY), trades);
+        assertEquals(Optional.of(level("2.95", "3.2")), sellSide.getBestLevel());
+    }
+
+    @Test
+    public void getBestLevelWhenEmpty() {
+        for( LevelIndex levelIndex : LevelIndex.values()){
+            assertFalse(new OrderBookSideImpl(Side.SELL, SummaryMode.REBUILD, levelIndex).getBestLevel().isPresent());
+        }
+    }
+
+    @Test
+    public void getTopLevels() throws Exception{
+        for( LevelIndex levelIndex : LevelIndex.values()){
+            final OrderBookSideImpl sellSide = createSide(Side.SELL, levelIndex);
+            assertEquals(Arrays.asList(level("2.80", "1.0"), level("2.95", "4.2")), sellSide.getLevels(2));
+            assertEquals(4, sellSide.getLevels(10).size());
+            assertEquals(0, sellSide.getLevels(0).size());
+
+            final OrderBookSideImpl buySide = createSide(Side.BUY, levelIndex);
+            assertEquals(Arrays.asList(level("3.10", "2.0"), level("2.99", "3.7")), buySide.getLevels(2));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getTopLevelsInvalidMaxLevels() {
+        orderBookSide.getLevels(-1);
+    }
+
+    @Test
+    public void getLevelsInPriceRange() throws Exception{
+        final BigDecimal low = OrderLevel.getPriceAsBigDecimal(2.9);
+        final BigDecimal high = OrderLevel.getPriceAsBigDecimal(3.0);
+        for( LevelIndex levelIndex : LevelIndex.values()){
+            final OrderBookSideImpl sellSide = createSide(Side.SELL, levelIndex);
+            assertEquals(Arrays.asList(level("2.95", "4.2"), level("2.99", "3.7")), sellSide.getLevels(low, high));
+
+            final OrderBookSideImpl buySide = createSide(Side.BUY, levelIndex);
+            assertEquals(Arrays.asList(level("2.99", "3.7"), level("2.95", "4.2")), buySide.getLevels(low, high));
+            assertEquals(0, buySide.getLevels(high, low).size());
+        }
+    }
+
+    @Test
+    public void getDepth() throws Exception{
+        for( LevelIndex levelIndex : LevelIndex.values()){
+            final OrderBookSideImpl sellSide = createSide(Side.SELL, levelIndex);
+            final DepthSnapshot depth = sellSide.getDepth();
+            assertEquals(Side.SELL, depth.getSide());
+            assertEquals(4, depth.size());
+            assertEquals(280, depth.getPriceTicks(0));
+            assertEquals(10, depth.getQuantityTicks(0));
+            assertEquals(Arrays.asList(level("2.80", "1.0"), level("2.95", "4.2"), level("2.99", "3.7"), level("3.10", "2.0")), depth.getLevels());
+            final SummaryLineEncoder encoder = new SummaryLineEncoder();
+            assertEquals(sellSide.getSummary(), IntStream.range(0, depth.size())
+                    .mapToObj(i -> encoder.encode(depth.getQuantityTicks(i), depth.getPriceTicks(i))).collect(Collectors.toList()));
+
+            final DepthSnapshot buyDepth = createSide(Side.BUY, levelIndex).getDepth(2);
+            assertEquals(Arrays.asList(level("3.10", "2.0"), level("2.99", "3.7")), buyDepth.getLevels());
+        }
+    }
+
+    @Test
+    public void getDepthIsSnapshot() throws Exception{
+        final DepthSnapshot depth = orderBookSide.getDepth();
+        orderBookSide.cancelOrder(order2);
+        assertEquals(2, depth.size());
+        assertEquals(1, orderBookSide.getDepth().size());
+        assertEquals(0, orderBookSide.getDepth(0).size());
+    }
+
+    @Test
+    public void getOrders() throws Exception{
+        final List<Order> resting = orderBookSide.getOrders();
+        assertEquals(3, resting.size());
+        assertTrue(resting.containsAll(Arrays.asList(order1, order2, order3)));
+        orderBookSide.cancelOrder(order1);
+        assertEquals(3, resting.size());
+        assertEquals(2, orderBookSide.getOrders().size());
+    }
+
+    @Test
+    public void levelChangesPassedToSink() throws Exception{
+        orderBookSide.setLevelChangeSink(levelChangeSink);
+        orderBookSide.addOrders(Arrays.asList(new Order("4", "user3", 1.0, 2.99, Side.SELL), new Order("5", "user3", 1.0, 3.10, Side.SELL)));
+        orderBookSide.cancelOrder(order2);
+        // rejected orders change no level
+        orderBookSide.addOrders(Arrays.asList(order1));
+
+        final InOrder inOrder = inOrder(levelChangeSink);
+        inOrder.verify(levelChangeSink).onLevelChange(Side.SELL, 299, 47);
+        inOrder.verify(levelChangeSink).onLevelChange(Side.SELL, 310, 10);
+        inOrder.verify(levelChangeSink).onLevelChange(Side.SELL, 295, 0);
+        verifyNoMoreInteractions(levelChangeSink);
+
+        orderBookSide.setLevelChangeSink(null);
+        orderBookSide.cancelOrder(order1);
+        verifyNoMoreInteractions(levelChangeSink);
+    }
+
+    @Test
+    public void matchFillsBestPriceThenTimePriority() throws Exception{
+        final List<Trade> trades = new ArrayList<>();
+        final long remaining = orderBookSide.match(new Order("10", "user9", 7.0, 2.99, Side.BUY), trades);
+
+        assertEquals(0, remaining);
+        assertEquals(Arrays.asList(
+                new Trade("2", "10", Side.BUY, 295, 42),
+                new Trade("1", "10", Side.BUY, 299, 25),
+                new Trade("3", "10", Side.BUY, 299, 3)), trades);
+        assertEquals(Arrays.asList("0.9 kg for £2.99"), orderBookSide.getSummary());
+        assertEquals(1, orders.size());
+        assertEquals(9, orders.get("3").getQuantityTicks());
+    }
+
+    @Test
+    public void matchStopsAtLimitPrice() throws Exception{
+        final List<Trade> trades = new ArrayList<>();
+        final long remaining = orderBookSide.match(new Order("10", "user9", 5.0, 2.97, Side.BUY), trades);
+
+        assertEquals(8, remaining);
+        assertEquals(Arrays.asList(new Trade("2", "10", Side.BUY, 295, 42)), trades);
+        assertEquals(Arrays.asList("3.7 kg for £2.99"), orderBookSide.getSummary());
+    }
+
+    @Test
+    public void matchWithoutCrossChangesNothing() throws Exception{
+        final List<Trade> trades = new ArrayList<>();
+        reset(writeLock);
+        assertEquals(50, orderBookSide.match(new Order("10", "user9", 5.0, 2.90, Side.BUY), trades));
+        assertTrue(trades.isEmpty());
+        assertEquals(3, orders.size());
+        verify(writeLock).lock();
+        verify(writeLock).unlock();
+    }
+
+    @Test
+    public void sortedLevelsMatchInPriceOrder() throws Exception{
+        final OrderBookSideImpl buySide = createSide(Side.BUY, LevelIndex.SORTED);
+        final List<Trade> trades = new ArrayList<>();
+        assertEquals(0, buySide.match(new Order("10", "user9", 2.0, 3.0, Side.SELL), trades));
+        assertEquals(Arrays.asList(new Trade("5", "10", Side.SELL, 310, 20)), trades);
+    }
+
+    @Test
+    public void cancelPartlyFilledOrder() throws Exception{
+        orderBookSide.match(new Order("10", "user9", 5.0, 2.99, Side.BUY), new ArrayList<>());
+        // order1 has 1.7 remaining - cancelling the original order removes only that
+        orderBookSide.cancelOrder(order1);
+        assertEquals(Arrays.asList("1.2 kg for £2.99"), orderBookSide.getSummary());
+        orderBookSide.cancelOrder(order3);
+        assertTrue(orderLevels.isEmpty());
+    }
+
+    @Test(timeout = 5000)
+    public void cancelWithDifferentQuantityOrPriceRemovesRestingOrder() throws Exception{
+        final OrderBookSideImpl sellSide = new OrderBookSideImpl(Side.SELL);
+        sellSide.addOrder(new Order("A", "user1", 5.0, 10.0, Side.SELL));
+        sellSide.addOrder(new Order("B", "user1", 2.0, 10.0, Side.SELL));
+        assertEquals(OrderResult.CANCELLED, sellSide.tryCancelOrder(new Order("A", "user1", 1.0, 10.0, Side.SELL)));
+        assertEquals(Arrays.asList("2.0 kg for £10.00"), sellSide.getSummary());
+        assertEquals(OrderResult.CANCELLED, sellSide.tryCancelOrder(new Order("B", "user1", 2.0, 9.0, Side.SELL)));
+        assertEquals(Collections.emptyList(), sellSide.getSummary());
+        assertEquals(0, sellSide.getLevelCount());
+
+        // a crossing order finds nothing to fill
+        final List<Trade> trades = new ArrayList<>();
+        assertEquals(10, sellSide.match(new Order("C", "user2", 1.0, 11.0, Side.BUY), trades));
+        assertTrue(trades.isEmpty());
+    }
+
+    @Test(timeout = 5000)
+    public void matchDropsLevelWithNoOrders() throws Exception{
+        // a level left with quantity but no orders to fill
+        final OrderLevelImpl corrupt = new OrderLevelImpl(2.90);
+        corrupt.addOrder(new Order("X", "user9", 5.0, 2.90, Side.SELL));
+        corrupt.removeOrder(new Order("X", "user9", 1.0, 2.90, Side.SELL));
+        orderLevels.put(corrupt.getPrice(), corrupt);
+
+        final List<Trade> trades = new ArrayList<>();
+        assertEquals(0, orderBookSide.match(new Order("10", "user9", 4.2, 2.95, Side.BUY), trades));
+        assertEquals(Arrays.asList(new Trade("2", "10", Side.BUY, 295, 42)), trades);
+        assertFalse(orderLevels.containsKey(corrupt.getPrice()));
+        assertEquals(Arrays.asList("3.7 kg for £2.99"), orderBookSide.getSummary());
+    }
+
+    @Test
+    public void matchEvictsRestingOrderWithNoQuantity() throws Exception{
+        // an order resting with no quantity, as could be accepted before zero tick quantities were rejected
+        final Order empty = mock(Order.class);
+        lenient().when(empty.getOrderId()).thenReturn("Z");
+        lenient().when(empty.getUserId()).thenReturn("user9");
+        lenient().when(empty.getPriceTicks()).thenReturn(290L);
+        final Order behind = new Order("Y", "user9", 1.0, 2.90, Side.SELL);
+        final OrderLevelImpl level = new OrderLevelImpl(2.90);
+        level.addOrder(empty);
+        level.addOrder(behind);
+        orderLevels.put(level.getPrice(), level);
+        orders.put("Z", empty);
+        orders.put("Y", behind);
+
+        final List<Trade> trades = new ArrayList<>();
+        assertEquals(0, orderBookSide.match(new Order("10", "user9", 1.0, 2.90, Side.BUY), trades));
+        assertEquals(Arrays.asList(new Trade("Y", "10", Side.BUY, 290, 10)), trades);
+        assertFalse(orders.containsKey("Z"));
+        assertFalse(orderLevels.containsKey(level.getPrice()));
+        assertEquals(Arrays.asList("4.2 kg for £2.95", "3.7 kg for £2.99"), orderBookSide.getSummary());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void matchRejectsSameSide() throws Exception{
+        orderBookSide.match(new Order("10", "user9", 5.0, 2.99, Side.SELL), new ArrayList<>());
+    }
+
+    @Test
+    public void tryAddAndCancelReturnResults() {
+        assertEquals(OrderResult.DUPLICATE_ORDER, orderBookSide.tryAddOrder(order1));
+        assertEquals(OrderResult.UNKNOWN_ORDER, orderBookSide.tryCancelOrder(new Order("XXX", "user", 1.2, 3.5, Side.SELL)));
+        assertEquals(3, orders.size());
+
+        assertEquals(OrderResult.CANCELLED, orderBookSide.tryCancelOrder(order1));
+        assertEquals(OrderResult.ADDED, orderBookSide.tryAddOrder(new Order("4", "userId4", 1.0, 2.99, Side.SELL)));
+        assertEquals(Arrays.asList("4.2 kg for £2.95", "2.2 kg for £2.99"), orderBookSide.getSummary());
+    }
+
+    @Test
+    public void rejectionHasNoStackTrace() {
+        try {
+            orderBookSide.addOrder(order1);
+            fail("Expected duplicate to be rejected");
+        }
+        catch (OrderBookException e) {
+            assertEquals(OrderResult.DUPLICATE_ORDER, e.getResult());
+            assertEquals(0, e.getStackTrace().length);
+            assertEquals("Order has been previously submitted: 1", e.getMessage());
+        }
+    }
+
+    @Test
+    public void levelAndOrderCounts() throws Exception{
+        assertEquals(2, orderBookSide.getLevelCount());
+        assertEquals(3, orderBookSide.getOrderCount());
+        orderBookSide.cancelOrder(order2);
+        assertEquals(1, orderBookSide.getLevelCount());
+        assertEquals(2, orderBookSide.getOrderCount());
+    }
+
+    @Test
+    public void metricsRecordWriteLockWaitAndSummaryRebuild() throws Exception{
+        final OrderBookMetrics metrics = mock(OrderBookMetrics.class);
+        orderBookSide.setMetrics(metrics);
+
+        orderBookSide.addOrder(new Order("4", "userId4", 1.0, 3.10, Side.SELL));
+
+        verify(metrics).recordWriteLockWait(anyLong());
+        verify(metrics).recordLatency(eq(OrderBookOperation.REBUILD_SUMMARY), anyLong());
+
+        orderBookSide.setMetrics(null);
+        orderBookSide.cancelOrder(order1);
+        verifyNoMoreInteractions(metrics);
+    }
+
+    @Test
+    public void cancelOrderById() throws Exception{
+        reset(writeLock);
+        assertSame(order3, orderBookSide.cancelOrder("3"));
+        assertEquals(2, orders.size());
+        assertEquals(Arrays.asList("4.2 kg for £2.95", "2.5 kg for £2.99"), orderBookSide.getSummary());
+        verify(writeLock).lock();
+        verify(writeLock).unlock();
+    }
+
+    @Test
+    public void cancelPartlyFilledOrderById() throws Exception{
+        orderBookSide.match(new Order("10", "user9", 5.0, 2.99, Side.BUY), new ArrayList<>());
+        assertEquals(17, orderBookSide.cancelOrder("1").getQuantityTicks());
+        assertEquals(Arrays.asList("1.2 kg for £2.99"), orderBookSide.getSummary());
+    }
+
+    @Test
+    public void cancelUnknownOrderById() throws Exception{
+        reset(writeLock);
+        final InOrder inOrder = inOrder(writeLock);
+        try {
+            orderBookSide.cancelOrder("XXX");
+            fail("Expected unknown order to be rejected");
+        }
+        catch (OrderBookException e) {
+            assertEquals(OrderResult.UNKNOWN_ORDER, e.getResult());
+        }
+        assertEquals(3, orders.size());
+        inOrder.verify(writeLock).lock();
+        inOrder.verify(writeLock).unlock();
+    }
+
+    @Test
+    public void getOrdersForUser() throws Exception{
+        assertEquals(Arrays.asList(order2, order3), orderBookSide.getOrdersForUser("userId2"));
+        assertEquals(Arrays.asList(order1), orderBookSide.getOrdersForUser("userId1"));
+        assertTrue(orderBookSide.getOrdersForUser("unknown").isEmpty());
+        orderBookSide.cancelOrder(order2);
+        assertEquals(Arrays.asList(order3), orderBookSide.getOrdersForUser("userId2"));
+    }
+
+    @Test
+    public void cancelAllForUserUnderSingleLock() throws Exception{
+        reset(writeLock);
+        final List<Order> cancelled = orderBookSide.cancelAllForUser("userId2");
+
+        assertEquals(Arrays.asList(order2, order3), cancelled);
+        assertEquals(1, orders.size());
+        assertEquals(Arrays.asList("2.5 kg for £2.99"), orderBookSide.getSummary());
+        assertTrue(orderBookSide.getOrdersForUser("userId2").isEmpty());
+        verify(writeLock, times(1)).lock();
+        verify(writeLock, times(1)).unlock();
+
+        assertTrue(orderBookSide.cancelAllForUser("userId2").isEmpty());
+    }
+
+    @Test
+    public void userIndexFollowsFills() throws Exception{
+        // fills order2 and half of order1
+        orderBookSide.match(new Order("10", "user9", 5.4, 2.99, Side.BUY), new ArrayList<>());
+        assertEquals(Arrays.asList("3"), ids(orderBookSide.getOrdersForUser("userId2")));
+
+        final List<Order> cancelled = orderBookSide.cancelAllForUser("userId1");
+        assertEquals(1, cancelled.size());
+        assertEquals(13, cancelled.get(0).getQuantityTicks());
+        assertEquals(Arrays.asList("1.2 kg for £2.99"), orderBookSide.getSummary());
+    }
+
+    @Test
+    public void containsOrder() throws Exception{
+        assertTrue(orderBookSide.containsOrder("1"));
+        orderBookSide.cancelOrder(order1);
+        assertFalse(orderBookSide.containsOrder("1"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getDepthInvalidMaxLevels() {
+        orderBookSide.getDepth(-1);
+    }
+
+    private static List<String> ids(final List<Order> orders){
+        final List<String> ids = new ArrayList<>();
+        for( Order order : orders){
+            ids.add(order.getOrderId());
+        }
+        return ids;
+    }
+
+    private static OrderBookSideImpl createSide(final Side side, final LevelIndex levelIndex) throws OrderBookException{
+        final OrderBookSideImpl orderBookSide = new OrderBookSideImpl(side, SummaryMode.REBUILD, levelIndex);
+        orderBookSide.addOrder(new Order("1", "user1", quantity1, price1, side));
+        orderBookSide.addOrder(new Order("2", "user2", quantity2, price2, side));
+        orderBookSide.addOrder(new Order("3", "user2", quantity3, price3, side));
+        orderBookSide.addOrder(new Order("4", "user3", 1.0, 2.8, side));
+        orderBookSide.addOrder(new Order("5", "user3", 2.0, 3.1, side));
+        return orderBookSide;
+    }
+
+    private static PriceLevel level(final String price, final String quantity){
+        return new PriceLevel(new BigDecimal(price), new BigDecimal(quantity));
+    }
+
+    @Test
+    public void addOrdersUnderSingleLock() throws Exception{
+        reset(writeLock);
+        final Order order4 = new Order("4", "user1", 5.5, 2.95, Side.SELL);
+        final Order order5 = new Order("5", "user1", 1.5, 3.27, Side.SELL);
+
+        final List<OrderResult> results = orderBookSide.addOrders(Arrays.asList(order4, order1, order5));
+
+        assertEquals(Arrays.asList(OrderResult.ADDED, OrderResult.DUPLICATE_ORDER, OrderResult.ADDED), results);
+        assertEquals(5, orders.size());
+        final List<String> summary = orderBookSide.getSummary();
+        assertEquals(3, summary.size());
+        assertEquals("9.7 kg for £2.95", summary.get(0));
+        assertEquals("1.5 kg for £3.27", summary.get(2));
+
+        verify(writeLock, times(1)).lock();
+        verify(writeLock, times(1)).unlock();
+    }
+
+    @Test
+    public void cancelOrdersUnderSingleLock() throws Exception{
+        reset(writeLock);
+        final Order unknown = new Order("XXX", "user", 1.2, 3.5, Side.SELL);
+        // cancels the resting order 2, whatever quantity is given
+        final Order differentQuantity = new Order("2", "user", 9.9, price2, Side.SELL);
+
+        final List<OrderResult> results = orderBookSide.cancelOrders(Arrays.asList(order1, unknown, differentQuantity, order3));
+
+        assertEquals(Arrays.asList(OrderResult.CANCELLED, OrderResult.UNKNOWN_ORDER, OrderResult.CANCELLED, OrderResult.CANCELLED), results);
+        assertEquals(0, orders.size());
+        assertEquals(0, orderLevels.size());
+        assertEquals(Collections.emptyList(), orderBookSide.getSummary());
+
+        verify(writeLock, times(1)).lock();
+        verify(writeLock, times(1)).unlock();
+    }
+
+    @Test
+    public void incrementalBatchSummary() throws Exception{
+        final OrderBookSide orderBookSide = new OrderBookSideImpl(Side.BUY, SummaryMode.INCREMENTAL);
+        orderBookSide.addOrders(Arrays.asList(new Order("10", "user1", 4.5, 2.8, Side.BUY), new Order("11", "user2", 7.1, 3.1, Side.BUY)));
+        assertEquals(Arrays.asList("7.1 kg for £3.10", "4.5 kg for £2.80"), orderBookSide.getSummary());
+
+        orderBookSide.cancelOrders(Arrays.asList(new Order("11", "user2", 7.1, 3.1, Side.BUY)));
+        assertEquals(Arrays.asList("4.5 kg for £2.80"), orderBookSide.getSummary());
+    }
+
+    @Test
+    public void exceptionCarriesResult() {
+        try {
+            orderBookSide.addOrder(order1);
+            fail("Expected OrderBookException");
+        }
+        catch (OrderBookException e) {
+            assertEquals(OrderResult.DUPLICATE_ORDER, e.getResult());
+        }
+        try {
+            orderBookSide.cancelOrder(new Order("XXX", "user", 1.2, 3.5, Side.SELL));
+            fail("Expected OrderBookException");
+        }
+        catch (OrderBookException e) {
+            assertEquals(OrderResult.UNKNOWN_ORDER, e.getResult());
+        }
+    }
+
+    @Test
+    public void eagerStrategyByDefault() {
+        assertEquals(SummaryStrategy.EAGER, orderBookSide.getSummaryStrategy());
+    }
+
+    @Test
+    public void lazySummaryBuiltOnRead() throws Exception{
+        for( SummaryMode summaryMode : SummaryMode.values()){
+            final OrderBookSideImpl orderBookSide = new OrderBookSideImpl(Side.SELL, summaryMode, SummaryStrategy.LAZY, new HashMap<>(), new HashMap<>());
+            orderBookSide.addOrder(order1);
+            orderBookSide.addOrder(order2);
+            final List<String> summary = orderBookSide.getSummary();
+            assertEquals(Arrays.asList("4.2 kg for £2.95", "2.5 kg for £2.99"), summary);
+            // unchanged book returns the same summary without rebuilding
+            assertSame(summary, orderBookSide.getSummary());
+
+            orderBookSide.cancelOrder(order2);
+            assertEquals(Arrays.asList("2.5 kg for £2.99"), orderBookSide.getSummary());
+        }
+    }
+
+    @Test
+    public void coalescedSummaryRebuiltAtMostOncePerInterval() throws Exception{
+        final long[] now = {0};
+        final OrderBookSideImpl orderBookSide = new OrderBookSideImpl(Side.SELL, SummaryMode.REBUILD,
+                SummaryStrategy.coalesced(10, TimeUnit.MILLISECONDS), new HashMap<>(), new HashMap<>());
+        orderBookSide.setNanoClock(() -> now[0]);
+
+        orderBookSide.addOrder(order1);
+        assertEquals(Arrays.asList("2.5 kg for £2.99"), orderBookSide.getSummary());
+
+        now[0] += TimeUnit.MILLISECONDS.toNanos(5);
+        orderBookSide.addOrder(order2);
+        // within the interval the previous summary is returned
+        assertEquals(Arrays.asList("2.5 kg for £2.99"), orderBookSide.getSummary());
+
+        now[0] += TimeUnit.MILLISECONDS.toNanos(5);
+        assertEquals(Arrays.asList("4.2 kg for £2.95", "2.5 kg for £2.99"), orderBookSide.getSummary());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void coalescedRequiresPositiveInterval() {
+        SummaryStrategy.coalesced(0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructorRequiresSummaryStrategy() {
+        new OrderBookSideImpl(Side.BUY, SummaryMode.REBUILD, LevelIndex.HASHED, null);
+    }
+
 }
\ No newline at end of file
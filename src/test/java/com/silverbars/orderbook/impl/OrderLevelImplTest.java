@@ -35,6 +35,12 @@ public class OrderLevelImplTest {
         assertEquals(OrderLevel.getPriceAsBigDecimal(PRICE), orderLevel.getPrice());
     }
 
+    @Test
+    public void getTicks() {
+        assertEquals(32, orderLevel.getQuantityTicks());
+        assertEquals(250, orderLevel.getPriceTicks());
+    }
+
     @Test( expected = NullPointerException.class)
     public void addOrderWithNullOrder() {
         orderLevel.addOrder(null);
@@ -81,4 +87,56 @@ public class OrderLevelImplTest {
     public void removeOrderWIthTooHighQuantity(){
         orderLevel.removeOrder( new Order("1", "user1", 3.3, PRICE, Side.SELL));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void summaryLineCachedUntilQuantityChanges() {
+        final SummaryLineEncoder encoder = new SummaryLineEncoder();
+        final String line = orderLevel.getSummaryLine(encoder);
+        assertEquals("3.2 kg for £2.50", line);
+        assertSame(line, orderLevel.getSummaryLine(encoder));
+
+        orderLevel.addOrder(new Order("2", "user1", 1.0, PRICE, Side.SELL));
+        assertEquals("4.2 kg for £2.50", orderLevel.getSummaryLine(encoder));
+        orderLevel.removeOrder(new Order("2", "user1", 1.0, PRICE, Side.SELL));
+        assertEquals("3.2 kg for £2.50", orderLevel.getSummaryLine(encoder));
+    }
+
+    @Test
+    public void ordersFilledInTimePriority() {
+        final Order order1 = new Order("1", "user2", 1.0, PRICE, Side.SELL);
+        orderLevel.addOrder(order1);
+        assertSame(order0, orderLevel.getFirstOrder());
+
+        // partly filled order keeps its place
+        final Order remaining = orderLevel.fillFirstOrder(12);
+        assertEquals("0", remaining.getOrderId());
+        assertEquals(20, remaining.getQuantityTicks());
+        assertSame(remaining, orderLevel.getFirstOrder());
+        assertEquals(30, orderLevel.getQuantityTicks());
+
+        assertNull(orderLevel.fillFirstOrder(20));
+        assertSame(order1, orderLevel.getFirstOrder());
+        assertEquals(10, orderLevel.getQuantityTicks());
+    }
+
+    @Test
+    public void removedOrderLeavesQueue() {
+        final Order order1 = new Order("1", "user2", 1.0, PRICE, Side.SELL);
+        orderLevel.addOrder(order1);
+        orderLevel.removeOrder(order0);
+        assertSame(order1, orderLevel.getFirstOrder());
+        orderLevel.removeOrder(order1);
+        assertNull(orderLevel.getFirstOrder());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fillMoreThanFirstOrder() {
+        orderLevel.addOrder(new Order("1", "user2", 1.0, PRICE, Side.SELL));
+        orderLevel.fillFirstOrder(33);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fillEmptyLevel() {
+        new OrderLevelImpl(PRICE).fillFirstOrder(1);
+    }
+}
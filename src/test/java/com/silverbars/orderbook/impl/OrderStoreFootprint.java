@@ -0,0 +1,61 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.Side;
+
+import java.util.HashMap;
+import java.util.function.Supplier;
+
+/**
+ * Measures the retained heap of each OrderStorage layout, and the direct memory held by OFF_HEAP. Not a unit test - run manually with a large heap, e.g.
+ *
+ * java -Xmx4g -cp target/classes:target/test-classes:&lt;dependencies&gt; com.silverbars.orderbook.impl.OrderStoreFootprint 1000000 10000000
+ *
+ * The order id and user id Strings are created up front and kept reachable for the whole run, so the reported figures are
+ * the overhead of each layout on top of the ids it is given. Results are recorded in docs/heap-footprint.md.
+ */
+public class OrderStoreFootprint {
+    private final static int USERS = 1_000;
+    private final static int PRICE_LEVELS = 100;
+
+    public static void main(String[] args) {
+        for( String arg : args){
+            final int orderCount = Integer.parseInt(arg);
+            final String[] orderIds = new String[orderCount];
+            for( int i = 0; i < orderCount; i++){
+                orderIds[i] = "order-" + i;
+            }
+            final String[] userIds = new String[USERS];
+            for( int i = 0; i < USERS; i++){
+                userIds[i] = "user-" + i;
+            }
+            measure("BOXED", () -> new BoxedOrderStore(new HashMap<>()), orderIds, userIds);
+            measure("PRIMITIVE", () -> new PrimitiveOrderStore(1024), orderIds, userIds);
+            measure("PRIMITIVE presized", () -> new PrimitiveOrderStore(orderCount), orderIds, userIds);
+            measure("OFF_HEAP", () -> new OffHeapOrderStore(1024), orderIds, userIds);
+            if( orderIds.length != orderCount || userIds.length != USERS){
+                throw new IllegalStateException("ids must stay reachable until measured");
+            }
+        }
+    }
+
+    private static void measure(final String layout, final Supplier<OrderStore> storeFactory, final String[] orderIds, final String[] userIds){
+        final long before = usedHeap();
+        final OrderStore orderStore = storeFactory.get();
+        for( int i = 0; i < orderIds.length; i++){
+            orderStore.add(new Order(orderIds[i], userIds[i % USERS], 1 + (i % 50), 1 + (i % PRICE_LEVELS) / 100.0, Side.SELL));
+        }
+        final long retained = usedHeap() - before;
+        final long offHeap = orderStore instanceof OffHeapOrderStore ? ((OffHeapOrderStore) orderStore).getOffHeapBytes() : 0;
+        System.out.printf("%-18s %,12d orders %,14d bytes %6.1f bytes/order %,14d off-heap bytes%n",
+                layout, orderStore.size(), retained, (double) retained / orderIds.length, offHeap);
+    }
+
+    private static long usedHeap(){
+        final Runtime runtime = Runtime.getRuntime();
+        for( int i = 0; i < 5; i++){
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
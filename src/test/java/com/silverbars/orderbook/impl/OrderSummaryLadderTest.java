@@ -0,0 +1,90 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Side;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OrderSummaryLadderTest {
+    private final static BigDecimal PRICE_1 = OrderLevel.getPriceAsBigDecimal(2.95);
+    private final static BigDecimal PRICE_2 = OrderLevel.getPriceAsBigDecimal(2.99);
+    private final static BigDecimal PRICE_3 = OrderLevel.getPriceAsBigDecimal(3.1);
+
+    private OrderSummaryLadder sellLadder;
+
+    @Before
+    public void setUp() throws Exception {
+        sellLadder = new OrderSummaryLadder(Side.SELL);
+        sellLadder.update(PRICE_2, "line2");
+        sellLadder.update(PRICE_3, "line3");
+        sellLadder.update(PRICE_1, "line1");
+    }
+
+    @Test
+    public void sellSideAscending() {
+        assertEquals(Arrays.asList("line1", "line2", "line3"), sellLadder.toList());
+    }
+
+    @Test
+    public void buySideDescending() {
+        final OrderSummaryLadder buyLadder = new OrderSummaryLadder(Side.BUY);
+        buyLadder.update(PRICE_2, "line2");
+        buyLadder.update(PRICE_3, "line3");
+        buyLadder.update(PRICE_1, "line1");
+        assertEquals(Arrays.asList("line3", "line2", "line1"), buyLadder.toList());
+    }
+
+    @Test
+    public void replaceLine() {
+        sellLadder.update(PRICE_2, "updated");
+        assertEquals(Arrays.asList("line1", "updated", "line3"), sellLadder.toList());
+        assertEquals(3, sellLadder.size());
+    }
+
+    @Test
+    public void removeLine() {
+        sellLadder.update(PRICE_2, null);
+        assertEquals(Arrays.asList("line1", "line3"), sellLadder.toList());
+        assertEquals(2, sellLadder.size());
+    }
+
+    @Test
+    public void removeUnknownPriceIgnored() {
+        sellLadder.update(OrderLevel.getPriceAsBigDecimal(1.0), null);
+        assertEquals(3, sellLadder.size());
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        final OrderSummaryLadder ladder = new OrderSummaryLadder(Side.SELL);
+        for( int i = 100; i > 0; i--){
+            ladder.update(BigDecimal.valueOf(i, 2), "line" + i);
+        }
+        final List<String> summary = ladder.toList();
+        assertEquals(100, summary.size());
+        assertEquals("line1", summary.get(0));
+        assertEquals("line100", summary.get(99));
+    }
+
+    @Test
+    public void toListIsSnapshot() {
+        final List<String> summary = sellLadder.toList();
+        sellLadder.update(PRICE_1, null);
+        assertEquals(3, summary.size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void cannotModifySummary() {
+        sellLadder.toList().add("Cannot do this");
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void updateRequiresPrice() {
+        sellLadder.update(null, "line");
+    }
+}
@@ -0,0 +1,182 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.Side;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import java.util.ArrayList;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PrimitiveOrderStoreTest {
+    private final static Order order1 = new Order("1", "user1", 2.5, 2.99, Side.SELL);
+    private final static Order order2 = new Order("2", "user2", 4.2, 2.95, Side.SELL);
+
+    private PrimitiveOrderStore orderStore;
+    private OrderRecord record;
+
+    @Before
+    public void setUp() throws Exception {
+        orderStore = new PrimitiveOrderStore(2);
+        record = new OrderRecord();
+        orderStore.add(order1);
+        orderStore.add(order2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidExpectedOrders() {
+        new PrimitiveOrderStore(0);
+    }
+
+    @Test
+    public void contains() {
+        assertTrue(orderStore.contains("1"));
+        assertTrue(orderStore.contains("2"));
+        assertFalse(orderStore.contains("3"));
+        assertEquals(2, orderStore.size());
+    }
+
+    @Test
+    public void remove() {
+        assertTrue(orderStore.remove("1", record));
+        assertEquals("1", record.orderId);
+        assertEquals("user1", record.userId);
+        assertEquals(299, record.priceTicks);
+        assertEquals(25, record.quantityTicks);
+
+        assertFalse(orderStore.contains("1"));
+        assertTrue(orderStore.contains("2"));
+        assertEquals(1, orderStore.size());
+    }
+
+    @Test
+    public void removeUnknownOrder() {
+        assertFalse(orderStore.remove("3", record));
+        assertNull(record.orderId);
+        assertEquals(2, orderStore.size());
+    }
+
+    @Test
+    public void growsAndReusesSlots() {
+        for( int i = 3; i < 1000; i++){
+            orderStore.add(new Order(String.valueOf(i), "user", 1, 1, Side.BUY));
+        }
+        assertEquals(999, orderStore.size());
+        for( int i = 3; i < 1000; i += 2){
+            assertTrue(orderStore.remove(String.valueOf(i), record));
+        }
+        for( int i = 3; i < 1000; i += 2){
+            assertFalse(orderStore.contains(String.valueOf(i)));
+            orderStore.add(new Order(String.valueOf(i), "user", 1, 1, Side.BUY));
+        }
+        for( int i = 1; i < 1000; i++){
+            assertTrue(orderStore.contains(String.valueOf(i)));
+        }
+        assertEquals(999, orderStore.size());
+    }
+
+    @Test
+    public void matchesHashSetUnderRandomAddAndRemove() {
+        final PrimitiveOrderStore store = new PrimitiveOrderStore(16);
+        final Set<String> expected = new HashSet<>();
+        final Random random = new Random(42);
+        for( int i = 0; i < 100_000; i++){
+            final String orderId = "order" + random.nextInt(2_000);
+            if( expected.contains(orderId)){
+                assertTrue(store.remove(orderId, record));
+                assertEquals(orderId, record.orderId);
+                expected.remove(orderId);
+            }
+            else {
+                assertFalse(store.contains(orderId));
+                store.add(new Order(orderId, "user", 1, 1, Side.BUY));
+                expected.add(orderId);
+            }
+            assertEquals(expected.size(), store.size());
+        }
+        for( String orderId : expected){
+            assertTrue(store.contains(orderId));
+        }
+    }
+
+    @Test
+    public void forEachVisitsRestingOrders() {
+        orderStore.remove("1", record);
+        final List<String> visited = new ArrayList<>();
+        orderStore.forEach(new OrderRecord(), order -> visited.add(order.orderId + ":" + order.userId + ":" + order.priceTicks + ":" + order.quantityTicks));
+        assertEquals(1, visited.size());
+        assertTrue(visited.get(0).startsWith("2:"));
+    }
+
+    @Test
+    public void get() {
+        assertTrue(orderStore.get("2", record));
+        assertEquals("user2", record.userId);
+        assertEquals(295, record.priceTicks);
+        assertEquals(42, record.quantityTicks);
+        assertTrue(orderStore.contains("2"));
+        orderStore.remove("2", record);
+        assertFalse(orderStore.get("2", record));
+    }
+
+    @Test
+    public void getOrderIdsInOrderAdded() {
+        orderStore.add(new Order("3", "user1", 1, 1, Side.SELL));
+        orderStore.add(new Order("4", "user1", 1, 1, Side.SELL));
+        assertEquals(Arrays.asList("1", "3", "4"), orderStore.getOrderIds("user1"));
+        assertEquals(Arrays.asList("2"), orderStore.getOrderIds("user2"));
+        assertTrue(orderStore.getOrderIds("user3").isEmpty());
+
+        // first, middle and last orders of a user
+        orderStore.remove("3", record);
+        assertEquals(Arrays.asList("1", "4"), orderStore.getOrderIds("user1"));
+        orderStore.remove("1", record);
+        assertEquals(Arrays.asList("4"), orderStore.getOrderIds("user1"));
+        orderStore.add(new Order("5", "user1", 1, 1, Side.SELL));
+        assertEquals(Arrays.asList("4", "5"), orderStore.getOrderIds("user1"));
+        orderStore.remove("5", record);
+        orderStore.remove("4", record);
+        assertTrue(orderStore.getOrderIds("user1").isEmpty());
+        assertEquals(Arrays.asList("2"), orderStore.getOrderIds("user2"));
+    }
+
+    @Test
+    public void getOrderIdsMatchesUserOrderIndexUnderRandomAddAndRemove() {
+        final PrimitiveOrderStore store = new PrimitiveOrderStore(16);
+        final Map<String, Set<String>> expected = new HashMap<>();
+        final Map<String, String> userOfOrder = new HashMap<>();
+        final Random random = new Random(7);
+        for( int i = 0; i < 50_000; i++){
+            final String orderId = "order" + random.nextInt(1_000);
+            final String userId = userOfOrder.get(orderId);
+            if( userId != null){
+                assertTrue(store.remove(orderId, record));
+                assertEquals(userId, record.userId);
+                userOfOrder.remove(orderId);
+                expected.get(userId).remove(orderId);
+            }
+            else {
+                final String newUserId = "user" + random.nextInt(50);
+                store.add(new Order(orderId, newUserId, 1, 1, Side.BUY));
+                userOfOrder.put(orderId, newUserId);
+                expected.computeIfAbsent(newUserId, id -> new LinkedHashSet<>()).add(orderId);
+            }
+        }
+        for( int user = 0; user < 50; user++){
+            final String userId = "user" + user;
+            assertEquals(new ArrayList<>(expected.getOrDefault(userId, Collections.emptySet())), store.getOrderIds(userId));
+        }
+    }
+}
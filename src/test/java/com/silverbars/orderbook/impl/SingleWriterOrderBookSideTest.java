@@ -0,0 +1,257 @@
+package com.silverbars.orderbook.impl;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.Trade;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class SingleWriterOrderBookSideTest {
+    private final static Order order1 = new Order("1", "userId1", 2.5, 2.99, Side.SELL);
+    private final static Order order2 = new Order("2", "userId2", 4.2, 2.95, Side.SELL);
+    private final static Order order3 = new Order("3", "userId2", 1.2, 2.99, Side.SELL);
+
+    private SingleWriterOrderBookSide orderBookSide;
+
+    @Before
+    public void setUp() throws Exception {
+        orderBookSide = new SingleWriterOrderBookSide(new OrderBookSideImpl(Side.SELL, SummaryMode.INCREMENTAL));
+        orderBookSide.addOrder(order1);
+        orderBookSide.addOrder(order2);
+        orderBookSide.addOrder(order3);
+    }
+
+    @After
+    public void tearDown() {
+        orderBookSide.close();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructorRequiresDelegate() {
+        new SingleWriterOrderBookSide(null);
+    }
+
+    @Test
+    public void getSide() {
+        assertEquals(Side.SELL, orderBookSide.getSide());
+    }
+
+    @Test
+    public void summaryPublishedBeforeAddReturns() {
+        final List<String> summary = orderBookSide.getSummary();
+        assertEquals(2, summary.size());
+        assertEquals("4.2 kg for £2.95", summary.get(0));
+        assertEquals("3.7 kg for £2.99", summary.get(1));
+    }
+
+    @Test
+    public void cancelOrder() throws Exception {
+        orderBookSide.cancelOrder(order3);
+        final List<String> summary = orderBookSide.getSummary();
+        assertEquals(2, summary.size());
+        assertEquals("2.5 kg for £2.99", summary.get(1));
+    }
+
+    @Test(expected = OrderBookException.class)
+    public void addPreviouslySubmittedOrder() throws Exception {
+        orderBookSide.addOrder(order1);
+    }
+
+    @Test
+    public void levelAndOrderCountsFromDelegate() {
+        assertEquals(2, orderBookSide.getLevelCount());
+        assertEquals(3, orderBookSide.getOrderCount());
+    }
+
+    @Test
+    public void cancelOrderById() throws Exception {
+        assertEquals(order3, orderBookSide.cancelOrder("3"));
+        assertEquals("2.5 kg for £2.99", orderBookSide.getSummary().get(1));
+    }
+
+    @Test(expected = OrderBookException.class)
+    public void cancelUnknownOrderById() throws Exception {
+        orderBookSide.cancelOrder("XXX");
+    }
+
+    @Test(expected = OrderBookException.class)
+    public void cancelUnknownOrder() throws Exception {
+        orderBookSide.cancelOrder(new Order("XXX", "user", 1.2, 3.5, Side.SELL));
+    }
+
+    @Test
+    public void queriesDelegated() {
+        assertEquals(2, orderBookSide.getLevels(10).size());
+        assertEquals(2, orderBookSide.getDepth().size());
+        assertEquals(1, orderBookSide.getDepth(1).size());
+        assertEquals(3, orderBookSide.getOrders().size());
+        assertEquals(OrderLevel.getPriceAsBigDecimal(2.95), orderBookSide.getBestLevel().get().getPrice());
+    }
+
+    @Test
+    public void cancelAllForUserAppliedByWriter() {
+        assertEquals(Arrays.asList(order2, order3), orderBookSide.getOrdersForUser("userId2"));
+        assertEquals(Arrays.asList(order2, order3), orderBookSide.cancelAllForUser("userId2"));
+        assertEquals(Arrays.asList("2.5 kg for £2.99"), orderBookSide.getSummary());
+    }
+
+    @Test
+    public void matchAppliedByWriter() {
+        final List<Trade> trades = new ArrayList<>();
+        assertTrue(orderBookSide.supportsMatching());
+        assertEquals(8, orderBookSide.match(new Order("10", "user9", 5.0, 2.95, Side.BUY), trades));
+        assertEquals(Arrays.asList(new Trade("2", "10", Side.BUY, 295, 42)), trades);
+        assertEquals(Arrays.asList("3.7 kg for £2.99"), orderBookSide.getSummary());
+    }
+
+    @Test
+    public void tryAddAndCancelReturnResults() {
+        assertEquals(OrderResult.DUPLICATE_ORDER, orderBookSide.tryAddOrder(order1));
+        assertEquals(OrderResult.CANCELLED, orderBookSide.tryCancelOrder(order1));
+        assertEquals(OrderResult.UNKNOWN_ORDER, orderBookSide.tryCancelOrder(order1));
+        assertEquals(Arrays.asList("4.2 kg for £2.95", "1.2 kg for £2.99"), orderBookSide.getSummary());
+    }
+
+    @Test
+    public void tryAddAfterCloseRejected() {
+        orderBookSide.close();
+        assertEquals(OrderResult.REJECTED, orderBookSide.tryAddOrder(new Order("4", "user", 1.2, 3.5, Side.SELL)));
+    }
+
+    @Test(expected = OrderBookException.class)
+    public void addAfterClose() throws Exception {
+        orderBookSide.close();
+        orderBookSide.addOrder(new Order("4", "user", 1.2, 3.5, Side.SELL));
+    }
+
+    @Test
+    public void concurrentWriters() throws Exception {
+        final int threads = 4;
+        final int ordersPerThread = 500;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> results = new ArrayList<>();
+            for( int t = 0; t < threads; t++){
+                final int thread = t;
+                results.add(executor.submit(() -> {
+                    for( int i = 0; i < ordersPerThread; i++){
+                        final Order order = new Order(thread + "-" + i, "user", 1, 3.0, Side.SELL);
+                        orderBookSide.addOrder(order);
+                        if( i % 2 == 0){
+                            orderBookSide.cancelOrder(order);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for( Future<?> result : results){
+                result.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        final List<String> summary = orderBookSide.getSummary();
+        assertEquals(3, summary.size());
+        assertEquals("1000.0 kg for £3.00", summary.get(2));
+    }
+
+    @Test
+    public void batchAddAndCancel() {
+        final Order order4 = new Order("4", "user1", 5.5, 2.95, Side.SELL);
+        assertEquals(Arrays.asList(OrderResult.ADDED, OrderResult.DUPLICATE_ORDER), orderBookSide.addOrders(Arrays.asList(order4, order1)));
+        assertEquals("9.7 kg for £2.95", orderBookSide.getSummary().get(0));
+
+        assertEquals(Arrays.asList(OrderResult.CANCELLED, OrderResult.CANCELLED), orderBookSide.cancelOrders(Arrays.asList(order2, order4)));
+        assertEquals(Arrays.asList("3.7 kg for £2.99"), orderBookSide.getSummary());
+    }
+
+    @Test
+    public void batchAfterClose() {
+        orderBookSide.close();
+        assertEquals(Arrays.asList(OrderResult.REJECTED, OrderResult.REJECTED),
+                orderBookSide.addOrders(Arrays.asList(new Order("4", "user", 1.2, 3.5, Side.SELL), new Order("5", "user", 1.2, 3.5, Side.SELL))));
+    }
+
+    @Test(timeout = 5000)
+    public void writerFailureFailsPendingAndLaterMutations() throws Exception {
+        final Error failure = new Error("writer failure");
+        final SingleWriterOrderBookSide failing = new SingleWriterOrderBookSide(new OrderBookSideImpl(Side.SELL) {
+            @Override
+            public void addOrder(final Order order) throws OrderBookException {
+                if( order.getOrderId().equals("4")){
+                    throw failure;
+                }
+                super.addOrder(order);
+            }
+        });
+        try {
+            failing.addOrder(order1);
+            try {
+                failing.addOrder(new Order("4", "user", 1.2, 3.5, Side.SELL));
+                fail("Expected the writer failure to be thrown");
+            }
+            catch (OrderBookException e) {
+                assertSame(failure, e.getCause());
+            }
+            try {
+                failing.addOrder(order2);
+                fail("Expected add after the writer failed to be rejected");
+            }
+            catch (OrderBookException e) {
+                assertEquals("OrderBookSide writer failed", e.getMessage());
+                assertSame(failure, e.getCause());
+            }
+            assertEquals(OrderResult.REJECTED, failing.tryAddOrder(order3));
+            assertEquals(Arrays.asList("2.5 kg for £2.99"), failing.getSummary());
+        }
+        finally {
+            failing.close();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void mutationAppliedBeforeWriterFailureKeepsItsResult() throws Exception {
+        final Error failure = new Error("writer failure");
+        final AtomicBoolean failSummary = new AtomicBoolean();
+        final SingleWriterOrderBookSide failing = new SingleWriterOrderBookSide(new OrderBookSideImpl(Side.SELL) {
+            @Override
+            public List<String> getSummary() {
+                if( failSummary.getAndSet(false)){
+                    throw failure;
+                }
+                return super.getSummary();
+            }
+        });
+        try {
+            failSummary.set(true);
+            // applied to the delegate before publishing its batch failed
+            failing.addOrder(order1);
+            assertTrue(failing.containsOrder("1"));
+            assertEquals(Arrays.asList("2.5 kg for £2.99"), failing.getSummary());
+            try {
+                failing.addOrder(order2);
+                fail("Expected add after the writer failed to be rejected");
+            }
+            catch (OrderBookException e) {
+                assertSame(failure, e.getCause());
+            }
+        }
+        finally {
+            failing.close();
+        }
+    }
+}
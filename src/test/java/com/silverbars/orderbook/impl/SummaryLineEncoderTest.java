@@ -0,0 +1,41 @@
+package com.silverbars.orderbook.impl;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SummaryLineEncoderTest {
+    private final SummaryLineEncoder encoder = new SummaryLineEncoder();
+
+    @Test
+    public void encode() {
+        assertEquals("2.5 kg for £2.99", encoder.encode(25, 299));
+        assertEquals("0.1 kg for £0.05", encoder.encode(1, 5));
+        assertEquals("0.0 kg for £0.00", encoder.encode(0, 0));
+        assertEquals("1234.0 kg for £100.00", encoder.encode(12340, 10000));
+        assertEquals("-0.5 kg for £-1.25", encoder.encode(-5, -125));
+    }
+
+    @Test
+    public void encodeExtremes() {
+        assertEquals(format(Long.MAX_VALUE, Long.MIN_VALUE), encoder.encode(Long.MAX_VALUE, Long.MIN_VALUE));
+        assertEquals(format(Long.MIN_VALUE, Long.MAX_VALUE), encoder.encode(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void matchesStringFormat() {
+        final Random random = new Random(7);
+        for( int i = 0; i < 10_000; i++){
+            final long quantityTicks = random.nextInt(1_000_000);
+            final long priceTicks = random.nextInt(1_000_000);
+            assertEquals(format(quantityTicks, priceTicks), encoder.encode(quantityTicks, priceTicks));
+        }
+    }
+
+    private static String format(final long quantityTicks, final long priceTicks){
+        return String.format("%.1f kg for £%.2f", BigDecimal.valueOf(quantityTicks, 1), BigDecimal.valueOf(priceTicks, 2));
+    }
+}
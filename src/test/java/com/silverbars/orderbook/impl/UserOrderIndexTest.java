@@ -0,0 +1,47 @@
+package com.silverbars.orderbook.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UserOrderIndexTest {
+    private UserOrderIndex index;
+
+    @Before
+    public void setUp() {
+        index = new UserOrderIndex();
+        index.add("user1", "3");
+        index.add("user1", "1");
+        index.add("user2", "2");
+    }
+
+    @Test
+    public void orderIdsInOrderAdded() {
+        assertEquals(Arrays.asList("3", "1"), index.getOrderIds("user1"));
+        assertEquals(Arrays.asList("2"), index.getOrderIds("user2"));
+        assertTrue(index.getOrderIds("user3").isEmpty());
+    }
+
+    @Test
+    public void emptyUserDropped() {
+        index.remove("user2", "2");
+        assertTrue(index.getOrderIds("user2").isEmpty());
+        assertEquals(1, index.size());
+        // unknown ids are ignored
+        index.remove("user1", "2");
+        index.remove("user3", "2");
+        assertEquals(Arrays.asList("3", "1"), index.getOrderIds("user1"));
+    }
+
+    @Test
+    public void orderIdsAreCopied() {
+        final List<String> orderIds = index.getOrderIds("user1");
+        index.remove("user1", "3");
+        assertEquals(Arrays.asList("3", "1"), orderIds);
+        assertEquals(Arrays.asList("1"), index.getOrderIds("user1"));
+    }
+}
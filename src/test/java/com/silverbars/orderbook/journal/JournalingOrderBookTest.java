@@ -0,0 +1,176 @@
+package com.silverbars.orderbook.journal;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.impl.LiveOrderBook;
+import com.silverbars.orderbook.impl.OrderBookSideImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class JournalingOrderBookTest {
+    private final static Order order1 = new Order("1", "userId1", 2.5, 2.99, Side.SELL);
+    private final static Order order2 = new Order("2", "userId2", 4.2, 2.95, Side.SELL);
+    private final static Order order3 = new Order("3", "userId2", 1.2, 3.10, Side.BUY);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void onlySuccessfulOperationsJournalled() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try( JournalingOrderBook orderBook = JournalingOrderBook.open(createOrderBook(), directory)){
+            orderBook.addOrder(order1);
+            try {
+                orderBook.addOrder(order1);
+                fail("Duplicate order should be rejected");
+            }
+            catch (OrderBookException e) {
+                assertEquals(OrderResult.DUPLICATE_ORDER, e.getResult());
+            }
+            assertEquals(Arrays.asList(OrderResult.ADDED, OrderResult.DUPLICATE_ORDER, OrderResult.ADDED),
+                    orderBook.addOrders(Arrays.asList(order2, order1, order3)));
+            assertEquals(Arrays.asList(OrderResult.CANCELLED, OrderResult.UNKNOWN_ORDER),
+                    orderBook.cancelOrders(Arrays.asList(order2, order2)));
+            orderBook.cancelOrder(order3);
+        }
+
+        final List<String> events = new ArrayList<>();
+        OrderJournal.read(directory, (event, order) -> events.add(event + ":" + order.getOrderId()));
+        assertEquals(Arrays.asList("ADD:1", "ADD:2", "ADD:3", "CANCEL:2", "CANCEL:3"), events);
+    }
+
+    @Test
+    public void onlySuccessfulTryOperationsJournalled() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try( JournalingOrderBook orderBook = JournalingOrderBook.open(createOrderBook(), directory)){
+            assertEquals(OrderResult.ADDED, orderBook.tryAddOrder(order1));
+            assertEquals(OrderResult.DUPLICATE_ORDER, orderBook.tryAddOrder(order1));
+            assertEquals(OrderResult.UNKNOWN_ORDER, orderBook.tryCancelOrder(order2));
+            assertEquals(OrderResult.CANCELLED, orderBook.tryCancelOrder(order1));
+        }
+
+        final List<String> events = new ArrayList<>();
+        OrderJournal.read(directory, (event, order) -> events.add(event + ":" + order.getOrderId()));
+        assertEquals(Arrays.asList("ADD:1", "CANCEL:1"), events);
+    }
+
+    @Test
+    public void cancelsByUserAndOrderIdJournalled() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try( JournalingOrderBook orderBook = JournalingOrderBook.open(createOrderBook(), directory)){
+            orderBook.addOrders(Arrays.asList(order1, order2, order3));
+            assertEquals(Arrays.asList(order2, order3), orderBook.getOrdersForUser(order2.getUserId()));
+            assertEquals(2, orderBook.cancelAllForUser(order2.getUserId()).size());
+            assertEquals(order1, orderBook.cancelOrder(order1.getOrderId()));
+        }
+
+        final List<String> events = new ArrayList<>();
+        OrderJournal.read(directory, (event, order) -> events.add(event + ":" + order.getOrderId()));
+        assertEquals(Arrays.asList("ADD:1", "ADD:2", "ADD:3", "CANCEL:2", "CANCEL:3", "CANCEL:1"), events);
+    }
+
+    @Test
+    public void reopenedOrderBookIsRebuilt() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try( JournalingOrderBook orderBook = JournalingOrderBook.open(createOrderBook(), directory)){
+            orderBook.addOrders(Arrays.asList(order1, order2, order3));
+            orderBook.cancelOrder(order2);
+        }
+
+        try( JournalingOrderBook orderBook = JournalingOrderBook.open(createOrderBook(), directory)){
+            assertEquals(Arrays.asList("2.5 kg for £2.99"), orderBook.getSummary(Side.SELL));
+            assertEquals(1, orderBook.getDepth(Side.BUY).size());
+            assertEquals(0, orderBook.getDepth(Side.BUY, 0).size());
+            assertEquals(Optional.of(new BigDecimal("2.99")), orderBook.getBestPrice(Side.SELL));
+            assertEquals(new BigDecimal("2.5"), orderBook.getBestLevel(Side.SELL).get().getQuantity());
+            assertEquals(Optional.of(new BigDecimal("-0.11")), orderBook.getSpread());
+            orderBook.cancelOrder(order1);
+        }
+
+        final OrderBook rebuilt = createOrderBook();
+        assertEquals(5, OrderJournal.replay(directory, rebuilt));
+        assertTrue(rebuilt.getSummary(Side.SELL).isEmpty());
+    }
+
+    @Test
+    public void reopenedFromSnapshotAndJournalTail() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try( JournalingOrderBook orderBook = JournalingOrderBook.open(createOrderBook(), directory)){
+            orderBook.addOrders(Arrays.asList(order1, order2));
+            orderBook.snapshot();
+            orderBook.addOrder(order3);
+            orderBook.cancelOrder(order1);
+        }
+
+        final OrderBookSnapshot snapshot = OrderBookSnapshot.readLatest(directory).get();
+        assertEquals(2, snapshot.getOrders(Side.SELL).size());
+        final List<String> tail = new ArrayList<>();
+        OrderJournal.read(directory, snapshot.getJournalPosition(), (event, order) -> tail.add(event + ":" + order.getOrderId()));
+        assertEquals(Arrays.asList("ADD:3", "CANCEL:1"), tail);
+
+        try( JournalingOrderBook orderBook = JournalingOrderBook.open(createOrderBook(), directory)){
+            assertEquals(Arrays.asList("4.2 kg for £2.95"), orderBook.getSummary(Side.SELL));
+            assertEquals(Arrays.asList("1.2 kg for £3.10"), orderBook.getSummary(Side.BUY));
+            assertEquals(1, orderBook.getOrders(Side.BUY).size());
+        }
+    }
+
+    @Test
+    public void scheduledSnapshots() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try( JournalingOrderBook orderBook = JournalingOrderBook.open(createOrderBook(), directory)){
+            orderBook.addOrder(order1);
+            orderBook.scheduleSnapshots(10, TimeUnit.MILLISECONDS);
+            for( int i = 0; i < 500 && !OrderBookSnapshot.readLatest(directory).isPresent(); i++){
+                Thread.sleep(10);
+            }
+        }
+        assertEquals(1, OrderBookSnapshot.readLatest(directory).get().getOrders(Side.SELL).size());
+    }
+
+    @Test
+    public void ordersTooLargeToJournalNotAdded() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        final Order longId = new Order("x".repeat(Short.MAX_VALUE + 1), "userId1", 1.0, 2.99, Side.SELL);
+        try( JournalingOrderBook orderBook = JournalingOrderBook.open(createOrderBook(), directory)){
+            try {
+                orderBook.addOrder(longId);
+                fail("Order too large to journal should be rejected");
+            }
+            catch (OrderBookException e) {
+                assertEquals(OrderResult.UNSUPPORTED_ORDER, e.getResult());
+            }
+            assertEquals(OrderResult.UNSUPPORTED_ORDER, orderBook.tryAddOrder(longId));
+            assertEquals(Arrays.asList(OrderResult.ADDED, OrderResult.UNSUPPORTED_ORDER, OrderResult.ADDED),
+                    orderBook.addOrders(Arrays.asList(order1, longId, order2)));
+            assertEquals(Arrays.asList(order2, order1), orderBook.getOrders(Side.SELL));
+        }
+
+        final List<String> events = new ArrayList<>();
+        OrderJournal.read(directory, (event, order) -> events.add(event + ":" + order.getOrderId()));
+        assertEquals(Arrays.asList("ADD:1", "ADD:2"), events);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructorRequiresJournal() {
+        new JournalingOrderBook(createOrderBook(), null);
+    }
+
+    private static OrderBook createOrderBook(){
+        return new LiveOrderBook(new OrderBookSideImpl(Side.SELL), new OrderBookSideImpl(Side.BUY));
+    }
+}
@@ -0,0 +1,144 @@
+package com.silverbars.orderbook.journal;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.Trade;
+import com.silverbars.orderbook.impl.FixedPointOrderBookSide;
+import com.silverbars.orderbook.impl.LiveOrderBook;
+import com.silverbars.orderbook.impl.OrderBookSideImpl;
+import com.silverbars.orderbook.impl.OrderStorage;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class OrderBookSnapshotTest {
+    private final static Order order1 = new Order("1", "userId1", 2.5, 2.99, Side.SELL);
+    private final static Order order2 = new Order("2", "userId2", 4.2, 2.95, Side.SELL);
+    private final static Order order3 = new Order("3", "userId£", 1.2, 3.10, Side.BUY);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private OrderBook orderBook;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = folder.getRoot().toPath();
+        orderBook = new LiveOrderBook(new OrderBookSideImpl(Side.SELL), new OrderBookSideImpl(Side.BUY));
+        orderBook.addOrders(Arrays.asList(order1, order2, order3));
+    }
+
+    @Test
+    public void writeAndRead() throws Exception {
+        final Path file = OrderBookSnapshot.capture(orderBook, 42).write(directory);
+        final OrderBookSnapshot snapshot = OrderBookSnapshot.read(file);
+        assertEquals(42, snapshot.getJournalPosition());
+        assertEquals(orderBook.getDepth(Side.SELL), snapshot.getDepth(Side.SELL));
+        assertEquals(orderBook.getDepth(Side.BUY), snapshot.getDepth(Side.BUY));
+        assertEquals(2, snapshot.getOrders(Side.SELL).size());
+        assertEquals("userId£", snapshot.getOrders(Side.BUY).get(0).getUserId());
+        assertEquals(Side.BUY, snapshot.getOrders(Side.BUY).get(0).getSide());
+    }
+
+    @Test
+    public void restore() throws Exception {
+        OrderBookSnapshot.capture(orderBook, 0).write(directory);
+        // restore into a different OrderBookSide implementation
+        final OrderBook restored = new LiveOrderBook(new FixedPointOrderBookSide(Side.SELL, OrderStorage.PRIMITIVE), new FixedPointOrderBookSide(Side.BUY));
+        OrderBookSnapshot.readLatest(directory).get().restore(restored);
+        assertEquals(orderBook.getSummary(Side.SELL), restored.getSummary(Side.SELL));
+        assertEquals(orderBook.getSummary(Side.BUY), restored.getSummary(Side.BUY));
+    }
+
+    @Test
+    public void restoreKeepsTimePriority() throws Exception {
+        final OrderBook original = new LiveOrderBook(new OrderBookSideImpl(Side.SELL), new OrderBookSideImpl(Side.BUY), trade -> {});
+        // ids added in the reverse of their hash order, behind a better priced order
+        original.addOrders(Arrays.asList(new Order("c", "userId1", 1.0, 2.99, Side.SELL),
+                new Order("b", "userId2", 1.0, 2.99, Side.SELL), new Order("a", "userId3", 1.0, 2.99, Side.SELL),
+                new Order("d", "userId4", 1.0, 2.95, Side.SELL)));
+        // a partly filled order keeps its place
+        original.addOrder(new Order("e", "userId5", 1.5, 3.00, Side.BUY));
+        final OrderBookSnapshot snapshot = OrderBookSnapshot.capture(original, 0);
+        assertEquals(Arrays.asList("c", "b", "a"), snapshot.getOrders(Side.SELL).stream().map(Order::getOrderId).collect(Collectors.toList()));
+
+        final List<Trade> trades = new ArrayList<>();
+        final OrderBook restored = new LiveOrderBook(new OrderBookSideImpl(Side.SELL), new OrderBookSideImpl(Side.BUY), trades::add);
+        snapshot.restore(restored);
+        restored.addOrder(new Order("f", "userId5", 2.5, 3.00, Side.BUY));
+        assertEquals(Arrays.asList("c", "b", "a"), trades.stream().map(Trade::getRestingOrderId).collect(Collectors.toList()));
+        assertEquals(5, trades.get(0).getQuantityTicks());
+    }
+
+    @Test
+    public void longestIdsWritten() throws Exception {
+        final String longestId = "x".repeat(Short.MAX_VALUE);
+        orderBook.addOrder(new Order(longestId, longestId, 1.0, 3.20, Side.BUY));
+        final OrderBookSnapshot snapshot = OrderBookSnapshot.read(OrderBookSnapshot.capture(orderBook, 0).write(directory));
+        assertEquals(longestId, snapshot.getOrders(Side.BUY).get(0).getOrderId());
+    }
+
+    @Test
+    public void idTooLongNotWritten() throws Exception {
+        orderBook.addOrder(new Order("x".repeat(Short.MAX_VALUE + 1), "userId1", 1.0, 3.05, Side.BUY));
+        try {
+            OrderBookSnapshot.capture(orderBook, 0).write(directory);
+            fail("Order id too long to snapshot should not be written");
+        }
+        catch (IOException e) {
+            assertFalse(OrderBookSnapshot.readLatest(directory).isPresent());
+        }
+    }
+
+    @Test(expected = OrderBookException.class)
+    public void restoreIntoNonEmptyOrderBook() throws Exception {
+        OrderBookSnapshot.capture(orderBook, 0).restore(orderBook);
+    }
+
+    @Test
+    public void readLatestAndPrune() throws Exception {
+        assertFalse(OrderBookSnapshot.readLatest(directory).isPresent());
+        OrderBookSnapshot.capture(orderBook, 1L << 32).write(directory);
+        OrderBookSnapshot.capture(orderBook, 7).write(directory);
+        OrderBookSnapshot.capture(orderBook, 9).write(directory);
+        assertEquals(1L << 32, OrderBookSnapshot.readLatest(directory).get().getJournalPosition());
+
+        OrderBookSnapshot.prune(directory, 1);
+        assertEquals(1, Files.list(directory).count());
+        assertEquals(1L << 32, OrderBookSnapshot.readLatest(directory).get().getJournalPosition());
+    }
+
+    @Test(expected = IOException.class)
+    public void readCorruptSnapshot() throws Exception {
+        final Path file = OrderBookSnapshot.capture(orderBook, 0).write(directory);
+        final byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+        OrderBookSnapshot.read(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void readNonSnapshot() throws Exception {
+        final Path file = directory.resolve("snapshot-00000000000000000000.snap");
+        Files.write(file, new byte[16]);
+        OrderBookSnapshot.read(file);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pruneMustKeepASnapshot() throws Exception {
+        OrderBookSnapshot.prune(directory, 0);
+    }
+}
@@ -0,0 +1,156 @@
+package com.silverbars.orderbook.journal;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.impl.LiveOrderBook;
+import com.silverbars.orderbook.impl.OrderBookSideImpl;
+import com.silverbars.orderbook.impl.SummaryMode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OrderJournalTest {
+    private final static Order order1 = new Order("1", "userId1", 2.5, 2.99, Side.SELL);
+    private final static Order order2 = new Order("2", "userId2", 4.2, 2.95, Side.SELL);
+    private final static Order order3 = new Order("3", "userId£", 1.2, 3.10, Side.BUY);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readEventsInAppendOrder() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try( OrderJournal journal = new OrderJournal(directory)){
+            journal.append(JournalEvent.ADD, order1);
+            journal.append(JournalEvent.ADD, order3);
+            journal.append(JournalEvent.CANCEL, order1);
+        }
+
+        final List<JournalEvent> events = new ArrayList<>();
+        final List<Order> orders = new ArrayList<>();
+        final long count = OrderJournal.read(directory, (event, order) -> {
+            events.add(event);
+            orders.add(order);
+        });
+        assertEquals(3, count);
+        assertEquals(Arrays.asList(JournalEvent.ADD, JournalEvent.ADD, JournalEvent.CANCEL), events);
+        assertEquals(Arrays.asList(order1, order3, order1), orders);
+        assertEquals("userId£", orders.get(1).getUserId());
+        assertEquals(order3.getPriceTicks(), orders.get(1).getPriceTicks());
+        assertEquals(order3.getQuantityTicks(), orders.get(1).getQuantityTicks());
+        assertEquals(Side.BUY, orders.get(1).getSide());
+    }
+
+    @Test
+    public void rollsToNewSegments() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try( OrderJournal journal = new OrderJournal(directory, 128, 0)){
+            for( int i = 0; i < 20; i++){
+                journal.append(JournalEvent.ADD, new Order(String.valueOf(i), "user", 1.0, 2.0 + i, Side.SELL));
+            }
+            assertTrue(journal.getSegmentIndex() > 0);
+        }
+        assertEquals(20, OrderJournal.read(directory, (event, order) -> {}));
+    }
+
+    @Test
+    public void reopenedJournalAppendsAfterLastEvent() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try( OrderJournal journal = new OrderJournal(directory, 128, 0)){
+            journal.append(JournalEvent.ADD, order1);
+            journal.append(JournalEvent.ADD, order2);
+        }
+        try( OrderJournal journal = new OrderJournal(directory, 128, 0)){
+            journal.append(JournalEvent.CANCEL, order1);
+        }
+        final List<Order> orders = new ArrayList<>();
+        OrderJournal.read(directory, (event, order) -> orders.add(order));
+        assertEquals(Arrays.asList(order1, order2, order1), orders);
+    }
+
+    @Test
+    public void readFromPosition() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        final long position;
+        try( OrderJournal journal = new OrderJournal(directory, 128, 0)){
+            assertEquals(0, journal.getPosition());
+            for( int i = 0; i < 5; i++){
+                journal.append(JournalEvent.ADD, new Order(String.valueOf(i), "user", 1.0, 2.0, Side.SELL));
+            }
+            position = journal.getPosition();
+            for( int i = 5; i < 10; i++){
+                journal.append(JournalEvent.ADD, new Order(String.valueOf(i), "user", 1.0, 2.0, Side.SELL));
+            }
+            assertTrue(journal.getPosition() >>> 32 > position >>> 32);
+        }
+        final List<String> orderIds = new ArrayList<>();
+        assertEquals(5, OrderJournal.read(directory, position, (event, order) -> orderIds.add(order.getOrderId())));
+        assertEquals(Arrays.asList("5", "6", "7", "8", "9"), orderIds);
+    }
+
+    @Test
+    public void replayRebuildsOrderBook() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try( OrderJournal journal = new OrderJournal(directory)){
+            journal.append(JournalEvent.ADD, order1);
+            journal.append(JournalEvent.ADD, order2);
+            journal.append(JournalEvent.ADD, order3);
+            journal.append(JournalEvent.CANCEL, order2);
+        }
+
+        final OrderBook orderBook = createOrderBook();
+        assertEquals(4, OrderJournal.replay(directory, orderBook));
+        assertEquals(Arrays.asList("2.5 kg for £2.99"), orderBook.getSummary(Side.SELL));
+        assertEquals(Arrays.asList("1.2 kg for £3.10"), orderBook.getSummary(Side.BUY));
+    }
+
+    @Test(expected = OrderBookException.class)
+    public void replayIntoNonEmptyOrderBookFails() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        try( OrderJournal journal = new OrderJournal(directory)){
+            journal.append(JournalEvent.ADD, order1);
+        }
+        final OrderBook orderBook = createOrderBook();
+        orderBook.addOrder(order1);
+        OrderJournal.replay(directory, orderBook);
+    }
+
+    @Test
+    public void emptyJournal() throws Exception {
+        assertEquals(0, OrderJournal.replay(folder.getRoot().toPath().resolve("missing"), createOrderBook()));
+    }
+
+    @Test(expected = IOException.class)
+    public void corruptSegment() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        Files.write(directory.resolve("00000000000000000000.journal"), new byte[]{0, 0, 1, 0, 1});
+        OrderJournal.read(directory, (event, order) -> {});
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void appendAfterClose() throws Exception {
+        final OrderJournal journal = new OrderJournal(folder.getRoot().toPath());
+        journal.close();
+        journal.append(JournalEvent.ADD, order1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSegmentSize() throws Exception {
+        new OrderJournal(folder.getRoot().toPath(), 16, 0);
+    }
+
+    private static OrderBook createOrderBook(){
+        return new LiveOrderBook(new OrderBookSideImpl(Side.SELL, SummaryMode.INCREMENTAL), new OrderBookSideImpl(Side.BUY, SummaryMode.INCREMENTAL));
+    }
+}
@@ -0,0 +1,49 @@
+package com.silverbars.orderbook.metrics;
+
+import com.silverbars.orderbook.OrderResult;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramOrderBookMetricsTest {
+    @Test
+    public void recordsLatencyPerOperation() {
+        final HistogramOrderBookMetrics metrics = new HistogramOrderBookMetrics();
+        metrics.recordLatency(OrderBookOperation.ADD_ORDER, 100);
+        metrics.recordLatency(OrderBookOperation.ADD_ORDER, 200);
+        metrics.recordLatency(OrderBookOperation.GET_SUMMARY, 50);
+
+        assertEquals(2, metrics.getLatency(OrderBookOperation.ADD_ORDER).getCount());
+        assertEquals(200, metrics.getLatency(OrderBookOperation.ADD_ORDER).getMax());
+        assertEquals(1, metrics.getLatency(OrderBookOperation.GET_SUMMARY).getCount());
+        assertEquals(0, metrics.getLatency(OrderBookOperation.CANCEL_ORDER).getCount());
+        assertEquals(0, metrics.getLatency(OrderBookOperation.REBUILD_SUMMARY).getCount());
+    }
+
+    @Test
+    public void countsRejectsPerResult() {
+        final HistogramOrderBookMetrics metrics = new HistogramOrderBookMetrics();
+        metrics.recordReject(OrderResult.DUPLICATE_ORDER);
+        metrics.recordReject(OrderResult.DUPLICATE_ORDER);
+        metrics.recordReject(OrderResult.UNKNOWN_ORDER);
+
+        assertEquals(2, metrics.getRejectCount(OrderResult.DUPLICATE_ORDER));
+        assertEquals(1, metrics.getRejectCount(OrderResult.UNKNOWN_ORDER));
+        assertEquals(0, metrics.getRejectCount(OrderResult.REJECTED));
+        assertEquals(3, metrics.getRejectCount());
+    }
+
+    @Test
+    public void reset() {
+        final HistogramOrderBookMetrics metrics = new HistogramOrderBookMetrics();
+        metrics.recordLatency(OrderBookOperation.CANCEL_ORDER, 100);
+        metrics.recordWriteLockWait(10);
+        metrics.recordReject(OrderResult.REJECTED);
+
+        metrics.reset();
+
+        assertEquals(0, metrics.getLatency(OrderBookOperation.CANCEL_ORDER).getCount());
+        assertEquals(0, metrics.getWriteLockWait().getCount());
+        assertEquals(0, metrics.getRejectCount());
+    }
+}
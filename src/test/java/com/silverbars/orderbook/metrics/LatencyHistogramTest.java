@@ -0,0 +1,112 @@
+package com.silverbars.orderbook.metrics;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+    @Test
+    public void emptyHistogram() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), 0);
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for( int value = 1; value <= 50; value++){
+            histogram.record(value);
+        }
+        assertEquals(50, histogram.getCount());
+        assertEquals(50, histogram.getMax());
+        assertEquals(25.5, histogram.getMean(), 0.0001);
+        assertEquals(25, histogram.getValueAtPercentile(50));
+        assertEquals(50, histogram.getValueAtPercentile(100));
+        assertEquals(1, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void largeValuesWithinPrecision() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for( long value = 1000; value <= 1_000_000; value += 1000){
+            histogram.record(value);
+        }
+        assertWithinPrecision(500_000, histogram.getValueAtPercentile(50));
+        assertWithinPrecision(990_000, histogram.getValueAtPercentile(99));
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+        assertEquals(1_000_000, histogram.getMax());
+    }
+
+    @Test
+    public void negativeValuesRecordedAsZero() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void bucketsCoverEveryValue() {
+        long previousIndex = -1;
+        for( long value = 0; value < 100_000; value++){
+            final int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(index == previousIndex || index == previousIndex + 1);
+            assertTrue(LatencyHistogram.highestEquivalentValue(index) >= value);
+            previousIndex = index;
+        }
+        final int top = LatencyHistogram.bucketIndex(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestEquivalentValue(top));
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void reset() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.record(200);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPercentile() {
+        new LatencyHistogram().getValueAtPercentile(101);
+    }
+
+    @Test
+    public void recordDoesNotAllocate() {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled());
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final long threadId = Thread.currentThread().getId();
+        for( int i = 0; i < 100_000; i++){
+            histogram.record(i);
+        }
+        final long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for( int i = 0; i < 100_000; i++){
+            histogram.record(i * 31L);
+        }
+        final long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+        // allow for getThreadAllocatedBytes itself
+        assertTrue("Allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    private static void assertWithinPrecision(final long expected, final long actual){
+        assertTrue("Expected " + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 32);
+    }
+}
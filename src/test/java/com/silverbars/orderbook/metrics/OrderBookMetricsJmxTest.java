@@ -0,0 +1,59 @@
+package com.silverbars.orderbook.metrics;
+
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.Side;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class OrderBookMetricsJmxTest {
+    @Test
+    public void exposesMetricsAndCounts() {
+        final HistogramOrderBookMetrics metrics = new HistogramOrderBookMetrics();
+        metrics.recordLatency(OrderBookOperation.ADD_ORDER, 40);
+        metrics.recordReject(OrderResult.UNKNOWN_ORDER);
+        final OrderBookMetricsJmx jmx = new OrderBookMetricsJmx(metrics,
+                side -> side == Side.SELL ? 3 : 2, side -> side == Side.SELL ? 7 : 5);
+
+        assertEquals(1, jmx.getAddOrderLatency().getCount());
+        assertEquals(40, jmx.getAddOrderLatency().getP99());
+        assertEquals(0, jmx.getCancelOrderLatency().getCount());
+        final Map<String, Long> rejects = jmx.getRejectCounts();
+        assertEquals(Long.valueOf(1), rejects.get("UNKNOWN_ORDER"));
+        assertFalse(rejects.containsKey("ADDED"));
+        assertEquals(3, jmx.getSellLevelCount());
+        assertEquals(2, jmx.getBuyLevelCount());
+        assertEquals(7, jmx.getSellOrderCount());
+        assertEquals(5, jmx.getBuyOrderCount());
+
+        jmx.reset();
+        assertEquals(0, jmx.getAddOrderLatency().getCount());
+    }
+
+    @Test
+    public void registersWithPlatformMBeanServer() throws Exception {
+        final HistogramOrderBookMetrics metrics = new HistogramOrderBookMetrics();
+        metrics.recordLatency(OrderBookOperation.GET_SUMMARY, 10);
+        final OrderBookMetricsJmx jmx = new OrderBookMetricsJmx(metrics, side -> 1, side -> 4);
+
+        final ObjectName name = jmx.register("silver");
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(4, server.getAttribute(name, "BuyOrderCount"));
+            final CompositeData summaryLatency = (CompositeData) server.getAttribute(name, "SummaryLatency");
+            assertEquals(1L, summaryLatency.get("count"));
+            assertTrue(server.getAttribute(name, "RejectCounts") instanceof TabularData);
+        }
+        finally {
+            OrderBookMetricsJmx.unregister(name);
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+}
@@ -0,0 +1,186 @@
+package com.silverbars.orderbook.registry;
+
+import com.silverbars.orderbook.Order;
+import com.silverbars.orderbook.OrderBook;
+import com.silverbars.orderbook.OrderBookException;
+import com.silverbars.orderbook.OrderResult;
+import com.silverbars.orderbook.Side;
+import com.silverbars.orderbook.impl.LiveOrderBook;
+import com.silverbars.orderbook.impl.OrderBookSideImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class OrderBookRegistryTest {
+    private final static Order order1 = new Order("1", "userId1", 2.5, 2.99, Side.SELL);
+    private final static Order order2 = new Order("2", "userId2", 4.2, 2.95, Side.SELL);
+
+    // thread each instrument's OrderBook was written on
+    private final Map<String, Set<String>> writerThreads = new ConcurrentHashMap<>();
+
+    private OrderBookRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new OrderBookRegistry(this::createOrderBook, 4);
+    }
+
+    @After
+    public void tearDown() {
+        registry.close();
+    }
+
+    @Test
+    public void booksAreSeparatePerInstrument() throws Exception {
+        registry.addOrder("silver-999", order1);
+        registry.addOrder("silver-925", order2);
+
+        assertEquals(Arrays.asList("2.5 kg for £2.99"), registry.getSummary("silver-999", Side.SELL));
+        assertEquals(Arrays.asList("4.2 kg for £2.95"), registry.getSummary("silver-925", Side.SELL));
+        assertEquals(new HashSet<>(Arrays.asList("silver-999", "silver-925")), registry.getInstruments());
+        assertSame(registry.getOrderBook("silver-999"), registry.getOrderBook("silver-999"));
+
+        registry.cancelOrder("silver-999", order1);
+        assertTrue(registry.getSummary("silver-999", Side.SELL).isEmpty());
+        assertEquals(order2, registry.cancelOrder("silver-925", order2.getOrderId()));
+        assertTrue(registry.getSummary("silver-925", Side.SELL).isEmpty());
+    }
+
+    @Test
+    public void instrumentWrittenOnItsShardOnly() throws Exception {
+        final List<CompletableFuture<Void>> adds = new ArrayList<>();
+        for( int i = 0; i < 200; i++){
+            adds.add(registry.addOrderAsync("instrument-" + (i % 10), new Order("order" + i, "user", 1.0, 2.0 + (i % 7) / 100.0, Side.BUY)));
+        }
+        CompletableFuture.allOf(adds.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        for( int i = 0; i < 10; i++){
+            final String instrumentId = "instrument-" + i;
+            assertEquals(20, registry.getOrderBook(instrumentId).getOrders(Side.BUY).size());
+            assertEquals(1, writerThreads.get(instrumentId).size());
+            assertEquals("orderbook-shard-" + registry.getShard(instrumentId), writerThreads.get(instrumentId).iterator().next());
+        }
+    }
+
+    @Test
+    public void cancelAllForUserOnEveryInstrument() throws Exception {
+        registry.addOrder("silver-999", order1);
+        registry.addOrder("silver-925", order2);
+        registry.addOrder("silver-925", new Order("3", "userId1", 1.0, 3.10, Side.BUY));
+        registry.addOrder("silver-800", new Order("4", "userId3", 1.0, 3.10, Side.BUY));
+
+        final Map<String, List<Order>> cancelled = registry.cancelAllForUser("userId1");
+
+        assertEquals(2, cancelled.size());
+        assertEquals(Arrays.asList(order1), cancelled.get("silver-999"));
+        assertEquals(1, cancelled.get("silver-925").size());
+        assertEquals(Arrays.asList(order2), registry.getOrderBook("silver-925").getOrdersForUser("userId2"));
+        assertTrue(registry.getOrderBook("silver-925").getOrdersForUser("userId1").isEmpty());
+        assertEquals(1, registry.getOrderBook("silver-800").getOrders(Side.BUY).size());
+    }
+
+    @Test
+    public void shardIsStable() {
+        final int shard = registry.getShard("silver-999");
+        assertTrue(shard >= 0 && shard < registry.getShardCount());
+        assertEquals(shard, registry.getShard("silver-999"));
+    }
+
+    @Test(expected = OrderBookException.class)
+    public void rejectionPropagated() throws Exception {
+        registry.addOrder("silver-999", order1);
+        registry.addOrder("silver-999", order1);
+    }
+
+    @Test
+    public void asyncRejectionCompletesExceptionally() throws Exception {
+        registry.addOrder("silver-999", order1);
+        try {
+            registry.cancelOrderAsync("silver-999", order2).get(5, TimeUnit.SECONDS);
+            fail("Expected cancellation of unknown order to fail");
+        }
+        catch (ExecutionException e) {
+            assertEquals(OrderResult.UNKNOWN_ORDER, ((OrderBookException) e.getCause()).getResult());
+        }
+    }
+
+    @Test
+    public void tryOperationsOnShard() throws Exception {
+        final OrderBook orderBook = registry.getOrderBook("silver-999");
+        assertEquals(OrderResult.ADDED, orderBook.tryAddOrder(order1));
+        assertEquals(OrderResult.DUPLICATE_ORDER, orderBook.tryAddOrder(order1));
+        assertEquals(OrderResult.CANCELLED, orderBook.tryCancelOrder(order1));
+        registry.close();
+        assertEquals(OrderResult.REJECTED, orderBook.tryAddOrder(order1));
+    }
+
+    @Test
+    public void batches() {
+        assertEquals(Arrays.asList(OrderResult.ADDED, OrderResult.ADDED), registry.addOrders("silver-999", Arrays.asList(order1, order2)));
+        assertEquals(Arrays.asList(OrderResult.CANCELLED), registry.cancelOrders("silver-999", Arrays.asList(order2)));
+        assertEquals(1, registry.getOrderBook("silver-999").getDepth(Side.SELL).size());
+        assertEquals(Optional.of(new BigDecimal("2.99")), registry.getOrderBook("silver-999").getBestPrice(Side.SELL));
+        assertEquals(new BigDecimal("2.5"), registry.getOrderBook("silver-999").getBestLevel(Side.SELL).get().getQuantity());
+        assertEquals(Optional.empty(), registry.getOrderBook("silver-999").getSpread());
+    }
+
+    @Test
+    public void closedRegistryRejectsWrites() throws Exception {
+        final OrderBook orderBook = registry.getOrderBook("silver-999");
+        registry.close();
+        assertEquals(Arrays.asList(OrderResult.REJECTED), orderBook.addOrders(Arrays.asList(order1)));
+        try {
+            orderBook.addOrder(order1);
+            fail("Expected add after close to fail");
+        }
+        catch (OrderBookException e) {
+            assertEquals(OrderResult.REJECTED, e.getResult());
+        }
+        final long deadline = System.currentTimeMillis() + 5000;
+        while( !registry.isTerminated() && System.currentTimeMillis() < deadline){
+            Thread.sleep(1);
+        }
+        assertTrue(registry.isTerminated());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorRequiresPositiveShardCount() {
+        new OrderBookRegistry(this::createOrderBook, 0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructorRequiresFactory() {
+        new OrderBookRegistry(null, 1);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void getOrderBookRequiresInstrumentId() {
+        registry.getOrderBook(null);
+    }
+
+    private OrderBook createOrderBook(final String instrumentId){
+        final LiveOrderBook orderBook = new LiveOrderBook(new OrderBookSideImpl(Side.SELL), new OrderBookSideImpl(Side.BUY)){
+            @Override
+            public void addOrder(final Order order) throws OrderBookException {
+                writerThreads.computeIfAbsent(instrumentId, id -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread().getName());
+                super.addOrder(order);
+            }
+        };
+        return orderBook;
+    }
+}